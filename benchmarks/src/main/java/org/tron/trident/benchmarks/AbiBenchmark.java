@@ -0,0 +1,118 @@
+package org.tron.trident.benchmarks;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.trident.abi.FunctionEncoder;
+import org.tron.trident.abi.FunctionReturnDecoder;
+import org.tron.trident.abi.TypeDecoder;
+import org.tron.trident.abi.TypeReference;
+import org.tron.trident.abi.datatypes.Address;
+import org.tron.trident.abi.datatypes.DynamicArray;
+import org.tron.trident.abi.datatypes.Function;
+import org.tron.trident.abi.datatypes.StaticStruct;
+import org.tron.trident.abi.datatypes.Type;
+import org.tron.trident.abi.datatypes.generated.Uint256;
+
+/**
+ * ABI encoding of calls and decoding of return values, including the struct and array paths of
+ * {@link TypeDecoder}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AbiBenchmark {
+
+  private static final int ARRAY_LENGTH = 32;
+
+  private Function transfer;
+  private List<TypeReference<Type>> uint256Output;
+  private List<TypeReference<Type>> structOutput;
+  private String uint256Result;
+  private String structResult;
+  private String arrayResult;
+  private TypeReference<Pair> pairReference;
+  private TypeReference<DynamicArray<Uint256>> arrayReference;
+
+  /**
+   * A {@code (uint256,uint256)} tuple.
+   */
+  public static class Pair extends StaticStruct {
+
+    public Pair(Uint256 first, Uint256 second) {
+      super(first, second);
+    }
+  }
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    transfer = new Function("transfer",
+        Arrays.asList(new Address("TJRabPrwbZy45sbavfcjinPJC18kjpRTv8"),
+            new Uint256(BigInteger.valueOf(1_000_000))),
+        Collections.emptyList());
+
+    uint256Output = Collections.singletonList(
+        (TypeReference) new TypeReference<Uint256>() {
+        });
+    uint256Result = hexWord(BigInteger.valueOf(123_456_789));
+
+    pairReference = new TypeReference<Pair>() {
+    };
+    structOutput = Collections.singletonList((TypeReference) pairReference);
+    structResult = hexWord(BigInteger.ONE) + hexWord(BigInteger.valueOf(100));
+
+    arrayReference = new TypeReference<DynamicArray<Uint256>>() {
+    };
+    StringBuilder sb = new StringBuilder(hexWord(BigInteger.valueOf(ARRAY_LENGTH)));
+    for (int i = 0; i < ARRAY_LENGTH; i++) {
+      sb.append(hexWord(BigInteger.valueOf(i)));
+    }
+    arrayResult = sb.toString();
+  }
+
+  private static String hexWord(BigInteger value) {
+    String hex = value.toString(16);
+    return new String(new char[64 - hex.length()]).replace('\0', '0') + hex;
+  }
+
+  @Benchmark
+  public String encodeTransfer() {
+    return FunctionEncoder.encode(transfer);
+  }
+
+  @Benchmark
+  public List<Type> decodeUint256() {
+    return FunctionReturnDecoder.decode(uint256Result, uint256Output);
+  }
+
+  @Benchmark
+  public List<Type> decodeStruct() {
+    return FunctionReturnDecoder.decode(structResult, structOutput);
+  }
+
+  @Benchmark
+  public Pair decodeStaticStruct() {
+    return TypeDecoder.decodeStaticStruct(structResult, 0, pairReference);
+  }
+
+  @Benchmark
+  public DynamicArray<Uint256> decodeDynamicArray() {
+    return TypeDecoder.decodeDynamicArray(arrayResult, 0, arrayReference);
+  }
+}
@@ -0,0 +1,65 @@
+package org.tron.trident.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.tron.trident.core.key.BatchAddressGenerator;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.crypto.SECP256K1;
+
+/**
+ * Generating {@code count} key pairs and their addresses with {@link KeyPair#generate()} in a loop
+ * against {@link BatchAddressGenerator}. The generator runs a single worker so both paths use one
+ * core and the scores compare per-core throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddressGenerationBenchmark {
+
+  @Param({"1024"})
+  public int count;
+
+  private BatchAddressGenerator generator;
+
+  @Setup
+  public void setUp() {
+    generator = new BatchAddressGenerator(1);
+  }
+
+  @TearDown
+  public void tearDown() {
+    generator.close();
+  }
+
+  @Benchmark
+  public void perKey(Blackhole bh) {
+    for (int i = 0; i < count; i++) {
+      SECP256K1.KeyPair pair = KeyPair.generate().getRawPair();
+      bh.consume(pair.getPrivateKey().getEncoded());
+      bh.consume(KeyPair.publicKeyToAddress(pair.getPublicKey()));
+    }
+  }
+
+  @Benchmark
+  public void batch(Blackhole bh) {
+    generator.generate(count, (privateKey, address) -> {
+      bh.consume(privateKey);
+      bh.consume(address);
+    });
+  }
+}
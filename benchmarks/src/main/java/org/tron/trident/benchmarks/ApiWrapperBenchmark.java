@@ -0,0 +1,107 @@
+package org.tron.trident.benchmarks;
+
+import com.google.protobuf.ByteString;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.trident.abi.TypeReference;
+import org.tron.trident.abi.datatypes.Address;
+import org.tron.trident.abi.datatypes.Function;
+import org.tron.trident.abi.datatypes.generated.Uint256;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.proto.Response.Account;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.TransactionExtention;
+import org.tron.trident.testing.FakeChain;
+import org.tron.trident.testing.FakeWalletServer;
+import org.tron.trident.testing.FaultInjection;
+import org.tron.trident.utils.Base58Check;
+
+/**
+ * {@link ApiWrapper} end to end against a {@link FakeWalletServer}, in process to isolate the
+ * client cost, or over localhost to include Netty and HTTP/2. Sample mode reports the latency
+ * percentiles, add {@code -prof gc} for the allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiWrapperBenchmark {
+
+  @Param({"inprocess", "localhost"})
+  public String transport;
+
+  private final AtomicLong amount = new AtomicLong();
+  private FakeWalletServer server;
+  private ApiWrapper wrapper;
+  private String owner;
+  private String receiver;
+  private String token;
+  private Function balanceOf;
+
+  @Setup
+  public void setUp() {
+    FakeChain chain = new FakeChain.Builder().setSeed(1).build();
+    KeyPair keyPair = new KeyPair(
+        "0000000000000000000000000000000000000000000000000000000000000001");
+    owner = keyPair.toBase58CheckAddress();
+    ByteString ownerAddress = ByteString.copyFrom(Base58Check.base58ToBytes(owner));
+    chain.setBalance(ownerAddress, Long.MAX_VALUE / 2);
+    ByteString tokenAddress = chain.address("token", 0);
+    chain.setTrc20Balance(tokenAddress, ownerAddress, BigInteger.TEN.pow(24));
+    chain.advance(20);
+    receiver = Base58Check.bytesToBase58(chain.address("receiver", 0).toByteArray());
+    token = Base58Check.bytesToBase58(tokenAddress.toByteArray());
+    balanceOf = new Function("balanceOf",
+        Collections.singletonList(new Address(owner)),
+        Collections.singletonList(new TypeReference<Uint256>() {}));
+
+    server = transport.equals("inprocess")
+        ? FakeWalletServer.inProcess(chain, FaultInjection.NONE)
+        : FakeWalletServer.localhost(chain, FaultInjection.NONE);
+    wrapper = server.newApiWrapper(keyPair);
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.close();
+  }
+
+  @Benchmark
+  public BlockExtention getNowBlock2() throws Exception {
+    return wrapper.getNowBlock2();
+  }
+
+  @Benchmark
+  public Account getAccount() {
+    return wrapper.getAccount(owner);
+  }
+
+  @Benchmark
+  public TransactionExtention trc20BalanceOf() {
+    return wrapper.triggerConstantContract(owner, token, balanceOf);
+  }
+
+  @Benchmark
+  public String transferSignBroadcast() throws Exception {
+    // a distinct amount per call keeps the txids distinct
+    TransactionExtention ext = wrapper.transfer(owner, receiver, amount.incrementAndGet());
+    return wrapper.broadcastTransaction(wrapper.signTransaction(ext));
+  }
+}
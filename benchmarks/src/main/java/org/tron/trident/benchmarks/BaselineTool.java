@@ -0,0 +1,179 @@
+package org.tron.trident.benchmarks;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Saves JMH results as a baseline and compares later results against it.
+ *
+ * <p>The baseline is a JSON object with a {@code benchmarks} array. Each entry holds the
+ * benchmark name, mode, parameters, score, score error and unit of one JMH result, so baselines
+ * stay small and readable in review:</p>
+ *
+ * <pre>
+ * {
+ *   "format": 1,
+ *   "created": "2024-01-01T00:00:00Z",
+ *   "jvm": "1.8.0_392 OpenJDK 64-Bit Server VM",
+ *   "benchmarks": [
+ *     {"benchmark": "org.tron.trident.benchmarks.Secp256k1Benchmark.sign", "mode": "avgt",
+ *      "params": {"engine": "java"}, "score": 61.2, "scoreError": 0.8, "unit": "us/op"}
+ *   ]
+ * }
+ * </pre>
+ *
+ * <p>Usage: {@code save <jmh-results.json> <baseline.json>} or
+ * {@code compare <jmh-results.json> <baseline.json> <threshold-percent>}. {@code compare} exits
+ * with status 1 if any benchmark is slower than its baseline by more than the threshold.</p>
+ */
+public class BaselineTool {
+
+  private static final int FORMAT = 1;
+
+  private BaselineTool() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length == 3 && args[0].equals("save")) {
+      save(Paths.get(args[1]), Paths.get(args[2]));
+    } else if (args.length == 4 && args[0].equals("compare")) {
+      int regressions = compare(Paths.get(args[1]), Paths.get(args[2]),
+          Double.parseDouble(args[3]));
+      if (regressions > 0) {
+        System.out.println(regressions + " benchmark(s) regressed beyond " + args[3] + "%");
+        System.exit(1);
+      }
+    } else {
+      System.err.println("usage: save <results> <baseline> | "
+          + "compare <results> <baseline> <threshold-percent>");
+      System.exit(2);
+    }
+  }
+
+  static void save(Path results, Path baseline) throws IOException {
+    JSONArray entries = new JSONArray();
+    entries.addAll(readResults(results).values());
+    JSONObject root = new JSONObject();
+    root.put("format", FORMAT);
+    root.put("created", Instant.now().toString());
+    root.put("jvm", System.getProperty("java.version") + " " + System.getProperty("java.vm.name"));
+    root.put("benchmarks", entries);
+    Files.write(baseline, JSON.toJSONString(root, JSONWriter.Feature.PrettyFormat)
+        .getBytes(StandardCharsets.UTF_8));
+    System.out.println("saved " + entries.size() + " results to " + baseline);
+  }
+
+  static int compare(Path results, Path baseline, double thresholdPercent) throws IOException {
+    if (!Files.exists(baseline)) {
+      throw new IllegalStateException("no baseline at " + baseline + ", run jmhSaveBaseline");
+    }
+    Map<String, JSONObject> current = readResults(results);
+    Map<String, JSONObject> base = readBaseline(baseline);
+
+    int regressions = 0;
+    System.out.printf("%-72s %12s %12s %9s%n", "benchmark", "baseline", "current", "change");
+    for (Map.Entry<String, JSONObject> entry : current.entrySet()) {
+      JSONObject now = entry.getValue();
+      JSONObject before = base.get(entry.getKey());
+      if (before == null) {
+        System.out.printf("%-72s %12s %12.3f %9s%n", entry.getKey(), "-",
+            now.getDoubleValue("score"), "new");
+        continue;
+      }
+      double worse = slowdownPercent(now.getString("mode"), before.getDoubleValue("score"),
+          now.getDoubleValue("score"));
+      boolean regressed = worse > thresholdPercent;
+      if (regressed) {
+        regressions++;
+      }
+      System.out.printf("%-72s %12.3f %12.3f %+8.1f%%%s%n", entry.getKey(),
+          before.getDoubleValue("score"), now.getDoubleValue("score"), worse,
+          regressed ? "  REGRESSION" : "");
+    }
+    for (String key : base.keySet()) {
+      if (!current.containsKey(key)) {
+        System.out.printf("%-72s %12.3f %12s %9s%n", key, base.get(key).getDoubleValue("score"),
+            "-", "missing");
+      }
+    }
+    return regressions;
+  }
+
+  /**
+   * How much slower {@code current} is than {@code baseline} in percent, negative if faster.
+   * Throughput is better when higher, every other JMH mode reports time and is better when lower.
+   */
+  static double slowdownPercent(String mode, double baseline, double current) {
+    if (baseline == 0) {
+      return 0;
+    }
+    if ("thrpt".equals(mode)) {
+      return (baseline - current) / baseline * 100;
+    }
+    return (current - baseline) / baseline * 100;
+  }
+
+  private static Map<String, JSONObject> readResults(Path results) throws IOException {
+    JSONArray array = JSON.parseArray(new String(Files.readAllBytes(results),
+        StandardCharsets.UTF_8));
+    Map<String, JSONObject> entries = new LinkedHashMap<>();
+    for (int i = 0; i < array.size(); i++) {
+      JSONObject result = array.getJSONObject(i);
+      JSONObject metric = result.getJSONObject("primaryMetric");
+      JSONObject entry = new JSONObject();
+      entry.put("benchmark", result.getString("benchmark"));
+      entry.put("mode", result.getString("mode"));
+      entry.put("params", new TreeMap<>(result.containsKey("params")
+          ? result.getJSONObject("params") : new JSONObject()));
+      entry.put("score", number(metric.get("score")));
+      entry.put("scoreError", number(metric.get("scoreError")));
+      entry.put("unit", metric.getString("scoreUnit"));
+      entries.put(key(entry), entry);
+    }
+    return entries;
+  }
+
+  private static Map<String, JSONObject> readBaseline(Path baseline) throws IOException {
+    JSONObject root = JSON.parseObject(new String(Files.readAllBytes(baseline),
+        StandardCharsets.UTF_8));
+    if (root.getIntValue("format") != FORMAT) {
+      throw new IllegalStateException("unsupported baseline format " + root.get("format"));
+    }
+    JSONArray array = root.getJSONArray("benchmarks");
+    Map<String, JSONObject> entries = new LinkedHashMap<>();
+    for (int i = 0; i < array.size(); i++) {
+      JSONObject entry = array.getJSONObject(i);
+      entries.put(key(entry), entry);
+    }
+    return entries;
+  }
+
+  private static String key(JSONObject entry) {
+    String name = entry.getString("benchmark");
+    StringBuilder sb = new StringBuilder(name.substring(name.lastIndexOf('.',
+        name.lastIndexOf('.') - 1) + 1));
+    JSONObject params = entry.getJSONObject("params");
+    if (params != null && !params.isEmpty()) {
+      sb.append(new TreeMap<>(params));
+    }
+    return sb.append(" [").append(entry.getString("mode")).append(']').toString();
+  }
+
+  private static double number(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    return value == null ? Double.NaN : Double.parseDouble(value.toString());
+  }
+}
@@ -0,0 +1,113 @@
+package org.tron.trident.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.block.BlockArchive;
+import org.tron.trident.core.block.LazyBlock;
+import org.tron.trident.core.block.LazyTransaction;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.proto.Chain.Transaction.Contract.ContractType;
+import org.tron.trident.testing.FakeChain;
+import org.tron.trident.testing.FakeWalletServer;
+import org.tron.trident.testing.FaultInjection;
+
+/**
+ * A re-indexing pass summing the TRX transfers of a range of blocks, downloaded again from a
+ * {@link FakeWalletServer} over localhost against read from a {@link BlockArchive}, whose full
+ * segments are memory-mapped. Add {@code -prof gc} for the allocation per pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockArchiveBenchmark {
+
+  @Param({"200"})
+  public int blocks;
+
+  @Param({"500"})
+  public int transactions;
+
+  private FakeWalletServer server;
+  private ApiWrapper wrapper;
+  private Path dir;
+  private BlockArchive archive;
+  private long startNum;
+
+  @Setup
+  public void setUp() throws Exception {
+    FakeChain chain = new FakeChain.Builder().setSeed(1)
+        .setTransactionsPerBlock(transactions)
+        .build();
+    startNum = chain.getHeadBlockNum() + 1;
+    chain.advance(blocks);
+    server = FakeWalletServer.localhost(chain, FaultInjection.NONE);
+    wrapper = server.newApiWrapper(KeyPair.generate());
+
+    dir = Files.createTempDirectory("block-archive");
+    archive = new BlockArchive.Builder(dir)
+        .setFirstBlockNum(startNum)
+        .setSegmentSize(16L << 20)
+        .build();
+    archive.backfill(wrapper, startNum, startNum + blocks, false);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    archive.close();
+    server.close();
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public long download() throws Exception {
+    long total = 0;
+    for (long num = startNum; num < startNum + blocks; num += 10) {
+      for (LazyBlock block : wrapper.getBlockByLimitNextLazy(num,
+          Math.min(num + 10, startNum + blocks))) {
+        total += transfers(block);
+      }
+    }
+    return total;
+  }
+
+  @Benchmark
+  public long archive() throws IOException {
+    long total = 0;
+    for (LazyBlock block : archive.getBlocks(startNum, startNum + blocks)) {
+      total += transfers(block);
+    }
+    return total;
+  }
+
+  private static long transfers(LazyBlock block) throws IOException {
+    long total = 0;
+    for (LazyTransaction txn : block.getTransactions()) {
+      if (txn.getContractType() == ContractType.TransferContract) {
+        total += txn.getAmount();
+      }
+    }
+    return total;
+  }
+}
@@ -0,0 +1,174 @@
+package org.tron.trident.benchmarks;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.block.DepositScanner;
+import org.tron.trident.core.block.LazyBlock;
+import org.tron.trident.core.block.LazyTransaction;
+import org.tron.trident.core.block.TransactionIds;
+import org.tron.trident.core.block.TransactionInfoStream;
+import org.tron.trident.core.utils.ContractParser;
+import org.tron.trident.proto.Chain.Block;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Chain.Transaction.Contract.ContractType;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.TransactionExtention;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionInfoList;
+import org.tron.trident.testing.FakeChain;
+
+/**
+ * The typical indexer passes over a serialized block: summing its TRX transfers with a full
+ * {@link BlockExtention} parse against a {@link LazyBlock}, counting the TRC20 transfer logs of
+ * its {@link TransactionInfoList} parsed whole against streamed with
+ * {@link TransactionInfoStream}, and computing the txids of a {@link Block} by re-serializing
+ * parsed transactions against hashing the received bytes with {@link TransactionIds}, on one
+ * thread or four. Add {@code -prof gc} for the allocation per block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockParsingBenchmark {
+
+  private static final int TRANSFER_AMOUNT_FIELD = 3;
+
+  @Param({"2000"})
+  public int transactions;
+
+  private ByteString block;
+  private ByteString infos;
+  private ByteString chainBlock;
+  private ExecutorService executor;
+
+  @Setup
+  public void setUp() {
+    FakeChain chain = new FakeChain.Builder().setSeed(1)
+        .setTransactionsPerBlock(transactions)
+        .build();
+    chain.advance(1);
+    block = chain.getBlock(chain.getHeadBlockNum(), true).toByteString();
+
+    TransactionInfoList.Builder list = TransactionInfoList.newBuilder();
+    for (int i = 0; i < transactions; i++) {
+      byte[] id = new byte[32];
+      id[0] = (byte) i;
+      id[1] = (byte) (i >> 8);
+      list.addTransactionInfo(TransactionInfo.newBuilder()
+          .setId(ByteString.copyFrom(id))
+          .setBlockNumber(chain.getHeadBlockNum())
+          .setFee(345_000)
+          .setContractAddress(ByteString.copyFrom(new byte[21]))
+          .addContractResult(ByteString.copyFrom(new byte[32]))
+          .addLog(TransactionInfo.Log.newBuilder()
+              .setAddress(ByteString.copyFrom(new byte[20]))
+              .addTopics(DepositScanner.TRC20_TRANSFER_TOPIC)
+              .addTopics(ByteString.copyFrom(id))
+              .addTopics(ByteString.copyFrom(id))
+              .setData(ByteString.copyFrom(new byte[32]))));
+    }
+    infos = list.build().toByteString();
+
+    Block.Builder plain = Block.newBuilder();
+    for (TransactionExtention ext : chain.getBlock(chain.getHeadBlockNum(), true)
+        .getTransactionsList()) {
+      plain.addTransactions(ext.getTransaction());
+    }
+    chainBlock = plain.build().toByteString();
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Benchmark
+  public long fullParse() throws InvalidProtocolBufferException {
+    long total = 0;
+    for (TransactionExtention ext : BlockExtention.parseFrom(block).getTransactionsList()) {
+      Transaction.Contract contract = ext.getTransaction().getRawData().getContract(0);
+      if (contract.getType() == ContractType.TransferContract) {
+        total += ContractParser.readVarintField(contract.getParameter().getValue(),
+            TRANSFER_AMOUNT_FIELD);
+      }
+    }
+    return total;
+  }
+
+  @Benchmark
+  public long lazy() throws InvalidProtocolBufferException {
+    long total = 0;
+    for (LazyTransaction txn : LazyBlock.parseFrom(block).getTransactions()) {
+      if (txn.getContractType() == ContractType.TransferContract) {
+        total += txn.getAmount();
+      }
+    }
+    return total;
+  }
+
+  @Benchmark
+  public int transactionInfoFullParse() throws InvalidProtocolBufferException {
+    int transfers = 0;
+    for (TransactionInfo info : TransactionInfoList.parseFrom(infos).getTransactionInfoList()) {
+      for (TransactionInfo.Log log : info.getLogList()) {
+        if (DepositScanner.TRC20_TRANSFER_TOPIC.equals(log.getTopics(0))) {
+          transfers++;
+        }
+      }
+    }
+    return transfers;
+  }
+
+  @Benchmark
+  public int transactionInfoStream() throws IOException {
+    int[] transfers = new int[1];
+    TransactionInfoStream.forEachLog(infos.newInput(), (txid, blockNumber, index, log) -> {
+      if (DepositScanner.TRC20_TRANSFER_TOPIC.equals(log.getTopics(0))) {
+        transfers[0]++;
+      }
+    });
+    return transfers[0];
+  }
+
+  @Benchmark
+  public List<byte[]> txidsReserialized() throws InvalidProtocolBufferException {
+    List<Transaction> txns = Block.parseFrom(chainBlock).getTransactionsList();
+    List<byte[]> txids = new ArrayList<>(txns.size());
+    for (Transaction txn : txns) {
+      txids.add(ApiWrapper.calculateTransactionHash(txn));
+    }
+    return txids;
+  }
+
+  @Benchmark
+  public List<ByteString> txidsFromBytes() throws InvalidProtocolBufferException {
+    return TransactionIds.of(LazyBlock.parseBlock(chainBlock));
+  }
+
+  @Benchmark
+  public List<ByteString> txidsFromBytesParallel() throws InvalidProtocolBufferException {
+    return TransactionIds.of(LazyBlock.parseBlock(chainBlock), executor, 4);
+  }
+}
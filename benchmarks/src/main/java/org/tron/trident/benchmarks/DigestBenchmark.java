@@ -0,0 +1,78 @@
+package org.tron.trident.benchmarks;
+
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.jcajce.provider.digest.Keccak;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.trident.crypto.Digests;
+
+/**
+ * Keccak-256 and SHA-256 through {@link Digests} against a digest allocated per call, which is
+ * what {@code Hash} and {@code Sha256Hash} did before. Run with {@code -prof gc} to see the
+ * allocation difference.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigestBenchmark {
+
+  @Param({"32", "256", "1024"})
+  public int size;
+
+  private byte[] data;
+  private final byte[] out = new byte[32];
+
+  @Setup
+  public void setUp() {
+    data = new byte[size];
+    new Random(size).nextBytes(data);
+  }
+
+  @Benchmark
+  public byte[] keccak256Fresh() {
+    Keccak.Digest256 digest = new Keccak.Digest256();
+    digest.update(data, 0, data.length);
+    return digest.digest();
+  }
+
+  @Benchmark
+  public byte[] keccak256() {
+    return Digests.keccak256(data);
+  }
+
+  @Benchmark
+  public byte[] keccak256Into() {
+    Digests.keccak256(data, 0, data.length, out, 0);
+    return out;
+  }
+
+  @Benchmark
+  public byte[] sha256Fresh() throws Exception {
+    return MessageDigest.getInstance("SHA-256").digest(data);
+  }
+
+  @Benchmark
+  public byte[] sha256() {
+    return Digests.sha256(data);
+  }
+
+  @Benchmark
+  public byte[] sha256Into() {
+    Digests.sha256(data, 0, data.length, out, 0);
+    return out;
+  }
+}
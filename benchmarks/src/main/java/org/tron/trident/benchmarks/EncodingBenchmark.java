@@ -0,0 +1,65 @@
+package org.tron.trident.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.trident.utils.Base58Check;
+import org.tron.trident.utils.Numeric;
+
+/**
+ * Base58Check addresses and hex conversion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+  private byte[] address;
+  private String base58Address;
+  private byte[] payload;
+  private String hexPayload;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(1);
+    address = new byte[21];
+    random.nextBytes(address);
+    address[0] = 0x41;
+    base58Address = Base58Check.bytesToBase58(address);
+    payload = new byte[256];
+    random.nextBytes(payload);
+    hexPayload = Numeric.toHexString(payload);
+  }
+
+  @Benchmark
+  public String base58Encode() {
+    return Base58Check.bytesToBase58(address);
+  }
+
+  @Benchmark
+  public byte[] base58Decode() {
+    return Base58Check.base58ToBytes(base58Address);
+  }
+
+  @Benchmark
+  public String hexEncode() {
+    return Numeric.toHexString(payload);
+  }
+
+  @Benchmark
+  public byte[] hexDecode() {
+    return Numeric.hexStringToByteArray(hexPayload);
+  }
+}
@@ -0,0 +1,534 @@
+package org.tron.trident.benchmarks;
+
+import com.google.protobuf.ByteString;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.tron.trident.abi.FunctionEncoder;
+import org.tron.trident.abi.TypeReference;
+import org.tron.trident.abi.datatypes.Address;
+import org.tron.trident.abi.datatypes.Bool;
+import org.tron.trident.abi.datatypes.Function;
+import org.tron.trident.abi.datatypes.generated.Uint256;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.metrics.LatencyHistogram;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Response.TransactionExtention;
+import org.tron.trident.testing.FakeChain;
+import org.tron.trident.testing.FakeWalletServer;
+import org.tron.trident.testing.FaultInjection;
+import org.tron.trident.utils.Base58Check;
+
+/**
+ * Drives a fixed rate of {@link ApiWrapper} operations against an endpoint and reports latency
+ * percentiles, throughput and the allocation rate of the worker threads.
+ *
+ * <p>Operations are started on an open-loop schedule: the i-th operation is due at
+ * {@code start + i / rate} whether or not earlier ones have completed, and its latency is
+ * measured from that due time. A client that falls behind therefore shows the queueing delay in
+ * its percentiles instead of silently sending fewer requests, which is the coordinated omission
+ * that closed-loop tools suffer from. The service time, measured from when a worker actually
+ * started the operation, is reported alongside for comparison.</p>
+ *
+ * <pre>
+ * ./gradlew :benchmarks:loadgen -Pload.args="--endpoint=fake --rate=500 --duration=30s"
+ * ./gradlew :benchmarks:loadgen -Pload.args="--endpoint=127.0.0.1:50051 --private-key=... \
+ *     --to=T... --token=T... --mix=transfer:70,account:30 --broadcast=false"
+ * </pre>
+ */
+public final class LoadGenerator {
+
+  private static final String USAGE = String.join("\n",
+      "usage: LoadGenerator [--option=value ...]",
+      "  --endpoint=host:port|fake|fake-localhost  full node, or an in-process or localhost",
+      "                                            stand-in (default fake)",
+      "  --solidity-endpoint=host:port   solidity node (default the full node endpoint)",
+      "  --api-key=key                   TRON-PRO-API-KEY",
+      "  --private-key=hex               signing key (default a funded key on the stand-in)",
+      "  --to=address                    receiver of transfers (default a fixed address)",
+      "  --token=address                 TRC20 contract (default a token on the stand-in)",
+      "  --mix=transfer:40,trc20:20,constant:20,account:20",
+      "                                  relative weights of the operations",
+      "  --rate=200                      operations started per second",
+      "  --duration=30s --warmup=5s      measured and discarded run time",
+      "  --threads=32                    worker threads",
+      "  --max-outstanding=100000        operations queued beyond this are dropped,",
+      "                                  and left out of the percentiles",
+      "  --broadcast=true                false builds and signs without broadcasting",
+      "  --fee-limit=100000000           fee limit of TRC20 transfers, in sun");
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+  /**
+   * An operation of the mix.
+   */
+  enum Operation {
+    TRANSFER("transfer"),
+    TRC20("trc20"),
+    CONSTANT("constant"),
+    ACCOUNT("account");
+
+    private final String label;
+
+    Operation(String label) {
+      this.label = label;
+    }
+
+    static Operation of(String label) {
+      for (Operation op : values()) {
+        if (op.label.equals(label)) {
+          return op;
+        }
+      }
+      throw new IllegalArgumentException("unknown operation: " + label);
+    }
+  }
+
+  /**
+   * Latencies and counts of one phase, warmup or measurement.
+   */
+  static final class Stats {
+
+    final Map<Operation, LatencyHistogram> latency = new EnumMap<>(Operation.class);
+    final Map<Operation, LatencyHistogram> service = new EnumMap<>(Operation.class);
+    final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    final LongAdder dropped = new LongAdder();
+
+    Stats() {
+      for (Operation op : Operation.values()) {
+        latency.put(op, new LatencyHistogram());
+        service.put(op, new LatencyHistogram());
+        errors.put(op, new LongAdder());
+      }
+    }
+  }
+
+  private final Map<String, String> options;
+  private final AtomicLong amount = new AtomicLong();
+  private ApiWrapper wrapper;
+  private String owner;
+  private String to;
+  private String token;
+  private Function balanceOf;
+  private long feeLimit;
+  private boolean broadcast;
+
+  private LoadGenerator(Map<String, String> options) {
+    this.options = options;
+  }
+
+  /**
+   * Entry point, see the usage printed with {@code --help}.
+   */
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      if (arg.equals("--help") || !arg.startsWith("--") || arg.indexOf('=') < 0) {
+        System.err.println(USAGE);
+        System.exit(arg.equals("--help") ? 0 : 2);
+      }
+      options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+    }
+    try {
+      new LoadGenerator(options).run();
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      System.exit(2);
+    }
+  }
+
+  private String option(String name, String defaultValue) {
+    return options.getOrDefault(name, defaultValue);
+  }
+
+  static long parseDurationNanos(String value) {
+    String v = value.trim().toLowerCase(Locale.ROOT);
+    try {
+      if (v.endsWith("ms")) {
+        return TimeUnit.MILLISECONDS.toNanos(Long.parseLong(v.substring(0, v.length() - 2)));
+      } else if (v.endsWith("s")) {
+        return TimeUnit.SECONDS.toNanos(Long.parseLong(v.substring(0, v.length() - 1)));
+      } else if (v.endsWith("m")) {
+        return TimeUnit.MINUTES.toNanos(Long.parseLong(v.substring(0, v.length() - 1)));
+      }
+      return TimeUnit.SECONDS.toNanos(Long.parseLong(v));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("bad duration: " + value);
+    }
+  }
+
+  /**
+   * Parse a mix such as {@code transfer:40,account:60} into a table with one slot per weight
+   * unit, so that picking an operation is one random index.
+   */
+  static Operation[] parseMix(String mix) {
+    Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+    int total = 0;
+    for (String part : mix.split(",")) {
+      String[] kv = part.trim().split(":");
+      int weight = kv.length == 2 ? Integer.parseInt(kv[1].trim()) : -1;
+      if (weight < 0) {
+        throw new IllegalArgumentException("bad mix entry: " + part);
+      }
+      weights.merge(Operation.of(kv[0].trim()), weight, Integer::sum);
+      total += weight;
+    }
+    if (total == 0) {
+      throw new IllegalArgumentException("mix has no weight");
+    }
+    Operation[] table = new Operation[total];
+    int i = 0;
+    for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+      for (int w = 0; w < entry.getValue(); w++) {
+        table[i++] = entry.getKey();
+      }
+    }
+    return table;
+  }
+
+  private void run() throws Exception {
+    Operation[] mix = parseMix(option("mix", "transfer:40,trc20:20,constant:20,account:20"));
+    double rate = Double.parseDouble(option("rate", "200"));
+    long durationNanos = parseDurationNanos(option("duration", "30s"));
+    long warmupNanos = parseDurationNanos(option("warmup", "5s"));
+    int threads = Integer.parseInt(option("threads", "32"));
+    int maxOutstanding = Integer.parseInt(option("max-outstanding", "100000"));
+    broadcast = Boolean.parseBoolean(option("broadcast", "true"));
+    feeLimit = Long.parseLong(option("fee-limit", "100000000"));
+    if (rate <= 0 || threads < 1) {
+      throw new IllegalArgumentException("rate and threads must be positive");
+    }
+
+    String endpoint = option("endpoint", "fake");
+    FakeWalletServer server = null;
+    ScheduledExecutorService blockProducer = null;
+    if (endpoint.startsWith("fake")) {
+      FakeChain chain = new FakeChain.Builder().setSeed(1).build();
+      KeyPair keyPair = new KeyPair(option("private-key",
+          "0000000000000000000000000000000000000000000000000000000000000001"));
+      ByteString ownerAddress = ByteString.copyFrom(
+          Base58Check.base58ToBytes(keyPair.toBase58CheckAddress()));
+      chain.setBalance(ownerAddress, Long.MAX_VALUE / 2);
+      ByteString tokenAddress = chain.address("token", 0);
+      chain.setTrc20Balance(tokenAddress, ownerAddress, BigInteger.TEN.pow(30));
+      chain.advance(20);
+      server = endpoint.equals("fake-localhost")
+          ? FakeWalletServer.localhost(chain, FaultInjection.NONE)
+          : FakeWalletServer.inProcess(chain, FaultInjection.NONE);
+      wrapper = server.newApiWrapper(keyPair);
+      token = option("token", Base58Check.bytesToBase58(tokenAddress.toByteArray()));
+      blockProducer = Executors.newSingleThreadScheduledExecutor();
+      blockProducer.scheduleAtFixedRate(() -> chain.advance(1),
+          FakeChain.BLOCK_INTERVAL_MILLIS, FakeChain.BLOCK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    } else {
+      String privateKey = options.get("private-key");
+      if (privateKey == null) {
+        throw new IllegalArgumentException("--private-key is required for a real endpoint");
+      }
+      String solidity = option("solidity-endpoint", endpoint);
+      String apiKey = options.get("api-key");
+      wrapper = apiKey == null
+          ? new ApiWrapper(endpoint, solidity, privateKey)
+          : new ApiWrapper(endpoint, solidity, privateKey, apiKey);
+      token = options.get("token");
+      if (token == null && Arrays.stream(mix)
+          .anyMatch(op -> op == Operation.TRC20 || op == Operation.CONSTANT)) {
+        throw new IllegalArgumentException("--token is required for trc20 and constant calls");
+      }
+    }
+    owner = wrapper.keyPair.toBase58CheckAddress();
+    to = option("to", "TJRabPrwbZy45sbavfcjinPJC18kjpRTv8");
+    balanceOf = new Function("balanceOf", Collections.singletonList(new Address(owner)),
+        Collections.singletonList(new TypeReference<Uint256>() {}));
+
+    System.out.printf(Locale.ROOT, "endpoint %s, rate %.0f/s, warmup %ds, duration %ds, "
+            + "%d threads, broadcast %s%n", endpoint, rate,
+        TimeUnit.NANOSECONDS.toSeconds(warmupNanos), TimeUnit.NANOSECONDS.toSeconds(durationNanos),
+        threads, broadcast);
+
+    AtomicInteger workerId = new AtomicInteger();
+    List<Thread> workerThreads = new CopyOnWriteArrayList<>();
+    ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "loadgen-" + workerId.incrementAndGet());
+      thread.setDaemon(true);
+      workerThreads.add(thread);
+      return thread;
+    });
+    try {
+      drive(mix, rate, warmupNanos, workers, maxOutstanding, null);
+      Measurement measurement = new Measurement(workerThreads);
+      Stats stats = drive(mix, rate, durationNanos, workers, maxOutstanding, measurement);
+      report(stats, measurement);
+    } finally {
+      workers.shutdownNow();
+      if (blockProducer != null) {
+        blockProducer.shutdownNow();
+      }
+      if (server != null) {
+        server.close();
+      } else {
+        wrapper.close();
+      }
+    }
+  }
+
+  /**
+   * Run the schedule for {@code durationNanos}, then wait for the operations in flight.
+   */
+  private Stats drive(Operation[] mix, double rate, long durationNanos, ExecutorService workers,
+      int maxOutstanding, Measurement measurement) throws InterruptedException {
+    Stats stats = new Stats();
+    AtomicInteger outstanding = new AtomicInteger();
+    double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    long start = System.nanoTime();
+    if (measurement != null) {
+      measurement.start();
+    }
+    for (long i = 0; ; i++) {
+      long due = start + (long) (i * intervalNanos);
+      if (due - start >= durationNanos) {
+        break;
+      }
+      long wait = due - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      Operation op = mix[ThreadLocalRandom.current().nextInt(mix.length)];
+      if (outstanding.incrementAndGet() > maxOutstanding) {
+        outstanding.decrementAndGet();
+        stats.dropped.increment();
+        continue;
+      }
+      workers.execute(() -> {
+        long begin = System.nanoTime();
+        try {
+          execute(op);
+        } catch (Exception e) {
+          stats.errors.get(op).increment();
+        } finally {
+          long end = System.nanoTime();
+          stats.latency.get(op).record(end - due);
+          stats.service.get(op).record(end - begin);
+          outstanding.decrementAndGet();
+        }
+      });
+    }
+    while (outstanding.get() > 0) {
+      Thread.sleep(10);
+    }
+    if (measurement != null) {
+      measurement.stop();
+    }
+    return stats;
+  }
+
+  private void execute(Operation op) throws Exception {
+    switch (op) {
+      case TRANSFER: {
+        TransactionExtention ext = wrapper.transfer(owner, to, amount.incrementAndGet());
+        send(wrapper.signTransaction(ext));
+        break;
+      }
+      case TRC20: {
+        Function transfer = new Function("transfer",
+            Arrays.asList(new Address(to), new Uint256(amount.incrementAndGet())),
+            Collections.singletonList(new TypeReference<Bool>() {}));
+        TransactionExtention ext = wrapper.triggerContract(owner, token,
+            FunctionEncoder.encode(transfer), 0, 0, null, feeLimit);
+        send(wrapper.signTransaction(ext));
+        break;
+      }
+      case CONSTANT:
+        wrapper.triggerConstantContract(owner, token, balanceOf);
+        break;
+      case ACCOUNT:
+        wrapper.getAccount(owner);
+        break;
+      default:
+        throw new IllegalStateException("unknown operation " + op);
+    }
+  }
+
+  private void send(Transaction signed) {
+    if (broadcast) {
+      wrapper.broadcastTransaction(signed);
+    }
+  }
+
+  /**
+   * Wall time, allocation of the worker threads and GC of the measured phase.
+   */
+  static final class Measurement {
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final List<Thread> workerThreads;
+    private long startNanos;
+    private long elapsedNanos;
+    private Map<Long, Long> startAllocated;
+    private long allocated;
+    private long startGcCount;
+    private long gcCount;
+    private long startGcMillis;
+    private long gcMillis;
+
+    Measurement(List<Thread> workerThreads) {
+      this.workerThreads = workerThreads;
+    }
+
+    void start() {
+      startAllocated = allocatedBytes();
+      startGcCount = gcCount();
+      startGcMillis = gcMillis();
+      startNanos = System.nanoTime();
+    }
+
+    void stop() {
+      elapsedNanos = System.nanoTime() - startNanos;
+      allocated = allocatedSinceStart();
+      gcCount = gcCount() - startGcCount;
+      gcMillis = gcMillis() - startGcMillis;
+    }
+
+    /**
+     * Bytes allocated by the worker threads since {@link #start}, -1 if the JVM cannot tell. A
+     * worker started during the run counts from zero.
+     */
+    private long allocatedSinceStart() {
+      Map<Long, Long> now = allocatedBytes();
+      if (startAllocated == null || now == null) {
+        return -1;
+      }
+      long total = 0;
+      for (Map.Entry<Long, Long> thread : now.entrySet()) {
+        total += thread.getValue() - startAllocated.getOrDefault(thread.getKey(), 0L);
+      }
+      return total;
+    }
+
+    /**
+     * Bytes allocated so far by each worker thread, null if the JVM cannot tell. Only the workers
+     * running the operations are counted, not the gRPC transport threads nor, with a stand-in
+     * endpoint, the in-process server.
+     */
+    private Map<Long, Long> allocatedBytes() {
+      if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+        return null;
+      }
+      com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+      if (!sunThreads.isThreadAllocatedMemoryEnabled()) {
+        return null;
+      }
+      Map<Long, Long> allocated = new HashMap<>();
+      for (Thread thread : workerThreads) {
+        long bytes = sunThreads.getThreadAllocatedBytes(thread.getId());
+        if (bytes >= 0) {
+          allocated.put(thread.getId(), bytes);
+        }
+      }
+      return allocated;
+    }
+
+    private static long gcCount() {
+      long total = 0;
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        total += Math.max(0, gc.getCollectionCount());
+      }
+      return total;
+    }
+
+    private static long gcMillis() {
+      long total = 0;
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        total += Math.max(0, gc.getCollectionTime());
+      }
+      return total;
+    }
+  }
+
+  private static void report(Stats stats, Measurement measurement) {
+    double seconds = measurement.elapsedNanos / 1e9;
+    LatencyHistogram allLatency = new LatencyHistogram();
+    long completed = 0;
+    long errors = 0;
+    System.out.println();
+    System.out.println("latency from the scheduled start, corrected for coordinated omission (ms)");
+    header();
+    for (Operation op : Operation.values()) {
+      LatencyHistogram.Snapshot snapshot = stats.latency.get(op).snapshot();
+      if (snapshot.getCount() == 0) {
+        continue;
+      }
+      row(op.label, snapshot, stats.errors.get(op).sum(), seconds);
+      completed += snapshot.getCount();
+      errors += stats.errors.get(op).sum();
+    }
+    System.out.println();
+    System.out.println("service time from the actual start, not corrected (ms)");
+    header();
+    for (Operation op : Operation.values()) {
+      LatencyHistogram.Snapshot snapshot = stats.service.get(op).snapshot();
+      if (snapshot.getCount() > 0) {
+        row(op.label, snapshot, stats.errors.get(op).sum(), seconds);
+      }
+    }
+    System.out.println();
+    System.out.printf(Locale.ROOT, "completed %d in %.1fs, %.1f ops/s, %d errors, %d dropped%n",
+        completed, seconds, completed / seconds, errors, stats.dropped.sum());
+    if (stats.dropped.sum() > 0) {
+      System.out.println("dropped operations never started and are not in the percentiles above,"
+          + " lower the rate or raise --max-outstanding");
+    }
+    if (measurement.allocated >= 0 && completed > 0) {
+      System.out.printf(Locale.ROOT, "worker allocation %.1f MB/s, %.1f KB/op%n",
+          measurement.allocated / seconds / (1 << 20),
+          (double) measurement.allocated / completed / 1024);
+    } else {
+      System.out.println("allocation not available on this JVM");
+    }
+    System.out.printf(Locale.ROOT, "gc %d collections, %d ms%n",
+        measurement.gcCount, measurement.gcMillis);
+  }
+
+  private static void header() {
+    StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-10s %9s %7s %9s",
+        "op", "count", "errors", "ops/s"));
+    for (double p : PERCENTILES) {
+      line.append(String.format(Locale.ROOT, " %9s", "p" + (p == (long) p ? String.valueOf(
+          (long) p) : String.valueOf(p))));
+    }
+    line.append(String.format(Locale.ROOT, " %9s", "max"));
+    System.out.println(line);
+  }
+
+  private static void row(String label, LatencyHistogram.Snapshot snapshot, long errors,
+      double seconds) {
+    StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%-10s %9d %7d %9.1f",
+        label, snapshot.getCount(), errors, snapshot.getCount() / seconds));
+    for (double p : PERCENTILES) {
+      line.append(String.format(Locale.ROOT, " %9.3f",
+          snapshot.getValueAtPercentile(p) / 1e6));
+    }
+    line.append(String.format(Locale.ROOT, " %9.3f", snapshot.getMax() / 1e6));
+    System.out.println(line);
+  }
+}
@@ -0,0 +1,125 @@
+package org.tron.trident.benchmarks;
+
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.trident.core.block.DepositScanner;
+import org.tron.trident.core.block.LogBloomIndex;
+import org.tron.trident.core.block.TransactionInfoStream;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionInfoList;
+
+/**
+ * A historical event query, the transfers of one rarely used token over a range of blocks, by
+ * decoding the logs of every block against decoding only the candidate blocks of a
+ * {@link LogBloomIndex}. The transaction infos are held in memory, so this measures decoding
+ * alone, a node round trip per skipped block comes on top in practice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogBloomBenchmark {
+
+  private static final ByteString TRANSFER = DepositScanner.TRC20_TRANSFER_TOPIC;
+
+  @Param({"2000"})
+  public int blocks;
+
+  @Param({"100"})
+  public int logsPerBlock;
+
+  private ByteString[] infos;
+  private ByteString token;
+  private Path file;
+  private LogBloomIndex index;
+
+  @Setup
+  public void setUp() throws IOException {
+    Random random = new Random(1);
+    token = address(1_000_000);
+    infos = new ByteString[blocks];
+    file = Files.createTempFile("log-bloom", ".idx");
+    Files.delete(file);
+    index = new LogBloomIndex.Builder(file).setFirstBlockNum(0).build();
+    for (int num = 0; num < blocks; num++) {
+      TransactionInfoList.Builder list = TransactionInfoList.newBuilder();
+      for (int i = 0; i < logsPerBlock; i++) {
+        list.addTransactionInfo(TransactionInfo.newBuilder()
+            .setId(ByteString.copyFrom(new byte[32]))
+            .setBlockNumber(num)
+            .addLog(TransactionInfo.Log.newBuilder()
+                .setAddress(address(random.nextInt(10_000)))
+                .addTopics(TRANSFER)
+                .addTopics(ByteString.copyFrom(new byte[32]))
+                .addTopics(ByteString.copyFrom(new byte[32]))
+                .setData(ByteString.copyFrom(new byte[32]))));
+      }
+      if (num % 500 == 0) {
+        list.addTransactionInfo(TransactionInfo.newBuilder()
+            .addLog(TransactionInfo.Log.newBuilder().setAddress(token).addTopics(TRANSFER)));
+      }
+      infos[num] = list.build().toByteString();
+      index.add(num, infos[num]);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    index.close();
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public int scanAll() throws IOException {
+    int matched = 0;
+    for (int num = 0; num < blocks; num++) {
+      matched += transfers(infos[num]);
+    }
+    return matched;
+  }
+
+  @Benchmark
+  public int indexed() throws IOException {
+    int matched = 0;
+    for (long num : index.candidates(0, blocks, token, TRANSFER)) {
+      matched += transfers(infos[(int) num]);
+    }
+    return matched;
+  }
+
+  private int transfers(ByteString bytes) throws IOException {
+    int[] matched = new int[1];
+    TransactionInfoStream.forEachLog(bytes.newInput(), (txid, blockNumber, logIndex, log) -> {
+      if (token.equals(log.getAddress()) && TRANSFER.equals(log.getTopics(0))) {
+        matched[0]++;
+      }
+    });
+    return matched[0];
+  }
+
+  private static ByteString address(int n) {
+    byte[] address = new byte[20];
+    address[0] = (byte) n;
+    address[1] = (byte) (n >> 8);
+    address[2] = (byte) (n >> 16);
+    return ByteString.copyFrom(address);
+  }
+}
@@ -0,0 +1,109 @@
+package org.tron.trident.benchmarks;
+
+import com.google.protobuf.ByteString;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.trident.api.GrpcAPI.AccountAddressMessage;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.GrpcAPI.NumberMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.interceptor.RecordedCall;
+import org.tron.trident.core.interceptor.RecordingInterceptor;
+import org.tron.trident.proto.Contract.TriggerSmartContract;
+import org.tron.trident.testing.FakeChain;
+import org.tron.trident.testing.FakeWalletServer;
+import org.tron.trident.testing.FaultInjection;
+import org.tron.trident.testing.ReplayServer;
+import org.tron.trident.utils.Numeric;
+
+/**
+ * Client cost of a recorded session replayed at maximum speed from a {@link ReplayServer}: every
+ * request is parsed and sent, and every response parsed, with the generated message classes.
+ * Pass a recording of real traffic with {@code -p recording=session.rec}, otherwise a synthetic
+ * session of large blocks, accounts and constant calls is recorded from a {@link FakeChain}. Add
+ * {@code -prof gc} for the allocation per replay.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayBenchmark {
+
+  @Param({""})
+  public String recording;
+
+  private ReplayServer server;
+  private ManagedChannel channel;
+
+  @Setup
+  public void setUp() throws IOException {
+    List<RecordedCall> calls = recording.isEmpty()
+        ? recordSyntheticSession()
+        : RecordedCall.readAll(Paths.get(recording));
+    server = ReplayServer.start(calls, ReplayServer.Speed.MAXIMUM);
+    channel = server.newChannel();
+  }
+
+  @TearDown
+  public void tearDown() {
+    channel.shutdownNow();
+    server.close();
+  }
+
+  @Benchmark
+  public int replay() throws InterruptedException {
+    return server.play(channel);
+  }
+
+  private static List<RecordedCall> recordSyntheticSession() throws IOException {
+    FakeChain chain = new FakeChain.Builder().setSeed(1).setTransactionsPerBlock(1000).build();
+    ByteString owner = chain.address("owner", 0);
+    ByteString token = chain.address("token", 0);
+    chain.setBalance(owner, 1_000_000_000L);
+    chain.setTrc20Balance(token, owner, BigInteger.TEN.pow(24));
+    chain.advance(20);
+    byte[] balanceOf = Numeric.hexStringToByteArray(FakeChain.BALANCE_OF
+        + Numeric.toHexStringNoPrefixZeroPadded(new BigInteger(1, owner.toByteArray()), 64));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FakeWalletServer fake = FakeWalletServer.inProcess(chain, FaultInjection.NONE);
+        RecordingInterceptor recorder = new RecordingInterceptor(out)) {
+      ManagedChannel recorded = fake.newChannel();
+      WalletGrpc.WalletBlockingStub stub =
+          WalletGrpc.newBlockingStub(ClientInterceptors.intercept(recorded, recorder));
+      for (int i = 0; i < 10; i++) {
+        stub.getNowBlock2(EmptyMessage.getDefaultInstance());
+        stub.getBlockByNum2(NumberMessage.newBuilder().setNum(1001 + i).build());
+        stub.getAccount(AccountAddressMessage.newBuilder().setAddress(owner).build());
+        stub.triggerConstantContract(TriggerSmartContract.newBuilder()
+            .setOwnerAddress(owner)
+            .setContractAddress(token)
+            .setData(ByteString.copyFrom(balanceOf))
+            .build());
+      }
+      recorded.shutdownNow();
+    }
+    return RecordedCall.readAll(new ByteArrayInputStream(out.toByteArray()));
+  }
+}
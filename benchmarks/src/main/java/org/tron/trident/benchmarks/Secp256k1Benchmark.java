@@ -0,0 +1,91 @@
+package org.tron.trident.benchmarks;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.trident.crypto.BouncyCastleSignatureEngine;
+import org.tron.trident.crypto.NativeSignatureEngine;
+import org.tron.trident.crypto.OptimizedSignatureEngine;
+import org.tron.trident.crypto.SECP256K1;
+import org.tron.trident.crypto.SignatureEngine;
+import org.tron.trident.crypto.tuwenitypes.Bytes32;
+
+/**
+ * Signing, verification and public key recovery, per {@link SignatureEngine}.
+ *
+ * <p>The native engine is not measured by default, since JMH cannot skip a parameter at run time
+ * and its library is missing on most machines. Add it with
+ * {@code -p engine=bouncycastle,java,native} where the library is installed.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Secp256k1Benchmark {
+
+  @Param({BouncyCastleSignatureEngine.NAME, OptimizedSignatureEngine.NAME})
+  public String engine;
+
+  private SECP256K1.KeyPair keyPair;
+  private Bytes32 hash;
+  private SECP256K1.Signature signature;
+
+  @Setup
+  public void setUp() {
+    SignatureEngine selected;
+    switch (engine) {
+      case OptimizedSignatureEngine.NAME:
+        selected = new OptimizedSignatureEngine();
+        break;
+      case NativeSignatureEngine.NAME:
+        if (!NativeSignatureEngine.isAvailable()) {
+          throw new IllegalStateException("native secp256k1 library is not available, run"
+              + " without -p engine=native or install the library");
+        }
+        selected = new NativeSignatureEngine();
+        break;
+      default:
+        selected = new BouncyCastleSignatureEngine();
+    }
+    SECP256K1.setSignatureEngine(selected);
+
+    byte[] bytes = new byte[32];
+    new SecureRandom().nextBytes(bytes);
+    keyPair = SECP256K1.KeyPair.generate();
+    hash = Bytes32.wrap(bytes);
+    signature = SECP256K1.sign(hash, keyPair);
+  }
+
+  @TearDown
+  public void tearDown() {
+    SECP256K1.setSignatureEngine(null);
+  }
+
+  @Benchmark
+  public SECP256K1.Signature sign() {
+    return SECP256K1.sign(hash, keyPair);
+  }
+
+  @Benchmark
+  public boolean verify() {
+    return SECP256K1.verify(hash, signature, keyPair.getPublicKey());
+  }
+
+  @Benchmark
+  public Object recover() {
+    return SECP256K1.PublicKey.recoverFromSignature(hash, signature);
+  }
+}
@@ -0,0 +1,85 @@
+package org.tron.trident.benchmarks;
+
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.exceptions.IllegalException;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.key.KeyRing;
+import org.tron.trident.core.transaction.BlockId;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Contract.TransferContract;
+import org.tron.trident.proto.Response.TransactionExtention;
+
+/**
+ * Building and signing a transfer with local transaction creation, so no request reaches the
+ * node, and computing its txid with a digest and serialized raw data allocated per call against
+ * the reused ones of a {@link KeyRing.SigningContext}. Run with {@code -prof gc} to see the
+ * allocation difference.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionBenchmark {
+
+  private ApiWrapper wrapper;
+  private TransferContract transfer;
+  private TransactionExtention unsigned;
+  private KeyRing ring;
+
+  @Setup
+  public void setUp() throws IllegalException {
+    KeyPair keyPair = KeyPair.generate();
+    wrapper = new ApiWrapper("127.0.0.1:50051", "127.0.0.1:50061", keyPair.toPrivateKey());
+    wrapper.enableLocalCreate(new BlockId(new byte[32], 1), System.currentTimeMillis() + 60_000);
+    transfer = TransferContract.newBuilder()
+        .setOwnerAddress(ApiWrapper.parseAddress(keyPair.toBase58CheckAddress()))
+        .setToAddress(ApiWrapper.parseAddress("TJRabPrwbZy45sbavfcjinPJC18kjpRTv8"))
+        .setAmount(1_000_000)
+        .build();
+    unsigned = createTransactionExtention();
+    ring = new KeyRing();
+    ring.add(keyPair);
+  }
+
+  @TearDown
+  public void tearDown() {
+    wrapper.close();
+  }
+
+  @Benchmark
+  public TransactionExtention createTransactionExtention() throws IllegalException {
+    return wrapper.createTransactionExtention(transfer,
+        Transaction.Contract.ContractType.TransferContract);
+  }
+
+  @Benchmark
+  public Transaction signTransaction() {
+    return wrapper.signTransaction(unsigned);
+  }
+
+  @Benchmark
+  public byte[] txidFresh() throws Exception {
+    return MessageDigest.getInstance("SHA-256")
+        .digest(unsigned.getTransaction().getRawData().toByteArray());
+  }
+
+  @Benchmark
+  public byte[] txidSigningContext() {
+    return ring.signingContext().hash(unsigned.getTransaction());
+  }
+}
@@ -0,0 +1,112 @@
+package org.tron.trident.benchmarks;
+
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import io.grpc.stub.StreamObserver;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.transport.TransportContext;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Response.BlockExtention;
+
+/**
+ * Unary call latency to an in-process Wallet server over loopback TCP, epoll TCP and a Unix
+ * domain socket. Requires Linux for the epoll and unix transports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportBenchmark {
+
+  private static final BlockExtention BLOCK = BlockExtention.newBuilder()
+      .setBlockHeader(BlockHeader.newBuilder().setRawData(
+          BlockHeader.raw.newBuilder().setNumber(1).setTimestamp(System.currentTimeMillis())))
+      .build();
+
+  @Param({"tcp", "epoll", "unix"})
+  public String transport;
+
+  private File socketDir;
+  private EventLoopGroup serverGroup;
+  private Server server;
+  private TransportContext context;
+  private WalletGrpc.WalletBlockingStub stub;
+
+  @Setup
+  public void setUp() throws Exception {
+    String endpoint;
+    NettyServerBuilder builder;
+    if (transport.equals("unix")) {
+      socketDir = Files.createTempDirectory("trident-bench").toFile();
+      File socket = new File(socketDir, "wallet.sock");
+      serverGroup = new EpollEventLoopGroup(1);
+      builder = NettyServerBuilder.forAddress(new DomainSocketAddress(socket))
+          .channelType(EpollServerDomainSocketChannel.class)
+          .bossEventLoopGroup(serverGroup)
+          .workerEventLoopGroup(serverGroup);
+      endpoint = "unix://" + socket.getAbsolutePath();
+    } else {
+      builder = NettyServerBuilder.forPort(0);
+      endpoint = null;
+    }
+    server = builder
+        .directExecutor()
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getNowBlock2(EmptyMessage request,
+              StreamObserver<BlockExtention> responseObserver) {
+            responseObserver.onNext(BLOCK);
+            responseObserver.onCompleted();
+          }
+        })
+        .build()
+        .start();
+    if (endpoint == null) {
+      endpoint = (transport.equals("epoll") ? "epoll://" : "") + "127.0.0.1:" + server.getPort();
+    }
+    context = new TransportContext.Builder(endpoint, endpoint).setEventLoopThreads(1).build();
+    stub = WalletGrpc.newBlockingStub(context.getChannel());
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    context.close();
+    server.shutdownNow().awaitTermination();
+    if (serverGroup != null) {
+      serverGroup.shutdownGracefully().sync();
+    }
+    if (socketDir != null) {
+      for (File file : socketDir.listFiles()) {
+        file.delete();
+      }
+      socketDir.delete();
+    }
+  }
+
+  @Benchmark
+  public BlockExtention getNowBlock2() {
+    return stub.getNowBlock2(EmptyMessage.getDefaultInstance());
+  }
+}
@@ -1,5 +1,6 @@
 package org.tron.trident.core;
 
+import static org.tron.trident.core.Constant.NODE_HEIGHT_REFRESH_INTERVAL;
 import static org.tron.trident.core.Constant.TRANSACTION_DEFAULT_EXPIRATION_TIME;
 import static org.tron.trident.core.utils.TokenValidator.validateCallValue;
 import static org.tron.trident.core.utils.TokenValidator.validateTokenId;
@@ -10,18 +11,22 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
 import io.grpc.ClientInterceptor;
 import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
 import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
 import io.grpc.stub.MetadataUtils;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import lombok.Getter;
-import org.bouncycastle.jcajce.provider.digest.SHA256;
 import org.tron.trident.abi.FunctionEncoder;
 import org.tron.trident.abi.datatypes.Function;
 import org.tron.trident.abi.datatypes.Type;
@@ -42,17 +47,29 @@ import org.tron.trident.api.GrpcAPI.PaginatedMessage;
 import org.tron.trident.api.GrpcAPI.TransactionIdList;
 import org.tron.trident.api.WalletGrpc;
 import org.tron.trident.api.WalletSolidityGrpc;
+import org.tron.trident.core.block.BlockMarshallers;
+import org.tron.trident.core.block.LazyBlock;
+import org.tron.trident.core.block.TransactionInfoStream;
 import org.tron.trident.core.contract.Contract;
 import org.tron.trident.core.contract.ContractFunction;
 import org.tron.trident.core.exceptions.IllegalException;
+import org.tron.trident.core.interceptor.ApiKeyRateLimitInterceptor;
 import org.tron.trident.core.interceptor.TimeoutInterceptor;
+import org.tron.trident.core.jfr.TransactionEvents;
 import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.key.KeyRing;
+import org.tron.trident.core.routing.Consistency;
+import org.tron.trident.core.routing.NodeRouter;
 import org.tron.trident.core.transaction.BlockId;
 import org.tron.trident.core.transaction.TransactionBuilder;
 import org.tron.trident.core.transaction.TransactionCapsule;
+import org.tron.trident.core.transport.Endpoints;
+import org.tron.trident.core.transport.TransportContext;
 import org.tron.trident.core.utils.ByteArray;
 import org.tron.trident.core.utils.Sha256Hash;
+import org.tron.trident.core.utils.SingleFlight;
 import org.tron.trident.core.utils.Utils;
+import org.tron.trident.crypto.Digests;
 import org.tron.trident.proto.Chain.Block;
 import org.tron.trident.proto.Chain.Transaction;
 import org.tron.trident.proto.Chain.Transaction.Contract.ContractType;
@@ -145,6 +162,19 @@ import org.tron.trident.utils.Numeric;
 
 public class ApiWrapper implements Api {
 
+  private static final MethodDescriptor<NumberMessage, LazyBlock> LAZY_BLOCK_BY_NUM =
+      WalletGrpc.getGetBlockByNum2Method().toBuilder(
+          ProtoUtils.marshaller(NumberMessage.getDefaultInstance()), BlockMarshallers.BLOCK)
+          .build();
+  private static final MethodDescriptor<NumberMessage, LazyBlock> LAZY_SOLIDITY_BLOCK_BY_NUM =
+      WalletSolidityGrpc.getGetBlockByNum2Method().toBuilder(
+          ProtoUtils.marshaller(NumberMessage.getDefaultInstance()), BlockMarshallers.BLOCK)
+          .build();
+  private static final MethodDescriptor<BlockLimit, List<LazyBlock>> LAZY_BLOCK_BY_LIMIT_NEXT =
+      WalletGrpc.getGetBlockByLimitNext2Method().toBuilder(
+          ProtoUtils.marshaller(BlockLimit.getDefaultInstance()), BlockMarshallers.BLOCK_LIST)
+          .build();
+
   public final WalletGrpc.WalletBlockingStub blockingStub;
   public final WalletSolidityGrpc.WalletSolidityBlockingStub blockingStubSolidity;
   public final KeyPair keyPair;
@@ -155,27 +185,45 @@ public class ApiWrapper implements Api {
    * Specify whether to createTransaction locally (default false) without grpc request. If false, we
    * need to query referHeadBlockId and head block time through grpc api in method
    * {@link #createTransaction}. {@link #referHeadBlockId} and {@link #expireTimeStamp} must be
-   * valid when it is true.
+   * valid when it is true. Held by the root wrapper and shared by its {@link #withConsistency}
+   * views.
    */
-  @Getter
   private boolean enableLocalCreateTx = false;
   /**
    * Used to set refer block number and hash when {@link #createTransaction} only if
    * {@link #enableLocalCreateTx} = true. If false, use the highest solidity BlockId instead.
    */
-  @Getter
   private BlockId referHeadBlockId;
   /**
    * Used to set transaction's expiration timestamp (milliseconds) when {@link #createTransaction} only if
    * {@link #enableLocalCreateTx} = true. If false, use the timestamp of latest head BlockId +
    * TRANSACTION_DEFAULT_EXPIRATION_TIME instead.
    */
-  @Getter
   private long expireTimeStamp = -1;
+  /**
+   * Whether {@link #channel} and {@link #channelSolidity} belong to a {@link TransportContext}, in
+   * which case {@link #close} leaves them open.
+   */
+  private boolean sharedTransport = false;
+  /**
+   * Shares identical concurrent read-only queries, null when coalescing is disabled.
+   */
+  private volatile SingleFlight<List<Object>, Object> singleFlight;
+  /**
+   * The wrapper a {@link #withConsistency} view was created from, whose coalescing and local
+   * creation settings it uses, null for a wrapper that is not a view.
+   */
+  private ApiWrapper base;
+  /**
+   * Consistency of queries that do not pass a {@link NodeType}, null to always use the full node.
+   */
+  @Getter
+  private volatile Consistency consistency;
+  private volatile NodeRouter nodeRouter;
 
   public ApiWrapper(String grpcEndpoint, String grpcEndpointSolidity, String hexPrivateKey) {
-    channel = ManagedChannelBuilder.forTarget(grpcEndpoint).usePlaintext().build();
-    channelSolidity = ManagedChannelBuilder.forTarget(grpcEndpointSolidity).usePlaintext().build();
+    channel = Endpoints.channelBuilder(grpcEndpoint).usePlaintext().build();
+    channelSolidity = Endpoints.channelBuilder(grpcEndpointSolidity).usePlaintext().build();
     blockingStub = WalletGrpc.newBlockingStub(channel);
     blockingStubSolidity = WalletSolidityGrpc.newBlockingStub(channelSolidity);
     keyPair = new KeyPair(hexPrivateKey);
@@ -183,8 +231,8 @@ public class ApiWrapper implements Api {
 
   public ApiWrapper(String grpcEndpoint, String grpcEndpointSolidity, String hexPrivateKey,
       String apiKey) {
-    channel = ManagedChannelBuilder.forTarget(grpcEndpoint).usePlaintext().build();
-    channelSolidity = ManagedChannelBuilder.forTarget(grpcEndpointSolidity).usePlaintext().build();
+    channel = Endpoints.channelBuilder(grpcEndpoint).usePlaintext().build();
+    channelSolidity = Endpoints.channelBuilder(grpcEndpointSolidity).usePlaintext().build();
 
     //attach api key
     Metadata header = new Metadata();
@@ -201,13 +249,37 @@ public class ApiWrapper implements Api {
     keyPair = new KeyPair(hexPrivateKey);
   }
 
+  /**
+   * Create a wrapper whose calls carry the keys of {@code apiKeyLimiter} and stay within their
+   * request quota, on both the full node and the solidity node.
+   *
+   * @param grpcEndpoint full node endpoint
+   * @param grpcEndpointSolidity solidity node endpoint
+   * @param hexPrivateKey the binding private key
+   * @param apiKeyLimiter the keys and their quota
+   */
+  public ApiWrapper(String grpcEndpoint, String grpcEndpointSolidity, String hexPrivateKey,
+      ApiKeyRateLimitInterceptor apiKeyLimiter) {
+    channel = Endpoints.channelBuilder(grpcEndpoint)
+        .intercept(apiKeyLimiter)
+        .usePlaintext()
+        .build();
+    channelSolidity = Endpoints.channelBuilder(grpcEndpointSolidity)
+        .intercept(apiKeyLimiter)
+        .usePlaintext()
+        .build();
+    blockingStub = WalletGrpc.newBlockingStub(channel);
+    blockingStubSolidity = WalletSolidityGrpc.newBlockingStub(channelSolidity);
+    keyPair = new KeyPair(hexPrivateKey);
+  }
+
   public ApiWrapper(String grpcEndpoint, String grpcEndpointSolidity, String hexPrivateKey,
       List<ClientInterceptor> clientInterceptors) {
-    channel = ManagedChannelBuilder.forTarget(grpcEndpoint)
+    channel = Endpoints.channelBuilder(grpcEndpoint)
         .intercept(clientInterceptors)
         .usePlaintext()
         .build();
-    channelSolidity = ManagedChannelBuilder.forTarget(grpcEndpointSolidity).usePlaintext().build();
+    channelSolidity = Endpoints.channelBuilder(grpcEndpointSolidity).usePlaintext().build();
     blockingStub = WalletGrpc.newBlockingStub(channel);
     blockingStubSolidity = WalletSolidityGrpc.newBlockingStub(channelSolidity);
     keyPair = new KeyPair(hexPrivateKey);
@@ -218,13 +290,13 @@ public class ApiWrapper implements Api {
    */
   public ApiWrapper(String grpcEndpoint, String grpcEndpointSolidity, String hexPrivateKey,
       int timeout) {
-    channel = ManagedChannelBuilder
-        .forTarget(grpcEndpoint)
+    channel = Endpoints
+        .channelBuilder(grpcEndpoint)
         .usePlaintext()
         .intercept(new TimeoutInterceptor(timeout))
         .build();
-    channelSolidity = ManagedChannelBuilder
-        .forTarget(grpcEndpointSolidity)
+    channelSolidity = Endpoints
+        .channelBuilder(grpcEndpointSolidity)
         .usePlaintext()
         .intercept(new TimeoutInterceptor(timeout))
         .build();
@@ -234,15 +306,14 @@ public class ApiWrapper implements Api {
   }
 
   /*
-     constructor enable setting timeout and custom interceptors
+     constructor enable setting timeout and custom interceptors. The timeout is set before the
+     custom interceptors see the call, so it bounds the whole call, including every attempt and
+     backoff of a RetryInterceptor.
    */
   public ApiWrapper(String grpcEndpoint, String grpcEndpointSolidity, String hexPrivateKey,
       List<ClientInterceptor> clientInterceptors, int timeout) {
 
     List<ClientInterceptor> clientInterceptorList = new ArrayList<>();
-    // first set timeout to ensure the configuration takes effect
-    clientInterceptorList.add(new TimeoutInterceptor(timeout));
-
     if (clientInterceptors != null) {
       clientInterceptorList.addAll(
           clientInterceptors.stream()
@@ -250,14 +321,16 @@ public class ApiWrapper implements Api {
               .collect(Collectors.toList())
       );
     }
+    // added last so it runs first and every interceptor sees the deadline
+    clientInterceptorList.add(new TimeoutInterceptor(timeout));
 
     channel =
-        ManagedChannelBuilder.forTarget(grpcEndpoint)
+        Endpoints.channelBuilder(grpcEndpoint)
             .usePlaintext()
             .intercept(clientInterceptorList)
             .build();
     channelSolidity =
-        ManagedChannelBuilder.forTarget(grpcEndpointSolidity)
+        Endpoints.channelBuilder(grpcEndpointSolidity)
             .usePlaintext()
             .intercept(clientInterceptorList)
             .build();
@@ -266,6 +339,46 @@ public class ApiWrapper implements Api {
     keyPair = new KeyPair(hexPrivateKey);
   }
 
+  /**
+   * Create a wrapper on channels shared through a {@link TransportContext}. The wrapper only holds
+   * stubs and the key, so any number of them can be created cheaply, e.g. one per tenant key.
+   * {@link #close} does not shut down the shared channels, close the context instead.
+   *
+   * @param transport the shared channels
+   * @param keyPair the binding key pair
+   */
+  public ApiWrapper(TransportContext transport, KeyPair keyPair) {
+    channel = transport.getChannel();
+    channelSolidity = transport.getSolidityChannel();
+    blockingStub = WalletGrpc.newBlockingStub(channel);
+    blockingStubSolidity = WalletSolidityGrpc.newBlockingStub(channelSolidity);
+    this.keyPair = keyPair;
+    sharedTransport = true;
+  }
+
+  /**
+   * Create a wrapper on channels shared through a {@link TransportContext}.
+   *
+   * @param transport the shared channels
+   * @param hexPrivateKey the binding private key
+   * @see #ApiWrapper(TransportContext, KeyPair)
+   */
+  public ApiWrapper(TransportContext transport, String hexPrivateKey) {
+    this(transport, new KeyPair(hexPrivateKey));
+  }
+
+  private ApiWrapper(ApiWrapper base, Consistency consistency) {
+    channel = base.channel;
+    channelSolidity = base.channelSolidity;
+    blockingStub = base.blockingStub;
+    blockingStubSolidity = base.blockingStubSolidity;
+    keyPair = base.keyPair;
+    sharedTransport = true;
+    this.base = base.root();
+    nodeRouter = base.getNodeRouter();
+    this.consistency = consistency;
+  }
+
   /**
    * The constructor for main net. Use TronGrid as default
    *
@@ -278,6 +391,20 @@ public class ApiWrapper implements Api {
         hexPrivateKey, apiKey);
   }
 
+  /**
+   * The constructor for main net, rotating over one or more TronGrid API keys within their
+   * request quota.
+   *
+   * @param hexPrivateKey the binding private key
+   * @param apiKeyLimiter the API keys and their quota
+   * @return a ApiWrapper object
+   */
+  public static ApiWrapper ofMainnetWithApiKeys(String hexPrivateKey,
+      ApiKeyRateLimitInterceptor apiKeyLimiter) {
+    return new ApiWrapper(Constant.TRONGRID_MAIN_NET, Constant.TRONGRID_MAIN_NET_SOLIDITY,
+        hexPrivateKey, apiKeyLimiter);
+  }
+
   /**
    * The constructor for main net.
    *
@@ -319,32 +446,156 @@ public class ApiWrapper implements Api {
    * so remember to update it timely.
    * @param expireTime transaction's absolute expire timestamp in createTransaction, milliseconds.
    */
-  public synchronized void enableLocalCreate(BlockId blockId, long expireTime) {
-    this.enableLocalCreateTx = true;
-    this.referHeadBlockId = blockId;
-    this.expireTimeStamp = expireTime;
+  public void enableLocalCreate(BlockId blockId, long expireTime) {
+    ApiWrapper root = root();
+    synchronized (root) {
+      root.enableLocalCreateTx = true;
+      root.referHeadBlockId = blockId;
+      root.expireTimeStamp = expireTime;
+    }
+  }
+
+  public void disableLocalCreate() {
+    ApiWrapper root = root();
+    synchronized (root) {
+      root.enableLocalCreateTx = false;
+      root.referHeadBlockId = null;
+      root.expireTimeStamp = -1;
+    }
+  }
+
+  public boolean isEnableLocalCreateTx() {
+    ApiWrapper root = root();
+    synchronized (root) {
+      return root.enableLocalCreateTx;
+    }
+  }
+
+  public BlockId getReferHeadBlockId() {
+    ApiWrapper root = root();
+    synchronized (root) {
+      return root.referHeadBlockId;
+    }
+  }
+
+  public long getExpireTimeStamp() {
+    ApiWrapper root = root();
+    synchronized (root) {
+      return root.expireTimeStamp;
+    }
+  }
+
+  /**
+   * Coalesce identical concurrent read-only queries: while a call of {@link #getNowBlock},
+   * {@link #getNowBlock2}, {@link #getBlockByNum}, {@link #getAccount},
+   * {@link #getAccountResource}, {@link #getAccountNet}, {@link #getChainParameters},
+   * {@link #getBandwidthPrices}, {@link #getEnergyPrices} or {@link #getMemoFee} is in flight,
+   * callers asking for the same thing on the same node wait for it and share its result instead
+   * of sending their own request.
+   *
+   * @param freshnessMillis how long a completed result keeps being shared with new callers, 0 to
+   *     only share calls that overlap. Results may be this much out of date.
+   */
+  public void enableCoalescing(long freshnessMillis) {
+    root().singleFlight = new SingleFlight<>(freshnessMillis);
+  }
+
+  public void disableCoalescing() {
+    root().singleFlight = null;
+  }
+
+  private ApiWrapper root() {
+    return base == null ? this : base;
+  }
+
+  /**
+   * Serve queries that are not given a {@link NodeType} from the node that satisfies
+   * {@code consistency}, see {@link NodeRouter}. Methods only the full node implements, such as
+   * {@link #getBlockByLatestNum} and {@link #getBlockByLimitNext}, limit their results to
+   * solidified blocks under {@link Consistency#SOLIDIFIED}, using the last solidified block
+   * number known if the solidity node stops answering, and failing with its error if none is
+   * known yet. An explicit {@code NodeType} still wins.
+   *
+   * @param consistency the consistency, null to restore the default of always using the full node
+   */
+  public void setConsistency(Consistency consistency) {
+    this.consistency = consistency;
+  }
+
+  /**
+   * A view of this wrapper that reads at {@code consistency}, e.g. for a single call:
+   * {@code wrapper.withConsistency(Consistency.atLeast(blockNum)).getAccount(address)}. The view
+   * shares channels, key, block height tracking, coalescing and local creation settings with this
+   * wrapper: enabling or disabling either on one applies to both. Closing the view has no effect.
+   *
+   * @param consistency the consistency
+   * @return the view
+   */
+  public ApiWrapper withConsistency(Consistency consistency) {
+    return new ApiWrapper(this, consistency);
+  }
+
+  /**
+   * The router tracking the block heights of the full and solidity nodes of this wrapper.
+   */
+  public NodeRouter getNodeRouter() {
+    NodeRouter router = nodeRouter;
+    if (router == null) {
+      synchronized (this) {
+        router = nodeRouter;
+        if (router == null) {
+          router = new NodeRouter(
+              () -> headBlockNum(blockingStub.getNowBlock2(EmptyMessage.getDefaultInstance())),
+              () -> headBlockNum(
+                  blockingStubSolidity.getNowBlock2(EmptyMessage.getDefaultInstance())),
+              NODE_HEIGHT_REFRESH_INTERVAL);
+          nodeRouter = router;
+        }
+      }
+    }
+    return router;
+  }
+
+  private static long headBlockNum(BlockExtention block) {
+    return block.getBlockHeader().getRawData().getNumber();
+  }
+
+  private void observeHead(boolean solidity, long blockNum) {
+    NodeRouter router = nodeRouter;
+    if (router != null) {
+      router.observe(solidity ? NodeType.SOLIDITY_NODE : NodeType.FULL_NODE, blockNum);
+    }
   }
 
-  public synchronized void disableLocalCreate() {
-    this.enableLocalCreateTx = false;
-    this.referHeadBlockId = null;
-    this.expireTimeStamp = -1;
+  @SuppressWarnings("unchecked")
+  private <T> T coalesce(String method, boolean solidity, Message request, Supplier<T> call) {
+    SingleFlight<List<Object>, Object> flight = root().singleFlight;
+    if (flight == null) {
+      return call.get();
+    }
+    return (T) flight.call(Arrays.asList(method, solidity, request), call);
   }
 
-  public synchronized void setReferHeadBlockId(BlockId blockId) {
-    if (!enableLocalCreateTx) {
-      throw new RuntimeException(
-          "Must enable local create transaction before set referHeadBlockId");
+  public void setReferHeadBlockId(BlockId blockId) {
+    ApiWrapper root = root();
+    synchronized (root) {
+      if (!root.enableLocalCreateTx) {
+        throw new RuntimeException(
+            "Must enable local create transaction before set referHeadBlockId");
+      }
+      root.referHeadBlockId = blockId;
     }
-    referHeadBlockId = blockId;
   }
 
-  public synchronized void setExpireTimeStamp(long expireTime) {
-    if (!enableLocalCreateTx) {
-      throw new RuntimeException(
-          "Must enable local create transaction before set expireTimeStamp");
+  public void setExpireTimeStamp(long expireTime) {
+    ApiWrapper root = root();
+    synchronized (root) {
+      if (!root.enableLocalCreateTx) {
+        throw new RuntimeException(
+            "Must enable local create transaction before set expireTimeStamp");
+      }
+      root.expireTimeStamp = expireTime;
     }
-    expireTimeStamp = expireTime;
   }
 
   /**
@@ -374,9 +625,7 @@ public class ApiWrapper implements Api {
   }
 
   public static byte[] calculateTransactionHash(Transaction txn) {
-    SHA256.Digest digest = new SHA256.Digest();
-    digest.update(txn.getRawData().toByteArray());
-    return digest.digest();
+    return Digests.sha256(txn.getRawData().toByteArray());
   }
 
   public static ByteString parseHex(String hexString) {
@@ -406,9 +655,10 @@ public class ApiWrapper implements Api {
       throw new IllegalArgumentException("nodeType should not be null");
     }
 
-    // When no parameter is provided, treat as FULL_NODE
+    // When no parameter is provided, route by the consistency, FULL_NODE if none is set
     if (nodeType.length == 0) {
-      return false;
+      Consistency c = consistency;
+      return c != null && getNodeRouter().route(c) == NodeType.SOLIDITY_NODE;
     }
 
     // Validate that the node type is not null
@@ -496,22 +746,32 @@ public class ApiWrapper implements Api {
   }
 
   public void close() {
+    if (sharedTransport) {
+      return;
+    }
     channel.shutdown();
     channelSolidity.shutdown();
   }
 
   @Override
   public Transaction signTransaction(TransactionExtention txnExt, KeyPair keyPair) {
+    TransactionEvents.Span span = TransactionEvents.begin(TransactionEvents.Stage.SIGN);
     byte[] txId = txnExt.getTxid().toByteArray();
     byte[] signature = KeyPair.signTransaction(txId, keyPair);
-    return txnExt.getTransaction().toBuilder().addSignature(ByteString.copyFrom(signature)).build();
+    Transaction signed = txnExt.getTransaction().toBuilder()
+        .addSignature(ByteString.copyFrom(signature)).build();
+    span.end(TransactionEvents.contractType(signed), signed.getRawData().getSerializedSize(), true);
+    return signed;
   }
 
   @Override
   public Transaction signTransaction(Transaction txn, KeyPair keyPair) {
+    TransactionEvents.Span span = TransactionEvents.begin(TransactionEvents.Stage.SIGN);
     byte[] txId = calculateTransactionHash(txn);
     byte[] signature = KeyPair.signTransaction(txId, keyPair);
-    return txn.toBuilder().addSignature(ByteString.copyFrom(signature)).build();
+    Transaction signed = txn.toBuilder().addSignature(ByteString.copyFrom(signature)).build();
+    span.end(TransactionEvents.contractType(signed), signed.getRawData().getSerializedSize(), true);
+    return signed;
   }
 
   @Override
@@ -524,6 +784,30 @@ public class ApiWrapper implements Api {
     return signTransaction(txn, keyPair);
   }
 
+  /**
+   * Sign a transaction with the key of its owner address.
+   *
+   * @param txnExt the transaction to sign
+   * @param keyRing keys indexed by owner address
+   * @return the signed transaction
+   * @throws IllegalArgumentException if the owner address has no key in the ring
+   */
+  public Transaction signTransaction(TransactionExtention txnExt, KeyRing keyRing) {
+    return keyRing.signTransaction(txnExt);
+  }
+
+  /**
+   * Sign a transaction with the key of its owner address.
+   *
+   * @param txn the transaction to sign
+   * @param keyRing keys indexed by owner address
+   * @return the signed transaction
+   * @throws IllegalArgumentException if the owner address has no key in the ring
+   */
+  public Transaction signTransaction(Transaction txn, KeyRing keyRing) {
+    return keyRing.signTransaction(txn);
+  }
+
   private TransactionCapsule createTransactionCapsuleWithoutValidate(
       Message message, Transaction.Contract.ContractType contractType,
       BlockId solidHeadBlockId, long expireTimeStamp) throws Exception {
@@ -555,21 +839,36 @@ public class ApiWrapper implements Api {
       Message message, Transaction.Contract.ContractType contractType) throws Exception {
     BlockId solidHeadBlockId;
     long transactionExpireTimeStamp;
-    if (enableLocalCreateTx) {
-      if (referHeadBlockId == null) {
+    boolean localCreate;
+    ApiWrapper root = root();
+    synchronized (root) {
+      localCreate = root.enableLocalCreateTx;
+      solidHeadBlockId = root.referHeadBlockId;
+      transactionExpireTimeStamp = root.expireTimeStamp;
+    }
+    if (localCreate) {
+      if (solidHeadBlockId == null) {
         throw new RuntimeException("referHeadBlockId must not be null");
       }
-      if (expireTimeStamp <= 0) {
+      if (transactionExpireTimeStamp <= 0) {
         throw new RuntimeException("expireTimeStamp must be > 0");
       }
-      solidHeadBlockId = referHeadBlockId;
-      transactionExpireTimeStamp = expireTimeStamp;
     } else {
+      TransactionEvents.Span span =
+          TransactionEvents.begin(TransactionEvents.Stage.REFERENCE_BLOCK);
       BlockReq blockReq = BlockReq.newBuilder().setDetail(false).build();
-      BlockExtention solidHeadBlock = blockingStubSolidity.getBlock(blockReq);
+      BlockExtention solidHeadBlock;
+      BlockExtention headBlock;
+      try {
+        solidHeadBlock = blockingStubSolidity.getBlock(blockReq);
+        headBlock = blockingStub.getBlock(blockReq);
+      } catch (RuntimeException e) {
+        span.end(contractType.name(), 0, false);
+        throw e;
+      }
+      span.end(contractType.name(),
+          solidHeadBlock.getSerializedSize() + headBlock.getSerializedSize(), true);
       solidHeadBlockId = Utils.getBlockId(solidHeadBlock);
-
-      BlockExtention headBlock = blockingStub.getBlock(blockReq);
       transactionExpireTimeStamp = headBlock.getBlockHeader().getRawData().getTimestamp()
           + TRANSACTION_DEFAULT_EXPIRATION_TIME;
     }
@@ -599,6 +898,7 @@ public class ApiWrapper implements Api {
    */
   private TransactionExtention createTransactionExtention(Message request,
       Transaction.Contract.ContractType contractType, long feeLimit) throws IllegalException {
+    TransactionEvents.Span span = TransactionEvents.begin(TransactionEvents.Stage.BUILD);
     TransactionExtention.Builder trxExtBuilder = TransactionExtention.newBuilder();
     TransactionReturn.Builder retBuilder = TransactionReturn.newBuilder();
     try {
@@ -623,9 +923,12 @@ public class ApiWrapper implements Api {
           Sha256Hash.hash(true, trxExtBuilder.getTransaction().getRawData().toByteArray())));
       retBuilder.setResult(true).setCode(TransactionReturn.response_code.SUCCESS);
     } catch (Exception e) {
+      span.end(contractType.name(), 0, false);
       throw new IllegalException("createTransactionExtention error," + e.getMessage());
     }
     trxExtBuilder.setResult(retBuilder);
+    span.end(contractType.name(),
+        trxExtBuilder.getTransaction().getRawData().getSerializedSize(), true);
     return trxExtBuilder.build();
   }
 
@@ -660,7 +963,15 @@ public class ApiWrapper implements Api {
    */
   @Override
   public String broadcastTransaction(Transaction txn) throws RuntimeException {
-    TransactionReturn ret = blockingStub.broadcastTransaction(txn);
+    TransactionEvents.Span span = TransactionEvents.begin(TransactionEvents.Stage.BROADCAST);
+    TransactionReturn ret;
+    try {
+      ret = blockingStub.broadcastTransaction(txn);
+    } catch (RuntimeException e) {
+      span.end(TransactionEvents.contractType(txn), txn.getSerializedSize(), false);
+      throw e;
+    }
+    span.end(TransactionEvents.contractType(txn), txn.getSerializedSize(), ret.getResult());
     if (!ret.getResult()) {
       String errorMessage = new String(ret.getMessage().toByteArray());
       String message = resolveResultCode(ret.getCodeValue()) + ", " + errorMessage;
@@ -1228,12 +1539,15 @@ public class ApiWrapper implements Api {
    */
   @Override
   public Block getNowBlock(NodeType... nodeType) throws IllegalException {
-    Block block = useSolidityNode(nodeType)
-        ? blockingStubSolidity.getNowBlock(EmptyMessage.newBuilder().build())
-        : blockingStub.getNowBlock(EmptyMessage.newBuilder().build());
+    boolean solidity = useSolidityNode(nodeType);
+    EmptyMessage request = EmptyMessage.getDefaultInstance();
+    Block block = coalesce("getNowBlock", solidity, request, () -> solidity
+        ? blockingStubSolidity.getNowBlock(request)
+        : blockingStub.getNowBlock(request));
     if (!block.hasBlockHeader()) {
       throw new IllegalException("Fail to get latest block.");
     }
+    observeHead(solidity, block.getBlockHeader().getRawData().getNumber());
     return block;
   }
 
@@ -1248,12 +1562,15 @@ public class ApiWrapper implements Api {
    */
   @Override
   public BlockExtention getNowBlock2(NodeType... nodeType) throws IllegalException {
-    BlockExtention block = useSolidityNode(nodeType)
-        ? blockingStubSolidity.getNowBlock2(EmptyMessage.newBuilder().build())
-        : blockingStub.getNowBlock2(EmptyMessage.newBuilder().build());
+    boolean solidity = useSolidityNode(nodeType);
+    EmptyMessage request = EmptyMessage.getDefaultInstance();
+    BlockExtention block = coalesce("getNowBlock2", solidity, request, () -> solidity
+        ? blockingStubSolidity.getNowBlock2(request)
+        : blockingStub.getNowBlock2(request));
     if (!block.hasBlockHeader()) {
       throw new IllegalException("Fail to get latest block.");
     }
+    observeHead(solidity, headBlockNum(block));
     return block;
   }
 
@@ -1270,12 +1587,11 @@ public class ApiWrapper implements Api {
   @Override
   public BlockExtention getBlockByNum(long blockNum, NodeType... nodeType)
       throws IllegalException {
-    NumberMessage.Builder builder = NumberMessage.newBuilder();
-    builder.setNum(blockNum);
-    BlockExtention block =
-        useSolidityNode(nodeType)
-            ? blockingStubSolidity.getBlockByNum2(builder.build())
-            : blockingStub.getBlockByNum2(builder.build());
+    NumberMessage request = NumberMessage.newBuilder().setNum(blockNum).build();
+    boolean solidity = useSolidityNode(nodeType);
+    BlockExtention block = coalesce("getBlockByNum2", solidity, request, () -> solidity
+        ? blockingStubSolidity.getBlockByNum2(request)
+        : blockingStub.getBlockByNum2(request));
 
     if (!block.hasBlockHeader()) {
       throw new IllegalException();
@@ -1292,6 +1608,16 @@ public class ApiWrapper implements Api {
    */
   @Override
   public BlockListExtention getBlockByLatestNum(long num) throws IllegalException {
+    Consistency c = consistency;
+    if (c != null && c.getLevel() == Consistency.Level.SOLIDIFIED) {
+      // the full node serves it, from the latest solidified block down
+      if (num < 1 || num > 99) {
+        throw new IllegalException(
+            "The number of latest blocks must be between 1 and 99, please check it.");
+      }
+      long solid = getNodeRouter().getSolidBlockNum();
+      return getBlockByLimitNext(Math.max(0, solid - num + 1), solid + 1);
+    }
     NumberMessage numberMessage = NumberMessage.newBuilder().setNum(num).build();
     //not support SolidityNode
     BlockListExtention blockListExtention = blockingStub.getBlockByLatestNum2(numberMessage);
@@ -1314,6 +1640,11 @@ public class ApiWrapper implements Api {
   @Override
   public BlockListExtention getBlockByLimitNext(long startNum, long endNum)
       throws IllegalException {
+    Consistency c = consistency;
+    if (c != null && c.getLevel() == Consistency.Level.SOLIDIFIED) {
+      // the full node serves it, limited to solidified blocks
+      endNum = Math.min(endNum, getNodeRouter().getSolidBlockNum() + 1);
+    }
     BlockLimit blockLimit = BlockLimit.newBuilder()
         .setStartNum(startNum)
         .setEndNum(endNum)
@@ -1331,6 +1662,62 @@ public class ApiWrapper implements Api {
     return blockListExtention;
   }
 
+  /**
+   * Like {@link #getBlockByNum}, but the block is kept as received and read on demand, which
+   * saves parsing every transaction when only a few fields of each are needed.
+   *
+   * @param blockNum The block height
+   * @param nodeType Optional parameter to specify which node to query.
+   *                 If not provided, uses full node default.
+   *                 If NodeType.SOLIDITY_NODE, uses solidity node.
+   * @return the lazy block
+   * @throws IllegalException if fail to get block
+   */
+  public LazyBlock getBlockByNumLazy(long blockNum, NodeType... nodeType)
+      throws IllegalException {
+    NumberMessage request = NumberMessage.newBuilder().setNum(blockNum).build();
+    LazyBlock block = useSolidityNode(nodeType)
+        ? ClientCalls.blockingUnaryCall(blockingStubSolidity.getChannel(),
+            LAZY_SOLIDITY_BLOCK_BY_NUM, blockingStubSolidity.getCallOptions(), request)
+        : ClientCalls.blockingUnaryCall(blockingStub.getChannel(), LAZY_BLOCK_BY_NUM,
+            blockingStub.getCallOptions(), request);
+    if (!block.hasBlockHeader()) {
+      throw new IllegalException();
+    }
+    return block;
+  }
+
+  /**
+   * Like {@link #getBlockByLimitNext}, but the blocks are kept as received and read on demand.
+   *
+   * @param startNum Number of start block height, including this block
+   * @param endNum Number of end block height, excluding this block
+   * @return the lazy blocks in order
+   * @throws IllegalException if the parameters are not correct
+   */
+  public List<LazyBlock> getBlockByLimitNextLazy(long startNum, long endNum)
+      throws IllegalException {
+    if (endNum - startNum > 100) {
+      throw new IllegalException("The difference between startNum and endNum cannot be greater "
+          + "than 100, please check it.");
+    }
+    Consistency c = consistency;
+    if (c != null && c.getLevel() == Consistency.Level.SOLIDIFIED) {
+      endNum = Math.min(endNum, getNodeRouter().getSolidBlockNum() + 1);
+    }
+    BlockLimit blockLimit = BlockLimit.newBuilder()
+        .setStartNum(startNum)
+        .setEndNum(endNum)
+        .build();
+    // not support SolidityNode
+    List<LazyBlock> blocks = ClientCalls.blockingUnaryCall(blockingStub.getChannel(),
+        LAZY_BLOCK_BY_LIMIT_NEXT, blockingStub.getCallOptions(), blockLimit);
+    if (blocks.isEmpty()) {
+      throw new IllegalException();
+    }
+    return blocks;
+  }
+
   /**
    * Get current API node info
    *
@@ -1387,6 +1774,60 @@ public class ApiWrapper implements Api {
         : blockingStub.getTransactionInfoByBlockNum(numberMessage);
   }
 
+  /**
+   * Like {@link #getTransactionInfoByBlockNum(long, NodeType...)}, but each
+   * {@link TransactionInfo} is passed to {@code consumer} as it is decoded instead of being
+   * collected into a list, see {@link TransactionInfoStream}.
+   *
+   * @param blockNum The block height
+   * @param consumer receives the transaction infos in block order, on the calling thread
+   * @param nodeType Optional parameter to specify which node to query.
+   *                 If not provided, uses full node default.
+   *                 If NodeType.SOLIDITY_NODE, uses solidity node.
+   * @return number of transaction infos
+   * @throws IllegalException if the blockNum is incorrect
+   */
+  public int getTransactionInfoByBlockNum(long blockNum,
+      Consumer<? super TransactionInfo> consumer, NodeType... nodeType) throws IllegalException {
+    if (blockNum < 0) {
+      throw new IllegalException("blockNum must be >= 0");
+    }
+    NumberMessage numberMessage = NumberMessage.newBuilder().setNum(blockNum).build();
+    return useSolidityNode(nodeType)
+        ? TransactionInfoStream.forEach(blockingStubSolidity.getChannel(),
+            blockingStubSolidity.getCallOptions(),
+            WalletSolidityGrpc.getGetTransactionInfoByBlockNumMethod(), numberMessage, consumer)
+        : TransactionInfoStream.forEach(blockingStub.getChannel(), blockingStub.getCallOptions(),
+            WalletGrpc.getGetTransactionInfoByBlockNumMethod(), numberMessage, consumer);
+  }
+
+  /**
+   * The event logs of the transactions of a block, passed to {@code consumer} as they are decoded
+   * without building the transaction infos, see {@link TransactionInfoStream}.
+   *
+   * @param blockNum The block height
+   * @param consumer receives the logs in block order, on the calling thread
+   * @param nodeType Optional parameter to specify which node to query.
+   *                 If not provided, uses full node default.
+   *                 If NodeType.SOLIDITY_NODE, uses solidity node.
+   * @return number of logs
+   * @throws IllegalException if the blockNum is incorrect
+   */
+  public int getLogsByBlockNum(long blockNum, TransactionInfoStream.LogConsumer consumer,
+      NodeType... nodeType) throws IllegalException {
+    if (blockNum < 0) {
+      throw new IllegalException("blockNum must be >= 0");
+    }
+    NumberMessage numberMessage = NumberMessage.newBuilder().setNum(blockNum).build();
+    return useSolidityNode(nodeType)
+        ? TransactionInfoStream.forEachLog(blockingStubSolidity.getChannel(),
+            blockingStubSolidity.getCallOptions(),
+            WalletSolidityGrpc.getGetTransactionInfoByBlockNumMethod(), numberMessage, consumer)
+        : TransactionInfoStream.forEachLog(blockingStub.getChannel(),
+            blockingStub.getCallOptions(), WalletGrpc.getGetTransactionInfoByBlockNumMethod(),
+            numberMessage, consumer);
+  }
+
   /**
    * Query the transaction fee, block height by transaction id
    *
@@ -1456,9 +1897,10 @@ public class ApiWrapper implements Api {
         .setAddress(bsAddress)
         .build();
 
-    return useSolidityNode(nodeType)
+    boolean solidity = useSolidityNode(nodeType);
+    return coalesce("getAccount", solidity, accountAddressMessage, () -> solidity
         ? blockingStubSolidity.getAccount(accountAddressMessage)
-        : blockingStub.getAccount(accountAddressMessage);
+        : blockingStub.getAccount(accountAddressMessage));
   }
 
   /**
@@ -1474,7 +1916,8 @@ public class ApiWrapper implements Api {
         .setAddress(bsAddress)
         .build();
     //not support SolidityNode
-    return blockingStub.getAccountResource(account);
+    return coalesce("getAccountResource", false, account,
+        () -> blockingStub.getAccountResource(account));
   }
 
   /**
@@ -1490,7 +1933,7 @@ public class ApiWrapper implements Api {
         .setAddress(bsAddress)
         .build();
     //not support SolidityNode
-    return blockingStub.getAccountNet(account);
+    return coalesce("getAccountNet", false, account, () -> blockingStub.getAccountNet(account));
   }
 
   @Override
@@ -1541,8 +1984,9 @@ public class ApiWrapper implements Api {
    */
   @Override
   public ChainParameters getChainParameters() throws IllegalException {
-    ChainParameters chainParameters = blockingStub.getChainParameters(
-        EmptyMessage.newBuilder().build());
+    EmptyMessage request = EmptyMessage.getDefaultInstance();
+    ChainParameters chainParameters = coalesce("getChainParameters", false, request,
+        () -> blockingStub.getChainParameters(request));
 
     if (chainParameters.getChainParameterCount() == 0) {
       throw new IllegalException("Fail to get chain parameters.");
@@ -2274,7 +2718,7 @@ public class ApiWrapper implements Api {
   @Override
   public TransactionExtention triggerConstantContract(String ownerAddress, String contractAddress,
       Function function, NodeType... nodeType) {
-    String callData = FunctionEncoder.encode(function);
+    String callData = encodeFunction(function);
     return triggerConstantContract(ownerAddress, contractAddress, callData, nodeType);
   }
 
@@ -2638,7 +3082,7 @@ public class ApiWrapper implements Api {
   @Override
   public Response.EstimateEnergyMessage estimateEnergy(String ownerAddress, String contractAddress,
       Function function, NodeType... nodeType) {
-    String encodedHex = FunctionEncoder.encode(function);
+    String encodedHex = encodeFunction(function);
     TriggerSmartContract trigger = buildTrigger(ownerAddress, contractAddress, encodedHex, 0L, 0L,
         null);
     return useSolidityNode(nodeType)
@@ -2697,6 +3141,16 @@ public class ApiWrapper implements Api {
     return blockingStub.estimateEnergy(trigger);
   }
 
+  /**
+   * ABI encode a function call, recorded as a JFR event.
+   */
+  private static String encodeFunction(Function function) {
+    TransactionEvents.Span span = TransactionEvents.begin(TransactionEvents.Stage.ABI_ENCODE);
+    String callData = FunctionEncoder.encode(function);
+    span.end(ContractType.TriggerSmartContract.name(), callData.length() / 2, true);
+    return callData;
+  }
+
   /**
    * construct TriggerSmartContract
    */
@@ -2732,9 +3186,10 @@ public class ApiWrapper implements Api {
   @Override
   public PricesResponseMessage getBandwidthPrices(NodeType... nodeType) {
     EmptyMessage emptyMessage = EmptyMessage.newBuilder().build();
-    return useSolidityNode(nodeType)
+    boolean solidity = useSolidityNode(nodeType);
+    return coalesce("getBandwidthPrices", solidity, emptyMessage, () -> solidity
         ? blockingStubSolidity.getBandwidthPrices(emptyMessage)
-        : blockingStub.getBandwidthPrices(emptyMessage);
+        : blockingStub.getBandwidthPrices(emptyMessage));
   }
 
 
@@ -2752,9 +3207,10 @@ public class ApiWrapper implements Api {
   @Override
   public PricesResponseMessage getEnergyPrices(NodeType... nodeType) {
     EmptyMessage emptyMessage = EmptyMessage.newBuilder().build();
-    return useSolidityNode(nodeType)
+    boolean solidity = useSolidityNode(nodeType);
+    return coalesce("getEnergyPrices", solidity, emptyMessage, () -> solidity
         ? blockingStubSolidity.getEnergyPrices(emptyMessage)
-        : blockingStub.getEnergyPrices(emptyMessage);
+        : blockingStub.getEnergyPrices(emptyMessage));
   }
 
 
@@ -2769,7 +3225,8 @@ public class ApiWrapper implements Api {
    */
   @Override
   public PricesResponseMessage getMemoFee() {
-    return blockingStub.getMemoFee(EmptyMessage.getDefaultInstance());
+    EmptyMessage request = EmptyMessage.getDefaultInstance();
+    return coalesce("getMemoFee", false, request, () -> blockingStub.getMemoFee(request));
   }
 
 
@@ -15,6 +15,8 @@ public final class Constant {
 
   public static final long TRANSACTION_DEFAULT_EXPIRATION_TIME = 60 * 1_000L; //60 seconds
 
+  public static final long NODE_HEIGHT_REFRESH_INTERVAL = 3 * 1_000L; //3 seconds, one block
+
   public static final String TRX_SYMBOL = "_";
 
 }
\ No newline at end of file
@@ -0,0 +1,614 @@
+package org.tron.trident.core.block;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.MethodDescriptor;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import org.tron.trident.api.GrpcAPI.NumberMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.exceptions.IllegalException;
+import org.tron.trident.proto.Response.TransactionInfo;
+
+/**
+ * An append-only local archive of blocks and their transaction infos, stored as received from
+ * the node, so that re-indexing replays from disk instead of downloading the same blocks again.
+ *
+ * <p>Records go to segment files of about {@link Builder#setSegmentSize} bytes each, a block's
+ * serialized {@code BlockExtention} followed by its serialized {@code TransactionInfoList}. A
+ * memory-mapped index of fixed-size entries, one per block number from the first block of the
+ * archive, locates them. Blocks can be appended in any order, gaps are allowed, and appending a
+ * block again replaces it. Full segments are memory-mapped for reading: {@link #getBlockBytes}
+ * and {@link #getTransactionInfos} return views of the mapped file, and {@link #getBlock} copies
+ * the block into the heap once, since lazy parsing allocates less over an array than over a
+ * mapped buffer.</p>
+ *
+ * <pre>{@code
+ * try (BlockArchive archive = new BlockArchive.Builder(dir).setFirstBlockNum(start).build()) {
+ *   archive.backfill(wrapper, start, end, true);
+ *   for (long num = start; num < end; num++) {
+ *     LazyBlock block = archive.getBlock(num);
+ *     archive.forEachTransactionInfo(num, info -> ...);
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>One thread at a time may append, any number may read, and a reader sees a replaced block
+ * either as it was or as it is, never a mix of both. Records appended since the last
+ * {@link #flush} may be lost in a crash, records whose bytes did not reach the disk are then
+ * treated as absent.</p>
+ */
+public final class BlockArchive implements AutoCloseable {
+
+  private static final int MAGIC = 0x54424152;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 32;
+  private static final int ENTRY_SIZE = 32;
+  private static final int ENTRIES_PER_CHUNK = 1 << 16;
+  private static final long CHUNK_SIZE = (long) ENTRIES_PER_CHUNK * ENTRY_SIZE;
+
+  private static final int ENTRY_OFFSET = 0;
+  private static final int ENTRY_SEGMENT = 8;
+  private static final int ENTRY_BLOCK_LENGTH = 12;
+  private static final int ENTRY_INFOS_LENGTH = 16;
+  private static final int ENTRY_FLAGS = 20;
+  private static final int FLAG_PRESENT = 1;
+  private static final int FLAG_INFOS = 2;
+  private static final int BACKFILL_BATCH = 10;
+
+  private static final MethodDescriptor.Marshaller<ByteString> BYTES =
+      new MethodDescriptor.Marshaller<ByteString>() {
+        @Override
+        public InputStream stream(ByteString value) {
+          return value.newInput();
+        }
+
+        @Override
+        public ByteString parse(InputStream stream) {
+          try {
+            return BlockMarshallers.readFully(stream);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      };
+
+  private static final MethodDescriptor<NumberMessage, ByteString> RAW_TRANSACTION_INFOS =
+      WalletGrpc.getGetTransactionInfoByBlockNumMethod().toBuilder(
+          ProtoUtils.marshaller(NumberMessage.getDefaultInstance()), BYTES).build();
+
+  private final Path dir;
+  private final long firstBlockNum;
+  private final long segmentSize;
+  private final FileChannel index;
+  private final Map<Integer, MappedByteBuffer> indexChunks = new HashMap<>();
+  private final List<FileChannel> segments = new ArrayList<>();
+  private final List<MappedByteBuffer> sealed = new ArrayList<>();
+  private long activeSize;
+  /**
+   * Written after every index update and read before every lookup, so that readers see index
+   * entries no older than the segment bytes they point to.
+   */
+  private volatile long lastBlockNum = -1;
+  /**
+   * Held while rewriting an entry readers may already see, a replaced block or a filled gap, so
+   * that they never combine fields of the old and the new record.
+   */
+  private final StampedLock entryLock = new StampedLock();
+  private boolean closed;
+
+  private BlockArchive(Path dir, long firstBlockNum, long segmentSize) throws IOException {
+    this.dir = dir;
+    Files.createDirectories(dir);
+    Path indexPath = dir.resolve("index");
+    boolean exists = Files.exists(indexPath);
+    index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      if (exists && index.size() >= HEADER_SIZE) {
+        readFully(index, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+          throw new IOException("not a block archive: " + dir);
+        }
+        this.firstBlockNum = header.getLong();
+        this.segmentSize = header.getLong();
+      } else {
+        this.firstBlockNum = firstBlockNum;
+        this.segmentSize = segmentSize;
+        header.putInt(MAGIC).putInt(VERSION).putLong(firstBlockNum).putLong(segmentSize);
+        header.flip();
+        index.write(header, 0);
+      }
+      openSegments();
+      recover();
+    } catch (IOException | RuntimeException e) {
+      closeQuietly();
+      throw e;
+    }
+  }
+
+  public Path getDirectory() {
+    return dir;
+  }
+
+  /**
+   * The lowest block number the archive can hold.
+   */
+  public long getFirstBlockNum() {
+    return firstBlockNum;
+  }
+
+  /**
+   * The highest block number stored, -1 if the archive is empty.
+   */
+  public long getLastBlockNum() {
+    return lastBlockNum;
+  }
+
+  /**
+   * Store a block and optionally its transaction infos.
+   *
+   * @param blockNum the block number
+   * @param block the serialized {@code BlockExtention}
+   * @param transactionInfos the serialized {@code TransactionInfoList}, null if not stored
+   * @throws IllegalArgumentException if the number is below {@link #getFirstBlockNum}
+   */
+  public synchronized void append(long blockNum, ByteString block, ByteString transactionInfos)
+      throws IOException {
+    checkOpen();
+    if (blockNum < firstBlockNum) {
+      throw new IllegalArgumentException(
+          "block " + blockNum + " is below the first block " + firstBlockNum);
+    }
+    if (block == null || block.isEmpty()) {
+      throw new IllegalArgumentException("block should not be empty");
+    }
+    int infosLength = transactionInfos == null ? 0 : transactionInfos.size();
+    long length = (long) block.size() + infosLength;
+    if (activeSize > 0 && activeSize + length > segmentSize) {
+      seal();
+    }
+    int segment = segments.size() - 1;
+    FileChannel channel = segments.get(segment);
+    long offset = activeSize;
+    writeFully(channel, block.asReadOnlyByteBuffer(), offset);
+    if (transactionInfos != null) {
+      writeFully(channel, transactionInfos.asReadOnlyByteBuffer(), offset + block.size());
+    }
+    activeSize += length;
+
+    ByteBuffer entry = entry(blockNum, true);
+    int position = entry.position();
+    boolean visible = blockNum <= lastBlockNum;
+    long stamp = visible ? entryLock.writeLock() : 0;
+    try {
+      entry.putLong(position + ENTRY_OFFSET, offset);
+      entry.putInt(position + ENTRY_SEGMENT, segment);
+      entry.putInt(position + ENTRY_BLOCK_LENGTH, block.size());
+      entry.putInt(position + ENTRY_INFOS_LENGTH, infosLength);
+      entry.putInt(position + ENTRY_FLAGS,
+          FLAG_PRESENT | (transactionInfos != null ? FLAG_INFOS : 0));
+    } finally {
+      if (visible) {
+        entryLock.unlockWrite(stamp);
+      }
+    }
+    lastBlockNum = Math.max(lastBlockNum, blockNum);
+  }
+
+  /**
+   * Store a block as received, see {@link ApiWrapper#getBlockByNumLazy}.
+   *
+   * @param block the block
+   * @param transactionInfos the serialized {@code TransactionInfoList}, null if not stored
+   */
+  public void append(LazyBlock block, ByteString transactionInfos) throws IOException {
+    append(block.getNumber(), block.getBytes(), transactionInfos);
+  }
+
+  /**
+   * Download and store the blocks of {@code [startNum, endNum)} that the archive does not hold,
+   * {@value #BACKFILL_BATCH} at a time so that full blocks stay below the default 4 MiB message
+   * size, with their transaction infos if asked to. Blocks are stored as the node sent them.
+   *
+   * @param wrapper queries the full node
+   * @param startNum first block, included
+   * @param endNum last block, excluded
+   * @param transactionInfos whether to store the transaction infos too
+   * @return number of blocks stored
+   * @throws IllegalException if the node rejects a range
+   */
+  public int backfill(ApiWrapper wrapper, long startNum, long endNum, boolean transactionInfos)
+      throws IOException, IllegalException {
+    int stored = 0;
+    long num = Math.max(startNum, firstBlockNum);
+    while (num < endNum) {
+      while (num < endNum && contains(num)) {
+        num++;
+      }
+      if (num >= endNum) {
+        break;
+      }
+      long batchEnd = Math.min(endNum, num + BACKFILL_BATCH);
+      for (LazyBlock block : wrapper.getBlockByLimitNextLazy(num, batchEnd)) {
+        if (contains(block.getNumber())) {
+          continue;
+        }
+        ByteString infos = transactionInfos
+            ? ClientCalls.blockingUnaryCall(wrapper.blockingStub.getChannel(),
+                RAW_TRANSACTION_INFOS, wrapper.blockingStub.getCallOptions(),
+                NumberMessage.newBuilder().setNum(block.getNumber()).build())
+            : null;
+        append(block, infos);
+        stored++;
+      }
+      num = batchEnd;
+    }
+    return stored;
+  }
+
+  /**
+   * Force appended records and the index to disk.
+   */
+  public synchronized void flush() throws IOException {
+    checkOpen();
+    segments.get(segments.size() - 1).force(false);
+    synchronized (indexChunks) {
+      for (MappedByteBuffer chunk : indexChunks.values()) {
+        chunk.force();
+      }
+    }
+  }
+
+  /**
+   * Whether the block is stored.
+   */
+  public boolean contains(long blockNum) {
+    return locate(blockNum) != null;
+  }
+
+  /**
+   * A stored block.
+   *
+   * @param blockNum the block number
+   * @return the block, null if not stored
+   */
+  public LazyBlock getBlock(long blockNum) throws IOException {
+    Entry entry = locate(blockNum);
+    return entry == null
+        ? null
+        : LazyBlock.parseFrom(read(entry.segment, entry.offset, entry.blockLength, true));
+  }
+
+  /**
+   * The stored blocks of {@code [startNum, endNum)}, in order, skipping the ones not stored.
+   */
+  public List<LazyBlock> getBlocks(long startNum, long endNum) throws IOException {
+    List<LazyBlock> blocks = new ArrayList<>();
+    for (long num = Math.max(startNum, firstBlockNum); num < endNum; num++) {
+      LazyBlock block = getBlock(num);
+      if (block != null) {
+        blocks.add(block);
+      }
+    }
+    return blocks;
+  }
+
+  /**
+   * The serialized {@code BlockExtention} of a stored block, null if not stored.
+   */
+  public ByteString getBlockBytes(long blockNum) throws IOException {
+    Entry entry = locate(blockNum);
+    return entry == null
+        ? null
+        : read(entry.segment, entry.offset, entry.blockLength, false);
+  }
+
+  /**
+   * The serialized {@code TransactionInfoList} of a block, null if it was not stored.
+   */
+  public ByteString getTransactionInfos(long blockNum) throws IOException {
+    Entry entry = locate(blockNum);
+    if (entry == null || !entry.hasInfos) {
+      return null;
+    }
+    return read(entry.segment, entry.offset + entry.blockLength, entry.infosLength, false);
+  }
+
+  /**
+   * Pass the stored transaction infos of a block to {@code consumer} one by one, see
+   * {@link TransactionInfoStream}.
+   *
+   * @return number of transaction infos, -1 if they were not stored
+   */
+  public int forEachTransactionInfo(long blockNum, Consumer<? super TransactionInfo> consumer)
+      throws IOException {
+    ByteString infos = getTransactionInfos(blockNum);
+    return infos == null ? -1 : TransactionInfoStream.forEach(infos.newInput(), consumer);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      flush();
+    } finally {
+      closed = true;
+      closeQuietly();
+    }
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("block archive is closed");
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      index.close();
+    } catch (IOException e) {
+      // closing anyway
+    }
+    for (FileChannel segment : segments) {
+      try {
+        segment.close();
+      } catch (IOException e) {
+        // closing anyway
+      }
+    }
+  }
+
+  private Path segmentPath(int segment) {
+    return dir.resolve(String.format("segment-%06d", segment));
+  }
+
+  private void openSegments() throws IOException {
+    for (int segment = 0; Files.exists(segmentPath(segment)); segment++) {
+      segments.add(FileChannel.open(segmentPath(segment), StandardOpenOption.READ,
+          StandardOpenOption.WRITE));
+    }
+    if (segments.isEmpty()) {
+      segments.add(FileChannel.open(segmentPath(0), StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+    for (int segment = 0; segment < segments.size() - 1; segment++) {
+      FileChannel channel = segments.get(segment);
+      sealed.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+    activeSize = segments.get(segments.size() - 1).size();
+  }
+
+  /**
+   * Drop index entries whose records did not fully reach the segments, and find the last block.
+   */
+  private void recover() throws IOException {
+    long entries = (index.size() - HEADER_SIZE) / ENTRY_SIZE;
+    for (long i = 0; i < entries; i++) {
+      ByteBuffer entry = entry(firstBlockNum + i, false);
+      if (entry == null) {
+        break;
+      }
+      int position = entry.position();
+      if ((entry.getInt(position + ENTRY_FLAGS) & FLAG_PRESENT) == 0) {
+        continue;
+      }
+      int segment = entry.getInt(position + ENTRY_SEGMENT);
+      long end = entry.getLong(position + ENTRY_OFFSET)
+          + entry.getInt(position + ENTRY_BLOCK_LENGTH)
+          + entry.getInt(position + ENTRY_INFOS_LENGTH);
+      if (segment >= segments.size() || end > segments.get(segment).size()) {
+        entry.putInt(position + ENTRY_FLAGS, 0);
+      } else {
+        lastBlockNum = firstBlockNum + i;
+      }
+    }
+  }
+
+  private void seal() throws IOException {
+    FileChannel active = segments.get(segments.size() - 1);
+    active.force(false);
+    MappedByteBuffer map = active.map(FileChannel.MapMode.READ_ONLY, 0, activeSize);
+    synchronized (sealed) {
+      sealed.add(map);
+    }
+    segments.add(FileChannel.open(segmentPath(segments.size()), StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE));
+    activeSize = 0;
+  }
+
+  /**
+   * The index entry of a block, positioned at its start. Only the index chunk holding it is
+   * mapped.
+   *
+   * @param create whether to map the index chunk if it does not exist yet
+   * @return the entry, null if not mapped and {@code create} is false
+   */
+  private ByteBuffer entry(long blockNum, boolean create) throws IOException {
+    long slot = blockNum - firstBlockNum;
+    int chunk = (int) (slot / ENTRIES_PER_CHUNK);
+    MappedByteBuffer map;
+    synchronized (indexChunks) {
+      map = indexChunks.get(chunk);
+      if (map == null) {
+        long position = HEADER_SIZE + chunk * CHUNK_SIZE;
+        if (!create && index.size() <= position) {
+          return null;
+        }
+        // mapping read-write past the end grows the file, with zeroed, absent entries
+        map = index.map(FileChannel.MapMode.READ_WRITE, position, CHUNK_SIZE);
+        indexChunks.put(chunk, map);
+      }
+    }
+    ByteBuffer entry = map.duplicate();
+    entry.position((int) (slot % ENTRIES_PER_CHUNK) * ENTRY_SIZE);
+    return entry;
+  }
+
+  private Entry locate(long blockNum) {
+    if (blockNum < firstBlockNum || blockNum > lastBlockNum) {
+      return null;
+    }
+    try {
+      ByteBuffer entry = entry(blockNum, false);
+      if (entry == null) {
+        return null;
+      }
+      long stamp = entryLock.tryOptimisticRead();
+      Entry found = readEntry(entry);
+      if (!entryLock.validate(stamp)) {
+        stamp = entryLock.readLock();
+        try {
+          found = readEntry(entry);
+        } finally {
+          entryLock.unlockRead(stamp);
+        }
+      }
+      return found;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Entry readEntry(ByteBuffer entry) {
+    int position = entry.position();
+    int flags = entry.getInt(position + ENTRY_FLAGS);
+    if ((flags & FLAG_PRESENT) == 0) {
+      return null;
+    }
+    return new Entry(entry.getInt(position + ENTRY_SEGMENT),
+        entry.getLong(position + ENTRY_OFFSET), entry.getInt(position + ENTRY_BLOCK_LENGTH),
+        entry.getInt(position + ENTRY_INFOS_LENGTH), (flags & FLAG_INFOS) != 0);
+  }
+
+  /**
+   * Record bytes, a view of the mapped segment unless {@code copy}, on the heap otherwise.
+   */
+  private ByteString read(int segment, long offset, int length, boolean copy)
+      throws IOException {
+    MappedByteBuffer map = null;
+    synchronized (sealed) {
+      if (segment < sealed.size()) {
+        map = sealed.get(segment);
+      }
+    }
+    if (map != null) {
+      ByteBuffer slice = map.duplicate();
+      slice.position((int) offset);
+      slice.limit((int) offset + length);
+      if (!copy) {
+        return UnsafeByteOperations.unsafeWrap(slice.slice());
+      }
+      byte[] bytes = new byte[length];
+      slice.get(bytes);
+      return UnsafeByteOperations.unsafeWrap(bytes);
+    }
+    FileChannel channel;
+    synchronized (this) {
+      channel = segments.get(segment);
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    readFully(channel, buffer, offset);
+    return UnsafeByteOperations.unsafeWrap(buffer.array());
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("unexpected end of file");
+      }
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    long written = 0;
+    while (buffer.hasRemaining()) {
+      written += channel.write(buffer, position + written);
+    }
+  }
+
+  private static final class Entry {
+
+    final int segment;
+    final long offset;
+    final int blockLength;
+    final int infosLength;
+    final boolean hasInfos;
+
+    Entry(int segment, long offset, int blockLength, int infosLength, boolean hasInfos) {
+      this.segment = segment;
+      this.offset = offset;
+      this.blockLength = blockLength;
+      this.infosLength = infosLength;
+      this.hasInfos = hasInfos;
+    }
+  }
+
+  /**
+   * Opens an archive, creating it if the directory holds none.
+   */
+  public static class Builder {
+
+    private final Path dir;
+    private long firstBlockNum;
+    private long segmentSize = 256L << 20;
+
+    public Builder(Path dir) {
+      if (dir == null) {
+        throw new IllegalArgumentException("dir should not be null");
+      }
+      this.dir = dir;
+    }
+
+    /**
+     * Lowest block number of a new archive, 0 by default. The index has an entry for every
+     * number from there, so start it near the first block to be stored. Ignored for an
+     * existing archive.
+     */
+    public Builder setFirstBlockNum(long firstBlockNum) {
+      if (firstBlockNum < 0) {
+        throw new IllegalArgumentException("firstBlockNum must be >= 0");
+      }
+      this.firstBlockNum = firstBlockNum;
+      return this;
+    }
+
+    /**
+     * Size a segment grows to before the next one is started, 256 MiB by default. Segments are
+     * mapped whole, so they must stay below 2 GiB. Ignored for an existing archive.
+     */
+    public Builder setSegmentSize(long segmentSize) {
+      if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("segmentSize must be > 0 and < 2 GiB");
+      }
+      this.segmentSize = segmentSize;
+      return this;
+    }
+
+    public BlockArchive build() throws IOException {
+      return new BlockArchive(dir, firstBlockNum, segmentSize);
+    }
+  }
+}
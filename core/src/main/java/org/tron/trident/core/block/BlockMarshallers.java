@@ -0,0 +1,149 @@
+package org.tron.trident.core.block;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
+import com.google.protobuf.WireFormat;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * gRPC response marshallers producing {@link LazyBlock}s, for use with the request half of the
+ * generated method descriptors.
+ *
+ * <p>The generated marshaller parses the response stream into message trees. These read it once
+ * into a single array sized from the stream, which gRPC knows the length of, and index it in
+ * place, so a large block is neither parsed nor copied again.</p>
+ *
+ * <pre>{@code
+ * MethodDescriptor<NumberMessage, LazyBlock> method = WalletGrpc.getGetBlockByNum2Method()
+ *     .toBuilder(ProtoUtils.marshaller(NumberMessage.getDefaultInstance()), BlockMarshallers.BLOCK)
+ *     .build();
+ * }</pre>
+ */
+public final class BlockMarshallers {
+
+  private static final int BLOCK_LIST_BLOCK = 1;
+
+  /**
+   * A {@code BlockExtention} response.
+   */
+  public static final MethodDescriptor.Marshaller<LazyBlock> BLOCK =
+      new MethodDescriptor.Marshaller<LazyBlock>() {
+        @Override
+        public InputStream stream(LazyBlock value) {
+          return value.getBytes().newInput();
+        }
+
+        @Override
+        public LazyBlock parse(InputStream stream) {
+          try {
+            return LazyBlock.parseFrom(readFully(stream));
+          } catch (IOException e) {
+            throw Status.INTERNAL.withDescription("invalid block").withCause(e)
+                .asRuntimeException();
+          }
+        }
+      };
+
+  /**
+   * A {@code BlockListExtention} response.
+   */
+  public static final MethodDescriptor.Marshaller<List<LazyBlock>> BLOCK_LIST =
+      new MethodDescriptor.Marshaller<List<LazyBlock>>() {
+        @Override
+        public InputStream stream(List<LazyBlock> value) {
+          int size = 0;
+          for (LazyBlock block : value) {
+            size += CodedOutputStream.computeBytesSize(BLOCK_LIST_BLOCK, block.getBytes());
+          }
+          byte[] bytes = new byte[size];
+          CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+          try {
+            for (LazyBlock block : value) {
+              out.writeBytes(BLOCK_LIST_BLOCK, block.getBytes());
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public List<LazyBlock> parse(InputStream stream) {
+          try {
+            return parseBlockList(readFully(stream));
+          } catch (IOException e) {
+            throw Status.INTERNAL.withDescription("invalid block list").withCause(e)
+                .asRuntimeException();
+          }
+        }
+      };
+
+  private BlockMarshallers() {
+  }
+
+  /**
+   * Index the blocks of a serialized {@code BlockListExtention}.
+   *
+   * @param bytes the serialized list
+   * @return the blocks in order
+   * @throws InvalidProtocolBufferException if the list is malformed
+   */
+  public static List<LazyBlock> parseBlockList(ByteString bytes)
+      throws InvalidProtocolBufferException {
+    List<LazyBlock> blocks = new ArrayList<>();
+    try {
+      CodedInputStream input = bytes.newCodedInput();
+      input.enableAliasing(true);
+      for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+        if (WireFormat.getTagFieldNumber(tag) == BLOCK_LIST_BLOCK
+            && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+          blocks.add(LazyBlock.parseFrom(input.readBytes()));
+        } else {
+          input.skipField(tag);
+        }
+      }
+    } catch (InvalidProtocolBufferException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new InvalidProtocolBufferException(e);
+    }
+    return Collections.unmodifiableList(blocks);
+  }
+
+  /**
+   * Read a response stream into one array. gRPC's streams report their whole remaining length
+   * from {@code available()}, so the array is allocated once at its final size.
+   */
+  static ByteString readFully(InputStream stream) throws IOException {
+    int size = stream.available();
+    if (size <= 0) {
+      return ByteString.readFrom(stream);
+    }
+    byte[] buffer = new byte[size];
+    int read = 0;
+    while (read < size) {
+      int n = stream.read(buffer, read, size - read);
+      if (n < 0) {
+        break;
+      }
+      read += n;
+    }
+    if (read < size || stream.available() > 0) {
+      // not a known-length stream after all
+      ByteString head = UnsafeByteOperations.unsafeWrap(buffer, 0, read);
+      return read < size ? head : head.concat(ByteString.readFrom(stream));
+    }
+    return UnsafeByteOperations.unsafeWrap(buffer);
+  }
+}
@@ -0,0 +1,250 @@
+package org.tron.trident.core.block;
+
+import com.google.protobuf.ByteString;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import org.bouncycastle.util.encoders.Hex;
+import org.tron.trident.core.utils.AddressSet;
+import org.tron.trident.core.utils.ContractParser;
+import org.tron.trident.core.utils.Sha256Hash;
+import org.tron.trident.proto.Chain.Block;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Chain.Transaction.Contract.ContractType;
+import org.tron.trident.proto.Chain.Transaction.Result.contractResult;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.TransactionExtention;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionInfoList;
+
+/**
+ * Finds transfers into a set of watched addresses.
+ *
+ * <p>TRX ({@code TransferContract}) and TRC10 ({@code TransferAssetContract}) transfers are taken
+ * from the transactions of a block, reading the destination address and amount straight from the
+ * serialized contract parameter. TRC20 transfers are taken from the {@code Transfer} event logs of
+ * the block's {@link TransactionInfoList}. Only matching transfers allocate anything, so a block is
+ * scanned in a few microseconds regardless of the size of the {@link AddressSet}.</p>
+ *
+ * <pre>{@code
+ * DepositScanner scanner = new DepositScanner(watched);
+ * List<Deposit> deposits = scanner.scan(wrapper.getBlockByNum(num));
+ * deposits.addAll(scanner.scan(wrapper.getTransactionInfoByBlockNum(num)));
+ * }</pre>
+ */
+public class DepositScanner {
+
+  /**
+   * {@code keccak256("Transfer(address,address,uint256)")}.
+   */
+  public static final ByteString TRC20_TRANSFER_TOPIC = ByteString.copyFrom(Hex.decode(
+      "ddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef"));
+
+  private static final int TRANSFER_AMOUNT_FIELD = 3;
+  private static final int TRANSFER_ASSET_NAME_FIELD = 1;
+  private static final int TRANSFER_ASSET_AMOUNT_FIELD = 4;
+
+  private final AddressSet watched;
+
+  public DepositScanner(AddressSet watched) {
+    if (watched == null) {
+      throw new IllegalArgumentException("watched should not be null");
+    }
+    this.watched = watched;
+  }
+
+  /**
+   * TRX and TRC10 deposits of a block returned by the node.
+   *
+   * @param block the block
+   * @return the deposits in block order
+   */
+  public List<Deposit> scan(BlockExtention block) {
+    List<Deposit> deposits = new ArrayList<>();
+    long blockNum = block.getBlockHeader().getRawData().getNumber();
+    for (TransactionExtention txnExt : block.getTransactionsList()) {
+      scanTransaction(txnExt.getTransaction(), txnExt.getTxid(), blockNum, deposits);
+    }
+    return deposits;
+  }
+
+  /**
+   * TRX and TRC10 deposits of a block.
+   *
+   * @param block the block
+   * @return the deposits in block order
+   */
+  public List<Deposit> scan(Block block) {
+    List<Deposit> deposits = new ArrayList<>();
+    long blockNum = block.getBlockHeader().getRawData().getNumber();
+    for (Transaction txn : block.getTransactionsList()) {
+      scanTransaction(txn, null, blockNum, deposits);
+    }
+    return deposits;
+  }
+
+  /**
+   * TRC20 deposits of the transactions of a block.
+   *
+   * @param infos the transaction infos of the block
+   * @return the deposits in block order
+   */
+  public List<Deposit> scan(TransactionInfoList infos) {
+    List<Deposit> deposits = new ArrayList<>();
+    for (TransactionInfo info : infos.getTransactionInfoList()) {
+      scanLogs(info, deposits);
+    }
+    return deposits;
+  }
+
+  /**
+   * TRC20 deposits of one transaction.
+   *
+   * @param info the transaction info
+   * @return the deposits in log order
+   */
+  public List<Deposit> scan(TransactionInfo info) {
+    List<Deposit> deposits = new ArrayList<>();
+    scanLogs(info, deposits);
+    return deposits;
+  }
+
+  private void scanTransaction(Transaction txn, ByteString txid, long blockNum,
+      List<Deposit> deposits) {
+    List<Transaction.Contract> contracts = txn.getRawData().getContractList();
+    for (int i = 0; i < contracts.size(); i++) {
+      Transaction.Contract contract = contracts.get(i);
+      ContractType type = contract.getType();
+      if (type != ContractType.TransferContract && type != ContractType.TransferAssetContract) {
+        continue;
+      }
+      ByteString to = ContractParser.getToAddress(contract);
+      if (!watched.contains(to) || failed(txn, i)) {
+        continue;
+      }
+      if (txid == null) {
+        txid = ByteString.copyFrom(Sha256Hash.hash(true, txn.getRawData().toByteArray()));
+      }
+      ByteString value = contract.getParameter().getValue();
+      if (type == ContractType.TransferContract) {
+        deposits.add(new Deposit(Deposit.Type.TRX, txid, blockNum,
+            ContractParser.getOwnerAddress(contract), to, ByteString.EMPTY,
+            BigInteger.valueOf(ContractParser.readVarintField(value, TRANSFER_AMOUNT_FIELD))));
+      } else {
+        deposits.add(new Deposit(Deposit.Type.TRC10, txid, blockNum,
+            ContractParser.getOwnerAddress(contract), to,
+            ContractParser.readBytesField(value, TRANSFER_ASSET_NAME_FIELD),
+            BigInteger.valueOf(
+                ContractParser.readVarintField(value, TRANSFER_ASSET_AMOUNT_FIELD))));
+      }
+    }
+  }
+
+  private static boolean failed(Transaction txn, int contractIndex) {
+    if (txn.getRetCount() <= contractIndex) {
+      return false;
+    }
+    contractResult result = txn.getRet(contractIndex).getContractRet();
+    return result != contractResult.DEFAULT && result != contractResult.SUCCESS;
+  }
+
+  private void scanLogs(TransactionInfo info, List<Deposit> deposits) {
+    if (info.getResult() == TransactionInfo.code.FAILED) {
+      return;
+    }
+    for (TransactionInfo.Log log : info.getLogList()) {
+      if (log.getTopicsCount() != 3 || !TRC20_TRANSFER_TOPIC.equals(log.getTopics(0))) {
+        continue;
+      }
+      ByteString topic = log.getTopics(2);
+      if (topic.size() != 32 || !watched.containsBody(topic, 12)) {
+        continue;
+      }
+      deposits.add(new Deposit(Deposit.Type.TRC20, info.getId(), info.getBlockNumber(),
+          toAddress(log.getTopics(1)), toAddress(topic), toAddress(log.getAddress()),
+          new BigInteger(1, log.getData().toByteArray())));
+    }
+  }
+
+  private static ByteString toAddress(ByteString value) {
+    if (value.size() < 20) {
+      return value;
+    }
+    return ByteString.copyFrom(new byte[] {AddressSet.ADDRESS_PREFIX})
+        .concat(value.substring(value.size() - 20));
+  }
+
+  /**
+   * A transfer into a watched address.
+   */
+  public static final class Deposit {
+
+    /**
+     * Kind of the transferred token.
+     */
+    public enum Type {
+      TRX,
+      TRC10,
+      TRC20
+    }
+
+    private final Type type;
+    private final ByteString txid;
+    private final long blockNum;
+    private final ByteString from;
+    private final ByteString to;
+    private final ByteString token;
+    private final BigInteger amount;
+
+    Deposit(Type type, ByteString txid, long blockNum, ByteString from, ByteString to,
+        ByteString token, BigInteger amount) {
+      this.type = type;
+      this.txid = txid;
+      this.blockNum = blockNum;
+      this.from = from;
+      this.to = to;
+      this.token = token;
+      this.amount = amount;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    public ByteString getTxid() {
+      return txid;
+    }
+
+    public long getBlockNum() {
+      return blockNum;
+    }
+
+    /**
+     * Raw sender address.
+     */
+    public ByteString getFrom() {
+      return from;
+    }
+
+    /**
+     * Raw watched address that received the transfer.
+     */
+    public ByteString getTo() {
+      return to;
+    }
+
+    /**
+     * The TRC10 token id or name, the raw TRC20 contract address, empty for TRX.
+     */
+    public ByteString getToken() {
+      return token;
+    }
+
+    /**
+     * Amount in the smallest unit of the token, sun for TRX.
+     */
+    public BigInteger getAmount() {
+      return amount;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package org.tron.trident.core.block;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.tron.trident.proto.Chain.Block;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Response.BlockExtention;
+
+/**
+ * A block as received from the node, kept serialized and read on demand.
+ *
+ * <p>Parsing a {@link BlockExtention} builds every transaction, contract parameter and result of
+ * the block, although an indexer typically needs a few fields of each transaction. A lazy block
+ * only records where each transaction starts in the received bytes. The header is parsed on first
+ * use, and each {@link LazyTransaction} reads its own fields when asked, without copying them out
+ * of the block bytes.</p>
+ *
+ * <pre>{@code
+ * LazyBlock block = wrapper.getBlockByNumLazy(num);
+ * for (LazyTransaction txn : block.getTransactions()) {
+ *   if (txn.getContractType() == ContractType.TransferContract) {
+ *     credit(txn.getToAddress(), txn.getAmount());
+ *   }
+ * }
+ * }</pre>
+ */
+public final class LazyBlock {
+
+  private static final int TRANSACTIONS = 1;
+  private static final int BLOCK_HEADER = 2;
+  private static final int BLOCKID = 3;
+
+  private final ByteString bytes;
+  private final boolean extention;
+  private final List<ByteString> transactions;
+  private final ByteString header;
+  private final ByteString blockId;
+  private volatile BlockHeader parsedHeader;
+
+  private LazyBlock(ByteString bytes, boolean extention, List<ByteString> transactions,
+      ByteString header, ByteString blockId) {
+    this.bytes = bytes;
+    this.extention = extention;
+    this.transactions = transactions;
+    this.header = header;
+    this.blockId = blockId;
+  }
+
+  /**
+   * Index a serialized {@link BlockExtention}. Only the top-level fields are read, transactions
+   * are skipped over and keep sharing {@code bytes}.
+   *
+   * @param bytes the serialized block
+   * @return the lazy block
+   * @throws InvalidProtocolBufferException if the block is malformed
+   */
+  public static LazyBlock parseFrom(ByteString bytes) throws InvalidProtocolBufferException {
+    return parse(bytes, true);
+  }
+
+  /**
+   * Index a serialized {@link Block}, whose transactions come without txids. The block id is
+   * empty.
+   *
+   * @param bytes the serialized block
+   * @return the lazy block
+   * @throws InvalidProtocolBufferException if the block is malformed
+   */
+  public static LazyBlock parseBlock(ByteString bytes) throws InvalidProtocolBufferException {
+    return parse(bytes, false);
+  }
+
+  private static LazyBlock parse(ByteString bytes, boolean extention)
+      throws InvalidProtocolBufferException {
+    List<ByteString> transactions = new ArrayList<>();
+    ByteString header = null;
+    ByteString blockId = ByteString.EMPTY;
+    try {
+      CodedInputStream input = bytes.newCodedInput();
+      input.enableAliasing(true);
+      for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+        if (WireFormat.getTagWireType(tag) != WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+          input.skipField(tag);
+          continue;
+        }
+        switch (WireFormat.getTagFieldNumber(tag)) {
+          case TRANSACTIONS:
+            transactions.add(input.readBytes());
+            break;
+          case BLOCK_HEADER:
+            header = input.readBytes();
+            break;
+          case BLOCKID:
+            ByteString id = input.readBytes();
+            if (extention) {
+              blockId = id;
+            }
+            break;
+          default:
+            input.skipField(tag);
+        }
+      }
+    } catch (InvalidProtocolBufferException e) {
+      throw e;
+    } catch (IOException e) {
+      throw new InvalidProtocolBufferException(e);
+    }
+    return new LazyBlock(bytes, extention, Collections.unmodifiableList(transactions), header,
+        blockId);
+  }
+
+  /**
+   * The serialized {@link BlockExtention}, or {@link Block} if parsed with {@link #parseBlock}.
+   */
+  public ByteString getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Whether the block has a header, false for the empty block the node returns for a block it
+   * does not have.
+   */
+  public boolean hasBlockHeader() {
+    return header != null;
+  }
+
+  /**
+   * The header, parsed on first use.
+   */
+  public BlockHeader getBlockHeader() {
+    BlockHeader parsed = parsedHeader;
+    if (parsed == null) {
+      try {
+        parsed = header == null
+            ? BlockHeader.getDefaultInstance()
+            : BlockHeader.parseFrom(header);
+      } catch (InvalidProtocolBufferException e) {
+        throw new IllegalArgumentException("malformed block header", e);
+      }
+      parsedHeader = parsed;
+    }
+    return parsed;
+  }
+
+  public long getNumber() {
+    return getBlockHeader().getRawData().getNumber();
+  }
+
+  /**
+   * Block time in milliseconds.
+   */
+  public long getTimestamp() {
+    return getBlockHeader().getRawData().getTimestamp();
+  }
+
+  public ByteString getBlockId() {
+    return blockId;
+  }
+
+  public int getTransactionCount() {
+    return transactions.size();
+  }
+
+  /**
+   * The transaction at {@code index}, a new view over the block bytes on every call.
+   */
+  public LazyTransaction getTransaction(int index) {
+    return new LazyTransaction(transactions.get(index), extention);
+  }
+
+  ByteString getTransactionBytes(int index) {
+    return transactions.get(index);
+  }
+
+  boolean isExtention() {
+    return extention;
+  }
+
+  /**
+   * The transactions in block order. Views are created as the list is read.
+   */
+  public List<LazyTransaction> getTransactions() {
+    return new AbstractList<LazyTransaction>() {
+      @Override
+      public LazyTransaction get(int index) {
+        return getTransaction(index);
+      }
+
+      @Override
+      public int size() {
+        return transactions.size();
+      }
+    };
+  }
+
+  /**
+   * Parse the whole block, with computed txids if it was parsed from a {@link Block}.
+   */
+  public BlockExtention toBlockExtention() {
+    if (!extention) {
+      BlockExtention.Builder block = BlockExtention.newBuilder();
+      if (header != null) {
+        block.setBlockHeader(getBlockHeader());
+      }
+      for (LazyTransaction txn : getTransactions()) {
+        block.addTransactions(txn.toTransactionExtention());
+      }
+      return block.build();
+    }
+    try {
+      return BlockExtention.parseFrom(bytes);
+    } catch (InvalidProtocolBufferException e) {
+      throw new IllegalArgumentException("malformed block", e);
+    }
+  }
+}
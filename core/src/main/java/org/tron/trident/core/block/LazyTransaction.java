@@ -0,0 +1,387 @@
+package org.tron.trident.core.block;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import org.tron.trident.core.utils.ContractParser;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Chain.Transaction.Contract.ContractType;
+import org.tron.trident.proto.Chain.Transaction.Result.contractResult;
+import org.tron.trident.proto.Response.TransactionExtention;
+
+/**
+ * A transaction of a {@link LazyBlock}, read from its serialized {@link TransactionExtention}, or
+ * {@link Transaction} for a {@code Block}, on first access.
+ *
+ * <p>The first accessor walks the transaction once, recording the txid, the raw data, the first
+ * contract, its parameter and the first result, all as slices of the block bytes. Contract fields
+ * are then read from the parameter with {@link ContractParser} without unpacking it, addresses
+ * and call data being small copies that do not keep the block alive. A
+ * transaction carries a single contract in practice, so the contract accessors describe the
+ * first one.</p>
+ */
+public final class LazyTransaction {
+
+  private static final int EXT_TRANSACTION = 1;
+  private static final int EXT_TXID = 2;
+  private static final int TXN_RAW_DATA = 1;
+  private static final int TXN_RET = 5;
+  private static final int RAW_EXPIRATION = 8;
+  private static final int RAW_CONTRACT = 11;
+  private static final int RAW_TIMESTAMP = 14;
+  private static final int RAW_FEE_LIMIT = 18;
+  private static final int CONTRACT_TYPE = 1;
+  private static final int CONTRACT_PARAMETER = 2;
+  private static final int ANY_VALUE = 2;
+  private static final int RET_CONTRACT_RET = 3;
+
+  private static final int TRANSFER_AMOUNT = 3;
+  private static final int TRANSFER_ASSET_AMOUNT = 4;
+  private static final int TRIGGER_CONTRACT_ADDRESS = 2;
+  private static final int TRIGGER_CALL_VALUE = 3;
+  private static final int TRIGGER_DATA = 4;
+
+  private final ByteString bytes;
+  private final boolean extention;
+  private volatile boolean parsed;
+  private volatile ByteString computedTxid;
+  private ByteString txid = ByteString.EMPTY;
+  private ByteString transaction = ByteString.EMPTY;
+  private ByteString rawData = ByteString.EMPTY;
+  private ByteString parameter = ByteString.EMPTY;
+  private int contractType = -1;
+  private int contractRet;
+  private long timestamp;
+  private long expiration;
+  private long feeLimit;
+
+  LazyTransaction(ByteString bytes, boolean extention) {
+    this.bytes = bytes;
+    this.extention = extention;
+  }
+
+  /**
+   * A view of a serialized {@link TransactionExtention}.
+   */
+  public static LazyTransaction of(ByteString transactionExtention) {
+    return new LazyTransaction(transactionExtention, true);
+  }
+
+  /**
+   * A view of a serialized {@link Transaction}.
+   */
+  public static LazyTransaction ofTransaction(ByteString transaction) {
+    return new LazyTransaction(transaction, false);
+  }
+
+  /**
+   * The serialized {@link TransactionExtention}, or {@link Transaction} if the view was created
+   * from one.
+   */
+  public ByteString getBytes() {
+    return bytes;
+  }
+
+  /**
+   * The txid sent by the node with the transaction, or else computed by
+   * {@link TransactionIds#of(LazyTransaction)} on first use.
+   */
+  public ByteString getTxid() {
+    parse();
+    if (!txid.isEmpty()) {
+      return txid;
+    }
+    ByteString computed = computedTxid;
+    if (computed == null) {
+      computed = TransactionIds.of(this);
+      computedTxid = computed;
+    }
+    return computed;
+  }
+
+  /**
+   * The serialized {@code raw_data}, which the txid is the SHA-256 of.
+   */
+  public ByteString getRawData() {
+    parse();
+    return rawData;
+  }
+
+  /**
+   * Type of the first contract, null if the transaction has none.
+   */
+  public ContractType getContractType() {
+    parse();
+    if (contractType < 0) {
+      return null;
+    }
+    ContractType type = ContractType.forNumber(contractType);
+    return type != null ? type : ContractType.UNRECOGNIZED;
+  }
+
+  /**
+   * The serialized contract message of the first contract, the value of its {@code Any}
+   * parameter.
+   */
+  public ByteString getParameter() {
+    parse();
+    return parameter;
+  }
+
+  /**
+   * Raw owner address of the first contract, empty if its type has none.
+   */
+  public ByteString getOwnerAddress() {
+    ContractType type = getContractType();
+    int field = type == null ? 0 : ContractParser.ownerAddressField(type);
+    return field == 0 ? ByteString.EMPTY : ContractParser.readBytesField(parameter, field);
+  }
+
+  /**
+   * Raw destination address of a TRX or TRC10 transfer, or asset participation, empty otherwise.
+   */
+  public ByteString getToAddress() {
+    ContractType type = getContractType();
+    int field = type == null ? 0 : ContractParser.toAddressField(type);
+    return field == 0 ? ByteString.EMPTY : ContractParser.readBytesField(parameter, field);
+  }
+
+  /**
+   * Raw address of the called contract of a {@code TriggerSmartContract}, empty otherwise.
+   */
+  public ByteString getContractAddress() {
+    return getContractType() == ContractType.TriggerSmartContract
+        ? ContractParser.readBytesField(parameter, TRIGGER_CONTRACT_ADDRESS)
+        : ByteString.EMPTY;
+  }
+
+  /**
+   * Call data of a {@code TriggerSmartContract}, empty otherwise.
+   */
+  public ByteString getCallData() {
+    return getContractType() == ContractType.TriggerSmartContract
+        ? ContractParser.readBytesField(parameter, TRIGGER_DATA)
+        : ByteString.EMPTY;
+  }
+
+  /**
+   * Amount of a TRX transfer in sun, of a TRC10 transfer in the token's unit, or the call value of
+   * a {@code TriggerSmartContract}, 0 for other contracts.
+   */
+  public long getAmount() {
+    ContractType type = getContractType();
+    if (type == null) {
+      return 0;
+    }
+    switch (type) {
+      case TransferContract:
+        return ContractParser.readVarintField(parameter, TRANSFER_AMOUNT);
+      case TransferAssetContract:
+        return ContractParser.readVarintField(parameter, TRANSFER_ASSET_AMOUNT);
+      case TriggerSmartContract:
+        return ContractParser.readVarintField(parameter, TRIGGER_CALL_VALUE);
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * Result of the first contract, {@code DEFAULT} if the node did not set one.
+   */
+  public contractResult getContractResult() {
+    parse();
+    contractResult result = contractResult.forNumber(contractRet);
+    return result != null ? result : contractResult.UNRECOGNIZED;
+  }
+
+  /**
+   * Creation time in milliseconds, as set by the sender.
+   */
+  public long getTimestamp() {
+    parse();
+    return timestamp;
+  }
+
+  /**
+   * Expiration time in milliseconds.
+   */
+  public long getExpiration() {
+    parse();
+    return expiration;
+  }
+
+  /**
+   * Fee limit in sun, 0 if unset.
+   */
+  public long getFeeLimit() {
+    parse();
+    return feeLimit;
+  }
+
+  /**
+   * Parse the signed transaction.
+   */
+  public Transaction toTransaction() {
+    try {
+      return Transaction.parseFrom(getTransactionBytes());
+    } catch (InvalidProtocolBufferException e) {
+      throw new IllegalArgumentException("malformed transaction", e);
+    }
+  }
+
+  /**
+   * Parse the whole {@link TransactionExtention}, made of the transaction and its txid if the
+   * view was created from a {@link Transaction}.
+   */
+  public TransactionExtention toTransactionExtention() {
+    if (!extention) {
+      return TransactionExtention.newBuilder()
+          .setTransaction(toTransaction())
+          .setTxid(getTxid())
+          .build();
+    }
+    try {
+      return TransactionExtention.parseFrom(bytes);
+    } catch (InvalidProtocolBufferException e) {
+      throw new IllegalArgumentException("malformed transaction", e);
+    }
+  }
+
+  private ByteString getTransactionBytes() {
+    parse();
+    return transaction;
+  }
+
+  private void parse() {
+    if (parsed) {
+      return;
+    }
+    try {
+      if (extention) {
+        CodedInputStream ext = newInput(bytes);
+        for (int tag = ext.readTag(); tag != 0; tag = ext.readTag()) {
+          int field = WireFormat.getTagFieldNumber(tag);
+          if (field == EXT_TRANSACTION && isBytes(tag)) {
+            transaction = ext.readBytes();
+          } else if (field == EXT_TXID && isBytes(tag)) {
+            txid = ext.readBytes();
+          } else {
+            ext.skipField(tag);
+          }
+        }
+      } else {
+        transaction = bytes;
+      }
+      parseTransaction();
+    } catch (IOException e) {
+      throw new IllegalArgumentException("malformed transaction", e);
+    }
+    parsed = true;
+  }
+
+  private void parseTransaction() throws IOException {
+    boolean firstRet = true;
+    CodedInputStream txn = newInput(transaction);
+    for (int tag = txn.readTag(); tag != 0; tag = txn.readTag()) {
+      int field = WireFormat.getTagFieldNumber(tag);
+      if (field == TXN_RAW_DATA && isBytes(tag)) {
+        rawData = txn.readBytes();
+      } else if (field == TXN_RET && isBytes(tag) && firstRet) {
+        contractRet = (int) ContractParser.readVarintField(txn.readBytes(), RET_CONTRACT_RET);
+        firstRet = false;
+      } else {
+        txn.skipField(tag);
+      }
+    }
+    boolean firstContract = true;
+    CodedInputStream raw = newInput(rawData);
+    for (int tag = raw.readTag(); tag != 0; tag = raw.readTag()) {
+      switch (WireFormat.getTagFieldNumber(tag)) {
+        case RAW_EXPIRATION:
+          expiration = raw.readInt64();
+          break;
+        case RAW_TIMESTAMP:
+          timestamp = raw.readInt64();
+          break;
+        case RAW_FEE_LIMIT:
+          feeLimit = raw.readInt64();
+          break;
+        case RAW_CONTRACT:
+          if (firstContract && isBytes(tag)) {
+            parseContract(raw.readBytes());
+            firstContract = false;
+            break;
+          }
+          raw.skipField(tag);
+          break;
+        default:
+          raw.skipField(tag);
+      }
+    }
+  }
+
+  private void parseContract(ByteString contract) throws IOException {
+    contractType = 0;
+    CodedInputStream input = newInput(contract);
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      int field = WireFormat.getTagFieldNumber(tag);
+      if (field == CONTRACT_TYPE && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_VARINT) {
+        contractType = input.readEnum();
+      } else if (field == CONTRACT_PARAMETER && isBytes(tag)) {
+        parameter = readAnyValue(input.readBytes());
+      } else {
+        input.skipField(tag);
+      }
+    }
+  }
+
+  /**
+   * The {@code raw_data} span of a serialized transaction, without reading any other field.
+   */
+  static ByteString rawDataOf(ByteString bytes, boolean extention) {
+    try {
+      ByteString transaction = extention ? findBytes(bytes, EXT_TRANSACTION) : bytes;
+      return findBytes(transaction, TXN_RAW_DATA);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("malformed transaction", e);
+    }
+  }
+
+  boolean isExtention() {
+    return extention;
+  }
+
+  private static ByteString findBytes(ByteString message, int fieldNumber) throws IOException {
+    CodedInputStream input = newInput(message);
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      if (WireFormat.getTagFieldNumber(tag) == fieldNumber && isBytes(tag)) {
+        return input.readBytes();
+      }
+      input.skipField(tag);
+    }
+    return ByteString.EMPTY;
+  }
+
+  private static ByteString readAnyValue(ByteString any) throws IOException {
+    CodedInputStream input = newInput(any);
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      if (WireFormat.getTagFieldNumber(tag) == ANY_VALUE && isBytes(tag)) {
+        return input.readBytes();
+      }
+      input.skipField(tag);
+    }
+    return ByteString.EMPTY;
+  }
+
+  private static CodedInputStream newInput(ByteString bytes) {
+    CodedInputStream input = bytes.newCodedInput();
+    input.enableAliasing(true);
+    return input;
+  }
+
+  private static boolean isBytes(int tag) {
+    return WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  }
+}
@@ -0,0 +1,569 @@
+package org.tron.trident.core.block;
+
+import com.google.protobuf.ByteString;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.exceptions.IllegalException;
+import org.tron.trident.proto.Response.TransactionInfo;
+
+/**
+ * A local index of which contracts emitted logs and which events they were, per block, so that
+ * a historical event query fetches the transaction infos of the few blocks that may match
+ * instead of all of them. TRON blocks carry no log bloom, this builds one on the client.
+ *
+ * <p>Each block gets a bloom filter over the emitter address and the first topic of its logs,
+ * in a memory-mapped file with one fixed-size entry per block number from the first block of
+ * the index. A filter never misses a block that matches. With the default 256 bytes, a query
+ * matches a block holding 100 distinct addresses and topics by mistake about 0.3% of the time,
+ * one holding 200 about 2% of the time. Blocks not indexed yet are always candidates, and blocks
+ * are only indexed from the node once solidified.</p>
+ *
+ * <pre>{@code
+ * try (LogBloomIndex index = new LogBloomIndex.Builder(file).setFirstBlockNum(start).build()) {
+ *   index.index(wrapper, start, end);
+ *   index.getLogs(wrapper, start, end, token, TRC20_TRANSFER_TOPIC,
+ *       (txid, blockNumber, logIndex, log) -> ...);
+ * }
+ * }</pre>
+ *
+ * <p>One thread at a time may add blocks, any number may query. Blocks added since the last
+ * {@link #flush} may be lost in a crash and are then indexed again.</p>
+ */
+public final class LogBloomIndex implements AutoCloseable {
+
+  private static final int MAGIC = 0x544c4249;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 32;
+  private static final int ENTRY_HEADER_SIZE = 8;
+  private static final int ENTRIES_PER_CHUNK = 1 << 14;
+  private static final int ENTRY_FLAGS = 0;
+  private static final int ENTRY_LOG_COUNT = 4;
+  private static final int FLAG_INDEXED = 1;
+  private static final int HASHES = 3;
+  private static final int ADDRESS_SIZE = 20;
+  private static final long ADDRESS_SEED = 0xcbf29ce484222325L;
+  private static final long TOPIC_SEED = 0x84222325cbf29ce4L;
+
+  private final long firstBlockNum;
+  private final int bloomBytes;
+  private final int entrySize;
+  private final FileChannel file;
+  private final Map<Integer, MappedByteBuffer> chunks = new HashMap<>();
+  /**
+   * Written after every entry update and read before every lookup, so that readers see whole
+   * entries.
+   */
+  private volatile long lastBlockNum = -1;
+  /**
+   * Held while writing an entry readers may already see, a gap below the last indexed block, so
+   * that they never see its flag without its filter.
+   */
+  private final StampedLock entryLock = new StampedLock();
+  private boolean closed;
+
+  private LogBloomIndex(Path path, long firstBlockNum, int bloomBytes) throws IOException {
+    boolean exists = Files.exists(path) && Files.size(path) >= HEADER_SIZE;
+    if (!exists && firstBlockNum < 0) {
+      throw new IllegalStateException("firstBlockNum is required for a new index");
+    }
+    file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      if (exists) {
+        while (header.hasRemaining()) {
+          if (file.read(header, header.position()) < 0) {
+            throw new IOException("unexpected end of file");
+          }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+          throw new IOException("not a log bloom index: " + path);
+        }
+        this.firstBlockNum = header.getLong();
+        this.bloomBytes = header.getInt();
+      } else {
+        this.firstBlockNum = firstBlockNum;
+        this.bloomBytes = bloomBytes;
+        header.putInt(MAGIC).putInt(VERSION).putLong(firstBlockNum).putInt(bloomBytes);
+        header.clear();
+        file.write(header, 0);
+      }
+      entrySize = ENTRY_HEADER_SIZE + this.bloomBytes;
+      recover();
+    } catch (IOException | RuntimeException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  /**
+   * The lowest block number the index can hold.
+   */
+  public long getFirstBlockNum() {
+    return firstBlockNum;
+  }
+
+  /**
+   * The highest block number indexed, -1 if none is.
+   */
+  public long getLastBlockNum() {
+    return lastBlockNum;
+  }
+
+  /**
+   * Index a block from its transaction infos.
+   *
+   * @throws IllegalArgumentException if the number is below {@link #getFirstBlockNum}
+   */
+  public void add(long blockNum, List<TransactionInfo> transactionInfos) throws IOException {
+    Bloom bloom = new Bloom(bloomBytes);
+    for (TransactionInfo info : transactionInfos) {
+      for (TransactionInfo.Log log : info.getLogList()) {
+        bloom.add(log);
+      }
+    }
+    put(blockNum, bloom);
+  }
+
+  /**
+   * Index a block from its serialized {@code TransactionInfoList}, as stored by
+   * {@link BlockArchive}, decoding only the logs.
+   *
+   * @throws IllegalArgumentException if the number is below {@link #getFirstBlockNum}
+   */
+  public void add(long blockNum, ByteString transactionInfos) throws IOException {
+    Bloom bloom = new Bloom(bloomBytes);
+    TransactionInfoStream.forEachLog(transactionInfos.newInput(),
+        (txid, blockNumber, logIndex, log) -> bloom.add(log));
+    put(blockNum, bloom);
+  }
+
+  /**
+   * Index the blocks of {@code [startNum, endNum)} not indexed yet, streaming their logs from the
+   * node. Blocks past the latest solidified block are left out: the node answers an empty list
+   * for blocks it does not have yet, and later blocks may still be replaced, so their filters
+   * could miss logs.
+   *
+   * @return number of blocks indexed
+   * @throws IllegalException if the node rejects a block number
+   */
+  public int index(ApiWrapper wrapper, long startNum, long endNum)
+      throws IOException, IllegalException {
+    int indexed = 0;
+    long end = Math.min(endNum, wrapper.getNodeRouter().getSolidBlockNum() + 1);
+    for (long num = Math.max(startNum, firstBlockNum); num < end; num++) {
+      if (isIndexed(num)) {
+        continue;
+      }
+      Bloom bloom = new Bloom(bloomBytes);
+      wrapper.getLogsByBlockNum(num, (txid, blockNumber, logIndex, log) -> bloom.add(log));
+      put(num, bloom);
+      indexed++;
+    }
+    return indexed;
+  }
+
+  /**
+   * Index the blocks of {@code [startNum, endNum)} not indexed yet whose transaction infos the
+   * archive holds.
+   *
+   * @return number of blocks indexed
+   */
+  public int index(BlockArchive archive, long startNum, long endNum) throws IOException {
+    int indexed = 0;
+    for (long num = Math.max(startNum, firstBlockNum); num < endNum; num++) {
+      if (isIndexed(num)) {
+        continue;
+      }
+      ByteString infos = archive.getTransactionInfos(num);
+      if (infos != null) {
+        add(num, infos);
+        indexed++;
+      }
+    }
+    return indexed;
+  }
+
+  /**
+   * Force the entries added to disk.
+   */
+  public synchronized void flush() {
+    checkOpen();
+    synchronized (chunks) {
+      for (MappedByteBuffer chunk : chunks.values()) {
+        chunk.force();
+      }
+    }
+  }
+
+  /**
+   * Whether the block has been indexed.
+   */
+  public boolean isIndexed(long blockNum) {
+    return getLogCount(blockNum) >= 0;
+  }
+
+  /**
+   * Number of logs of an indexed block, -1 if the block is not indexed.
+   */
+  public int getLogCount(long blockNum) {
+    ByteBuffer entry = published(blockNum);
+    if (entry == null) {
+      return -1;
+    }
+    long stamp = entryLock.tryOptimisticRead();
+    int logs = logCount(entry);
+    if (!entryLock.validate(stamp)) {
+      stamp = entryLock.readLock();
+      try {
+        logs = logCount(entry);
+      } finally {
+        entryLock.unlockRead(stamp);
+      }
+    }
+    return logs;
+  }
+
+  /**
+   * Whether a block may hold a log emitted by {@code address} with {@code topic0} as first
+   * topic. False only if the block is indexed and certainly holds none.
+   *
+   * @param blockNum the block number
+   * @param address the emitting contract, 20 bytes or 21 with the 0x41 prefix, null for any
+   * @param topic0 the event signature hash, null for any
+   */
+  public boolean mightContain(long blockNum, ByteString address, ByteString topic0) {
+    ByteBuffer entry = published(blockNum);
+    if (entry == null) {
+      return true;
+    }
+    long stamp = entryLock.tryOptimisticRead();
+    boolean found = mightContain(entry, address, topic0);
+    if (!entryLock.validate(stamp)) {
+      stamp = entryLock.readLock();
+      try {
+        found = mightContain(entry, address, topic0);
+      } finally {
+        entryLock.unlockRead(stamp);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * The blocks of {@code [startNum, endNum)} that may hold a matching log, see
+   * {@link #mightContain}, in order.
+   */
+  public List<Long> candidates(long startNum, long endNum, ByteString address,
+      ByteString topic0) {
+    List<Long> candidates = new ArrayList<>();
+    for (long num = startNum; num < endNum; num++) {
+      if (mightContain(num, address, topic0)) {
+        candidates.add(num);
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Pass the logs of {@code [startNum, endNum)} emitted by {@code address} with {@code topic0} as
+   * first topic to {@code consumer}, fetching only the candidate blocks. Candidates not indexed
+   * yet are indexed on the way if solidified, later ones are fetched by every query.
+   *
+   * @param address the emitting contract, 20 bytes or 21 with the 0x41 prefix, null for any
+   * @param topic0 the event signature hash, null for any
+   * @return number of logs passed
+   * @throws IllegalException if the node rejects a block number
+   */
+  public int getLogs(ApiWrapper wrapper, long startNum, long endNum, ByteString address,
+      ByteString topic0, TransactionInfoStream.LogConsumer consumer)
+      throws IOException, IllegalException {
+    int matched = 0;
+    long solid = wrapper.getNodeRouter().getSolidBlockNum();
+    for (long num : candidates(startNum, endNum, address, topic0)) {
+      boolean indexed = isIndexed(num);
+      Bloom bloom = new Bloom(bloomBytes);
+      int[] count = new int[1];
+      wrapper.getLogsByBlockNum(num, (txid, blockNumber, logIndex, log) -> {
+        bloom.add(log);
+        if (matches(log, address, topic0)) {
+          count[0]++;
+          consumer.accept(txid, blockNumber, logIndex, log);
+        }
+      });
+      if (!indexed && num >= firstBlockNum && num <= solid) {
+        put(num, bloom);
+      }
+      matched += count[0];
+    }
+    return matched;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      flush();
+    } finally {
+      closed = true;
+      file.close();
+    }
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("log bloom index is closed");
+    }
+  }
+
+  private synchronized void put(long blockNum, Bloom bloom) throws IOException {
+    checkOpen();
+    if (blockNum < firstBlockNum) {
+      throw new IllegalArgumentException(
+          "block " + blockNum + " is below the first block " + firstBlockNum);
+    }
+    ByteBuffer entry = entry(blockNum, true);
+    int position = entry.position();
+    boolean visible = blockNum <= lastBlockNum;
+    long stamp = visible ? entryLock.writeLock() : 0;
+    try {
+      entry.putInt(position + ENTRY_LOG_COUNT, bloom.logs);
+      entry.position(position + ENTRY_HEADER_SIZE);
+      entry.put(bloom.bits);
+      entry.putInt(position + ENTRY_FLAGS, FLAG_INDEXED);
+    } finally {
+      if (visible) {
+        entryLock.unlockWrite(stamp);
+      }
+    }
+    lastBlockNum = Math.max(lastBlockNum, blockNum);
+  }
+
+  /**
+   * Find the last block indexed.
+   */
+  private void recover() throws IOException {
+    long entries = (file.size() - HEADER_SIZE) / entrySize;
+    for (long i = entries - 1; i >= 0; i--) {
+      ByteBuffer entry = entry(firstBlockNum + i, false);
+      if (entry != null && (entry.getInt(entry.position() + ENTRY_FLAGS) & FLAG_INDEXED) != 0) {
+        lastBlockNum = firstBlockNum + i;
+        return;
+      }
+    }
+  }
+
+  /**
+   * The entry of a block up to {@link #lastBlockNum}, positioned at its start, null past it.
+   */
+  private ByteBuffer published(long blockNum) {
+    if (blockNum < firstBlockNum || blockNum > lastBlockNum) {
+      return null;
+    }
+    try {
+      return entry(blockNum, false);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * The entry of a block, positioned at its start. Only the chunk holding it is mapped.
+   *
+   * @param create whether to map the chunk if it does not exist yet
+   * @return the entry, null if not mapped and {@code create} is false
+   */
+  private ByteBuffer entry(long blockNum, boolean create) throws IOException {
+    long slot = blockNum - firstBlockNum;
+    int chunk = (int) (slot / ENTRIES_PER_CHUNK);
+    MappedByteBuffer map;
+    synchronized (chunks) {
+      map = chunks.get(chunk);
+      if (map == null) {
+        long chunkSize = (long) ENTRIES_PER_CHUNK * entrySize;
+        long position = HEADER_SIZE + chunk * chunkSize;
+        if (!create && file.size() <= position) {
+          return null;
+        }
+        // mapping read-write past the end grows the file, with zeroed, unindexed entries
+        map = file.map(FileChannel.MapMode.READ_WRITE, position, chunkSize);
+        chunks.put(chunk, map);
+      }
+    }
+    ByteBuffer entry = map.duplicate();
+    entry.position((int) (slot % ENTRIES_PER_CHUNK) * entrySize);
+    return entry;
+  }
+
+  private static int logCount(ByteBuffer entry) {
+    int position = entry.position();
+    return (entry.getInt(position + ENTRY_FLAGS) & FLAG_INDEXED) != 0
+        ? entry.getInt(position + ENTRY_LOG_COUNT)
+        : -1;
+  }
+
+  private boolean mightContain(ByteBuffer entry, ByteString address, ByteString topic0) {
+    int logs = logCount(entry);
+    if (logs < 0) {
+      return true;
+    }
+    if (logs == 0) {
+      return false;
+    }
+    return (address == null
+        || testBits(entry, hash(address, addressStart(address), ADDRESS_SEED)))
+        && (topic0 == null || testBits(entry, hash(topic0, 0, TOPIC_SEED)));
+  }
+
+  private boolean testBits(ByteBuffer entry, long hash) {
+    int bits = bloomBytes * 8;
+    int filter = entry.position() + ENTRY_HEADER_SIZE;
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32) | 1;
+    for (int i = 0; i < HASHES; i++) {
+      int bit = (h1 + i * h2) & (bits - 1);
+      if ((entry.get(filter + (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean matches(TransactionInfo.Log log, ByteString address,
+      ByteString topic0) {
+    if (topic0 != null && (log.getTopicsCount() == 0 || !topic0.equals(log.getTopics(0)))) {
+      return false;
+    }
+    if (address == null) {
+      return true;
+    }
+    ByteString emitter = log.getAddress();
+    int start = addressStart(address);
+    int emitterStart = addressStart(emitter);
+    return address.size() - start == emitter.size() - emitterStart
+        && address.substring(start).equals(emitter.substring(emitterStart));
+  }
+
+  /**
+   * Logs carry 20 byte addresses, callers usually have the 21 byte form, compare the last 20.
+   */
+  private static int addressStart(ByteString address) {
+    return Math.max(0, address.size() - ADDRESS_SIZE);
+  }
+
+  /**
+   * FNV-1a over the bytes from {@code start}, finished with the MurmurHash3 mixer so that both
+   * halves spread well.
+   */
+  private static long hash(ByteString value, int start, long seed) {
+    long h = seed;
+    for (int i = start; i < value.size(); i++) {
+      h = (h ^ (value.byteAt(i) & 0xff)) * 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /**
+   * The filter of a block being indexed.
+   */
+  private static final class Bloom {
+
+    final byte[] bits;
+    int logs;
+
+    Bloom(int bytes) {
+      bits = new byte[bytes];
+    }
+
+    void add(TransactionInfo.Log log) {
+      logs++;
+      ByteString address = log.getAddress();
+      set(hash(address, addressStart(address), ADDRESS_SEED));
+      if (log.getTopicsCount() > 0) {
+        set(hash(log.getTopics(0), 0, TOPIC_SEED));
+      }
+    }
+
+    private void set(long hash) {
+      int size = bits.length * 8;
+      int h1 = (int) hash;
+      int h2 = (int) (hash >>> 32) | 1;
+      for (int i = 0; i < HASHES; i++) {
+        int bit = (h1 + i * h2) & (size - 1);
+        bits[bit >>> 3] |= 1 << (bit & 7);
+      }
+    }
+  }
+
+  /**
+   * Opens an index file, creating it if it does not exist.
+   */
+  public static class Builder {
+
+    private final Path path;
+    private long firstBlockNum = -1;
+    private int bloomBytes = 256;
+
+    public Builder(Path path) {
+      if (path == null) {
+        throw new IllegalArgumentException("path should not be null");
+      }
+      this.path = path;
+    }
+
+    /**
+     * Lowest block number of a new index, required to create one. The file has an entry for
+     * every number from there, so start it near the first block to be indexed. Ignored for an
+     * existing index.
+     */
+    public Builder setFirstBlockNum(long firstBlockNum) {
+      if (firstBlockNum < 0) {
+        throw new IllegalArgumentException("firstBlockNum must be >= 0");
+      }
+      this.firstBlockNum = firstBlockNum;
+      return this;
+    }
+
+    /**
+     * Size of the filter of a block, a power of two from 64 to 4096 bytes, 256 by default.
+     * Larger filters match fewer blocks by mistake when blocks hold many distinct contracts and
+     * events, at the cost of a larger file. Ignored for an existing index.
+     */
+    public Builder setBloomBytes(int bloomBytes) {
+      if (bloomBytes < 64 || bloomBytes > 4096 || Integer.bitCount(bloomBytes) != 1) {
+        throw new IllegalArgumentException("bloomBytes must be a power of two from 64 to 4096");
+      }
+      this.bloomBytes = bloomBytes;
+      return this;
+    }
+
+    /**
+     * Open the index.
+     *
+     * @throws IllegalStateException if the file holds no index and no first block number was set
+     */
+    public LogBloomIndex build() throws IOException {
+      return new LogBloomIndex(path, firstBlockNum, bloomBytes);
+    }
+  }
+}
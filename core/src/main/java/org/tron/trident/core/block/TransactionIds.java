@@ -0,0 +1,129 @@
+package org.tron.trident.core.block;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.tron.trident.crypto.Digests;
+
+/**
+ * Computes txids from the {@code raw_data} bytes of transactions as received, instead of
+ * re-serializing parsed transactions as
+ * {@link org.tron.trident.core.ApiWrapper#calculateTransactionHash} does.
+ *
+ * <p>The {@code raw_data} of each transaction is located in the block bytes by skipping over its
+ * sibling fields, and the SHA-256 runs over that span with the per-thread digest of
+ * {@link Digests}. No message is built or serialized and the span is read from the block bytes
+ * rather than copied out of them. Per transaction, only the small stream and view objects used
+ * to find the span and the 32-byte id are allocated. As the node serializes canonically, the
+ * ids are identical to {@code calculateTransactionHash} of the parsed transactions. Large blocks
+ * can be hashed across an executor, split into chunks as
+ * {@link org.tron.trident.core.transaction.BulkSigner} does.</p>
+ *
+ * <pre>{@code
+ * List<ByteString> txids = TransactionIds.of(LazyBlock.parseBlock(archivedBlock), pool, 8);
+ * }</pre>
+ */
+public final class TransactionIds {
+
+  private static final int CHUNKS_PER_WORKER = 4;
+
+  /**
+   * Blocks smaller than this are hashed on the calling thread, the hand-off costing more than
+   * the hashing.
+   */
+  private static final int MIN_PARALLEL_TRANSACTIONS = 256;
+
+  private TransactionIds() {
+  }
+
+  /**
+   * The txid of a transaction, computed from its {@code raw_data} bytes even if the node sent
+   * one.
+   *
+   * @param txn the transaction
+   * @return the 32-byte txid
+   */
+  public static ByteString of(LazyTransaction txn) {
+    return hash(LazyTransaction.rawDataOf(txn.getBytes(), txn.isExtention()));
+  }
+
+  /**
+   * The txids of the transactions of a block, in block order, computed on the calling thread.
+   *
+   * @param block the block
+   * @return the 32-byte txids
+   */
+  public static List<ByteString> of(LazyBlock block) {
+    ByteString[] txids = new ByteString[block.getTransactionCount()];
+    hashInto(block, 0, txids.length, txids);
+    return Arrays.asList(txids);
+  }
+
+  /**
+   * The txids of the transactions of a block, in block order, computed across {@code executor}
+   * for blocks of a few hundred transactions or more.
+   *
+   * @param block the block
+   * @param executor runs the chunks
+   * @param parallelism number of threads of {@code executor} to spread the work over
+   * @return the 32-byte txids
+   * @throws IllegalStateException if interrupted or the hashing failed
+   */
+  public static List<ByteString> of(LazyBlock block, ExecutorService executor, int parallelism) {
+    if (executor == null || parallelism <= 0) {
+      throw new IllegalArgumentException("executor should not be null and parallelism > 0");
+    }
+    int size = block.getTransactionCount();
+    if (size < MIN_PARALLEL_TRANSACTIONS || parallelism == 1) {
+      return of(block);
+    }
+    ByteString[] txids = new ByteString[size];
+    int chunks = Math.min(size, parallelism * CHUNKS_PER_WORKER);
+    int chunkSize = (size + chunks - 1) / chunks;
+    List<Future<?>> futures = new ArrayList<>(chunks);
+    for (int from = 0; from < size; from += chunkSize) {
+      final int start = from;
+      final int end = Math.min(size, from + chunkSize);
+      futures.add(executor.submit(() -> hashInto(block, start, end, txids)));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.forEach(f -> f.cancel(true));
+        throw new IllegalStateException("txid hashing interrupted", e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("txid hashing failed", e.getCause());
+      }
+    }
+    return Arrays.asList(txids);
+  }
+
+  /**
+   * The txid of a serialized {@code Transaction}.
+   *
+   * @param transaction the serialized transaction
+   * @return the 32-byte txid
+   */
+  public static ByteString ofTransaction(ByteString transaction) {
+    return of(LazyTransaction.ofTransaction(transaction));
+  }
+
+  private static void hashInto(LazyBlock block, int start, int end, ByteString[] txids) {
+    boolean extention = block.isExtention();
+    for (int i = start; i < end; i++) {
+      txids[i] = hash(LazyTransaction.rawDataOf(block.getTransactionBytes(i), extention));
+    }
+  }
+
+  private static ByteString hash(ByteString rawData) {
+    // a slice of a flat buffer comes back as a view of it, not a copy
+    return UnsafeByteOperations.unsafeWrap(Digests.sha256(rawData.asReadOnlyByteBuffer()));
+  }
+}
@@ -0,0 +1,241 @@
+package org.tron.trident.core.block;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.tron.trident.api.GrpcAPI.NumberMessage;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionInfoList;
+
+/**
+ * Decodes a {@link TransactionInfoList} one entry at a time, handing each
+ * {@link TransactionInfo}, or each of their logs, to a callback instead of building the list.
+ *
+ * <p>A block with thousands of TRC20 transfers returns a list whose parsed form is several times
+ * its wire size, all of it alive until the last entry is parsed. Decoding entry by entry keeps
+ * only the received bytes and the entry being handled, and the first entry reaches the callback
+ * as soon as it is decoded. gRPC still receives a unary response whole before decoding starts.</p>
+ *
+ * <p>Used through a call, the callback runs on the calling thread while the call is in progress.
+ * An exception it throws aborts the call and is rethrown to the caller as is.</p>
+ *
+ * <pre>{@code
+ * wrapper.getLogsByBlockNum(num, (txid, blockNumber, index, log) -> {
+ *   if (log.getTopicsCount() == 3 && TRC20_TRANSFER_TOPIC.equals(log.getTopics(0))) {
+ *     ...
+ *   }
+ * });
+ * }</pre>
+ */
+public final class TransactionInfoStream {
+
+  private static final int LIST_TRANSACTION_INFO = 1;
+  private static final int INFO_ID = 1;
+  private static final int INFO_BLOCK_NUMBER = 3;
+  private static final int INFO_LOG = 8;
+
+  /**
+   * Receives the logs of a block one by one.
+   */
+  @FunctionalInterface
+  public interface LogConsumer {
+
+    /**
+     * Handle a log.
+     *
+     * @param txid id of the transaction that emitted the log
+     * @param blockNumber block of the transaction
+     * @param logIndex index of the log within its transaction
+     * @param log the log
+     */
+    void accept(ByteString txid, long blockNumber, int logIndex, TransactionInfo.Log log);
+  }
+
+  private TransactionInfoStream() {
+  }
+
+  /**
+   * Decode a serialized {@link TransactionInfoList}, passing each entry to {@code consumer}.
+   *
+   * @param in the serialized list
+   * @param consumer receives the entries in order
+   * @return number of entries
+   * @throws IOException if the list is malformed or cannot be read
+   */
+  public static int forEach(InputStream in, Consumer<? super TransactionInfo> consumer)
+      throws IOException {
+    CodedInputStream input = newInput(in);
+    int count = 0;
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      if (!isEntry(tag)) {
+        input.skipField(tag);
+        continue;
+      }
+      input.resetSizeCounter();
+      int limit = input.pushLimit(input.readRawVarint32());
+      TransactionInfo info = TransactionInfo.parseFrom(input);
+      input.popLimit(limit);
+      consumer.accept(info);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Call a method returning a {@link TransactionInfoList}, such as
+   * {@code WalletGrpc.getGetTransactionInfoByBlockNumMethod()}, passing each entry to
+   * {@code consumer} as it is decoded.
+   *
+   * @return number of entries
+   */
+  public static int forEach(Channel channel, CallOptions callOptions,
+      MethodDescriptor<NumberMessage, TransactionInfoList> method, NumberMessage request,
+      Consumer<? super TransactionInfo> consumer) {
+    return call(channel, callOptions, method, request, in -> forEach(in, consumer));
+  }
+
+  /**
+   * Decode a serialized {@link TransactionInfoList}, passing each log of each entry to
+   * {@code consumer} and skipping the rest of the entries.
+   *
+   * @param in the serialized list
+   * @param consumer receives the logs in order
+   * @return number of logs
+   * @throws IOException if the list is malformed or cannot be read
+   */
+  public static int forEachLog(InputStream in, LogConsumer consumer) throws IOException {
+    CodedInputStream input = newInput(in);
+    List<TransactionInfo.Log> logs = new ArrayList<>();
+    int count = 0;
+    for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+      if (!isEntry(tag)) {
+        input.skipField(tag);
+        continue;
+      }
+      input.resetSizeCounter();
+      int limit = input.pushLimit(input.readRawVarint32());
+      ByteString id = ByteString.EMPTY;
+      long blockNumber = 0;
+      for (int field = input.readTag(); field != 0; field = input.readTag()) {
+        switch (WireFormat.getTagFieldNumber(field)) {
+          case INFO_ID:
+            id = input.readBytes();
+            break;
+          case INFO_BLOCK_NUMBER:
+            blockNumber = input.readInt64();
+            break;
+          case INFO_LOG:
+            int logLimit = input.pushLimit(input.readRawVarint32());
+            logs.add(TransactionInfo.Log.parseFrom(input));
+            input.popLimit(logLimit);
+            break;
+          default:
+            input.skipField(field);
+        }
+      }
+      input.popLimit(limit);
+      // the id may follow the logs on the wire, so logs wait for the end of their entry
+      for (int i = 0; i < logs.size(); i++) {
+        consumer.accept(id, blockNumber, i, logs.get(i));
+      }
+      count += logs.size();
+      logs.clear();
+    }
+    return count;
+  }
+
+  /**
+   * Call a method returning a {@link TransactionInfoList}, passing each log to {@code consumer}
+   * as it is decoded.
+   *
+   * @return number of logs
+   */
+  public static int forEachLog(Channel channel, CallOptions callOptions,
+      MethodDescriptor<NumberMessage, TransactionInfoList> method, NumberMessage request,
+      LogConsumer consumer) {
+    return call(channel, callOptions, method, request, in -> forEachLog(in, consumer));
+  }
+
+  private static int call(Channel channel, CallOptions callOptions,
+      MethodDescriptor<NumberMessage, TransactionInfoList> method, NumberMessage request,
+      Decoder decoder) {
+    MethodDescriptor<NumberMessage, Integer> streaming = method.toBuilder(
+        ProtoUtils.marshaller(NumberMessage.getDefaultInstance()), new CountMarshaller(decoder))
+        .build();
+    try {
+      return ClientCalls.blockingUnaryCall(channel, streaming, callOptions, request);
+    } catch (StatusRuntimeException e) {
+      if (e.getCause() instanceof ConsumerFailure) {
+        throw (RuntimeException) e.getCause().getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static CodedInputStream newInput(InputStream in) {
+    CodedInputStream input = CodedInputStream.newInstance(in);
+    input.setSizeLimit(Integer.MAX_VALUE);
+    return input;
+  }
+
+  private static boolean isEntry(int tag) {
+    return WireFormat.getTagFieldNumber(tag) == LIST_TRANSACTION_INFO
+        && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  }
+
+  private interface Decoder {
+
+    int decode(InputStream in) throws IOException;
+  }
+
+  /**
+   * Carries an exception of the consumer through gRPC, which fails the call with it as the cause.
+   */
+  private static final class ConsumerFailure extends RuntimeException {
+
+    ConsumerFailure(RuntimeException cause) {
+      super(cause);
+    }
+  }
+
+  /**
+   * Decodes the response as it is parsed and stands for it with the count.
+   */
+  private static final class CountMarshaller implements MethodDescriptor.Marshaller<Integer> {
+
+    private final Decoder decoder;
+
+    CountMarshaller(Decoder decoder) {
+      this.decoder = decoder;
+    }
+
+    @Override
+    public InputStream stream(Integer value) {
+      return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public Integer parse(InputStream stream) {
+      try {
+        return decoder.decode(stream);
+      } catch (IOException e) {
+        throw new UncheckedIOException("invalid transaction info list", e);
+      } catch (RuntimeException e) {
+        throw new ConsumerFailure(e);
+      }
+    }
+  }
+}
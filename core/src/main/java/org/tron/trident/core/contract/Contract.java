@@ -11,12 +11,15 @@ import org.tron.trident.abi.datatypes.Type;
 import org.tron.trident.core.ApiWrapper;
 import org.tron.trident.core.contract.abi.AbiUtils;
 import org.tron.trident.core.exceptions.ContractCreateException;
+import org.tron.trident.core.jfr.TransactionEvents;
 import org.tron.trident.core.transaction.TransactionBuilder;
+import org.tron.trident.proto.Chain.Transaction.Contract.ContractType;
 import org.tron.trident.proto.Common.SmartContract;
 import org.tron.trident.proto.Common.SmartContract.ABI;
 import org.tron.trident.proto.Common.SmartContract.ABI.Entry;
 import org.tron.trident.proto.Common.SmartContract.ABI.Entry.Param;
 import org.tron.trident.proto.Contract.CreateSmartContract;
+import org.tron.trident.proto.Response.TransactionExtention;
 
 /**
  * The {@code Contract} class is a wrapper for the {@code SmartContract}
@@ -156,7 +159,10 @@ public class Contract {
       throw new ContractCreateException("The contract does not have a constructor.");
     }
     if (!buildParams.isEmpty()) {
+      TransactionEvents.Span span = TransactionEvents.begin(TransactionEvents.Stage.ABI_ENCODE);
       this.constructor.encodeParameter(buildParams);
+      span.end(ContractType.CreateSmartContract.name(), this.constructor.getBytecode().size(),
+          true);
       setBytecode(getBytecode().concat(this.constructor.getBytecode()));
     }
 
@@ -270,8 +276,18 @@ public class Contract {
 
   public TransactionBuilder deploy(List<Type<?>> buildParams) throws Exception {
     CreateSmartContract createSmartContract = createSmartContract(buildParams);
-    return new TransactionBuilder(
-        wrapper.blockingStub.deployContract(createSmartContract).getTransaction());
+    TransactionEvents.Span span = TransactionEvents.begin(TransactionEvents.Stage.BUILD);
+    TransactionExtention txnExt;
+    try {
+      txnExt = wrapper.blockingStub.deployContract(createSmartContract);
+    } catch (RuntimeException e) {
+      span.end(ContractType.CreateSmartContract.name(), createSmartContract.getSerializedSize(),
+          false);
+      throw e;
+    }
+    span.end(ContractType.CreateSmartContract.name(), createSmartContract.getSerializedSize(),
+        txnExt.getResult().getResult());
+    return new TransactionBuilder(txnExt.getTransaction());
   }
 
   public static class Builder {
@@ -0,0 +1,335 @@
+package org.tron.trident.core.interceptor;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Attaches {@code TRON-PRO-API-KEY} to every call and keeps the calls within the request quota of
+ * the keys.
+ *
+ * <p>Each key has one token bucket per method class. A method class groups the methods sharing a
+ * provider limit, by default {@value #BROADCAST} for the broadcast methods and {@value #QUERY} for
+ * everything else. With several keys, calls rotate round-robin over the keys that have a token
+ * left, so the aggregate quota is the sum of the keys' quotas.</p>
+ *
+ * <p>When no key has a token, the call waits up to the configured time for one, then fails with
+ * status {@code RESOURCE_EXHAUSTED}. The wait parks the thread creating the call, which for the
+ * async and future stubs is the caller's thread, so keep the default {@link Builder#setMaxWait}
+ * of 0 where callers must not block. A {@code RESOURCE_EXHAUSTED} response from the node
+ * empties the bucket that admitted the call and pauses it for the backoff time, doubled on each
+ * consecutive rejection up to the maximum, so throttling by the provider is not met with more
+ * calls.
+ * Rejections raised on the client, such as an oversized response or another interceptor's
+ * limit, always carry a description and no trailers, and do not pause the bucket; the node
+ * closes throttled calls with a bare status.</p>
+ *
+ * <pre>{@code
+ * ApiKeyRateLimitInterceptor quota = new ApiKeyRateLimitInterceptor.Builder()
+ *     .addApiKey(key1)
+ *     .addApiKey(key2)
+ *     .setRate(ApiKeyRateLimitInterceptor.QUERY, 15, 15)
+ *     .setMaxWait(1, TimeUnit.SECONDS)
+ *     .build();
+ * ApiWrapper wrapper = ApiWrapper.ofMainnetWithApiKeys(hexPrivateKey, quota);
+ * }</pre>
+ */
+public class ApiKeyRateLimitInterceptor implements ClientInterceptor {
+
+  public static final String QUERY = "query";
+  public static final String BROADCAST = "broadcast";
+
+  static final Metadata.Key<String> API_KEY_HEADER =
+      Metadata.Key.of("TRON-PRO-API-KEY", Metadata.ASCII_STRING_MARSHALLER);
+
+  private final List<ApiKey> keys;
+  private final Map<String, Rate> rates;
+  private final Rate defaultRate;
+  private final Function<String, String> classifier;
+  private final long maxWaitNanos;
+  private final long backoffNanos;
+  private final long maxBackoffNanos;
+  private final AtomicInteger next = new AtomicInteger();
+
+  private ApiKeyRateLimitInterceptor(Builder builder) {
+    this.keys = new ArrayList<>();
+    for (String apiKey : builder.apiKeys) {
+      keys.add(new ApiKey(apiKey));
+    }
+    this.rates = new HashMap<>(builder.rates);
+    this.defaultRate = builder.defaultRate;
+    this.classifier = builder.classifier;
+    this.maxWaitNanos = builder.maxWaitNanos;
+    this.backoffNanos = builder.backoffNanos;
+    this.maxBackoffNanos = builder.maxBackoffNanos;
+  }
+
+  /**
+   * The default method classifier, {@value #BROADCAST} for {@code BroadcastTransaction} and
+   * {@code BroadcastHex}, {@value #QUERY} for the rest.
+   *
+   * @param fullMethodName full gRPC method name, e.g. {@code protocol.Wallet/GetNowBlock2}
+   * @return the method class
+   */
+  public static String defaultMethodClass(String fullMethodName) {
+    String method = MethodDescriptor.extractBareMethodName(fullMethodName);
+    return method != null && method.startsWith("Broadcast") ? BROADCAST : QUERY;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method,
+      CallOptions callOptions,
+      Channel next) {
+    String methodClass = classifier.apply(method.getFullMethodName());
+    long deadline = System.nanoTime() + maxWaitNanos;
+    while (true) {
+      long now = System.nanoTime();
+      long wait = Long.MAX_VALUE;
+      int start = this.next.getAndIncrement();
+      for (int i = 0; i < keys.size(); i++) {
+        ApiKey key = keys.get(Math.floorMod(start + i, keys.size()));
+        TokenBucket bucket = key.bucket(methodClass);
+        long keyWait = bucket.tryAcquire(now);
+        if (keyWait == 0) {
+          return new QuotaCall<>(next.newCall(method, callOptions), key.apiKey, bucket);
+        }
+        wait = Math.min(wait, keyWait);
+      }
+      if (wait > deadline - now || Thread.currentThread().isInterrupted()) {
+        return new RejectedClientCall<>(Status.RESOURCE_EXHAUSTED.withDescription(
+            "api key quota exhausted for " + methodClass + " calls, next permit in "
+                + TimeUnit.NANOSECONDS.toMillis(wait) + " ms"));
+      }
+      LockSupport.parkNanos(wait);
+    }
+  }
+
+  private TokenBucket newBucket(String methodClass) {
+    Rate rate = rates.getOrDefault(methodClass, defaultRate);
+    return new TokenBucket(rate.permitsPerSecond, rate.burst);
+  }
+
+  private static final class Rate {
+
+    private final double permitsPerSecond;
+    private final int burst;
+
+    Rate(double permitsPerSecond, int burst) {
+      if (permitsPerSecond <= 0 || burst < 1) {
+        throw new IllegalArgumentException("permitsPerSecond must be > 0 and burst >= 1");
+      }
+      this.permitsPerSecond = permitsPerSecond;
+      this.burst = burst;
+    }
+  }
+
+  /**
+   * Builder of {@link ApiKeyRateLimitInterceptor}.
+   */
+  public static class Builder {
+
+    private final List<String> apiKeys = new ArrayList<>();
+    private final Map<String, Rate> rates = new HashMap<>();
+    private Rate defaultRate = new Rate(15, 15);
+    private Function<String, String> classifier = ApiKeyRateLimitInterceptor::defaultMethodClass;
+    private long maxWaitNanos;
+    private long backoffNanos = TimeUnit.SECONDS.toNanos(1);
+    private long maxBackoffNanos = TimeUnit.SECONDS.toNanos(30);
+
+    /**
+     * Add a key. Calls rotate over the keys in the order they were added.
+     */
+    public Builder addApiKey(String apiKey) {
+      if (apiKey == null || apiKey.isEmpty()) {
+        throw new IllegalArgumentException("apiKey must not be empty");
+      }
+      apiKeys.add(apiKey);
+      return this;
+    }
+
+    /**
+     * Set the quota of each key for a method class.
+     *
+     * @param methodClass method class, as returned by the classifier
+     * @param permitsPerSecond sustained calls per second
+     * @param burst calls allowed at once after an idle period
+     */
+    public Builder setRate(String methodClass, double permitsPerSecond, int burst) {
+      rates.put(methodClass, new Rate(permitsPerSecond, burst));
+      return this;
+    }
+
+    /**
+     * Set the quota of each key for method classes without their own rate. Default 15 calls per
+     * second with a burst of 15.
+     */
+    public Builder setDefaultRate(double permitsPerSecond, int burst) {
+      this.defaultRate = new Rate(permitsPerSecond, burst);
+      return this;
+    }
+
+    /**
+     * Set the function mapping a full method name to its method class.
+     *
+     * @see #defaultMethodClass(String)
+     */
+    public Builder setMethodClassifier(Function<String, String> classifier) {
+      this.classifier = classifier;
+      return this;
+    }
+
+    /**
+     * How long a call waits for a token before it is rejected. Default 0, fail fast.
+     */
+    public Builder setMaxWait(long maxWait, TimeUnit unit) {
+      if (maxWait < 0) {
+        throw new IllegalArgumentException("maxWait must be >= 0");
+      }
+      this.maxWaitNanos = unit.toNanos(maxWait);
+      return this;
+    }
+
+    /**
+     * How long a bucket pauses after the node answers {@code RESOURCE_EXHAUSTED}. The pause
+     * doubles on each consecutive rejection up to {@code maxBackoff}. Default 1 to 30 seconds.
+     */
+    public Builder setBackoff(long backoff, long maxBackoff, TimeUnit unit) {
+      if (backoff < 0 || maxBackoff < backoff) {
+        throw new IllegalArgumentException("backoff must satisfy 0 <= backoff <= maxBackoff");
+      }
+      this.backoffNanos = unit.toNanos(backoff);
+      this.maxBackoffNanos = unit.toNanos(maxBackoff);
+      return this;
+    }
+
+    /**
+     * Build the interceptor.
+     *
+     * @throws IllegalStateException if no key was added
+     */
+    public ApiKeyRateLimitInterceptor build() {
+      if (apiKeys.isEmpty()) {
+        throw new IllegalStateException("at least one api key is required");
+      }
+      return new ApiKeyRateLimitInterceptor(this);
+    }
+  }
+
+  private final class ApiKey {
+
+    private final String apiKey;
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    ApiKey(String apiKey) {
+      this.apiKey = apiKey;
+    }
+
+    TokenBucket bucket(String methodClass) {
+      TokenBucket bucket = buckets.get(methodClass);
+      return bucket != null ? bucket : buckets.computeIfAbsent(methodClass, c -> newBucket(c));
+    }
+  }
+
+  private final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private boolean paused;
+    private long pausedUntil;
+    private int rejections;
+
+    TokenBucket(double permitsPerSecond, int burst) {
+      this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+      this.capacity = burst;
+      this.tokens = burst;
+    }
+
+    /**
+     * Take a token.
+     *
+     * @return 0 if a token was taken, otherwise nanos until one is available
+     */
+    synchronized long tryAcquire(long now) {
+      if (paused) {
+        if (now - pausedUntil < 0) {
+          return pausedUntil - now;
+        }
+        paused = false;
+      }
+      if (now - refilledAt > 0) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+      }
+      if (tokens >= 1) {
+        tokens -= 1;
+        return 0;
+      }
+      return Math.max(1, (long) Math.ceil((1 - tokens) / permitsPerNano));
+    }
+
+    synchronized void onResponse(boolean throttled) {
+      if (!throttled) {
+        rejections = 0;
+        return;
+      }
+      long pause = Math.min(maxBackoffNanos, backoffNanos << Math.min(rejections, 30));
+      pause = pause < 0 ? maxBackoffNanos : pause;
+      rejections++;
+      tokens = 0;
+      paused = true;
+      pausedUntil = System.nanoTime() + pause;
+      refilledAt = pausedUntil;
+    }
+  }
+
+  private static boolean fromServer(Status status, Metadata trailers) {
+    return status.getDescription() == null || !trailers.keys().isEmpty();
+  }
+
+  private static final class QuotaCall<ReqT, RespT>
+      extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+    private final String apiKey;
+    private final TokenBucket bucket;
+
+    QuotaCall(ClientCall<ReqT, RespT> delegate, String apiKey, TokenBucket bucket) {
+      super(delegate);
+      this.apiKey = apiKey;
+      this.bucket = bucket;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      headers.discardAll(API_KEY_HEADER);
+      headers.put(API_KEY_HEADER, apiKey);
+      super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+          responseListener) {
+        @Override
+        public void onClose(Status status, Metadata trailers) {
+          bucket.onResponse(status.getCode() == Status.Code.RESOURCE_EXHAUSTED
+              && fromServer(status, trailers));
+          super.onClose(status, trailers);
+        }
+      }, headers);
+    }
+  }
+}
@@ -0,0 +1,339 @@
+package org.tron.trident.core.interceptor;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the calls in flight per endpoint, adapting the limit to the latency and errors observed.
+ *
+ * <p>The limit follows a latency gradient, as in TCP Vegas: the lowest latency seen is taken as
+ * the latency of an idle node, and while calls stay within {@code tolerance} times of it the limit
+ * grows by about its square root per round trip. When latency rises beyond that, the node is
+ * queueing and the limit shrinks in proportion. {@code UNAVAILABLE}, {@code RESOURCE_EXHAUSTED}
+ * and {@code DEADLINE_EXCEEDED} cut the limit by 10%. The lowest latency is re-learned every few
+ * hundred calls so the limiter follows network changes.</p>
+ *
+ * <p>A call over the limit waits up to the configured time for a slot, then fails with status
+ * {@code RESOURCE_EXHAUSTED} and a description naming the endpoint and the current limit. Waiting
+ * blocks the thread starting the call, so leave the wait at 0 for async stubs called from event
+ * loop threads.</p>
+ *
+ * <pre>{@code
+ * ConcurrencyLimitInterceptor limiter = new ConcurrencyLimitInterceptor.Builder()
+ *     .setLimits(20, 4, 200)
+ *     .setMaxWait(50, TimeUnit.MILLISECONDS)
+ *     .build();
+ * ApiWrapper wrapper = new ApiWrapper(endpoint, solidityEndpoint, key,
+ *     Collections.singletonList(limiter));
+ * }</pre>
+ */
+public class ConcurrencyLimitInterceptor implements ClientInterceptor {
+
+  private static final double BACKOFF_RATIO = 0.9;
+  private static final double SMOOTHING = 0.2;
+  private static final int MIN_RTT_RESET_SAMPLES = 500;
+
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+  private final long maxWaitNanos;
+  private final LimitListener listener;
+  private final ConcurrentMap<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+  /**
+   * Create a limiter starting at 20 calls per endpoint, between 1 and 200, that rejects calls
+   * over the limit without waiting.
+   */
+  public ConcurrencyLimitInterceptor() {
+    this(new Builder());
+  }
+
+  private ConcurrencyLimitInterceptor(Builder builder) {
+    this.initialLimit = builder.initialLimit;
+    this.minLimit = builder.minLimit;
+    this.maxLimit = builder.maxLimit;
+    this.tolerance = builder.tolerance;
+    this.maxWaitNanos = builder.maxWaitNanos;
+    this.listener = builder.listener;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method,
+      CallOptions callOptions,
+      Channel next) {
+    String endpoint = next.authority();
+    Limiter limiter = limiters.get(endpoint);
+    if (limiter == null) {
+      limiter = limiters.computeIfAbsent(endpoint, Limiter::new);
+    }
+    return new LimitedCall<>(next.newCall(method, callOptions), limiter);
+  }
+
+  /**
+   * The current limit for an endpoint.
+   *
+   * @param endpoint authority of the channel
+   * @return the limit, or the initial limit if no call was made to the endpoint yet
+   */
+  public int getLimit(String endpoint) {
+    Limiter limiter = limiters.get(endpoint);
+    return limiter == null ? initialLimit : limiter.limit;
+  }
+
+  /**
+   * Number of calls in flight to an endpoint.
+   */
+  public int getInFlight(String endpoint) {
+    Limiter limiter = limiters.get(endpoint);
+    return limiter == null ? 0 : limiter.inFlight.get();
+  }
+
+  /**
+   * The current limit of every endpoint called so far.
+   */
+  public Map<String, Integer> getLimits() {
+    Map<String, Integer> limits = new HashMap<>();
+    limiters.forEach((endpoint, limiter) -> limits.put(endpoint, limiter.limit));
+    return Collections.unmodifiableMap(limits);
+  }
+
+  private static boolean isOverload(Status.Code code) {
+    return code == Status.Code.UNAVAILABLE
+        || code == Status.Code.RESOURCE_EXHAUSTED
+        || code == Status.Code.DEADLINE_EXCEEDED;
+  }
+
+  /**
+   * Notified when the limit of an endpoint changes.
+   */
+  public interface LimitListener {
+
+    void onLimitChange(String endpoint, int limit);
+  }
+
+  /**
+   * Builder of {@link ConcurrencyLimitInterceptor}.
+   */
+  public static class Builder {
+
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 200;
+    private double tolerance = 2.0;
+    private long maxWaitNanos;
+    private LimitListener listener;
+
+    /**
+     * Set the limits of calls in flight per endpoint.
+     *
+     * @param initialLimit limit before any call completed
+     * @param minLimit lowest limit, at least 1
+     * @param maxLimit highest limit
+     */
+    public Builder setLimits(int initialLimit, int minLimit, int maxLimit) {
+      if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+        throw new IllegalArgumentException("limits must satisfy 1 <= min <= initial <= max");
+      }
+      this.initialLimit = initialLimit;
+      this.minLimit = minLimit;
+      this.maxLimit = maxLimit;
+      return this;
+    }
+
+    /**
+     * How many times the lowest observed latency a call may take before the limiter considers
+     * the node congested. Default 2.
+     */
+    public Builder setTolerance(double tolerance) {
+      if (tolerance < 1) {
+        throw new IllegalArgumentException("tolerance must be >= 1");
+      }
+      this.tolerance = tolerance;
+      return this;
+    }
+
+    /**
+     * How long a call over the limit waits for a slot before it is rejected. Default 0.
+     */
+    public Builder setMaxWait(long maxWait, TimeUnit unit) {
+      if (maxWait < 0) {
+        throw new IllegalArgumentException("maxWait must be >= 0");
+      }
+      this.maxWaitNanos = unit.toNanos(maxWait);
+      return this;
+    }
+
+    /**
+     * Listener notified of limit changes, e.g. to publish them as a gauge.
+     */
+    public Builder setListener(LimitListener listener) {
+      this.listener = listener;
+      return this;
+    }
+
+    public ConcurrencyLimitInterceptor build() {
+      return new ConcurrencyLimitInterceptor(this);
+    }
+  }
+
+  private final class Limiter {
+
+    private final String endpoint;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object lock = new Object();
+    private volatile int limit = initialLimit;
+    private int waiters;
+
+    // guarded by this
+    private double estimatedLimit = initialLimit;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    Limiter(String endpoint) {
+      this.endpoint = endpoint;
+    }
+
+    boolean acquire() {
+      if (tryAcquire()) {
+        return true;
+      }
+      if (maxWaitNanos == 0) {
+        return false;
+      }
+      long deadline = System.nanoTime() + maxWaitNanos;
+      synchronized (lock) {
+        waiters++;
+        try {
+          while (!tryAcquire()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+              return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+          }
+          return true;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        } finally {
+          waiters--;
+        }
+      }
+    }
+
+    private boolean tryAcquire() {
+      while (true) {
+        int current = inFlight.get();
+        if (current >= limit) {
+          return false;
+        }
+        if (inFlight.compareAndSet(current, current + 1)) {
+          return true;
+        }
+      }
+    }
+
+    void release(long rttNanos, int inFlightAtStart, Status.Code code) {
+      inFlight.decrementAndGet();
+      update(rttNanos, inFlightAtStart, code);
+      synchronized (lock) {
+        if (waiters > 0) {
+          lock.notifyAll();
+        }
+      }
+    }
+
+    private void update(long rttNanos, int inFlightAtStart, Status.Code code) {
+      int oldLimit;
+      int newLimit;
+      synchronized (this) {
+        oldLimit = limit;
+        if (isOverload(code)) {
+          estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+        } else {
+          if (++samples >= MIN_RTT_RESET_SAMPLES) {
+            samples = 0;
+            minRttNanos = Long.MAX_VALUE;
+          }
+          minRttNanos = Math.min(minRttNanos, Math.max(1, rttNanos));
+          double gradient = Math.max(0.5,
+              Math.min(1.0, tolerance * minRttNanos / Math.max(1, rttNanos)));
+          // don't grow on the strength of calls that never came close to the limit
+          if (gradient < 1.0 || inFlightAtStart * 2 >= estimatedLimit) {
+            double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            estimatedLimit = estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING;
+          }
+          estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        }
+        newLimit = (int) estimatedLimit;
+        limit = newLimit;
+      }
+      if (newLimit != oldLimit && listener != null) {
+        listener.onLimitChange(endpoint, newLimit);
+      }
+    }
+  }
+
+  /**
+   * Takes its slot when started, so a call cancelled or dropped before that never holds one.
+   */
+  private static final class LimitedCall<ReqT, RespT>
+      extends ForwardingClientCall<ReqT, RespT> {
+
+    private final Limiter limiter;
+    private volatile ClientCall<ReqT, RespT> delegate;
+    private int inFlightAtStart;
+    private long startNanos;
+
+    LimitedCall(ClientCall<ReqT, RespT> delegate, Limiter limiter) {
+      this.delegate = delegate;
+      this.limiter = limiter;
+    }
+
+    @Override
+    protected ClientCall<ReqT, RespT> delegate() {
+      return delegate;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      if (!limiter.acquire()) {
+        delegate = new RejectedClientCall<>(Status.RESOURCE_EXHAUSTED.withDescription(
+            "concurrency limit of " + limiter.limit + " reached for " + limiter.endpoint));
+        delegate.start(responseListener, headers);
+        return;
+      }
+      inFlightAtStart = limiter.inFlight.get();
+      startNanos = System.nanoTime();
+      try {
+        super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+            responseListener) {
+          @Override
+          public void onClose(Status status, Metadata trailers) {
+            limiter.release(System.nanoTime() - startNanos, inFlightAtStart, status.getCode());
+            super.onClose(status, trailers);
+          }
+        }, headers);
+      } catch (RuntimeException e) {
+        limiter.release(System.nanoTime() - startNanos, inFlightAtStart, Status.Code.UNKNOWN);
+        throw e;
+      }
+    }
+  }
+}
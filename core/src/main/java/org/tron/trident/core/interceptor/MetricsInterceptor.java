@@ -0,0 +1,97 @@
+package org.tron.trident.core.interceptor;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import org.tron.trident.core.metrics.RpcMetrics;
+
+/**
+ * Records latency, status code, in-flight calls and message sizes of every call to a
+ * {@link RpcMetrics}, keyed by the channel authority and the full method name.
+ *
+ * <p>Message sizes are the protobuf serialized sizes, which protobuf computes once per message
+ * and caches, so measuring them adds no serialization.</p>
+ */
+public class MetricsInterceptor implements ClientInterceptor {
+
+  private final RpcMetrics metrics;
+
+  public MetricsInterceptor(RpcMetrics metrics) {
+    if (metrics == null) {
+      throw new IllegalArgumentException("metrics should not be null");
+    }
+    this.metrics = metrics;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method,
+      CallOptions callOptions,
+      Channel next) {
+    return new MetricsCall<>(next.newCall(method, callOptions), next.authority(),
+        method.getFullMethodName());
+  }
+
+  private static long sizeOf(Object message) {
+    return message instanceof MessageLite ? ((MessageLite) message).getSerializedSize() : 0;
+  }
+
+  private final class MetricsCall<ReqT, RespT>
+      extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+    private final String endpoint;
+    private final String method;
+    private long startNanos;
+    private volatile long requestBytes;
+    private volatile long responseBytes;
+
+    MetricsCall(ClientCall<ReqT, RespT> delegate, String endpoint, String method) {
+      super(delegate);
+      this.endpoint = endpoint;
+      this.method = method;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      startNanos = System.nanoTime();
+      metrics.callStarted(endpoint, method);
+      try {
+        super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+            responseListener) {
+          @Override
+          public void onMessage(RespT message) {
+            responseBytes += sizeOf(message);
+            super.onMessage(message);
+          }
+
+          @Override
+          public void onClose(Status status, Metadata trailers) {
+            completed(status.getCode());
+            super.onClose(status, trailers);
+          }
+        }, headers);
+      } catch (RuntimeException e) {
+        completed(Status.fromThrowable(e).getCode());
+        throw e;
+      }
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+      requestBytes += sizeOf(message);
+      super.sendMessage(message);
+    }
+
+    private void completed(Status.Code code) {
+      metrics.callCompleted(endpoint, method, code, System.nanoTime() - startNanos, requestBytes,
+          responseBytes);
+    }
+  }
+}
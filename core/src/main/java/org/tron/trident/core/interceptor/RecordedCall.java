@@ -0,0 +1,234 @@
+package org.tron.trident.core.interceptor;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import io.grpc.Status;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A unary call recorded by {@link RecordingInterceptor}: the method, when it started and how long
+ * it took, the serialized request and either the serialized response or the failure status.
+ *
+ * <p>A recording is a sequence of length-delimited protobuf messages, as written by
+ * {@code MessageLite.writeDelimitedTo}, with the fields</p>
+ * <pre>
+ * string method = 1;
+ * int64 start_nanos = 2;       // since the first call of the recording
+ * int64 duration_nanos = 3;
+ * bytes request = 4;
+ * bytes response = 5;          // absent if the call failed
+ * int32 status_code = 6;
+ * string status_description = 7;
+ * </pre>
+ */
+public final class RecordedCall {
+
+  private static final int METHOD = 1;
+  private static final int START_NANOS = 2;
+  private static final int DURATION_NANOS = 3;
+  private static final int REQUEST = 4;
+  private static final int RESPONSE = 5;
+  private static final int STATUS_CODE = 6;
+  private static final int STATUS_DESCRIPTION = 7;
+
+  private final String method;
+  private final long startNanos;
+  private final long durationNanos;
+  private final ByteString request;
+  private final ByteString response;
+  private final Status.Code statusCode;
+  private final String statusDescription;
+
+  /**
+   * Create a call.
+   *
+   * @param method full method name, e.g. {@code protocol.Wallet/GetNowBlock2}
+   * @param startNanos start time since the first call of the recording
+   * @param durationNanos time from start to close
+   * @param request serialized request
+   * @param response serialized response, null if the call failed
+   * @param statusCode status the call closed with
+   * @param statusDescription status description, may be null
+   */
+  public RecordedCall(String method, long startNanos, long durationNanos, ByteString request,
+      ByteString response, Status.Code statusCode, String statusDescription) {
+    if (method == null || request == null || statusCode == null) {
+      throw new IllegalArgumentException("method, request and status code should not be null");
+    }
+    this.method = method;
+    this.startNanos = startNanos;
+    this.durationNanos = durationNanos;
+    this.request = request;
+    this.response = response;
+    this.statusCode = statusCode;
+    this.statusDescription = statusDescription;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public long getStartNanos() {
+    return startNanos;
+  }
+
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  public ByteString getRequest() {
+    return request;
+  }
+
+  /**
+   * The serialized response, null if the call failed.
+   */
+  public ByteString getResponse() {
+    return response;
+  }
+
+  public Status.Code getStatusCode() {
+    return statusCode;
+  }
+
+  public String getStatusDescription() {
+    return statusDescription;
+  }
+
+  /**
+   * The status the call closed with.
+   */
+  public Status getStatus() {
+    return Status.fromCode(statusCode).withDescription(statusDescription);
+  }
+
+  private int fieldsSize() {
+    int size = CodedOutputStream.computeStringSize(METHOD, method)
+        + CodedOutputStream.computeInt64Size(START_NANOS, startNanos)
+        + CodedOutputStream.computeInt64Size(DURATION_NANOS, durationNanos)
+        + CodedOutputStream.computeBytesSize(REQUEST, request)
+        + CodedOutputStream.computeInt32Size(STATUS_CODE, statusCode.value());
+    if (response != null) {
+      size += CodedOutputStream.computeBytesSize(RESPONSE, response);
+    }
+    if (statusDescription != null) {
+      size += CodedOutputStream.computeStringSize(STATUS_DESCRIPTION, statusDescription);
+    }
+    return size;
+  }
+
+  /**
+   * Append the call to a recording, length prefix included.
+   */
+  public void writeDelimitedTo(CodedOutputStream out) throws IOException {
+    out.writeUInt32NoTag(fieldsSize());
+    out.writeString(METHOD, method);
+    out.writeInt64(START_NANOS, startNanos);
+    out.writeInt64(DURATION_NANOS, durationNanos);
+    out.writeBytes(REQUEST, request);
+    if (response != null) {
+      out.writeBytes(RESPONSE, response);
+    }
+    out.writeInt32(STATUS_CODE, statusCode.value());
+    if (statusDescription != null) {
+      out.writeString(STATUS_DESCRIPTION, statusDescription);
+    }
+  }
+
+  /**
+   * Read the next call of a recording, null at its end. Unknown fields are skipped.
+   */
+  public static RecordedCall parseDelimitedFrom(CodedInputStream in) throws IOException {
+    if (in.isAtEnd()) {
+      return null;
+    }
+    in.resetSizeCounter();
+    int limit = in.pushLimit(in.readRawVarint32());
+    String method = null;
+    long startNanos = 0;
+    long durationNanos = 0;
+    ByteString request = ByteString.EMPTY;
+    ByteString response = null;
+    int statusCode = 0;
+    String statusDescription = null;
+    for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+      switch (tag >>> 3) {
+        case METHOD:
+          method = in.readString();
+          break;
+        case START_NANOS:
+          startNanos = in.readInt64();
+          break;
+        case DURATION_NANOS:
+          durationNanos = in.readInt64();
+          break;
+        case REQUEST:
+          request = in.readBytes();
+          break;
+        case RESPONSE:
+          response = in.readBytes();
+          break;
+        case STATUS_CODE:
+          statusCode = in.readInt32();
+          break;
+        case STATUS_DESCRIPTION:
+          statusDescription = in.readString();
+          break;
+        default:
+          in.skipField(tag);
+      }
+    }
+    in.popLimit(limit);
+    if (method == null) {
+      throw new IOException("recorded call without a method");
+    }
+    return new RecordedCall(method, startNanos, durationNanos, request, response,
+        Status.fromCodeValue(statusCode).getCode(), statusDescription);
+  }
+
+  /**
+   * Read a whole recording.
+   */
+  public static List<RecordedCall> readAll(InputStream in) throws IOException {
+    CodedInputStream coded = CodedInputStream.newInstance(in);
+    coded.setSizeLimit(Integer.MAX_VALUE);
+    List<RecordedCall> calls = new ArrayList<>();
+    for (RecordedCall call = parseDelimitedFrom(coded); call != null;
+        call = parseDelimitedFrom(coded)) {
+      calls.add(call);
+    }
+    return calls;
+  }
+
+  /**
+   * Read a whole recording file.
+   */
+  public static List<RecordedCall> readAll(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      return readAll(in);
+    }
+  }
+
+  /**
+   * Write calls as a recording.
+   */
+  public static void writeAll(List<RecordedCall> calls, OutputStream out) throws IOException {
+    CodedOutputStream coded = CodedOutputStream.newInstance(out);
+    for (RecordedCall call : calls) {
+      call.writeDelimitedTo(coded);
+    }
+    coded.flush();
+  }
+
+  @Override
+  public String toString() {
+    return method + " " + statusCode + " at " + startNanos + "ns for " + durationNanos + "ns";
+  }
+}
@@ -0,0 +1,233 @@
+package org.tron.trident.core.interceptor;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records every unary call, request, response or status and timing, to a stream of
+ * {@link RecordedCall}s, so that a session against a real node can later be served again by a
+ * replay server and the client measured on the same traffic across versions.
+ *
+ * <pre>{@code
+ * try (RecordingInterceptor recorder = RecordingInterceptor.toFile(Paths.get("session.rec"))) {
+ *   ApiWrapper wrapper = new ApiWrapper(new TransportContext.Builder(endpoint, solidityEndpoint)
+ *       .addInterceptors(recorder)
+ *       .build(), keyPair);
+ *   ...
+ * }
+ * }</pre>
+ *
+ * <p>Calls are written when they close, under a lock, so the recording is in completion order.
+ * Streaming calls pass through unrecorded. Responses are serialized a second time to be written,
+ * which costs the client about as much as sending them, so record sessions to replay rather than
+ * the ones being measured. Responses of methods with a custom marshaller, such as the streamed
+ * transaction info calls, are recorded as received and buffered whole before being decoded.
+ * Calls closing after {@link #close} are not recorded, and a write error stops the recording
+ * and is thrown by {@code close}.</p>
+ */
+public class RecordingInterceptor implements ClientInterceptor, Closeable {
+
+  private final OutputStream out;
+  private final CodedOutputStream coded;
+  private final AtomicLong recorded = new AtomicLong();
+  private volatile long originNanos = Long.MIN_VALUE;
+  private boolean closed;
+  private IOException failure;
+
+  /**
+   * Record to a stream, which {@link #close} closes.
+   */
+  public RecordingInterceptor(OutputStream out) {
+    if (out == null) {
+      throw new IllegalArgumentException("out should not be null");
+    }
+    this.out = out;
+    this.coded = CodedOutputStream.newInstance(out);
+  }
+
+  /**
+   * Record to a file, replacing it if it exists.
+   */
+  public static RecordingInterceptor toFile(Path path) throws IOException {
+    return new RecordingInterceptor(new BufferedOutputStream(Files.newOutputStream(path)));
+  }
+
+  /**
+   * Number of calls recorded so far.
+   */
+  public long getRecorded() {
+    return recorded.get();
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method,
+      CallOptions callOptions,
+      Channel next) {
+    if (method.getType() != MethodDescriptor.MethodType.UNARY) {
+      return next.newCall(method, callOptions);
+    }
+    if (method.getResponseMarshaller() instanceof MethodDescriptor.PrototypeMarshaller) {
+      return new RecordingCall<>(next.newCall(method, callOptions), method, null);
+    }
+    // the marshaller may decode while parsing and stand for the response with something else
+    CapturingMarshaller<RespT> capture = new CapturingMarshaller<>(method.getResponseMarshaller());
+    return new RecordingCall<>(
+        next.newCall(method.toBuilder(method.getRequestMarshaller(), capture).build(), callOptions),
+        method, capture);
+  }
+
+  /**
+   * Flush the recording and close its stream.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      coded.flush();
+    } finally {
+      out.close();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private synchronized void write(RecordedCall call) {
+    if (closed || failure != null) {
+      return;
+    }
+    try {
+      call.writeDelimitedTo(coded);
+      recorded.incrementAndGet();
+    } catch (IOException e) {
+      // failing the call would change what is being recorded, report it on close instead
+      failure = e;
+    }
+  }
+
+  /**
+   * The start of the first call, which recorded start times are relative to.
+   */
+  private long origin(long startNanos) {
+    long origin = originNanos;
+    if (origin == Long.MIN_VALUE) {
+      synchronized (this) {
+        if (originNanos == Long.MIN_VALUE) {
+          originNanos = startNanos;
+        }
+        origin = originNanos;
+      }
+    }
+    return origin;
+  }
+
+  private static <T> ByteString serialize(MethodDescriptor.Marshaller<T> marshaller, T message) {
+    if (message instanceof MessageLite) {
+      return ((MessageLite) message).toByteString();
+    }
+    try (InputStream in = marshaller.stream(message)) {
+      return ByteString.readFrom(in);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private final class RecordingCall<ReqT, RespT>
+      extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+    private final MethodDescriptor<ReqT, RespT> method;
+    private final CapturingMarshaller<RespT> capture;
+    private long startNanos;
+    private volatile ByteString request = ByteString.EMPTY;
+    private volatile ByteString response;
+
+    RecordingCall(ClientCall<ReqT, RespT> delegate, MethodDescriptor<ReqT, RespT> method,
+        CapturingMarshaller<RespT> capture) {
+      super(delegate);
+      this.method = method;
+      this.capture = capture;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      startNanos = System.nanoTime();
+      origin(startNanos);
+      super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(
+          responseListener) {
+        @Override
+        public void onMessage(RespT message) {
+          response = capture != null
+              ? capture.received
+              : serialize(method.getResponseMarshaller(), message);
+          super.onMessage(message);
+        }
+
+        @Override
+        public void onClose(Status status, Metadata trailers) {
+          long endNanos = System.nanoTime();
+          write(new RecordedCall(method.getFullMethodName(), startNanos - origin(startNanos),
+              endNanos - startNanos, request, status.isOk() ? response : null, status.getCode(),
+              status.getDescription()));
+          super.onClose(status, trailers);
+        }
+      }, headers);
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+      request = serialize(method.getRequestMarshaller(), message);
+      super.sendMessage(message);
+    }
+  }
+
+  /**
+   * Keeps the bytes of the response of one call before handing them to its marshaller.
+   */
+  private static final class CapturingMarshaller<T> implements MethodDescriptor.Marshaller<T> {
+
+    private final MethodDescriptor.Marshaller<T> marshaller;
+    private volatile ByteString received;
+
+    CapturingMarshaller(MethodDescriptor.Marshaller<T> marshaller) {
+      this.marshaller = marshaller;
+    }
+
+    @Override
+    public InputStream stream(T value) {
+      return marshaller.stream(value);
+    }
+
+    @Override
+    public T parse(InputStream stream) {
+      try {
+        received = ByteString.readFrom(stream);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return marshaller.parse(received.newInput());
+    }
+  }
+}
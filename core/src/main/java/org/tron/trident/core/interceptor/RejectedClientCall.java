@@ -0,0 +1,38 @@
+package org.tron.trident.core.interceptor;
+
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.Status;
+
+/**
+ * A call that fails with {@code status} as soon as it is started, without reaching the channel.
+ */
+final class RejectedClientCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+  private final Status status;
+
+  RejectedClientCall(Status status) {
+    this.status = status;
+  }
+
+  @Override
+  public void start(Listener<RespT> responseListener, Metadata headers) {
+    responseListener.onClose(status, new Metadata());
+  }
+
+  @Override
+  public void request(int numMessages) {
+  }
+
+  @Override
+  public void cancel(String message, Throwable cause) {
+  }
+
+  @Override
+  public void halfClose() {
+  }
+
+  @Override
+  public void sendMessage(ReqT message) {
+  }
+}
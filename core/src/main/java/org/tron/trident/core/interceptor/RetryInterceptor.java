@@ -0,0 +1,431 @@
+package org.tron.trident.core.interceptor;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.tron.trident.proto.Response.TransactionReturn;
+
+/**
+ * Retries unary Wallet and WalletSolidity calls that failed with a transient status, according to
+ * what the method does.
+ *
+ * <ul>
+ *   <li>{@link MethodKind#READ} and {@link MethodKind#BUILD} methods change nothing on the node,
+ *   builds only return an unsigned transaction, so they are retried freely.</li>
+ *   <li>{@link MethodKind#BROADCAST} is retried because the node dedupes transactions by txid: a
+ *   retry of a transaction that the failed attempt did deliver is answered with
+ *   {@code DUP_TRANSACTION_ERROR}, which is reported to the caller as the success it was.</li>
+ *   <li>{@link MethodKind#UNSAFE} methods, which sign and broadcast on the node, and methods of
+ *   other services are never retried.</li>
+ * </ul>
+ *
+ * <p>Attempts are spaced by exponential backoff with full jitter and share the deadline of the
+ * call, so no retry is scheduled that would start after the deadline. A retry budget shared by
+ * all calls, as in gRPC retry throttling, stops retrying while most calls fail, so an outage is
+ * not multiplied into more load.</p>
+ *
+ * <p>Add this interceptor last among the application interceptors so it sees the call first and
+ * each attempt passes through the other interceptors. The deadline must be set before the call
+ * reaches it: the timeout of {@code ApiWrapper}'s timeout constructor and of
+ * {@code TransportContext.Builder#setTimeout} is, so it bounds all attempts together. A
+ * {@link TimeoutInterceptor} placed after this one would give every attempt its own deadline,
+ * and a call could take up to {@code maxAttempts} times the timeout.</p>
+ */
+public class RetryInterceptor implements ClientInterceptor {
+
+  private static final Set<String> SERVICES = Collections.unmodifiableSet(new HashSet<>(
+      Arrays.asList("protocol.Wallet", "protocol.WalletSolidity", "protocol.WalletExtension")));
+  private static final Set<String> READS = Collections.unmodifiableSet(new HashSet<>(
+      Arrays.asList("TriggerConstantContract", "CreateAddress", "GenerateAddress")));
+  private static final Set<String> UNSAFE = Collections.unmodifiableSet(new HashSet<>(
+      Arrays.asList("EasyTransfer", "EasyTransferAsset", "EasyTransferByPrivate",
+          "EasyTransferAssetByPrivate")));
+  private static final int BUDGET_SCALE = 1000;
+
+  private static volatile ScheduledExecutorService defaultScheduler;
+
+  private final int maxAttempts;
+  private final long initialBackoffNanos;
+  private final long maxBackoffNanos;
+  private final double multiplier;
+  private final Set<Status.Code> retryableCodes;
+  private final ScheduledExecutorService scheduler;
+  private final int maxTokens;
+  private final int tokenRatio;
+  private final AtomicInteger tokens;
+
+  /**
+   * Create an interceptor making up to 3 attempts on {@code UNAVAILABLE}, 100 ms to 2 s apart.
+   */
+  public RetryInterceptor() {
+    this(new Builder());
+  }
+
+  private RetryInterceptor(Builder builder) {
+    this.maxAttempts = builder.maxAttempts;
+    this.initialBackoffNanos = builder.initialBackoffNanos;
+    this.maxBackoffNanos = builder.maxBackoffNanos;
+    this.multiplier = builder.multiplier;
+    this.retryableCodes = EnumSet.copyOf(builder.retryableCodes);
+    this.scheduler = builder.scheduler != null ? builder.scheduler : defaultScheduler();
+    this.maxTokens = builder.maxTokens * BUDGET_SCALE;
+    this.tokenRatio = (int) (builder.tokenRatio * BUDGET_SCALE);
+    this.tokens = new AtomicInteger(maxTokens);
+  }
+
+  private static ScheduledExecutorService defaultScheduler() {
+    if (defaultScheduler == null) {
+      synchronized (RetryInterceptor.class) {
+        if (defaultScheduler == null) {
+          defaultScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "trident-retry");
+            thread.setDaemon(true);
+            return thread;
+          });
+        }
+      }
+    }
+    return defaultScheduler;
+  }
+
+  /**
+   * What a method does, which decides whether it may be retried.
+   */
+  public enum MethodKind {
+    /** Queries state. */
+    READ,
+    /** Builds an unsigned transaction. */
+    BUILD,
+    /** Broadcasts a signed transaction, deduped by txid on the node. */
+    BROADCAST,
+    /** Has side effects that cannot be deduped, or is not a known method. */
+    UNSAFE
+  }
+
+  /**
+   * Classify a method of the Wallet, WalletSolidity or WalletExtension services.
+   *
+   * @param fullMethodName full gRPC method name, e.g. {@code protocol.Wallet/GetAccount}
+   * @return the kind of the method, {@link MethodKind#UNSAFE} for other services
+   */
+  public static MethodKind classify(String fullMethodName) {
+    String service = MethodDescriptor.extractFullServiceName(fullMethodName);
+    String method = MethodDescriptor.extractBareMethodName(fullMethodName);
+    if (service == null || method == null || !SERVICES.contains(service)
+        || UNSAFE.contains(method)) {
+      return MethodKind.UNSAFE;
+    }
+    if (method.equals("BroadcastTransaction")) {
+      return MethodKind.BROADCAST;
+    }
+    if (method.startsWith("Get") || method.startsWith("List") || method.startsWith("Scan")
+        || method.startsWith("Is") || method.startsWith("Estimate")
+        || method.startsWith("Total") || READS.contains(method)) {
+      return MethodKind.READ;
+    }
+    return MethodKind.BUILD;
+  }
+
+  @Override
+  public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+      MethodDescriptor<ReqT, RespT> method,
+      CallOptions callOptions,
+      Channel next) {
+    MethodKind kind = classify(method.getFullMethodName());
+    if (maxAttempts == 1 || kind == MethodKind.UNSAFE
+        || method.getType() != MethodDescriptor.MethodType.UNARY) {
+      return next.newCall(method, callOptions);
+    }
+    return new RetryingCall<>(method, callOptions, next, kind);
+  }
+
+  private boolean retryAllowed() {
+    return tokens.get() > maxTokens / 2;
+  }
+
+  private void onAttemptFailed() {
+    tokens.updateAndGet(t -> Math.max(0, t - BUDGET_SCALE));
+  }
+
+  private void onAttemptSucceeded() {
+    tokens.updateAndGet(t -> Math.min(maxTokens, t + tokenRatio));
+  }
+
+  private long backoffNanos(int attempt) {
+    double ceiling = Math.min(maxBackoffNanos,
+        initialBackoffNanos * Math.pow(multiplier, attempt - 1));
+    return (long) (ThreadLocalRandom.current().nextDouble() * ceiling);
+  }
+
+  /**
+   * Builder of {@link RetryInterceptor}.
+   */
+  public static class Builder {
+
+    private int maxAttempts = 3;
+    private long initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private long maxBackoffNanos = TimeUnit.SECONDS.toNanos(2);
+    private double multiplier = 2;
+    private Set<Status.Code> retryableCodes = EnumSet.of(Status.Code.UNAVAILABLE);
+    private ScheduledExecutorService scheduler;
+    private int maxTokens = 10;
+    private double tokenRatio = 0.1;
+
+    /**
+     * Maximum attempts per call, including the first. Default 3.
+     */
+    public Builder setMaxAttempts(int maxAttempts) {
+      if (maxAttempts < 1) {
+        throw new IllegalArgumentException("maxAttempts must be >= 1");
+      }
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /**
+     * Backoff before the first retry, multiplied by {@code multiplier} for each further retry up
+     * to {@code maxBackoff}. Each delay is drawn uniformly below that ceiling.
+     */
+    public Builder setBackoff(long initialBackoff, long maxBackoff, double multiplier,
+        TimeUnit unit) {
+      if (initialBackoff < 0 || maxBackoff < initialBackoff || multiplier < 1) {
+        throw new IllegalArgumentException(
+            "backoff must satisfy 0 <= initial <= max and multiplier >= 1");
+      }
+      this.initialBackoffNanos = unit.toNanos(initialBackoff);
+      this.maxBackoffNanos = unit.toNanos(maxBackoff);
+      this.multiplier = multiplier;
+      return this;
+    }
+
+    /**
+     * Status codes that are retried. Default {@code UNAVAILABLE}. Broadcasts are only retried on
+     * codes in this set other than {@code DEADLINE_EXCEEDED}.
+     */
+    public Builder setRetryableCodes(Status.Code... codes) {
+      if (codes.length == 0) {
+        throw new IllegalArgumentException("at least one code is required");
+      }
+      this.retryableCodes = EnumSet.copyOf(Arrays.asList(codes));
+      return this;
+    }
+
+    /**
+     * Retry budget: every retryable failure takes a token, every success returns
+     * {@code tokenRatio} of one, and retries stop while fewer than half of {@code maxTokens}
+     * remain. Default 10 tokens and a ratio of 0.1.
+     */
+    public Builder setRetryBudget(int maxTokens, double tokenRatio) {
+      if (maxTokens < 1 || tokenRatio <= 0 || tokenRatio > 1) {
+        throw new IllegalArgumentException("maxTokens must be >= 1 and 0 < tokenRatio <= 1");
+      }
+      this.maxTokens = maxTokens;
+      this.tokenRatio = tokenRatio;
+      return this;
+    }
+
+    /**
+     * Executor running the delayed retries. Default a shared daemon thread.
+     */
+    public Builder setScheduler(ScheduledExecutorService scheduler) {
+      this.scheduler = scheduler;
+      return this;
+    }
+
+    public RetryInterceptor build() {
+      return new RetryInterceptor(this);
+    }
+  }
+
+  private final class RetryingCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+    private final MethodDescriptor<ReqT, RespT> method;
+    private final CallOptions callOptions;
+    private final Channel next;
+    private final MethodKind kind;
+
+    private Listener<RespT> listener;
+    private Metadata headers;
+    private ReqT message;
+    private int requested;
+    // guarded by this
+    private ClientCall<ReqT, RespT> attempt;
+    private ScheduledFuture<?> pendingRetry;
+    private boolean cancelled;
+    private int attempts;
+
+    RetryingCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next,
+        MethodKind kind) {
+      this.method = method;
+      this.callOptions = callOptions;
+      this.next = next;
+      this.kind = kind;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      this.listener = responseListener;
+      this.headers = headers;
+    }
+
+    @Override
+    public void request(int numMessages) {
+      ClientCall<ReqT, RespT> current;
+      synchronized (this) {
+        requested += numMessages;
+        current = attempt;
+      }
+      if (current != null) {
+        current.request(numMessages);
+      }
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+      this.message = message;
+    }
+
+    @Override
+    public void halfClose() {
+      startAttempt();
+    }
+
+    @Override
+    public void cancel(String message, Throwable cause) {
+      ClientCall<ReqT, RespT> current;
+      synchronized (this) {
+        if (cancelled) {
+          return;
+        }
+        cancelled = true;
+        current = attempt;
+        if (pendingRetry != null) {
+          pendingRetry.cancel(false);
+          pendingRetry = null;
+          current = null;
+        }
+      }
+      if (current != null) {
+        current.cancel(message, cause);
+      } else if (listener != null) {
+        // no attempt in flight to report the cancellation
+        listener.onClose(Status.CANCELLED.withDescription(message).withCause(cause),
+            new Metadata());
+      }
+    }
+
+    private void startAttempt() {
+      ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+      int requestedNow;
+      boolean retry;
+      synchronized (this) {
+        if (cancelled) {
+          return;
+        }
+        pendingRetry = null;
+        attempt = call;
+        retry = ++attempts > 1;
+        requestedNow = requested;
+      }
+      Metadata attemptHeaders = new Metadata();
+      attemptHeaders.merge(headers);
+      call.start(new AttemptListener(retry), attemptHeaders);
+      if (requestedNow > 0) {
+        call.request(requestedNow);
+      }
+      call.sendMessage(message);
+      call.halfClose();
+    }
+
+    private boolean retryable(Status.Code code) {
+      return retryableCodes.contains(code)
+          && !(kind == MethodKind.BROADCAST && code == Status.Code.DEADLINE_EXCEEDED);
+    }
+
+    private boolean scheduleRetry() {
+      synchronized (this) {
+        if (cancelled || attempts >= maxAttempts) {
+          return false;
+        }
+        long delay = backoffNanos(attempts);
+        Deadline deadline = callOptions.getDeadline();
+        if (deadline != null && deadline.timeRemaining(TimeUnit.NANOSECONDS) <= delay) {
+          return false;
+        }
+        pendingRetry = scheduler.schedule(this::startAttempt, delay, TimeUnit.NANOSECONDS);
+      }
+      return true;
+    }
+
+    private final class AttemptListener extends ClientCall.Listener<RespT> {
+
+      private final boolean retry;
+      private Metadata responseHeaders;
+      private RespT response;
+
+      AttemptListener(boolean retry) {
+        this.retry = retry;
+      }
+
+      @Override
+      public void onHeaders(Metadata headers) {
+        responseHeaders = headers;
+      }
+
+      @Override
+      public void onMessage(RespT message) {
+        response = message;
+      }
+
+      @Override
+      public void onReady() {
+        listener.onReady();
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public void onClose(Status status, Metadata trailers) {
+        if (status.isOk()) {
+          onAttemptSucceeded();
+          if (retry && kind == MethodKind.BROADCAST && response instanceof TransactionReturn
+              && ((TransactionReturn) response).getCode()
+              == TransactionReturn.response_code.DUP_TRANSACTION_ERROR) {
+            // an earlier attempt reached the node, the txid is already known there
+            response = (RespT) TransactionReturn.newBuilder()
+                .setResult(true)
+                .setCode(TransactionReturn.response_code.SUCCESS)
+                .build();
+          }
+        } else if (retryable(status.getCode())) {
+          onAttemptFailed();
+          if (retryAllowed() && scheduleRetry()) {
+            return;
+          }
+        }
+        if (responseHeaders != null) {
+          listener.onHeaders(responseHeaders);
+        }
+        if (response != null) {
+          listener.onMessage(response);
+        }
+        listener.onClose(status, trailers);
+      }
+    }
+  }
+}
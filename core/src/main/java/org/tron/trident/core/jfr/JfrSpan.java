@@ -0,0 +1,39 @@
+package org.tron.trident.core.jfr;
+
+/**
+ * Span backed by a {@link TransactionStageEvent}. Only loaded when JFR is available.
+ */
+final class JfrSpan extends TransactionEvents.Span {
+
+  private final TransactionStageEvent event;
+
+  private JfrSpan(TransactionStageEvent event) {
+    this.event = event;
+  }
+
+  static TransactionEvents.Span begin(TransactionEvents.Stage stage) {
+    TransactionStageEvent event = new TransactionStageEvent();
+    if (!event.isEnabled()) {
+      return NOOP;
+    }
+    event.stage = stage.name();
+    event.begin();
+    return new JfrSpan(event);
+  }
+
+  @Override
+  public boolean isRecording() {
+    return true;
+  }
+
+  @Override
+  public void end(String contractType, long payloadSize, boolean success) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.contractType = contractType;
+      event.payloadSize = payloadSize;
+      event.success = success;
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package org.tron.trident.core.jfr;
+
+import org.tron.trident.proto.Chain.Transaction;
+
+/**
+ * Java Flight Recorder events for the stages of building, signing and broadcasting a transaction.
+ *
+ * <p>Each stage is recorded as an {@code org.tron.trident.TransactionStage} event carrying the
+ * stage, the contract type, the payload size and whether the stage succeeded, so a recording
+ * opened in JDK Mission Control shows where the time of a slow transfer went. Events are only
+ * emitted when JFR is available and the event is enabled in the running recording. Otherwise
+ * {@link #begin} returns a shared no-op span and the cost is a field read.</p>
+ *
+ * <p>JFR is detected at class initialization. Set the system property {@code trident.jfr} to
+ * {@code false} to turn the events off entirely.</p>
+ */
+public final class TransactionEvents {
+
+  private static final boolean AVAILABLE = detect();
+
+  private TransactionEvents() {
+  }
+
+  /**
+   * A stage of a transaction flow.
+   */
+  public enum Stage {
+    /** Lookup of the reference and head blocks used to build a transaction. */
+    REFERENCE_BLOCK,
+    /** Building a transaction, including the reference block lookup if any. */
+    BUILD,
+    /** ABI encoding of a contract call. */
+    ABI_ENCODE,
+    /** Hashing and signing a transaction. */
+    SIGN,
+    /** Sending a signed transaction to the node. */
+    BROADCAST
+  }
+
+  private static boolean detect() {
+    if ("false".equalsIgnoreCase(System.getProperty("trident.jfr"))) {
+      return false;
+    }
+    try {
+      Class.forName("jdk.jfr.Event");
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Whether JFR is available in this JVM and the events are not turned off.
+   */
+  public static boolean isAvailable() {
+    return AVAILABLE;
+  }
+
+  /**
+   * Start timing a stage.
+   *
+   * @param stage the stage
+   * @return the span to end when the stage is done
+   */
+  public static Span begin(Stage stage) {
+    return AVAILABLE ? JfrSpan.begin(stage) : Span.NOOP;
+  }
+
+  /**
+   * Name of the type of the first contract of a transaction, empty if it has none.
+   */
+  public static String contractType(Transaction txn) {
+    return txn.getRawData().getContractCount() == 0
+        ? "" : txn.getRawData().getContract(0).getType().name();
+  }
+
+  /**
+   * A stage being timed.
+   */
+  public abstract static class Span {
+
+    static final Span NOOP = new Span() {
+      @Override
+      public boolean isRecording() {
+        return false;
+      }
+
+      @Override
+      public void end(String contractType, long payloadSize, boolean success) {
+      }
+    };
+
+    /**
+     * Whether the span will be recorded. Callers may skip computing expensive arguments to
+     * {@link #end} when it is not.
+     */
+    public abstract boolean isRecording();
+
+    /**
+     * End the stage and record it.
+     *
+     * @param contractType name of the contract type, see {@link #contractType(Transaction)}
+     * @param payloadSize size in bytes of the data the stage worked on
+     * @param success whether the stage succeeded
+     */
+    public abstract void end(String contractType, long payloadSize, boolean success);
+  }
+}
@@ -0,0 +1,30 @@
+package org.tron.trident.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.tron.trident.TransactionStage")
+@Label("Transaction Stage")
+@Category({"Trident", "Transaction"})
+@Description("A stage of building, signing or broadcasting a transaction")
+@StackTrace(false)
+class TransactionStageEvent extends Event {
+
+  @Label("Stage")
+  String stage;
+
+  @Label("Contract Type")
+  String contractType;
+
+  @Label("Payload Size")
+  @DataAmount
+  long payloadSize;
+
+  @Label("Success")
+  boolean success;
+}
@@ -0,0 +1,201 @@
+package org.tron.trident.core.key;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECMultiplier;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.util.BigIntegers;
+import org.tron.trident.crypto.SECP256K1;
+
+/**
+ * The {@code BatchAddressGenerator} class generates large numbers of key pairs and their addresses.
+ *
+ * <p>Each batch starts from a fresh random private key {@code k} and walks the consecutive keys
+ * {@code k, k + 1, k + 2, ...}. The public key of each step is derived from the previous one with
+ * a single point addition of {@code G} instead of a full scalar multiplication, all points of a
+ * batch are converted to affine coordinates with one shared modular inversion, and addresses are
+ * hashed with the per-thread Keccak state of {@link org.tron.trident.crypto.Digests}. This is an
+ * order of magnitude faster than calling
+ * {@link org.tron.trident.core.ApiWrapper#generateAddress()} in a loop.</p>
+ *
+ * <p><b>Note:</b> the keys of one batch are consecutive. Anyone who learns one private key and
+ * knows it was generated this way can find the other keys of its batch by trying its neighbours.
+ * Only use this where such keys share a trust boundary, e.g. deposit addresses swept by the same
+ * hot wallet, and keep the batch size small if that matters. Batches are independent of each
+ * other.</p>
+ *
+ * <pre>{@code
+ * try (BatchAddressGenerator generator = new BatchAddressGenerator()) {
+ *   generator.generate(1_000_000, (privateKey, address) -> store.put(address, privateKey));
+ * }
+ * }</pre>
+ */
+public class BatchAddressGenerator implements AutoCloseable {
+
+  public static final int DEFAULT_BATCH_SIZE = 1024;
+
+  private static final ECMultiplier BASE_POINT_MULTIPLIER = new FixedPointCombMultiplier();
+
+  private final ExecutorService executor;
+  private final int parallelism;
+  private final int batchSize;
+  private final SecureRandom random = new SecureRandom();
+
+  /**
+   * Receives the generated keys. It is called concurrently from the worker threads and must be
+   * thread-safe.
+   */
+  @FunctionalInterface
+  public interface Sink {
+
+    /**
+     * Accept one generated key.
+     *
+     * @param privateKey 32-byte private key
+     * @param address raw 21-byte address
+     */
+    void accept(byte[] privateKey, byte[] address);
+  }
+
+  /**
+   * Creates a generator with one worker per available processor.
+   */
+  public BatchAddressGenerator() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a generator backed by its own fixed pool of daemon threads.
+   *
+   * @param parallelism number of worker threads
+   */
+  public BatchAddressGenerator(int parallelism) {
+    this(parallelism, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Creates a generator backed by its own fixed pool of daemon threads.
+   *
+   * @param parallelism number of worker threads
+   * @param batchSize number of consecutive keys derived from one random start
+   */
+  public BatchAddressGenerator(int parallelism, int batchSize) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism must be > 0");
+    }
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be > 0");
+    }
+    this.parallelism = parallelism;
+    this.batchSize = batchSize;
+    this.executor = Executors.newFixedThreadPool(parallelism,
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("trident-keygen-%d").build());
+  }
+
+  /**
+   * Generate {@code count} key pairs and hand them to {@code sink}. Returns when all keys have been
+   * delivered.
+   *
+   * @param count number of key pairs to generate
+   * @param sink receives every key pair, called from the worker threads
+   */
+  public void generate(long count, Sink sink) {
+    if (count < 0) {
+      throw new IllegalArgumentException("count must be >= 0");
+    }
+    if (sink == null) {
+      throw new IllegalArgumentException("sink should not be null");
+    }
+    AtomicLong remaining = new AtomicLong(count);
+    List<Future<?>> futures = new ArrayList<>(parallelism);
+    for (int i = 0; i < parallelism; i++) {
+      futures.add(executor.submit(() -> {
+        Worker worker = new Worker();
+        long size;
+        while ((size = claim(remaining)) > 0) {
+          worker.generate((int) size, sink);
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.forEach(f -> f.cancel(true));
+        throw new IllegalStateException("address generation interrupted", e);
+      } catch (ExecutionException e) {
+        futures.forEach(f -> f.cancel(true));
+        throw new IllegalStateException("address generation failed", e.getCause());
+      }
+    }
+  }
+
+  private long claim(AtomicLong remaining) {
+    while (true) {
+      long left = remaining.get();
+      if (left <= 0 || Thread.currentThread().isInterrupted()) {
+        return 0;
+      }
+      long size = Math.min(left, batchSize);
+      if (remaining.compareAndSet(left, left - size)) {
+        return size;
+      }
+    }
+  }
+
+  private BigInteger randomStart(int size) {
+    BigInteger n = SECP256K1.CURVE.getN();
+    BigInteger limit = n.subtract(BigInteger.valueOf(size));
+    BigInteger k;
+    do {
+      k = new BigInteger(256, random);
+    } while (k.signum() == 0 || k.compareTo(limit) >= 0);
+    return k;
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  private class Worker {
+
+    private final ECCurve curve = SECP256K1.CURVE.getCurve();
+    private final ECPoint generator = SECP256K1.CURVE.getG();
+    private final ECPoint[] points = new ECPoint[batchSize];
+
+    void generate(int size, Sink sink) {
+      byte[] privateKey = BigIntegers.asUnsignedByteArray(32, randomStart(size));
+      points[0] = BASE_POINT_MULTIPLIER.multiply(generator, new BigInteger(1, privateKey));
+      for (int i = 1; i < size; i++) {
+        points[i] = points[i - 1].add(generator);
+      }
+      curve.normalizeAll(points, 0, size, null);
+
+      for (int i = 0; i < size; i++) {
+        sink.accept(privateKey.clone(), KeyPair.pointToAddress(points[i]));
+        points[i] = null;
+        increment(privateKey);
+      }
+    }
+  }
+
+  private static void increment(byte[] value) {
+    for (int i = value.length - 1; i >= 0; i--) {
+      if (++value[i] != 0) {
+        return;
+      }
+    }
+  }
+}
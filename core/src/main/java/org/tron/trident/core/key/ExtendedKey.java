@@ -0,0 +1,357 @@
+package org.tron.trident.core.key;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECMultiplier;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.util.BigIntegers;
+import org.tron.trident.crypto.Hash;
+import org.tron.trident.crypto.SECP256K1;
+import org.tron.trident.crypto.tuwenitypes.Bytes;
+import org.tron.trident.utils.Base58Check;
+
+/**
+ * A BIP32 extended key: a private or public key together with its chain code and position in the
+ * key tree.
+ *
+ * <p>Instances are immutable. A private extended key can derive both hardened and normal children,
+ * a public one ({@link #neuter()}, {@link #fromBase58(String)} of an {@code xpub}) only normal
+ * children, which lets watch-only services derive deposit addresses without any private key.</p>
+ *
+ * @see HdWallet
+ */
+public final class ExtendedKey {
+
+  public static final int HARDENED_BIT = 0x80000000;
+
+  private static final int XPRV_VERSION = 0x0488ADE4;
+  private static final int XPUB_VERSION = 0x0488B21E;
+  private static final int SERIALIZED_LENGTH = 78;
+  private static final int RANGE_CHUNK_SIZE = 256;
+  private static final byte[] MASTER_KEY = "Bitcoin seed".getBytes(StandardCharsets.US_ASCII);
+  private static final ECMultiplier BASE_POINT_MULTIPLIER = new FixedPointCombMultiplier();
+
+  private final int depth;
+  private final int parentFingerprint;
+  private final int childNumber;
+  private final byte[] chainCode;
+  private final BigInteger privateKey;
+  private final ECPoint publicKey;
+  private final byte[] compressedPublicKey;
+
+  private ExtendedKey(int depth, int parentFingerprint, int childNumber, byte[] chainCode,
+      BigInteger privateKey, ECPoint publicKey) {
+    this.depth = depth;
+    this.parentFingerprint = parentFingerprint;
+    this.childNumber = childNumber;
+    this.chainCode = chainCode;
+    this.privateKey = privateKey;
+    this.publicKey = publicKey.normalize();
+    this.compressedPublicKey = this.publicKey.getEncoded(true);
+  }
+
+  /**
+   * The master key of a seed.
+   *
+   * @param seed BIP32 seed, e.g. the BIP39 seed of a mnemonic
+   * @return the master extended private key
+   */
+  public static ExtendedKey fromSeed(byte[] seed) {
+    if (seed.length < 16 || seed.length > 64) {
+      throw new IllegalArgumentException("seed must be between 16 and 64 bytes");
+    }
+    byte[] i = Hash.hmacSha512(MASTER_KEY, seed);
+    BigInteger key = new BigInteger(1, Arrays.copyOfRange(i, 0, 32));
+    if (key.signum() == 0 || key.compareTo(SECP256K1.CURVE.getN()) >= 0) {
+      throw new IllegalArgumentException("seed yields an invalid master key");
+    }
+    return new ExtendedKey(0, 0, 0, Arrays.copyOfRange(i, 32, 64), key,
+        BASE_POINT_MULTIPLIER.multiply(SECP256K1.CURVE.getG(), key));
+  }
+
+  /**
+   * Parse a Base58Check serialized {@code xprv} or {@code xpub}.
+   *
+   * @param base58 the serialized key
+   * @return the extended key
+   */
+  public static ExtendedKey fromBase58(String base58) {
+    byte[] data = Base58Check.base58ToBytes(base58);
+    if (data.length != SERIALIZED_LENGTH) {
+      throw new IllegalArgumentException("invalid extended key length " + data.length);
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    int version = buffer.getInt();
+    int depth = buffer.get() & 0xff;
+    int parentFingerprint = buffer.getInt();
+    int childNumber = buffer.getInt();
+    byte[] chainCode = new byte[32];
+    buffer.get(chainCode);
+    byte[] key = new byte[33];
+    buffer.get(key);
+
+    if (version == XPRV_VERSION) {
+      if (key[0] != 0) {
+        throw new IllegalArgumentException("invalid private key prefix");
+      }
+      BigInteger d = new BigInteger(1, Arrays.copyOfRange(key, 1, 33));
+      if (d.signum() == 0 || d.compareTo(SECP256K1.CURVE.getN()) >= 0) {
+        throw new IllegalArgumentException("private key out of range");
+      }
+      return new ExtendedKey(depth, parentFingerprint, childNumber, chainCode, d,
+          BASE_POINT_MULTIPLIER.multiply(SECP256K1.CURVE.getG(), d));
+    } else if (version == XPUB_VERSION) {
+      ECPoint point;
+      try {
+        point = SECP256K1.CURVE.getCurve().decodePoint(key);
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("invalid public key", e);
+      }
+      return new ExtendedKey(depth, parentFingerprint, childNumber, chainCode, null, point);
+    }
+    throw new IllegalArgumentException("unsupported extended key version "
+        + Integer.toHexString(version));
+  }
+
+  /**
+   * Derive a child key.
+   *
+   * @param index child index, with {@link #HARDENED_BIT} set for a hardened child
+   * @return the child key, private if this key is private
+   * @throws IllegalArgumentException if a hardened child is requested from a public key, or in the
+   *     negligible case that the index yields an invalid key, in which case the next index should
+   *     be used
+   */
+  public ExtendedKey deriveChild(int index) {
+    byte[] i = childHmac(new HMac(new SHA512Digest()), index);
+    BigInteger il = new BigInteger(1, Arrays.copyOfRange(i, 0, 32));
+    BigInteger n = SECP256K1.CURVE.getN();
+    if (il.compareTo(n) >= 0) {
+      throw new IllegalArgumentException("invalid child " + index + ", use the next index");
+    }
+    byte[] childChainCode = Arrays.copyOfRange(i, 32, 64);
+    if (privateKey != null) {
+      BigInteger key = il.add(privateKey).mod(n);
+      if (key.signum() == 0) {
+        throw new IllegalArgumentException("invalid child " + index + ", use the next index");
+      }
+      return new ExtendedKey(depth + 1, fingerprint(), index, childChainCode, key,
+          BASE_POINT_MULTIPLIER.multiply(SECP256K1.CURVE.getG(), key));
+    }
+    ECPoint point = BASE_POINT_MULTIPLIER.multiply(SECP256K1.CURVE.getG(), il).add(publicKey);
+    if (point.isInfinity()) {
+      throw new IllegalArgumentException("invalid child " + index + ", use the next index");
+    }
+    return new ExtendedKey(depth + 1, fingerprint(), index, childChainCode, null, point);
+  }
+
+  /**
+   * Derive a descendant by a path relative to this key, e.g. {@code "0/5"} or {@code "0'/1"}.
+   * A leading {@code m/} is accepted when this key is a master key.
+   *
+   * @param path the relative path
+   * @return the descendant key
+   */
+  public ExtendedKey derive(String path) {
+    ExtendedKey key = this;
+    for (int index : HdWallet.parsePath(path)) {
+      key = key.deriveChild(index);
+    }
+    return key;
+  }
+
+  /**
+   * Raw addresses of the normal children {@code from .. from + count - 1}, derived in parallel
+   * from the public key only. Each chunk of children shares one modular inversion for the affine
+   * conversion of its points, and a worker reuses its HMAC state across the chunk.
+   *
+   * <p>A child index that yields an invalid key (probability below 2<sup>-127</sup>) is skipped and
+   * not passed to the sink.</p>
+   *
+   * @param from first child index
+   * @param count number of children
+   * @param sink receives every address, called concurrently from the worker threads
+   */
+  public void deriveAddresses(int from, int count, AddressSink sink) {
+    if (from < 0 || count < 0 || (long) from + count > (HARDENED_BIT & 0xffffffffL)) {
+      throw new IllegalArgumentException("index range must be within the normal children");
+    }
+    int chunks = (count + RANGE_CHUNK_SIZE - 1) / RANGE_CHUNK_SIZE;
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      int start = from + chunk * RANGE_CHUNK_SIZE;
+      deriveChunk(start, Math.min(RANGE_CHUNK_SIZE, from + count - start), sink);
+    });
+  }
+
+  /**
+   * Raw addresses of the normal children {@code from .. from + count - 1}.
+   *
+   * @param from first child index
+   * @param count number of children
+   * @return the addresses in index order, null for an index that yields an invalid key
+   * @see #deriveAddresses(int, int, AddressSink)
+   */
+  public byte[][] deriveAddresses(int from, int count) {
+    byte[][] addresses = new byte[count][];
+    deriveAddresses(from, count, (index, address) -> addresses[index - from] = address);
+    return addresses;
+  }
+
+  private void deriveChunk(int start, int size, AddressSink sink) {
+    ECCurve curve = SECP256K1.CURVE.getCurve();
+    BigInteger n = SECP256K1.CURVE.getN();
+    HMac hmac = new HMac(new SHA512Digest());
+    ECPoint[] points = new ECPoint[size];
+    for (int i = 0; i < size; i++) {
+      BigInteger il = new BigInteger(1, Arrays.copyOfRange(childHmac(hmac, start + i), 0, 32));
+      if (il.compareTo(n) < 0) {
+        points[i] = BASE_POINT_MULTIPLIER.multiply(SECP256K1.CURVE.getG(), il).add(publicKey);
+      }
+    }
+    curve.normalizeAll(points, 0, size, null);
+    for (int i = 0; i < size; i++) {
+      if (points[i] != null && !points[i].isInfinity()) {
+        sink.accept(start + i, KeyPair.pointToAddress(points[i]));
+      }
+    }
+  }
+
+  private byte[] childHmac(HMac hmac, int index) {
+    ByteBuffer data = ByteBuffer.allocate(37);
+    if ((index & HARDENED_BIT) != 0) {
+      if (privateKey == null) {
+        throw new IllegalArgumentException("cannot derive a hardened child from a public key");
+      }
+      data.put((byte) 0).put(BigIntegers.asUnsignedByteArray(32, privateKey));
+    } else {
+      data.put(compressedPublicKey);
+    }
+    data.putInt(index);
+    hmac.init(new KeyParameter(chainCode));
+    hmac.update(data.array(), 0, 37);
+    byte[] out = new byte[64];
+    hmac.doFinal(out, 0);
+    return out;
+  }
+
+  /**
+   * The public extended key of this key.
+   *
+   * @return this key without its private part
+   */
+  public ExtendedKey neuter() {
+    if (privateKey == null) {
+      return this;
+    }
+    return new ExtendedKey(depth, parentFingerprint, childNumber, chainCode, null, publicKey);
+  }
+
+  public boolean isPrivate() {
+    return privateKey != null;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public int getChildNumber() {
+    return childNumber;
+  }
+
+  public int getParentFingerprint() {
+    return parentFingerprint;
+  }
+
+  /**
+   * The first four bytes of the HASH160 of the compressed public key.
+   */
+  public int fingerprint() {
+    return ByteBuffer.wrap(Hash.sha256hash160(compressedPublicKey)).getInt();
+  }
+
+  public byte[] getChainCode() {
+    return chainCode.clone();
+  }
+
+  /**
+   * The key pair of this key.
+   *
+   * @return the key pair
+   * @throws IllegalStateException if this is a public key
+   */
+  public KeyPair getKeyPair() {
+    if (privateKey == null) {
+      throw new IllegalStateException("public extended key has no key pair");
+    }
+    SECP256K1.PublicKey pub = SECP256K1.PublicKey.create(
+        Bytes.wrap(Arrays.copyOfRange(publicKey.getEncoded(false), 1, 65)));
+    return new KeyPair(new SECP256K1.KeyPair(SECP256K1.PrivateKey.create(privateKey), pub));
+  }
+
+  /**
+   * Raw 21-byte address of this key.
+   */
+  public byte[] getAddress() {
+    return KeyPair.pointToAddress(publicKey);
+  }
+
+  public String toBase58CheckAddress() {
+    return Base58Check.bytesToBase58(getAddress());
+  }
+
+  /**
+   * Base58Check serialization, {@code xprv} for a private key and {@code xpub} for a public one.
+   *
+   * @return the serialized key
+   */
+  public String toBase58() {
+    return serialize(privateKey != null);
+  }
+
+  /**
+   * Base58Check serialization of the public key, {@code xpub}.
+   *
+   * @return the serialized public key
+   */
+  public String toXpub() {
+    return serialize(false);
+  }
+
+  private String serialize(boolean includePrivate) {
+    ByteBuffer buffer = ByteBuffer.allocate(SERIALIZED_LENGTH);
+    buffer.putInt(includePrivate ? XPRV_VERSION : XPUB_VERSION);
+    buffer.put((byte) depth);
+    buffer.putInt(parentFingerprint);
+    buffer.putInt(childNumber);
+    buffer.put(chainCode);
+    if (includePrivate) {
+      buffer.put((byte) 0).put(BigIntegers.asUnsignedByteArray(32, privateKey));
+    } else {
+      buffer.put(compressedPublicKey);
+    }
+    return Base58Check.bytesToBase58(buffer.array());
+  }
+
+  /**
+   * Receives addresses derived from an index range.
+   */
+  @FunctionalInterface
+  public interface AddressSink {
+
+    /**
+     * Accept one derived address.
+     *
+     * @param index child index
+     * @param address raw 21-byte address
+     */
+    void accept(int index, byte[] address);
+  }
+}
@@ -0,0 +1,223 @@
+package org.tron.trident.core.key;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BIP32 key tree rooted at a master key, with BIP44 helpers for TRON ({@code m/44'/195'/...}).
+ *
+ * <p>The 256 parent nodes most recently met while deriving paths are cached, so deriving many
+ * addresses below the same account only pays for the last one or two levels. For large index ranges use
+ * {@link ExtendedKey#deriveAddresses(int, int, ExtendedKey.AddressSink)} on the account chain, or
+ * on an {@code xpub} parsed with {@link ExtendedKey#fromBase58(String)} in watch-only
+ * services.</p>
+ *
+ * <pre>{@code
+ * HdWallet wallet = new HdWallet(seed);
+ * KeyPair deposit = wallet.keyPair(0, 42);               // m/44'/195'/0'/0/42
+ * String xpub = wallet.account(0).derive("0").toXpub();  // external chain for watch-only use
+ * }</pre>
+ */
+public class HdWallet {
+
+  public static final int PURPOSE = 44;
+  public static final int TRON_COIN_TYPE = 195;
+
+  private static final int MAX_CACHED_PARENTS = 256;
+
+  private final ExtendedKey root;
+  // guarded by itself, in access order
+  private final Map<String, ExtendedKey> parents =
+      new LinkedHashMap<String, ExtendedKey>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ExtendedKey> eldest) {
+          return size() > MAX_CACHED_PARENTS;
+        }
+      };
+
+  /**
+   * Creates a wallet from a BIP32 seed.
+   *
+   * @param seed the seed, e.g. the BIP39 seed of a mnemonic
+   */
+  public HdWallet(byte[] seed) {
+    this(ExtendedKey.fromSeed(seed));
+  }
+
+  /**
+   * Creates a wallet rooted at an extended key. Paths passed to {@link #derive(String)} are
+   * relative to it.
+   *
+   * @param root the root key
+   */
+  public HdWallet(ExtendedKey root) {
+    if (root == null) {
+      throw new IllegalArgumentException("root should not be null");
+    }
+    this.root = root;
+  }
+
+  public ExtendedKey getRoot() {
+    return root;
+  }
+
+  /**
+   * Derive the key at a path, e.g. {@code "m/44'/195'/0'/0/0"}.
+   *
+   * @param path the path, {@code '} or {@code h} marks a hardened index
+   * @return the key at the path
+   */
+  public ExtendedKey derive(String path) {
+    return derive(parsePath(path));
+  }
+
+  /**
+   * Derive the key at a path of child indices.
+   *
+   * @param path child indices, with {@link ExtendedKey#HARDENED_BIT} set for hardened ones
+   * @return the key at the path
+   */
+  public ExtendedKey derive(int... path) {
+    ExtendedKey key = root;
+    int depth = 0;
+    for (int length = path.length - 1; length > 0; length--) {
+      ExtendedKey parent = cachedParent(formatPath(path, length));
+      if (parent != null) {
+        key = parent;
+        depth = length;
+        break;
+      }
+    }
+    for (int i = depth; i < path.length; i++) {
+      key = key.deriveChild(path[i]);
+      if (i < path.length - 1) {
+        String parentPath = formatPath(path, i + 1);
+        synchronized (parents) {
+          parents.putIfAbsent(parentPath, key);
+        }
+      }
+    }
+    return key;
+  }
+
+  private ExtendedKey cachedParent(String path) {
+    synchronized (parents) {
+      return parents.get(path);
+    }
+  }
+
+  /**
+   * The BIP44 account key {@code m/44'/195'/account'}.
+   *
+   * @param account account index
+   * @return the account key
+   */
+  public ExtendedKey account(int account) {
+    return derive(hardened(PURPOSE), hardened(TRON_COIN_TYPE), hardened(account));
+  }
+
+  /**
+   * The BIP44 key {@code m/44'/195'/account'/change/index}.
+   *
+   * @param account account index
+   * @param change 0 for the external chain, 1 for the internal chain
+   * @param index address index
+   * @return the address key
+   */
+  public ExtendedKey addressKey(int account, int change, int index) {
+    return derive(hardened(PURPOSE), hardened(TRON_COIN_TYPE), hardened(account), change, index);
+  }
+
+  /**
+   * Key pair of the external chain address {@code m/44'/195'/account'/0/index}.
+   *
+   * @param account account index
+   * @param index address index
+   * @return the key pair
+   */
+  public KeyPair keyPair(int account, int index) {
+    return addressKey(account, 0, index).getKeyPair();
+  }
+
+  /**
+   * Base58Check address of the external chain key {@code m/44'/195'/account'/0/index}.
+   *
+   * @param account account index
+   * @param index address index
+   * @return the address
+   */
+  public String address(int account, int index) {
+    return addressKey(account, 0, index).toBase58CheckAddress();
+  }
+
+  /**
+   * Mark an index as hardened.
+   *
+   * @param index child index below 2<sup>31</sup>
+   * @return the hardened index
+   */
+  public static int hardened(int index) {
+    if (index < 0) {
+      throw new IllegalArgumentException("index must be >= 0");
+    }
+    return index | ExtendedKey.HARDENED_BIT;
+  }
+
+  /**
+   * Parse a derivation path such as {@code "m/44'/195'/0'/0/1"}. The leading {@code m} is
+   * optional.
+   *
+   * @param path the path
+   * @return child indices, with {@link ExtendedKey#HARDENED_BIT} set for hardened ones
+   */
+  public static int[] parsePath(String path) {
+    String trimmed = path.trim();
+    if (trimmed.equals("m") || trimmed.isEmpty()) {
+      return new int[0];
+    }
+    if (trimmed.startsWith("m/")) {
+      trimmed = trimmed.substring(2);
+    }
+    String[] parts = trimmed.split("/");
+    int[] indices = new int[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      String part = parts[i];
+      boolean hardened = part.endsWith("'") || part.endsWith("h") || part.endsWith("H");
+      if (hardened) {
+        part = part.substring(0, part.length() - 1);
+      }
+      int index;
+      try {
+        index = Integer.parseInt(part);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("invalid path " + path, e);
+      }
+      if (index < 0) {
+        throw new IllegalArgumentException("invalid path " + path);
+      }
+      indices[i] = hardened ? hardened(index) : index;
+    }
+    return indices;
+  }
+
+  /**
+   * Format child indices as a path, e.g. {@code "m/44'/195'/0'"}.
+   *
+   * @param path child indices
+   * @return the path
+   */
+  public static String formatPath(int... path) {
+    return formatPath(path, path.length);
+  }
+
+  private static String formatPath(int[] path, int length) {
+    StringBuilder sb = new StringBuilder("m");
+    for (int i = 0; i < length; i++) {
+      sb.append('/').append(path[i] & ~ExtendedKey.HARDENED_BIT);
+      if ((path[i] & ExtendedKey.HARDENED_BIT) != 0) {
+        sb.append('\'');
+      }
+    }
+    return sb.toString();
+  }
+}
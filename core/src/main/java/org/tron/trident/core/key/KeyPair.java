@@ -1,7 +1,8 @@
 package org.tron.trident.core.key;
 
-import org.bouncycastle.jcajce.provider.digest.Keccak;
+import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.util.encoders.Hex;
+import org.tron.trident.crypto.Digests;
 import org.tron.trident.crypto.SECP256K1;
 import org.tron.trident.crypto.tuwenitypes.Bytes32;
 import org.tron.trident.utils.Base58Check;
@@ -52,9 +53,23 @@ public class KeyPair {
   }
 
   public static byte[] publicKeyToAddress(final SECP256K1.PublicKey pubKey) {
-    Keccak.Digest256 digest = new Keccak.Digest256();
-    digest.update(pubKey.getEncoded(), 0, 64);
-    byte[] raw = digest.digest();
+    byte[] raw = Digests.keccak256(pubKey.getEncoded(), 0, 64);
+    byte[] rawAddr = new byte[21];
+    rawAddr[0] = 0x41;
+    System.arraycopy(raw, 12, rawAddr, 1, 20);
+
+    return rawAddr;
+  }
+
+  /**
+   * Raw address of a public point, for bulk derivation that already holds the point.
+   *
+   * @param point a normalized public point
+   * @return the raw 21-byte address
+   */
+  static byte[] pointToAddress(final ECPoint point) {
+    byte[] encoded = point.getEncoded(false);
+    byte[] raw = Digests.keccak256(encoded, 1, 64);
     byte[] rawAddr = new byte[21];
     rawAddr[0] = 0x41;
     System.arraycopy(raw, 12, rawAddr, 1, 20);
@@ -0,0 +1,260 @@
+package org.tron.trident.core.key;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.encoders.Hex;
+import org.tron.trident.core.utils.ContractParser;
+import org.tron.trident.core.utils.Sha256Hash;
+import org.tron.trident.crypto.SECP256K1;
+import org.tron.trident.crypto.tuwenitypes.Bytes32;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Response.TransactionExtention;
+import org.tron.trident.utils.Base58Check;
+
+/**
+ * A thread-safe collection of key pairs indexed by their raw 21-byte address.
+ *
+ * <p>The public point, raw address, Base58Check and hex forms of each key are derived once when
+ * the key is added. Signing looks the owner address of a transaction up in the ring, so a single
+ * {@link org.tron.trident.core.ApiWrapper} can sign for any number of accounts without deriving
+ * anything per call.</p>
+ *
+ * <pre>{@code
+ * KeyRing ring = new KeyRing();
+ * ring.add(hexPrivateKey1);
+ * ring.add(hexPrivateKey2);
+ * Transaction signed = ring.signTransaction(wrapper.transfer(from, to, amount));
+ * }</pre>
+ */
+public class KeyRing {
+
+  private static final ThreadLocal<SigningContext> SIGNING_CONTEXTS =
+      ThreadLocal.withInitial(SigningContext::new);
+
+  private final ConcurrentHashMap<ByteString, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Add a key pair to the ring, replacing any key with the same address.
+   *
+   * @param keyPair the key pair
+   * @return the entry holding the precomputed public data
+   */
+  public Entry add(KeyPair keyPair) {
+    Entry entry = new Entry(keyPair);
+    entries.put(entry.getAddressBytes(), entry);
+    return entry;
+  }
+
+  /**
+   * Add a key pair to the ring, replacing any key with the same address.
+   *
+   * @param hexPrivateKey the private key in hex
+   * @return the entry holding the precomputed public data
+   */
+  public Entry add(String hexPrivateKey) {
+    return add(new KeyPair(hexPrivateKey));
+  }
+
+  /**
+   * Remove the key of an address.
+   *
+   * @param address raw 21-byte address
+   * @return true if a key was removed
+   */
+  public boolean remove(ByteString address) {
+    return entries.remove(address) != null;
+  }
+
+  /**
+   * Look up the key of an address.
+   *
+   * @param address raw 21-byte address
+   * @return the entry, or null if the address has no key in this ring
+   */
+  public Entry get(ByteString address) {
+    return entries.get(address);
+  }
+
+  /**
+   * Look up the key of an address.
+   *
+   * @param address raw 21-byte address
+   * @return the entry, or null if the address has no key in this ring
+   */
+  public Entry get(byte[] address) {
+    return entries.get(ByteString.copyFrom(address));
+  }
+
+  public boolean contains(ByteString address) {
+    return entries.containsKey(address);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Raw addresses of all keys in the ring.
+   *
+   * @return an unmodifiable live view of the addresses
+   */
+  public Set<ByteString> addresses() {
+    return Collections.unmodifiableSet(entries.keySet());
+  }
+
+  /**
+   * Key pair that owns a transaction.
+   *
+   * @param txn the transaction
+   * @return the key pair of the owner address, or null if it has no key in this ring
+   */
+  public KeyPair keyPairFor(Transaction txn) {
+    Entry entry = entries.get(ContractParser.getOwnerAddress(txn));
+    return entry == null ? null : entry.getKeyPair();
+  }
+
+  /**
+   * The signing context of the calling thread, reused by every transaction signed on it. It must
+   * not be shared with other threads.
+   *
+   * @return the signing context of the calling thread
+   */
+  public SigningContext signingContext() {
+    return SIGNING_CONTEXTS.get();
+  }
+
+  /**
+   * Sign a transaction with the key of its owner address.
+   *
+   * @param txn the transaction
+   * @return the signed transaction
+   * @throws IllegalArgumentException if the owner address has no key in this ring
+   */
+  public Transaction signTransaction(Transaction txn) {
+    return sign(txn, signingContext().hash(txn));
+  }
+
+  /**
+   * Sign a transaction with the key of its owner address, using the txid the node returned.
+   *
+   * @param txnExt the transaction extention
+   * @return the signed transaction
+   * @throws IllegalArgumentException if the owner address has no key in this ring
+   */
+  public Transaction signTransaction(TransactionExtention txnExt) {
+    return sign(txnExt.getTransaction(), txnExt.getTxid().toByteArray());
+  }
+
+  private Transaction sign(Transaction txn, byte[] txid) {
+    byte[] signature = signingContext().sign(txid, require(txn));
+    return txn.toBuilder().addSignature(ByteString.copyFrom(signature)).build();
+  }
+
+  private Entry require(Transaction txn) {
+    ByteString owner = ContractParser.getOwnerAddress(txn);
+    Entry entry = entries.get(owner);
+    if (entry == null) {
+      throw new IllegalArgumentException(
+          "no key for owner address " + Hex.toHexString(owner.toByteArray()));
+    }
+    return entry;
+  }
+
+  /**
+   * Per-thread signing state: a SHA-256 digest and the buffer the raw data of transactions is
+   * serialized into, both reused by every transaction signed on the thread. Not thread-safe, use
+   * {@link KeyRing#signingContext()} to get the one of the calling thread.
+   */
+  public static final class SigningContext {
+
+    private final MessageDigest sha256 = Sha256Hash.newDigest();
+    private byte[] buffer = new byte[1024];
+
+    private SigningContext() {
+    }
+
+    /**
+     * Transaction id of a transaction.
+     *
+     * @param txn the transaction
+     * @return the SHA-256 hash of its raw data
+     */
+    public byte[] hash(Transaction txn) {
+      Transaction.raw rawData = txn.getRawData();
+      int size = rawData.getSerializedSize();
+      if (buffer.length < size) {
+        buffer = new byte[Math.max(size, buffer.length * 2)];
+      }
+      try {
+        CodedOutputStream out = CodedOutputStream.newInstance(buffer, 0, size);
+        rawData.writeTo(out);
+        out.checkNoSpaceLeft();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      sha256.update(buffer, 0, size);
+      return sha256.digest();
+    }
+
+    /**
+     * Sign a transaction id with the key of an address.
+     *
+     * @param txid the transaction hash
+     * @param entry the key to sign with
+     * @return the 65-byte signature
+     */
+    public byte[] sign(byte[] txid, Entry entry) {
+      return SECP256K1.sign(Bytes32.wrap(txid), entry.getKeyPair().getRawPair())
+          .encodedBytes().toArrayUnsafe();
+    }
+  }
+
+  /**
+   * A key of the ring with its precomputed public data.
+   */
+  public static final class Entry {
+
+    private final KeyPair keyPair;
+    private final ECPoint publicPoint;
+    private final ByteString addressBytes;
+    private final String base58CheckAddress;
+    private final String hexAddress;
+
+    Entry(KeyPair keyPair) {
+      SECP256K1.PublicKey publicKey = keyPair.getRawPair().getPublicKey();
+      byte[] address = KeyPair.publicKeyToAddress(publicKey);
+      this.keyPair = keyPair;
+      this.publicPoint = publicKey.asEcPoint().normalize();
+      this.addressBytes = ByteString.copyFrom(address);
+      this.base58CheckAddress = Base58Check.bytesToBase58(address);
+      this.hexAddress = Hex.toHexString(address);
+    }
+
+    public KeyPair getKeyPair() {
+      return keyPair;
+    }
+
+    public ECPoint getPublicPoint() {
+      return publicPoint;
+    }
+
+    public ByteString getAddressBytes() {
+      return addressBytes;
+    }
+
+    public String getBase58CheckAddress() {
+      return base58CheckAddress;
+    }
+
+    public String getHexAddress() {
+      return hexAddress;
+    }
+  }
+}
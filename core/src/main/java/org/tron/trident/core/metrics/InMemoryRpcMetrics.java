@@ -0,0 +1,154 @@
+package org.tron.trident.core.metrics;
+
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps RPC metrics in memory, per endpoint and method.
+ *
+ * <pre>{@code
+ * InMemoryRpcMetrics metrics = new InMemoryRpcMetrics();
+ * ApiWrapper wrapper = new ApiWrapper(endpoint, solidityEndpoint, privateKey,
+ *     Collections.singletonList(new MetricsInterceptor(metrics)));
+ * ...
+ * for (InMemoryRpcMetrics.MethodStats stats : metrics.getAll()) {
+ *   long p99 = stats.getLatency().getValueAtPercentile(99);
+ * }
+ * }</pre>
+ */
+public class InMemoryRpcMetrics implements RpcMetrics {
+
+  private final ConcurrentMap<String, MethodStats> stats = new ConcurrentHashMap<>();
+
+  @Override
+  public void callStarted(String endpoint, String method) {
+    statsFor(endpoint, method).inFlight.incrementAndGet();
+  }
+
+  @Override
+  public void callCompleted(String endpoint, String method, Status.Code code, long latencyNanos,
+      long requestBytes, long responseBytes) {
+    MethodStats s = statsFor(endpoint, method);
+    s.inFlight.decrementAndGet();
+    s.codes.incrementAndGet(code.value());
+    s.latency.record(latencyNanos);
+    s.requestBytes.add(requestBytes);
+    s.responseBytes.add(responseBytes);
+  }
+
+  private MethodStats statsFor(String endpoint, String method) {
+    // authorities never contain '/', so the key is unambiguous
+    String key = endpoint + '/' + method;
+    MethodStats s = stats.get(key);
+    if (s == null) {
+      s = stats.computeIfAbsent(key, k -> new MethodStats(endpoint, method));
+    }
+    return s;
+  }
+
+  /**
+   * Metrics of one method on one endpoint.
+   *
+   * @param endpoint authority of the channel
+   * @param method full gRPC method name
+   * @return the metrics, or null if the method was never called on that endpoint
+   */
+  public MethodStats get(String endpoint, String method) {
+    return stats.get(endpoint + '/' + method);
+  }
+
+  /**
+   * Metrics of every method called so far.
+   */
+  public List<MethodStats> getAll() {
+    return new ArrayList<>(stats.values());
+  }
+
+  /**
+   * Metrics of one method on one endpoint. Values are live and keep changing as calls complete.
+   */
+  public static final class MethodStats {
+
+    private static final Status.Code[] CODES = Status.Code.values();
+
+    private final String endpoint;
+    private final String method;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLongArray codes = new AtomicLongArray(CODES.length);
+    private final AtomicLong inFlight = new AtomicLong();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+
+    MethodStats(String endpoint, String method) {
+      this.endpoint = endpoint;
+      this.method = method;
+    }
+
+    public String getEndpoint() {
+      return endpoint;
+    }
+
+    public String getMethod() {
+      return method;
+    }
+
+    /**
+     * Latency of completed calls in nanoseconds.
+     */
+    public LatencyHistogram.Snapshot getLatency() {
+      return latency.snapshot();
+    }
+
+    /**
+     * Number of calls that completed with {@code code}.
+     */
+    public long getCount(Status.Code code) {
+      return codes.get(code.value());
+    }
+
+    /**
+     * Number of completed calls.
+     */
+    public long getCompleted() {
+      long total = 0;
+      for (int i = 0; i < CODES.length; i++) {
+        total += codes.get(i);
+      }
+      return total;
+    }
+
+    /**
+     * Number of completed calls that did not end with {@code OK}.
+     */
+    public long getFailed() {
+      return getCompleted() - getCount(Status.Code.OK);
+    }
+
+    /**
+     * Number of calls started and not completed yet.
+     */
+    public long getInFlight() {
+      return inFlight.get();
+    }
+
+    /**
+     * Total serialized size of the request messages of completed calls.
+     */
+    public long getRequestBytes() {
+      return requestBytes.sum();
+    }
+
+    /**
+     * Total serialized size of the response messages of completed calls.
+     */
+    public long getResponseBytes() {
+      return responseBytes.sum();
+    }
+  }
+}
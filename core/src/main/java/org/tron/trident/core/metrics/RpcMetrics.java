@@ -0,0 +1,35 @@
+package org.tron.trident.core.metrics;
+
+import io.grpc.Status;
+
+/**
+ * Receives per-call measurements from {@link org.tron.trident.core.interceptor.MetricsInterceptor}.
+ *
+ * <p>Implement this to export to a monitoring system. Methods are called on gRPC transport
+ * threads for every call, so implementations must be thread-safe and should not block.
+ * {@link InMemoryRpcMetrics} keeps histograms and counters in memory and can be polled by an
+ * exporter.</p>
+ */
+public interface RpcMetrics {
+
+  /**
+   * A call was started.
+   *
+   * @param endpoint authority of the channel, e.g. {@code grpc.trongrid.io:50051}
+   * @param method full gRPC method name, e.g. {@code protocol.Wallet/GetNowBlock2}
+   */
+  void callStarted(String endpoint, String method);
+
+  /**
+   * A call that was reported to {@link #callStarted} has completed.
+   *
+   * @param endpoint authority of the channel
+   * @param method full gRPC method name
+   * @param code the status code the call closed with
+   * @param latencyNanos time from start to close
+   * @param requestBytes serialized size of the request messages
+   * @param responseBytes serialized size of the response messages
+   */
+  void callCompleted(String endpoint, String method, Status.Code code, long latencyNanos,
+      long requestBytes, long responseBytes);
+}
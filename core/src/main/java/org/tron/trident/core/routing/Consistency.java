@@ -0,0 +1,64 @@
+package org.tron.trident.core.routing;
+
+/**
+ * How recent the data a query reads must be.
+ *
+ * <ul>
+ *   <li>{@link #LATEST}: the head of the chain, served by the full node.</li>
+ *   <li>{@link #SOLIDIFIED}: only irreversible blocks, served by the solidity node.</li>
+ *   <li>{@link #atLeast(long)}: any state that includes the given block. Served by the solidity
+ *   node once it has solidified that block, by the full node until then.</li>
+ * </ul>
+ */
+public final class Consistency {
+
+  public static final Consistency LATEST = new Consistency(Level.LATEST, -1);
+  public static final Consistency SOLIDIFIED = new Consistency(Level.SOLIDIFIED, -1);
+
+  /**
+   * Kind of consistency.
+   */
+  public enum Level {
+    LATEST,
+    SOLIDIFIED,
+    AT_LEAST_BLOCK
+  }
+
+  private final Level level;
+  private final long blockNum;
+
+  private Consistency(Level level, long blockNum) {
+    this.level = level;
+    this.blockNum = blockNum;
+  }
+
+  /**
+   * Read from any node whose state includes block {@code blockNum}, e.g. the block of a
+   * transaction the caller has just seen confirmed.
+   *
+   * @param blockNum the block number
+   * @return the consistency
+   */
+  public static Consistency atLeast(long blockNum) {
+    if (blockNum < 0) {
+      throw new IllegalArgumentException("blockNum must be >= 0");
+    }
+    return new Consistency(Level.AT_LEAST_BLOCK, blockNum);
+  }
+
+  public Level getLevel() {
+    return level;
+  }
+
+  /**
+   * The block the state must include, -1 unless the level is {@link Level#AT_LEAST_BLOCK}.
+   */
+  public long getBlockNum() {
+    return blockNum;
+  }
+
+  @Override
+  public String toString() {
+    return level == Level.AT_LEAST_BLOCK ? "atLeast(" + blockNum + ")" : level.name();
+  }
+}
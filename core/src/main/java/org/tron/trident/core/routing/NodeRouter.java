@@ -0,0 +1,161 @@
+package org.tron.trident.core.routing;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.tron.trident.core.NodeType;
+import org.tron.trident.core.utils.SingleFlight;
+
+/**
+ * Picks the node that serves a query at a requested {@link Consistency}, preferring the solidity
+ * node, which is otherwise mostly idle, whenever it satisfies the request.
+ *
+ * <p>The router tracks the head block of the full node and of the solidity node. Heights are
+ * learned from blocks the wrapper already receives and are only queried when a decision depends
+ * on a height older than the refresh interval, with concurrent refreshes of the same node sharing
+ * one call.</p>
+ */
+public class NodeRouter {
+
+  private final Height full;
+  private final Height solid;
+  private final long refreshIntervalNanos;
+
+  /**
+   * Create a router.
+   *
+   * @param fullHead queries the head block number of the full node
+   * @param solidHead queries the head block number of the solidity node
+   * @param refreshIntervalMillis how long a known height is trusted before a decision depending on
+   *     it queries the node again. TRON produces a block every 3 seconds.
+   */
+  public NodeRouter(LongSupplier fullHead, LongSupplier solidHead, long refreshIntervalMillis) {
+    if (refreshIntervalMillis < 0) {
+      throw new IllegalArgumentException("refreshIntervalMillis must be >= 0");
+    }
+    this.full = new Height(fullHead);
+    this.solid = new Height(solidHead);
+    this.refreshIntervalNanos = refreshIntervalMillis * 1_000_000L;
+  }
+
+  /**
+   * The node to query.
+   *
+   * @param consistency the requested consistency
+   * @return {@link NodeType#SOLIDITY_NODE} or {@link NodeType#FULL_NODE}
+   */
+  public NodeType route(Consistency consistency) {
+    switch (consistency.getLevel()) {
+      case SOLIDIFIED:
+        return NodeType.SOLIDITY_NODE;
+      case AT_LEAST_BLOCK:
+        return hasSolidified(consistency.getBlockNum())
+            ? NodeType.SOLIDITY_NODE
+            : NodeType.FULL_NODE;
+      default:
+        return NodeType.FULL_NODE;
+    }
+  }
+
+  private boolean hasSolidified(long blockNum) {
+    if (solid.value.get() >= blockNum) {
+      return true;
+    }
+    if (!solid.isStale() || solid.hasRecentlyFailed()) {
+      return false;
+    }
+    try {
+      return solid.refresh() >= blockNum;
+    } catch (RuntimeException e) {
+      // solidity node unavailable, the full node has every block it would have had
+      return false;
+    }
+  }
+
+  /**
+   * Record a block number seen on a node, e.g. the number of a block it returned.
+   *
+   * @param node the node that returned the block
+   * @param blockNum the block number
+   */
+  public void observe(NodeType node, long blockNum) {
+    (node == NodeType.SOLIDITY_NODE ? solid : full).observe(blockNum);
+  }
+
+  /**
+   * Head block number of the full node, queried if the known one is older than the refresh
+   * interval.
+   */
+  public long getHeadBlockNum() {
+    return full.isStale() ? full.refresh() : full.value.get();
+  }
+
+  /**
+   * Head block number of the solidity node, which is the latest solidified block, queried if the
+   * known one is older than the refresh interval. If the query fails, the last known number is
+   * returned, since solidified blocks are final and it stays a safe bound, and the node is not
+   * queried again until the refresh interval has passed.
+   *
+   * @throws RuntimeException the query failure, if no number is known yet
+   */
+  public long getSolidBlockNum() {
+    if (!solid.isStale() || solid.hasRecentlyFailed() && solid.value.get() >= 0) {
+      return solid.value.get();
+    }
+    try {
+      return solid.refresh();
+    } catch (RuntimeException e) {
+      long known = solid.value.get();
+      if (known < 0) {
+        throw e;
+      }
+      return known;
+    }
+  }
+
+  private final class Height {
+
+    private final LongSupplier source;
+    private final SingleFlight<Boolean, Long> refreshes = new SingleFlight<>(0);
+    private final AtomicLong value = new AtomicLong(-1);
+    private volatile long updatedAt;
+    private volatile boolean failed;
+    private volatile long failedAt;
+
+    Height(LongSupplier source) {
+      this.source = source;
+    }
+
+    boolean isStale() {
+      return value.get() < 0 || System.nanoTime() - updatedAt > refreshIntervalNanos;
+    }
+
+    boolean hasRecentlyFailed() {
+      return failed && System.nanoTime() - failedAt <= refreshIntervalNanos;
+    }
+
+    long refresh() {
+      return refreshes.call(Boolean.TRUE, () -> {
+        long blockNum;
+        try {
+          blockNum = source.getAsLong();
+        } catch (RuntimeException e) {
+          failedAt = System.nanoTime();
+          failed = true;
+          throw e;
+        }
+        failed = false;
+        // the node's own answer, even if lower after a restart or rollback
+        value.set(blockNum);
+        updatedAt = System.nanoTime();
+        return blockNum;
+      });
+    }
+
+    void observe(long blockNum) {
+      // an old block, e.g. from getBlockByNum, says nothing about the current head
+      if (value.accumulateAndGet(blockNum, Math::max) <= blockNum) {
+        updatedAt = System.nanoTime();
+      }
+    }
+  }
+}
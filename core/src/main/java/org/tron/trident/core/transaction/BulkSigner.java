@@ -0,0 +1,268 @@
+package org.tron.trident.core.transaction;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.crypto.Digests;
+import org.tron.trident.crypto.SECP256K1;
+import org.tron.trident.crypto.tuwenitypes.Bytes32;
+import org.tron.trident.proto.Chain.Transaction;
+
+/**
+ * The {@code BulkSigner} class signs large batches of transactions offline across a worker pool.
+ *
+ * <p>Transactions are hashed with the per-thread digests of {@link Digests} and signed by the
+ * configured {@link org.tron.trident.crypto.SignatureEngine}, so no digest or signer is created
+ * per transaction. Results are returned in input order, and a transaction that cannot be
+ * signed is reported as a failed {@link Result} instead of aborting the whole batch.</p>
+ *
+ * <p>Signatures are identical to those produced by
+ * {@link org.tron.trident.core.ApiWrapper#signTransaction(Transaction, KeyPair)}.</p>
+ */
+public class BulkSigner implements AutoCloseable {
+
+  private static final int CHUNKS_PER_WORKER = 4;
+
+  private final KeyPair defaultKeyPair;
+  private final ExecutorService executor;
+  private final int parallelism;
+  private final boolean ownsExecutor;
+
+  /**
+   * Creates a signer with one worker per available processor.
+   *
+   * @param defaultKeyPair key used for every transaction without an explicit key, may be null
+   */
+  public BulkSigner(KeyPair defaultKeyPair) {
+    this(defaultKeyPair, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates a signer backed by its own fixed pool of daemon threads.
+   *
+   * @param defaultKeyPair key used for every transaction without an explicit key, may be null
+   * @param parallelism number of worker threads
+   */
+  public BulkSigner(KeyPair defaultKeyPair, int parallelism) {
+    this(defaultKeyPair, Executors.newFixedThreadPool(checkParallelism(parallelism),
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("trident-signer-%d").build()),
+        parallelism, true);
+  }
+
+  /**
+   * Creates a signer on a caller supplied executor. The executor is not shut down by
+   * {@link #close()}.
+   *
+   * @param defaultKeyPair key used for every transaction without an explicit key, may be null
+   * @param executor executor running the signing tasks
+   * @param parallelism number of tasks a batch is split into per round
+   */
+  public BulkSigner(KeyPair defaultKeyPair, ExecutorService executor, int parallelism) {
+    this(defaultKeyPair, executor, checkParallelism(parallelism), false);
+  }
+
+  private BulkSigner(KeyPair defaultKeyPair, ExecutorService executor, int parallelism,
+      boolean ownsExecutor) {
+    if (executor == null) {
+      throw new IllegalArgumentException("executor should not be null");
+    }
+    this.defaultKeyPair = defaultKeyPair;
+    this.executor = executor;
+    this.parallelism = parallelism;
+    this.ownsExecutor = ownsExecutor;
+  }
+
+  private static int checkParallelism(int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism must be > 0");
+    }
+    return parallelism;
+  }
+
+  /**
+   * Sign every transaction with the default key pair.
+   *
+   * @param txns transactions to sign
+   * @return one result per transaction, in input order
+   */
+  public List<Result> sign(List<Transaction> txns) {
+    return sign(txns, i -> defaultKeyPair);
+  }
+
+  /**
+   * Sign every transaction with the key at the same index, falling back to the default key pair
+   * when {@code keyPairs} is null or holds null at that index.
+   *
+   * @param txns transactions to sign
+   * @param keyPairs per-transaction key pairs, may be null
+   * @return one result per transaction, in input order
+   */
+  public List<Result> sign(List<Transaction> txns, List<KeyPair> keyPairs) {
+    if (keyPairs != null && keyPairs.size() != txns.size()) {
+      throw new IllegalArgumentException("keyPairs size " + keyPairs.size()
+          + " does not match transactions size " + txns.size());
+    }
+    return sign(txns, keyPairs == null ? i -> defaultKeyPair : i -> {
+      KeyPair keyPair = keyPairs.get(i);
+      return keyPair != null ? keyPair : defaultKeyPair;
+    });
+  }
+
+  /**
+   * Sign every transaction with the key returned by {@code keySelector} for its index.
+   *
+   * @param txns transactions to sign
+   * @param keySelector maps a transaction index to its key pair
+   * @return one result per transaction, in input order
+   */
+  public List<Result> sign(List<Transaction> txns, IntFunction<KeyPair> keySelector) {
+    Result[] results = new Result[txns.size()];
+    signInto(txns, keySelector, 0, results);
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Sign a stream of transactions with the default key pair, handing results to {@code sink} in
+   * input order. At most {@code windowSize} transactions are held in memory at a time.
+   *
+   * @param txns transactions to sign
+   * @param windowSize number of transactions signed per round
+   * @param sink receives every result, called from the calling thread
+   */
+  public void sign(Iterator<Transaction> txns, int windowSize, Consumer<Result> sink) {
+    if (windowSize <= 0) {
+      throw new IllegalArgumentException("windowSize must be > 0");
+    }
+    List<Transaction> window = new ArrayList<>(windowSize);
+    int offset = 0;
+    while (txns.hasNext()) {
+      window.add(txns.next());
+      if (window.size() == windowSize || !txns.hasNext()) {
+        Result[] results = new Result[window.size()];
+        signInto(window, i -> defaultKeyPair, offset, results);
+        for (Result result : results) {
+          sink.accept(result);
+        }
+        offset += window.size();
+        window.clear();
+      }
+    }
+  }
+
+  private void signInto(List<Transaction> txns, IntFunction<KeyPair> keySelector,
+      int indexOffset, Result[] results) {
+    int size = txns.size();
+    if (size == 0) {
+      return;
+    }
+    int chunks = Math.min(size, parallelism * CHUNKS_PER_WORKER);
+    int chunkSize = (size + chunks - 1) / chunks;
+    List<Future<?>> futures = new ArrayList<>(chunks);
+    for (int from = 0; from < size; from += chunkSize) {
+      final int start = from;
+      final int end = Math.min(size, from + chunkSize);
+      futures.add(executor.submit(() -> {
+        for (int i = start; i < end; i++) {
+          try {
+            results[i] = sign(indexOffset + i, txns.get(i), keySelector.apply(i));
+          } catch (RuntimeException e) {
+            results[i] = new Result(indexOffset + i, null, null, e);
+          }
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.forEach(f -> f.cancel(true));
+        throw new IllegalStateException("bulk signing interrupted", e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("bulk signing failed", e.getCause());
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (ownsExecutor) {
+      executor.shutdown();
+    }
+  }
+
+  private static Result sign(int index, Transaction txn, KeyPair keyPair) {
+    if (txn == null) {
+      throw new IllegalArgumentException("transaction should not be null");
+    }
+    if (keyPair == null) {
+      throw new IllegalArgumentException("no key pair for transaction");
+    }
+    byte[] txId = Digests.sha256(txn.getRawData().toByteArray());
+    SECP256K1.Signature sig = SECP256K1.sign(Bytes32.wrap(txId), keyPair.getRawPair());
+    Transaction signed = txn.toBuilder()
+        .addSignature(ByteString.copyFrom(sig.encodedBytes().toArrayUnsafe()))
+        .build();
+    return new Result(index, txId, signed, null);
+  }
+
+  /**
+   * Outcome of signing one transaction of a batch.
+   */
+  public static final class Result {
+
+    private final int index;
+    private final byte[] txId;
+    private final Transaction transaction;
+    private final Exception error;
+
+    Result(int index, byte[] txId, Transaction transaction, Exception error) {
+      this.index = index;
+      this.txId = txId;
+      this.transaction = transaction;
+      this.error = error;
+    }
+
+    /**
+     * Position of the transaction in the submitted batch or stream.
+     */
+    public int getIndex() {
+      return index;
+    }
+
+    public boolean isSuccess() {
+      return error == null;
+    }
+
+    /**
+     * Transaction id of the signed transaction, null if signing failed.
+     */
+    public byte[] getTxId() {
+      return txId;
+    }
+
+    /**
+     * The signed transaction, null if signing failed.
+     */
+    public Transaction getTransaction() {
+      return transaction;
+    }
+
+    /**
+     * The failure cause, null if signing succeeded.
+     */
+    public Exception getError() {
+      return error;
+    }
+  }
+}
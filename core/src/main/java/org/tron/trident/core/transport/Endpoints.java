@@ -0,0 +1,146 @@
+package org.tron.trident.core.transport;
+
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollChannelOption;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+import java.net.URI;
+
+/**
+ * Picks the transport of a channel from its endpoint.
+ *
+ * <ul>
+ *   <li>{@code host:port} or any gRPC target such as {@code dns:///host:port}: TCP through the
+ *   default gRPC transport, as before.</li>
+ *   <li>{@code unix:/path/to/socket} or {@code unix:///path/to/socket}: a Unix domain socket on
+ *   the Netty epoll transport, for a full node or proxy on the same host. No TCP stack, no
+ *   loopback checksums, lower latency and CPU per call.</li>
+ *   <li>{@code epoll://host:port}: TCP on the Netty epoll transport with {@code TCP_NODELAY} and
+ *   {@code TCP_QUICKACK}, which acknowledges responses without the delayed ACK timer.</li>
+ * </ul>
+ *
+ * <p>The epoll endpoints need Linux. On other systems they fail with an
+ * {@link IllegalStateException} naming the cause. Channels that are not given an event loop share
+ * one epoll event loop of daemon threads per JVM.</p>
+ */
+public final class Endpoints {
+
+  public static final String UNIX_SCHEME = "unix:";
+  public static final String EPOLL_SCHEME = "epoll://";
+
+  private static final String UDS_AUTHORITY = "localhost";
+
+  private Endpoints() {
+  }
+
+  /**
+   * Whether the endpoint selects the native epoll transport.
+   */
+  public static boolean isNative(String endpoint) {
+    return endpoint.startsWith(UNIX_SCHEME) || endpoint.startsWith(EPOLL_SCHEME);
+  }
+
+  /**
+   * A channel builder for the endpoint. Plain targets keep using
+   * {@link ManagedChannelBuilder#forTarget}.
+   *
+   * @param endpoint the endpoint
+   * @return the builder
+   */
+  public static ManagedChannelBuilder<?> channelBuilder(String endpoint) {
+    if (!isNative(endpoint)) {
+      return ManagedChannelBuilder.forTarget(endpoint);
+    }
+    return nettyChannelBuilder(endpoint, sharedEpollEventLoopGroup());
+  }
+
+  /**
+   * A Netty channel builder for the endpoint.
+   *
+   * @param endpoint the endpoint
+   * @param group event loop of the channel, an {@link EpollEventLoopGroup} for native endpoints,
+   *     or null for the gRPC default
+   * @return the builder
+   */
+  static NettyChannelBuilder nettyChannelBuilder(String endpoint, EventLoopGroup group) {
+    if (isNative(endpoint)) {
+      checkEpoll();
+      if (!(group instanceof EpollEventLoopGroup)) {
+        throw new IllegalArgumentException("native endpoints need an epoll event loop");
+      }
+    }
+    NettyChannelBuilder builder;
+    if (endpoint.startsWith(UNIX_SCHEME)) {
+      builder = NettyChannelBuilder.forAddress(new DomainSocketAddress(socketPath(endpoint)))
+          .channelType(EpollDomainSocketChannel.class)
+          .overrideAuthority(UDS_AUTHORITY);
+    } else if (endpoint.startsWith(EPOLL_SCHEME)) {
+      URI uri = URI.create(endpoint);
+      if (uri.getHost() == null || uri.getPort() < 0) {
+        throw new IllegalArgumentException("epoll endpoint must be epoll://host:port: "
+            + endpoint);
+      }
+      builder = NettyChannelBuilder.forAddress(uri.getHost(), uri.getPort())
+          .channelType(EpollSocketChannel.class)
+          .withOption(EpollChannelOption.TCP_QUICKACK, true);
+    } else {
+      builder = NettyChannelBuilder.forTarget(endpoint);
+      if (group instanceof EpollEventLoopGroup) {
+        builder.channelType(EpollSocketChannel.class);
+      } else if (group != null) {
+        builder.channelType(NioSocketChannel.class);
+      }
+    }
+    if (group != null) {
+      builder.eventLoopGroup(group);
+    }
+    return builder;
+  }
+
+  static String socketPath(String endpoint) {
+    String path = endpoint.substring(UNIX_SCHEME.length());
+    if (path.startsWith("//")) {
+      path = path.substring(2);
+    }
+    if (path.isEmpty()) {
+      throw new IllegalArgumentException("unix endpoint without a socket path: " + endpoint);
+    }
+    return path;
+  }
+
+  /**
+   * A new epoll event loop of daemon threads.
+   */
+  static EventLoopGroup newEpollEventLoopGroup(int threads) {
+    checkEpoll();
+    return new EpollEventLoopGroup(threads, new DefaultThreadFactory("trident-epoll", true));
+  }
+
+  /**
+   * The epoll event loop shared by native channels that are not given one.
+   */
+  static EventLoopGroup sharedEpollEventLoopGroup() {
+    checkEpoll();
+    return SharedEventLoop.GROUP;
+  }
+
+  private static void checkEpoll() {
+    if (!Epoll.isAvailable()) {
+      throw new IllegalStateException("epoll transport is not available",
+          Epoll.unavailabilityCause());
+    }
+  }
+
+  private static final class SharedEventLoop {
+
+    private static final EventLoopGroup GROUP =
+        newEpollEventLoopGroup(Math.min(4, Runtime.getRuntime().availableProcessors()));
+  }
+}
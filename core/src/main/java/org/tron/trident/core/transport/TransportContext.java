@@ -0,0 +1,297 @@
+package org.tron.trident.core.transport;
+
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+import io.grpc.stub.MetadataUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.tron.trident.core.interceptor.TimeoutInterceptor;
+
+/**
+ * Channels to a full node and a solidity node, with the event loop, executor and connection
+ * settings behind them, shared by any number of {@link org.tron.trident.core.ApiWrapper}s.
+ *
+ * <p>An {@code ApiWrapper} built with its own endpoints opens two connections of its own. One per
+ * tenant key quickly means hundreds of connections to the same nodes. Build one context per set
+ * of endpoints instead and create wrappers from it: they only hold stubs and a key, and closing
+ * them leaves the shared channels open. Keys can also be chosen per call with
+ * {@link org.tron.trident.core.key.KeyRing}.</p>
+ *
+ * <pre>{@code
+ * TransportContext transport = new TransportContext.Builder(endpoint, solidityEndpoint)
+ *     .setEventLoopThreads(2)
+ *     .setKeepAliveTime(30, TimeUnit.SECONDS)
+ *     .build();
+ * ApiWrapper alice = new ApiWrapper(transport, aliceKey);
+ * ApiWrapper bob = new ApiWrapper(transport, bobKey);
+ * ...
+ * transport.close();
+ * }</pre>
+ */
+public class TransportContext implements AutoCloseable {
+
+  private final ManagedChannel channel;
+  private final ManagedChannel channelSolidity;
+  private final EventLoopGroup eventLoopGroup;
+  private final boolean ownsEventLoopGroup;
+  private final ExecutorService ownedExecutor;
+
+  private TransportContext(Builder builder) {
+    boolean nativeTransport = Endpoints.isNative(builder.grpcEndpoint)
+        || Endpoints.isNative(builder.grpcEndpointSolidity);
+    ownsEventLoopGroup = builder.eventLoopThreads > 0;
+    if (ownsEventLoopGroup) {
+      eventLoopGroup = nativeTransport
+          ? Endpoints.newEpollEventLoopGroup(builder.eventLoopThreads)
+          : new NioEventLoopGroup(builder.eventLoopThreads,
+              new DefaultThreadFactory("trident-grpc-io", true));
+    } else {
+      eventLoopGroup = nativeTransport ? Endpoints.sharedEpollEventLoopGroup() : null;
+    }
+    ownedExecutor = builder.executor instanceof ExecutorService && builder.ownsExecutor
+        ? (ExecutorService) builder.executor
+        : null;
+    channel = builder.newChannel(builder.grpcEndpoint, eventLoopGroup);
+    channelSolidity = builder.newChannel(builder.grpcEndpointSolidity, eventLoopGroup);
+  }
+
+  private TransportContext(ManagedChannel channel, ManagedChannel channelSolidity) {
+    this.channel = channel;
+    this.channelSolidity = channelSolidity;
+    this.eventLoopGroup = null;
+    this.ownsEventLoopGroup = false;
+    this.ownedExecutor = null;
+  }
+
+  /**
+   * Share channels built elsewhere, e.g. in-process channels in tests. {@link #close} shuts them
+   * down.
+   *
+   * @param channel channel to the full node
+   * @param channelSolidity channel to the solidity node
+   * @return a context holding the channels
+   */
+  public static TransportContext of(ManagedChannel channel, ManagedChannel channelSolidity) {
+    if (channel == null || channelSolidity == null) {
+      throw new IllegalArgumentException("channels should not be null");
+    }
+    return new TransportContext(channel, channelSolidity);
+  }
+
+  /**
+   * Channel to the full node.
+   */
+  public ManagedChannel getChannel() {
+    return channel;
+  }
+
+  /**
+   * Channel to the solidity node.
+   */
+  public ManagedChannel getSolidityChannel() {
+    return channelSolidity;
+  }
+
+  /**
+   * Shut down both channels, waiting up to 5 seconds for calls in progress, then release the
+   * event loop and the executor if the context created or owns them.
+   */
+  @Override
+  public void close() {
+    channel.shutdown();
+    channelSolidity.shutdown();
+    try {
+      if (!channel.awaitTermination(5, TimeUnit.SECONDS)) {
+        channel.shutdownNow();
+      }
+      if (!channelSolidity.awaitTermination(5, TimeUnit.SECONDS)) {
+        channelSolidity.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      channel.shutdownNow();
+      channelSolidity.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    if (ownsEventLoopGroup) {
+      eventLoopGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+    }
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdown();
+    }
+  }
+
+  /**
+   * Builder of {@link TransportContext}. Settings left unset keep the gRPC defaults.
+   */
+  public static class Builder {
+
+    private final String grpcEndpoint;
+    private final String grpcEndpointSolidity;
+    private int eventLoopThreads;
+    private Executor executor;
+    private boolean ownsExecutor;
+    private long keepAliveTimeNanos;
+    private long keepAliveTimeoutNanos;
+    private boolean keepAliveWithoutCalls;
+    private int flowControlWindow;
+    private int maxInboundMessageSize;
+    private long timeoutMillis;
+    private String apiKey;
+    private final List<ClientInterceptor> interceptors = new ArrayList<>();
+
+    /**
+     * Start building a context.
+     *
+     * @param grpcEndpoint full node endpoint, e.g. {@code grpc.trongrid.io:50051}, see
+     *     {@link Endpoints} for the Unix domain socket and epoll forms
+     * @param grpcEndpointSolidity solidity node endpoint, e.g. {@code grpc.trongrid.io:50052}
+     */
+    public Builder(String grpcEndpoint, String grpcEndpointSolidity) {
+      if (grpcEndpoint == null || grpcEndpointSolidity == null) {
+        throw new IllegalArgumentException("endpoints should not be null");
+      }
+      this.grpcEndpoint = grpcEndpoint;
+      this.grpcEndpointSolidity = grpcEndpointSolidity;
+    }
+
+    /**
+     * Run both channels on a dedicated event loop with this many threads instead of the event
+     * loop gRPC shares across the JVM, an epoll one if either endpoint is native. The context
+     * shuts it down when closed.
+     */
+    public Builder setEventLoopThreads(int eventLoopThreads) {
+      if (eventLoopThreads < 0) {
+        throw new IllegalArgumentException("eventLoopThreads must be >= 0");
+      }
+      this.eventLoopThreads = eventLoopThreads;
+      return this;
+    }
+
+    /**
+     * Executor running call callbacks, instead of the cached pool gRPC shares across the JVM.
+     *
+     * @param executor the executor
+     * @param shutdownOnClose whether closing the context shuts down the executor, only honored
+     *     for an {@link ExecutorService}
+     */
+    public Builder setExecutor(Executor executor, boolean shutdownOnClose) {
+      this.executor = executor;
+      this.ownsExecutor = shutdownOnClose;
+      return this;
+    }
+
+    /**
+     * Send HTTP/2 pings after this long without reads, so dead connections are noticed before a
+     * call runs into them.
+     */
+    public Builder setKeepAliveTime(long time, TimeUnit unit) {
+      this.keepAliveTimeNanos = unit.toNanos(time);
+      return this;
+    }
+
+    /**
+     * How long to wait for a ping reply before closing the connection.
+     */
+    public Builder setKeepAliveTimeout(long timeout, TimeUnit unit) {
+      this.keepAliveTimeoutNanos = unit.toNanos(timeout);
+      return this;
+    }
+
+    /**
+     * Whether to send keepalive pings when no call is in progress. Nodes may close connections
+     * that ping too often, so leave this off unless idle connections are being dropped.
+     */
+    public Builder setKeepAliveWithoutCalls(boolean keepAliveWithoutCalls) {
+      this.keepAliveWithoutCalls = keepAliveWithoutCalls;
+      return this;
+    }
+
+    /**
+     * Initial HTTP/2 flow control window in bytes. A larger window lets large responses such as
+     * full blocks stream without waiting for window updates.
+     */
+    public Builder setFlowControlWindow(int flowControlWindow) {
+      this.flowControlWindow = flowControlWindow;
+      return this;
+    }
+
+    /**
+     * Largest response accepted, in bytes. The gRPC default is 4 MiB.
+     */
+    public Builder setMaxInboundMessageSize(int maxInboundMessageSize) {
+      this.maxInboundMessageSize = maxInboundMessageSize;
+      return this;
+    }
+
+    /**
+     * Deadline of every call, in milliseconds.
+     */
+    public Builder setTimeout(long timeoutMillis) {
+      this.timeoutMillis = timeoutMillis;
+      return this;
+    }
+
+    /**
+     * TronGrid API key sent with every call.
+     */
+    public Builder setApiKey(String apiKey) {
+      this.apiKey = apiKey;
+      return this;
+    }
+
+    /**
+     * Interceptors applied to every call on both channels. As with
+     * {@link io.grpc.ClientInterceptors#intercept}, the last one added sees the call first.
+     */
+    public Builder addInterceptors(ClientInterceptor... interceptors) {
+      Collections.addAll(this.interceptors, interceptors);
+      return this;
+    }
+
+    public TransportContext build() {
+      return new TransportContext(this);
+    }
+
+    private ManagedChannel newChannel(String target, EventLoopGroup group) {
+      NettyChannelBuilder builder = Endpoints.nettyChannelBuilder(target, group).usePlaintext();
+      if (executor != null) {
+        builder.executor(executor);
+      }
+      if (keepAliveTimeNanos > 0) {
+        builder.keepAliveTime(keepAliveTimeNanos, TimeUnit.NANOSECONDS);
+      }
+      if (keepAliveTimeoutNanos > 0) {
+        builder.keepAliveTimeout(keepAliveTimeoutNanos, TimeUnit.NANOSECONDS);
+      }
+      builder.keepAliveWithoutCalls(keepAliveWithoutCalls);
+      if (flowControlWindow > 0) {
+        builder.initialFlowControlWindow(flowControlWindow);
+      }
+      if (maxInboundMessageSize > 0) {
+        builder.maxInboundMessageSize(maxInboundMessageSize);
+      }
+
+      // interceptors added last run first, so the timeout and api key are set before the
+      // application interceptors see the call
+      List<ClientInterceptor> all = new ArrayList<>(interceptors);
+      if (apiKey != null) {
+        Metadata header = new Metadata();
+        header.put(Metadata.Key.of("TRON-PRO-API-KEY", Metadata.ASCII_STRING_MARSHALLER), apiKey);
+        all.add(MetadataUtils.newAttachHeadersInterceptor(header));
+      }
+      if (timeoutMillis > 0) {
+        all.add(new TimeoutInterceptor(timeoutMillis));
+      }
+      return builder.intercept(all).build();
+    }
+  }
+}
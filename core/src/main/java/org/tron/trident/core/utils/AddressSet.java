@@ -0,0 +1,310 @@
+package org.tron.trident.core.utils;
+
+import com.google.protobuf.ByteString;
+import java.nio.ByteBuffer;
+import org.tron.trident.utils.Base58Check;
+
+/**
+ * A set of TRON addresses, specialized for membership tests against millions of entries.
+ *
+ * <p>The 20 bytes following the {@code 0x41} prefix of each address are stored in an open
+ * addressing table packed into a single heap or direct {@link ByteBuffer}, using about 40 bytes per
+ * address and no object per entry. Address bytes are Keccak output, so they are used as the hash
+ * directly. An optional Bloom filter in front of the table answers most misses from a much smaller
+ * bit array that stays in cache.</p>
+ *
+ * <p>The set is not thread-safe for writes. Once it is populated and safely published, any number
+ * of threads may call the {@code contains} methods concurrently. Entries cannot be removed.</p>
+ */
+public final class AddressSet {
+
+  public static final byte ADDRESS_PREFIX = 0x41;
+  public static final int ADDRESS_LENGTH = 21;
+
+  private static final int KEY_LENGTH = 20;
+  private static final int MAX_CAPACITY = 1 << 26;
+  private static final int MAX_BLOOM_HASHES = 8;
+
+  private final boolean direct;
+  private final int bloomBitsPerAddress;
+
+  private ByteBuffer table;
+  private int mask;
+  private int size;
+  private boolean containsZero;
+
+  private long[] bloom;
+  private int bloomMask;
+  private int bloomHashes;
+
+  /**
+   * Creates an on-heap set without a Bloom filter.
+   *
+   * @param expectedSize number of addresses the set is sized for, it grows beyond that as needed
+   */
+  public AddressSet(int expectedSize) {
+    this(expectedSize, false, 0);
+  }
+
+  /**
+   * Creates a set.
+   *
+   * @param expectedSize number of addresses the set is sized for, it grows beyond that as needed
+   * @param offHeap whether the table is allocated in a direct buffer outside the Java heap
+   * @param bloomBitsPerAddress bits of Bloom filter per address, 0 for none. 8 to 10 bits reject
+   *     about 99% of addresses that are not in the set.
+   */
+  public AddressSet(int expectedSize, boolean offHeap, int bloomBitsPerAddress) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("expectedSize must be >= 0");
+    }
+    if (bloomBitsPerAddress < 0) {
+      throw new IllegalArgumentException("bloomBitsPerAddress must be >= 0");
+    }
+    this.direct = offHeap;
+    this.bloomBitsPerAddress = bloomBitsPerAddress;
+    allocate(capacityFor(expectedSize));
+  }
+
+  private static int capacityFor(long expectedSize) {
+    long capacity = Long.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+    if (capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("too many addresses: " + expectedSize);
+    }
+    return (int) capacity;
+  }
+
+  private void allocate(int capacity) {
+    table = direct
+        ? ByteBuffer.allocateDirect(capacity * KEY_LENGTH)
+        : ByteBuffer.allocate(capacity * KEY_LENGTH);
+    mask = capacity - 1;
+    if (bloomBitsPerAddress > 0) {
+      long bits = Long.highestOneBit(Math.max(64L, (long) (capacity / 2) * bloomBitsPerAddress));
+      bloom = new long[(int) (bits >>> 6)];
+      bloomMask = (int) bits - 1;
+      bloomHashes = Math.max(1, Math.min(MAX_BLOOM_HASHES,
+          (int) Math.round(bloomBitsPerAddress * Math.log(2))));
+    }
+  }
+
+  /**
+   * Add an address.
+   *
+   * @param address raw 21-byte address starting with {@code 0x41}
+   * @return true if the address was not in the set
+   */
+  public boolean add(byte[] address) {
+    checkAddress(address.length, address.length == 0 ? 0 : address[0]);
+    return addKey(longAt(address, 1), longAt(address, 9), intAt(address, 17));
+  }
+
+  /**
+   * Add an address.
+   *
+   * @param address raw 21-byte address starting with {@code 0x41}
+   * @return true if the address was not in the set
+   */
+  public boolean add(ByteString address) {
+    checkAddress(address.size(), address.isEmpty() ? 0 : address.byteAt(0));
+    return addKey(longAt(address, 1), longAt(address, 9), intAt(address, 17));
+  }
+
+  /**
+   * Add an address.
+   *
+   * @param base58CheckAddress address in Base58Check format
+   * @return true if the address was not in the set
+   */
+  public boolean add(String base58CheckAddress) {
+    return add(Base58Check.base58ToBytes(base58CheckAddress));
+  }
+
+  private static void checkAddress(int length, byte prefix) {
+    if (length != ADDRESS_LENGTH || prefix != ADDRESS_PREFIX) {
+      throw new IllegalArgumentException("not a raw TRON address");
+    }
+  }
+
+  private boolean addKey(long k0, long k1, int k2) {
+    if (k0 == 0 && k1 == 0 && k2 == 0) {
+      if (containsZero) {
+        return false;
+      }
+      containsZero = true;
+      size++;
+      return true;
+    }
+    if (!insert(k0, k1, k2)) {
+      return false;
+    }
+    size++;
+    if (size > (mask + 1) / 2) {
+      resize();
+    }
+    return true;
+  }
+
+  private boolean insert(long k0, long k1, int k2) {
+    int slot = slot(k0);
+    while (true) {
+      int offset = slot * KEY_LENGTH;
+      long t0 = table.getLong(offset);
+      long t1 = table.getLong(offset + 8);
+      int t2 = table.getInt(offset + 16);
+      if (t0 == k0 && t1 == k1 && t2 == k2) {
+        return false;
+      }
+      if (t0 == 0 && t1 == 0 && t2 == 0) {
+        table.putLong(offset, k0);
+        table.putLong(offset + 8, k1);
+        table.putInt(offset + 16, k2);
+        if (bloom != null) {
+          addToBloom(k0, k1);
+        }
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private void resize() {
+    ByteBuffer old = table;
+    int oldCapacity = mask + 1;
+    if (oldCapacity >= MAX_CAPACITY) {
+      throw new IllegalStateException("address set is full");
+    }
+    allocate(oldCapacity * 2);
+    for (int slot = 0; slot < oldCapacity; slot++) {
+      int offset = slot * KEY_LENGTH;
+      long k0 = old.getLong(offset);
+      long k1 = old.getLong(offset + 8);
+      int k2 = old.getInt(offset + 16);
+      if (k0 != 0 || k1 != 0 || k2 != 0) {
+        insert(k0, k1, k2);
+      }
+    }
+  }
+
+  /**
+   * Whether an address is in the set.
+   *
+   * @param address raw 21-byte address
+   * @return true if the address is in the set
+   */
+  public boolean contains(byte[] address) {
+    if (address.length != ADDRESS_LENGTH || address[0] != ADDRESS_PREFIX) {
+      return false;
+    }
+    return containsKey(longAt(address, 1), longAt(address, 9), intAt(address, 17));
+  }
+
+  /**
+   * Whether an address is in the set.
+   *
+   * @param address raw 21-byte address
+   * @return true if the address is in the set
+   */
+  public boolean contains(ByteString address) {
+    if (address.size() != ADDRESS_LENGTH || address.byteAt(0) != ADDRESS_PREFIX) {
+      return false;
+    }
+    return containsKey(longAt(address, 1), longAt(address, 9), intAt(address, 17));
+  }
+
+  /**
+   * Whether the 20-byte address body at {@code offset} is in the set, e.g. the last 20 bytes of an
+   * ABI encoded address in an event topic.
+   *
+   * @param data buffer holding the address body without the {@code 0x41} prefix
+   * @param offset offset of the address body
+   * @return true if the address is in the set
+   */
+  public boolean containsBody(ByteString data, int offset) {
+    if (offset < 0 || offset + KEY_LENGTH > data.size()) {
+      return false;
+    }
+    return containsKey(longAt(data, offset), longAt(data, offset + 8), intAt(data, offset + 16));
+  }
+
+  private boolean containsKey(long k0, long k1, int k2) {
+    if (k0 == 0 && k1 == 0 && k2 == 0) {
+      return containsZero;
+    }
+    if (bloom != null && !mightContain(k0, k1)) {
+      return false;
+    }
+    int slot = slot(k0);
+    while (true) {
+      int offset = slot * KEY_LENGTH;
+      long t0 = table.getLong(offset);
+      long t1 = table.getLong(offset + 8);
+      int t2 = table.getInt(offset + 16);
+      if (t0 == k0 && t1 == k1 && t2 == k2) {
+        return true;
+      }
+      if (t0 == 0 && t1 == 0 && t2 == 0) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private int slot(long k0) {
+    return (int) ((k0 * 0x9E3779B97F4A7C15L) >>> 38) & mask;
+  }
+
+  private void addToBloom(long k0, long k1) {
+    int h1 = (int) k1;
+    int h2 = (int) (k1 >>> 32) | 1;
+    for (int i = 0; i < bloomHashes; i++) {
+      int bit = (h1 + i * h2) & bloomMask;
+      bloom[bit >>> 6] |= 1L << bit;
+    }
+  }
+
+  private boolean mightContain(long k0, long k1) {
+    int h1 = (int) k1;
+    int h2 = (int) (k1 >>> 32) | 1;
+    for (int i = 0; i < bloomHashes; i++) {
+      int bit = (h1 + i * h2) & bloomMask;
+      if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Approximate memory held by the table and Bloom filter, in bytes.
+   */
+  public long memoryUsage() {
+    return (long) table.capacity() + (bloom == null ? 0 : (long) bloom.length * 8);
+  }
+
+  private static long longAt(byte[] b, int offset) {
+    return ((long) intAt(b, offset) << 32) | (intAt(b, offset + 4) & 0xffffffffL);
+  }
+
+  private static long longAt(ByteString b, int offset) {
+    return ((long) intAt(b, offset) << 32) | (intAt(b, offset + 4) & 0xffffffffL);
+  }
+
+  private static int intAt(byte[] b, int offset) {
+    return (b[offset] & 0xff) << 24 | (b[offset + 1] & 0xff) << 16
+        | (b[offset + 2] & 0xff) << 8 | (b[offset + 3] & 0xff);
+  }
+
+  private static int intAt(ByteString b, int offset) {
+    return (b.byteAt(offset) & 0xff) << 24 | (b.byteAt(offset + 1) & 0xff) << 16
+        | (b.byteAt(offset + 2) & 0xff) << 8 | (b.byteAt(offset + 3) & 0xff);
+  }
+}
@@ -0,0 +1,154 @@
+package org.tron.trident.core.utils;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Chain.Transaction.Contract.ContractType;
+
+/**
+ * Reads address fields straight from the serialized {@code Any} parameter of a contract, without
+ * unpacking it into the concrete contract message.
+ */
+public class ContractParser {
+
+  private ContractParser() {
+  }
+
+  /**
+   * Field number of {@code owner_address} in the contract message of the given type.
+   *
+   * @param type contract type
+   * @return the field number, or 0 if the contract has no owner address
+   */
+  public static int ownerAddressField(ContractType type) {
+    switch (type) {
+      case AccountUpdateContract:
+      case SetAccountIdContract:
+      case TransferAssetContract:
+        return 2;
+      case CustomContract:
+      case GetContract:
+      case ShieldedTransferContract:
+      case UNRECOGNIZED:
+        return 0;
+      default:
+        return 1;
+    }
+  }
+
+  /**
+   * Field number of {@code to_address} in the contract message of the given type.
+   *
+   * @param type contract type
+   * @return the field number, or 0 if the contract has no destination address
+   */
+  public static int toAddressField(ContractType type) {
+    switch (type) {
+      case TransferContract:
+      case ParticipateAssetIssueContract:
+        return 2;
+      case TransferAssetContract:
+        return 3;
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * Owner address of the first contract of a transaction.
+   *
+   * @param txn the transaction
+   * @return the raw owner address, or an empty ByteString if it has none
+   */
+  public static ByteString getOwnerAddress(Transaction txn) {
+    if (txn.getRawData().getContractCount() == 0) {
+      return ByteString.EMPTY;
+    }
+    return getOwnerAddress(txn.getRawData().getContract(0));
+  }
+
+  /**
+   * Owner address of a contract.
+   *
+   * @param contract the contract
+   * @return the raw owner address, or an empty ByteString if it has none
+   */
+  public static ByteString getOwnerAddress(Transaction.Contract contract) {
+    int field = ownerAddressField(contract.getType());
+    if (field == 0) {
+      return ByteString.EMPTY;
+    }
+    return readBytesField(contract.getParameter().getValue(), field);
+  }
+
+  /**
+   * Destination address of a contract.
+   *
+   * @param contract the contract
+   * @return the raw destination address, or an empty ByteString if it has none
+   */
+  public static ByteString getToAddress(Transaction.Contract contract) {
+    int field = toAddressField(contract.getType());
+    if (field == 0) {
+      return ByteString.EMPTY;
+    }
+    return readBytesField(contract.getParameter().getValue(), field);
+  }
+
+  /**
+   * Scan a serialized message for the first occurrence of a length-delimited field. Nested
+   * messages are skipped without being parsed.
+   *
+   * @param message serialized message
+   * @param fieldNumber field to look for
+   * @return the field value, or an empty ByteString if absent
+   * @throws IllegalArgumentException if the message is malformed
+   */
+  public static ByteString readBytesField(ByteString message, int fieldNumber) {
+    try {
+      CodedInputStream input = message.newCodedInput();
+      int tag;
+      while ((tag = input.readTag()) != 0) {
+        if (WireFormat.getTagFieldNumber(tag) == fieldNumber
+            && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+          return input.readBytes();
+        }
+        if (!input.skipField(tag)) {
+          break;
+        }
+      }
+      return ByteString.EMPTY;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("malformed contract parameter", e);
+    }
+  }
+
+  /**
+   * Scan a serialized message for the first occurrence of a varint field.
+   *
+   * @param message serialized message
+   * @param fieldNumber field to look for
+   * @return the field value, or 0 if absent
+   * @throws IllegalArgumentException if the message is malformed
+   */
+  public static long readVarintField(ByteString message, int fieldNumber) {
+    try {
+      CodedInputStream input = message.newCodedInput();
+      int tag;
+      while ((tag = input.readTag()) != 0) {
+        if (WireFormat.getTagFieldNumber(tag) == fieldNumber
+            && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_VARINT) {
+          return input.readInt64();
+        }
+        if (!input.skipField(tag)) {
+          break;
+        }
+      }
+      return 0;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("malformed contract parameter", e);
+    }
+  }
+}
@@ -32,6 +32,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import org.bouncycastle.crypto.digests.SM3Digest;
+import org.tron.trident.crypto.Digests;
 
 
 /**
@@ -179,9 +180,7 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
    */
   public static byte[] hash(boolean isSha256, byte[] input, int offset, int length) {
     if (isSha256) {
-      MessageDigest digest = newDigest();
-      digest.update(input, offset, length);
-      return digest.digest();
+      return Digests.sha256(input, offset, length);
     } else {
       SM3Digest digest = newSM3Digest();
       digest.update(input, offset, length);
@@ -212,9 +211,7 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
    */
   public static byte[] hashTwice(boolean isSha256, byte[] input, int offset, int length) {
     if (isSha256) {
-      MessageDigest digest = newDigest();
-      digest.update(input, offset, length);
-      return digest.digest(digest.digest());
+      return Digests.sha256Twice(input, offset, length);
     } else {
       SM3Digest digest = newSM3Digest();
       digest.update(input, offset, length);
@@ -235,10 +232,7 @@ public class Sha256Hash implements Serializable, Comparable<Sha256Hash> {
   public static byte[] hashTwice(boolean isSha256, byte[] input1, int offset1, int length1,
       byte[] input2, int offset2, int length2) {
     if (isSha256) {
-      MessageDigest digest = newDigest();
-      digest.update(input1, offset1, length1);
-      digest.update(input2, offset2, length2);
-      return digest.digest(digest.digest());
+      return Digests.sha256Twice(input1, offset1, length1, input2, offset2, length2);
     } else {
       SM3Digest digest = newSM3Digest();
       digest.update(input1, offset1, length1);
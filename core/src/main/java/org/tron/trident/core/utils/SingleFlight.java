@@ -0,0 +1,123 @@
+package org.tron.trident.core.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one load per key at a time and shares its result with every caller that asks for
+ * the same key while it is in flight.
+ *
+ * <p>With a freshness window, a successful result is also returned to callers arriving up to
+ * that long after it completed. Failures are shared with the callers waiting on them but never
+ * kept, so the next caller tries again.</p>
+ *
+ * <p>Keys must implement {@code equals} and {@code hashCode}, protobuf messages do.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+public final class SingleFlight<K, V> {
+
+  private static final int SWEEP_THRESHOLD = 1024;
+
+  private final long freshnessNanos;
+  private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+  /**
+   * Create a single-flight group.
+   *
+   * @param freshnessMillis how long a completed result keeps being returned, 0 to only share
+   *     calls that overlap
+   */
+  public SingleFlight(long freshnessMillis) {
+    if (freshnessMillis < 0) {
+      throw new IllegalArgumentException("freshnessMillis must be >= 0");
+    }
+    this.freshnessNanos = freshnessMillis * 1_000_000L;
+  }
+
+  /**
+   * Return the in-flight or fresh result for {@code key}, or run {@code loader} on the calling
+   * thread and share its result.
+   *
+   * @param key the key
+   * @param loader computes the result, runs at most once at a time per key
+   * @return the result
+   * @throws RuntimeException whatever {@code loader} threw, also to callers that shared its call
+   */
+  public V call(K key, Supplier<? extends V> loader) {
+    while (true) {
+      Flight<V> flight = flights.get(key);
+      if (flight != null) {
+        if (!flight.future.isDone() || isFresh(flight)) {
+          return join(flight);
+        }
+        flights.remove(key, flight);
+      }
+      Flight<V> mine = new Flight<>();
+      if (flights.putIfAbsent(key, mine) != null) {
+        continue;
+      }
+      return load(key, mine, loader);
+    }
+  }
+
+  private V load(K key, Flight<V> flight, Supplier<? extends V> loader) {
+    V value;
+    try {
+      value = loader.get();
+    } catch (RuntimeException | Error e) {
+      flights.remove(key, flight);
+      flight.future.completeExceptionally(e);
+      throw e;
+    }
+    flight.completedAt = System.nanoTime();
+    flight.future.complete(value);
+    if (freshnessNanos == 0) {
+      flights.remove(key, flight);
+    } else if (flights.size() > SWEEP_THRESHOLD) {
+      sweep();
+    }
+    return value;
+  }
+
+  private boolean isFresh(Flight<V> flight) {
+    return !flight.future.isCompletedExceptionally()
+        && System.nanoTime() - flight.completedAt < freshnessNanos;
+  }
+
+  private void sweep() {
+    flights.entrySet().removeIf(e -> e.getValue().future.isDone() && !isFresh(e.getValue()));
+  }
+
+  private static <V> V join(Flight<V> flight) {
+    try {
+      return flight.future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Number of keys with a call in flight or a result kept.
+   */
+  public int size() {
+    return flights.size();
+  }
+
+  private static final class Flight<V> {
+
+    final CompletableFuture<V> future = new CompletableFuture<>();
+    volatile long completedAt;
+  }
+}
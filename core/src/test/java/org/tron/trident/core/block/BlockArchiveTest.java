@@ -0,0 +1,229 @@
+package org.tron.trident.core.block;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tron.trident.api.GrpcAPI.BlockLimit;
+import org.tron.trident.api.GrpcAPI.NumberMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.transport.TransportContext;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.BlockListExtention;
+import org.tron.trident.proto.Response.TransactionExtention;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionInfoList;
+
+class BlockArchiveTest {
+
+  private static BlockExtention block(long num) {
+    BlockExtention.Builder block = BlockExtention.newBuilder()
+        .setBlockHeader(BlockHeader.newBuilder()
+            .setRawData(BlockHeader.raw.newBuilder().setNumber(num).setTimestamp(num * 3000)))
+        .setBlockid(ByteString.copyFrom(new byte[32]));
+    for (int i = 0; i < num % 4; i++) {
+      block.addTransactions(TransactionExtention.newBuilder()
+          .setTransaction(Transaction.newBuilder().setRawData(Transaction.raw.newBuilder()
+              .setTimestamp(num * 10 + i)))
+          .setTxid(ByteString.copyFrom(new byte[] {(byte) num, (byte) i})));
+    }
+    return block.build();
+  }
+
+  private static TransactionInfoList infos(long num) {
+    TransactionInfoList.Builder list = TransactionInfoList.newBuilder();
+    for (int i = 0; i < num % 4; i++) {
+      list.addTransactionInfo(TransactionInfo.newBuilder()
+          .setId(ByteString.copyFrom(new byte[] {(byte) num, (byte) i}))
+          .setBlockNumber(num));
+    }
+    return list.build();
+  }
+
+  @Test
+  void testAppendAndReadAcrossSegments(@TempDir Path dir) throws Exception {
+    try (BlockArchive archive = new BlockArchive.Builder(dir)
+        .setFirstBlockNum(1000)
+        .setSegmentSize(512)
+        .build()) {
+      assertEquals(-1, archive.getLastBlockNum());
+      for (long num = 1000; num < 1050; num++) {
+        archive.append(num, block(num).toByteString(),
+            num % 2 == 0 ? infos(num).toByteString() : null);
+      }
+      assertTrue(Files.exists(dir.resolve("segment-000002")));
+      assertEquals(1049, archive.getLastBlockNum());
+
+      for (long num = 1000; num < 1050; num++) {
+        LazyBlock block = archive.getBlock(num);
+        assertEquals(num, block.getNumber());
+        assertEquals(block(num), block.toBlockExtention());
+        assertEquals(block(num).toByteString(), archive.getBlockBytes(num));
+        if (num % 2 == 0) {
+          List<TransactionInfo> seen = new ArrayList<>();
+          assertEquals(num % 4, archive.forEachTransactionInfo(num, seen::add));
+          assertEquals(infos(num).getTransactionInfoList(), seen);
+        } else {
+          assertNull(archive.getTransactionInfos(num));
+          assertEquals(-1, archive.forEachTransactionInfo(num, info -> { }));
+        }
+      }
+      assertNull(archive.getBlock(999));
+      assertNull(archive.getBlock(1050));
+      assertEquals(5, archive.getBlocks(995, 1005).size());
+      assertThrows(IllegalArgumentException.class,
+          () -> archive.append(999, block(999).toByteString(), null));
+    }
+  }
+
+  @Test
+  void testGapsAndReplacement(@TempDir Path dir) throws Exception {
+    try (BlockArchive archive = new BlockArchive.Builder(dir).build()) {
+      archive.append(LazyBlock.parseFrom(block(200_000).toByteString()), null);
+      archive.append(7, block(7).toByteString(), null);
+      assertEquals(200_000, archive.getLastBlockNum());
+      assertTrue(archive.contains(7));
+      assertFalse(archive.contains(8));
+      assertEquals(2, archive.getBlocks(0, 300_000).size());
+
+      archive.append(7, block(11).toByteString(), infos(11).toByteString());
+      assertEquals(11, archive.getBlock(7).getNumber());
+      assertEquals(infos(11).toByteString(), archive.getTransactionInfos(7));
+    }
+  }
+
+  @Test
+  void testReadersSeeWholeReplacements(@TempDir Path dir) throws Exception {
+    try (BlockArchive archive = new BlockArchive.Builder(dir).build()) {
+      ByteString first = block(5).toByteString();
+      ByteString second = block(7).toByteString();
+      archive.append(5, first, null);
+      archive.append(100, block(100).toByteString(), null);
+      AtomicBoolean done = new AtomicBoolean();
+      CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+        try {
+          for (int i = 0; i < 20_000; i++) {
+            if (i % 2 == 0) {
+              archive.append(5, second, infos(7).toByteString());
+            } else {
+              archive.append(5, first, null);
+            }
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        } finally {
+          done.set(true);
+        }
+      });
+      while (!done.get()) {
+        ByteString bytes = archive.getBlockBytes(5);
+        assertTrue(first.equals(bytes) || second.equals(bytes));
+      }
+      writer.get();
+    }
+  }
+
+  @Test
+  void testReopenDropsTornRecords(@TempDir Path dir) throws Exception {
+    try (BlockArchive archive = new BlockArchive.Builder(dir)
+        .setFirstBlockNum(10)
+        .setSegmentSize(256)
+        .build()) {
+      for (long num = 10; num < 30; num++) {
+        archive.append(num, block(num).toByteString(), infos(num).toByteString());
+      }
+    }
+    // lose the tail of the last record, as if the process died before the segment was flushed
+    Path last = Files.list(dir).filter(p -> p.getFileName().toString().startsWith("segment"))
+        .sorted().reduce((a, b) -> b).get();
+    try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 1);
+    }
+
+    try (BlockArchive archive = new BlockArchive.Builder(dir)
+        .setFirstBlockNum(0)
+        .build()) {
+      assertEquals(10, archive.getFirstBlockNum());
+      assertEquals(28, archive.getLastBlockNum());
+      assertFalse(archive.contains(29));
+      assertEquals(block(28), archive.getBlock(28).toBlockExtention());
+      assertEquals(infos(12).toByteString(), archive.getTransactionInfos(12));
+
+      archive.append(29, block(29).toByteString(), null);
+      assertEquals(block(29), archive.getBlock(29).toBlockExtention());
+    }
+  }
+
+  @Test
+  void testBackfillStoresMissingBlocks(@TempDir Path dir) throws Exception {
+    String name = "block-archive-test";
+    AtomicInteger blockCalls = new AtomicInteger();
+    Server server = InProcessServerBuilder.forName(name).directExecutor()
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getBlockByLimitNext2(BlockLimit request,
+              StreamObserver<BlockListExtention> responseObserver) {
+            blockCalls.incrementAndGet();
+            BlockListExtention.Builder list = BlockListExtention.newBuilder();
+            for (long num = request.getStartNum(); num < request.getEndNum(); num++) {
+              list.addBlock(block(num));
+            }
+            responseObserver.onNext(list.build());
+            responseObserver.onCompleted();
+          }
+
+          @Override
+          public void getTransactionInfoByBlockNum(NumberMessage request,
+              StreamObserver<TransactionInfoList> responseObserver) {
+            responseObserver.onNext(infos(request.getNum()));
+            responseObserver.onCompleted();
+          }
+        })
+        .build()
+        .start();
+    ManagedChannel channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    ManagedChannel channelSolidity =
+        InProcessChannelBuilder.forName(name).directExecutor().build();
+    ApiWrapper wrapper = new ApiWrapper(TransportContext.of(channel, channelSolidity),
+        KeyPair.generate());
+    try (BlockArchive archive = new BlockArchive.Builder(dir).setFirstBlockNum(100).build()) {
+      archive.append(150, block(150).toByteString(), null);
+      assertEquals(249, archive.backfill(wrapper, 50, 350, true));
+      assertEquals(25, blockCalls.get());
+      assertEquals(349, archive.getLastBlockNum());
+      assertEquals(block(300), archive.getBlock(300).toBlockExtention());
+      assertEquals(infos(301).toByteString(), archive.getTransactionInfos(301));
+      assertNull(archive.getTransactionInfos(150));
+      assertEquals(0, archive.backfill(wrapper, 100, 350, true));
+    } finally {
+      channel.shutdownNow();
+      channelSolidity.shutdownNow();
+      server.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package org.tron.trident.core.block;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import java.math.BigInteger;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.core.utils.AddressSet;
+import org.tron.trident.core.utils.ByteArray;
+import org.tron.trident.core.utils.Sha256Hash;
+import org.tron.trident.proto.Chain.Block;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Chain.Transaction.Contract.ContractType;
+import org.tron.trident.proto.Contract.TransferAssetContract;
+import org.tron.trident.proto.Contract.TransferContract;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionInfoList;
+
+class DepositScannerTest {
+
+  private static final ByteString WATCHED = address("41a614f803b6fd780986a42c78ec9c7f77e6ded13c");
+  private static final ByteString OTHER = address("415cbdd86a2fa8dc4bddd8a8f69dba48572eec07fb");
+  private static final ByteString TOKEN = address("41a614f803b6fd780986a42c78ec9c7f77e6ded13d");
+
+  private static ByteString address(String hex) {
+    return ByteString.copyFrom(ByteArray.fromHexString(hex));
+  }
+
+  private static Transaction transaction(ContractType type, Message contract) {
+    return Transaction.newBuilder().setRawData(Transaction.raw.newBuilder()
+        .addContract(Transaction.Contract.newBuilder()
+            .setType(type)
+            .setParameter(Any.pack(contract)))
+        .setTimestamp(1L))
+        .build();
+  }
+
+  private static DepositScanner scanner() {
+    AddressSet watched = new AddressSet(16);
+    watched.add(WATCHED);
+    return new DepositScanner(watched);
+  }
+
+  @Test
+  void testNativeTransfers() {
+    Transaction trx = transaction(ContractType.TransferContract, TransferContract.newBuilder()
+        .setOwnerAddress(OTHER).setToAddress(WATCHED).setAmount(1_000_000).build());
+    Transaction ignored = transaction(ContractType.TransferContract, TransferContract.newBuilder()
+        .setOwnerAddress(WATCHED).setToAddress(OTHER).setAmount(5).build());
+    Transaction trc10 = transaction(ContractType.TransferAssetContract,
+        TransferAssetContract.newBuilder()
+            .setAssetName(ByteString.copyFromUtf8("1002000"))
+            .setOwnerAddress(OTHER).setToAddress(WATCHED).setAmount(7).build());
+    Block block = Block.newBuilder()
+        .setBlockHeader(BlockHeader.newBuilder()
+            .setRawData(BlockHeader.raw.newBuilder().setNumber(100)))
+        .addTransactions(trx).addTransactions(ignored).addTransactions(trc10)
+        .build();
+
+    List<DepositScanner.Deposit> deposits = scanner().scan(block);
+    assertEquals(2, deposits.size());
+
+    DepositScanner.Deposit deposit = deposits.get(0);
+    assertEquals(DepositScanner.Deposit.Type.TRX, deposit.getType());
+    assertEquals(ByteString.copyFrom(Sha256Hash.hash(true, trx.getRawData().toByteArray())),
+        deposit.getTxid());
+    assertEquals(100, deposit.getBlockNum());
+    assertEquals(OTHER, deposit.getFrom());
+    assertEquals(WATCHED, deposit.getTo());
+    assertEquals(BigInteger.valueOf(1_000_000), deposit.getAmount());
+
+    deposit = deposits.get(1);
+    assertEquals(DepositScanner.Deposit.Type.TRC10, deposit.getType());
+    assertEquals(ByteString.copyFromUtf8("1002000"), deposit.getToken());
+    assertEquals(BigInteger.valueOf(7), deposit.getAmount());
+  }
+
+  @Test
+  void testTrc20Transfers() {
+    TransactionInfo info = TransactionInfo.newBuilder()
+        .setId(ByteString.copyFrom(new byte[32]))
+        .setBlockNumber(200)
+        .addLog(TransactionInfo.Log.newBuilder()
+            .setAddress(TOKEN.substring(1))
+            .addTopics(DepositScanner.TRC20_TRANSFER_TOPIC)
+            .addTopics(ByteString.copyFrom(new byte[12]).concat(OTHER.substring(1)))
+            .addTopics(ByteString.copyFrom(new byte[12]).concat(WATCHED.substring(1)))
+            .setData(ByteString.copyFrom(ByteArray.fromHexString(
+                "00000000000000000000000000000000000000000000000000000000000f4240"))))
+        .addLog(TransactionInfo.Log.newBuilder()
+            .setAddress(TOKEN.substring(1))
+            .addTopics(DepositScanner.TRC20_TRANSFER_TOPIC)
+            .addTopics(ByteString.copyFrom(new byte[12]).concat(WATCHED.substring(1)))
+            .addTopics(ByteString.copyFrom(new byte[12]).concat(OTHER.substring(1)))
+            .setData(ByteString.copyFrom(new byte[32])))
+        .build();
+
+    List<DepositScanner.Deposit> deposits = scanner().scan(
+        TransactionInfoList.newBuilder().addTransactionInfo(info).build());
+    assertEquals(1, deposits.size());
+    DepositScanner.Deposit deposit = deposits.get(0);
+    assertEquals(DepositScanner.Deposit.Type.TRC20, deposit.getType());
+    assertEquals(200, deposit.getBlockNum());
+    assertEquals(OTHER, deposit.getFrom());
+    assertEquals(WATCHED, deposit.getTo());
+    assertEquals(TOKEN, deposit.getToken());
+    assertEquals(BigInteger.valueOf(1_000_000), deposit.getAmount());
+  }
+}
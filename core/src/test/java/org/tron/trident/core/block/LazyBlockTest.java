@@ -0,0 +1,228 @@
+package org.tron.trident.core.block;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.api.GrpcAPI.BlockLimit;
+import org.tron.trident.api.GrpcAPI.NumberMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.api.WalletSolidityGrpc;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.NodeType;
+import org.tron.trident.core.exceptions.IllegalException;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.transport.TransportContext;
+import org.tron.trident.core.utils.ByteArray;
+import org.tron.trident.core.utils.Sha256Hash;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Chain.Transaction.Contract.ContractType;
+import org.tron.trident.proto.Chain.Transaction.Result.contractResult;
+import org.tron.trident.proto.Contract.AccountUpdateContract;
+import org.tron.trident.proto.Contract.TransferAssetContract;
+import org.tron.trident.proto.Contract.TransferContract;
+import org.tron.trident.proto.Contract.TriggerSmartContract;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.BlockListExtention;
+import org.tron.trident.proto.Response.TransactionExtention;
+
+class LazyBlockTest {
+
+  private static final ByteString OWNER = address("415cbdd86a2fa8dc4bddd8a8f69dba48572eec07fb");
+  private static final ByteString TO = address("41a614f803b6fd780986a42c78ec9c7f77e6ded13c");
+  private static final ByteString TOKEN = address("41a614f803b6fd780986a42c78ec9c7f77e6ded13d");
+
+  private static ByteString address(String hex) {
+    return ByteString.copyFrom(ByteArray.fromHexString(hex));
+  }
+
+  private static TransactionExtention transaction(ContractType type, Message contract,
+      contractResult result) {
+    Transaction.Builder txn = Transaction.newBuilder().setRawData(Transaction.raw.newBuilder()
+        .addContract(Transaction.Contract.newBuilder()
+            .setType(type)
+            .setParameter(Any.pack(contract)))
+        .setTimestamp(1_000L)
+        .setExpiration(61_000L)
+        .setFeeLimit(type == ContractType.TriggerSmartContract ? 100_000_000L : 0))
+        .addSignature(ByteString.copyFrom(new byte[65]));
+    if (result != null) {
+      txn.addRet(Transaction.Result.newBuilder().setContractRet(result));
+    }
+    Transaction built = txn.build();
+    return TransactionExtention.newBuilder()
+        .setTransaction(built)
+        .setTxid(ByteString.copyFrom(Sha256Hash.hash(true, built.getRawData().toByteArray())))
+        .build();
+  }
+
+  private static BlockExtention block(long num) {
+    return BlockExtention.newBuilder()
+        .setBlockHeader(BlockHeader.newBuilder()
+            .setRawData(BlockHeader.raw.newBuilder().setNumber(num).setTimestamp(num * 3000)))
+        .setBlockid(ByteString.copyFrom(new byte[32]))
+        .addTransactions(transaction(ContractType.TransferContract, TransferContract.newBuilder()
+            .setOwnerAddress(OWNER).setToAddress(TO).setAmount(1_000_000).build(),
+            contractResult.SUCCESS))
+        .addTransactions(transaction(ContractType.TransferAssetContract,
+            TransferAssetContract.newBuilder().setAssetName(ByteString.copyFromUtf8("1002000"))
+                .setOwnerAddress(OWNER).setToAddress(TO).setAmount(7).build(), null))
+        .addTransactions(transaction(ContractType.TriggerSmartContract,
+            TriggerSmartContract.newBuilder().setOwnerAddress(OWNER).setContractAddress(TOKEN)
+                .setCallValue(5).setData(ByteString.copyFromUtf8("call")).build(),
+            contractResult.REVERT))
+        .addTransactions(transaction(ContractType.AccountUpdateContract,
+            AccountUpdateContract.newBuilder().setOwnerAddress(OWNER)
+                .setAccountName(ByteString.copyFromUtf8("name")).build(), null))
+        .build();
+  }
+
+  @Test
+  void testReadsSelectedFields() throws Exception {
+    BlockExtention full = block(100);
+    LazyBlock block = LazyBlock.parseFrom(full.toByteString());
+
+    assertTrue(block.hasBlockHeader());
+    assertEquals(100, block.getNumber());
+    assertEquals(300_000, block.getTimestamp());
+    assertEquals(full.getBlockid(), block.getBlockId());
+    assertEquals(4, block.getTransactionCount());
+    assertEquals(full, block.toBlockExtention());
+
+    LazyTransaction transfer = block.getTransaction(0);
+    assertEquals(full.getTransactions(0).getTxid(), transfer.getTxid());
+    assertEquals(full.getTransactions(0).getTransaction().getRawData().toByteString(),
+        transfer.getRawData());
+    assertEquals(ContractType.TransferContract, transfer.getContractType());
+    assertEquals(OWNER, transfer.getOwnerAddress());
+    assertEquals(TO, transfer.getToAddress());
+    assertEquals(1_000_000, transfer.getAmount());
+    assertEquals(ByteString.EMPTY, transfer.getContractAddress());
+    assertEquals(contractResult.SUCCESS, transfer.getContractResult());
+    assertEquals(1_000L, transfer.getTimestamp());
+    assertEquals(61_000L, transfer.getExpiration());
+    assertEquals(full.getTransactions(0), transfer.toTransactionExtention());
+    assertEquals(full.getTransactions(0).getTransaction(), transfer.toTransaction());
+
+    LazyTransaction trc10 = block.getTransactions().get(1);
+    assertEquals(ContractType.TransferAssetContract, trc10.getContractType());
+    assertEquals(OWNER, trc10.getOwnerAddress());
+    assertEquals(TO, trc10.getToAddress());
+    assertEquals(7, trc10.getAmount());
+    assertEquals(contractResult.DEFAULT, trc10.getContractResult());
+
+    LazyTransaction trigger = block.getTransaction(2);
+    assertEquals(ContractType.TriggerSmartContract, trigger.getContractType());
+    assertEquals(OWNER, trigger.getOwnerAddress());
+    assertEquals(ByteString.EMPTY, trigger.getToAddress());
+    assertEquals(TOKEN, trigger.getContractAddress());
+    assertEquals(ByteString.copyFromUtf8("call"), trigger.getCallData());
+    assertEquals(5, trigger.getAmount());
+    assertEquals(100_000_000L, trigger.getFeeLimit());
+    assertEquals(contractResult.REVERT, trigger.getContractResult());
+
+    LazyTransaction update = block.getTransaction(3);
+    assertEquals(ContractType.AccountUpdateContract, update.getContractType());
+    assertEquals(OWNER, update.getOwnerAddress());
+    assertEquals(0, update.getAmount());
+    assertEquals(full.getTransactions(3).getTransaction().getRawData().getContract(0)
+        .getParameter().getValue(), update.getParameter());
+  }
+
+  @Test
+  void testEmptyBlockAndTransaction() throws Exception {
+    LazyBlock empty = LazyBlock.parseFrom(BlockExtention.getDefaultInstance().toByteString());
+    assertFalse(empty.hasBlockHeader());
+    assertEquals(0, empty.getNumber());
+    assertEquals(0, empty.getTransactionCount());
+
+    LazyTransaction txn = LazyTransaction.of(ByteString.EMPTY);
+    assertNull(txn.getContractType());
+    assertEquals(ByteString.EMPTY, txn.getOwnerAddress());
+    assertEquals(0, txn.getAmount());
+  }
+
+  @Test
+  void testBlockListRoundTrip() throws Exception {
+    BlockListExtention list = BlockListExtention.newBuilder()
+        .addBlock(block(1)).addBlock(block(2)).build();
+    List<LazyBlock> blocks = BlockMarshallers.BLOCK_LIST.parse(list.toByteString().newInput());
+    assertEquals(2, blocks.size());
+    assertEquals(2, blocks.get(1).getNumber());
+    assertEquals(list, BlockListExtention.parseFrom(BlockMarshallers.BLOCK_LIST.stream(blocks)));
+    assertEquals(list.getBlock(0),
+        BlockExtention.parseFrom(BlockMarshallers.BLOCK.stream(blocks.get(0))));
+  }
+
+  @Test
+  void testApiWrapperLazyCalls() throws Exception {
+    String name = "lazy-block-test";
+    Server server = InProcessServerBuilder.forName(name).directExecutor()
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getBlockByNum2(NumberMessage request,
+              StreamObserver<BlockExtention> responseObserver) {
+            responseObserver.onNext(request.getNum() > 10
+                ? BlockExtention.getDefaultInstance()
+                : block(request.getNum()));
+            responseObserver.onCompleted();
+          }
+
+          @Override
+          public void getBlockByLimitNext2(BlockLimit request,
+              StreamObserver<BlockListExtention> responseObserver) {
+            BlockListExtention.Builder list = BlockListExtention.newBuilder();
+            for (long num = request.getStartNum(); num < request.getEndNum(); num++) {
+              list.addBlock(block(num));
+            }
+            responseObserver.onNext(list.build());
+            responseObserver.onCompleted();
+          }
+        })
+        .addService(new WalletSolidityGrpc.WalletSolidityImplBase() {
+          @Override
+          public void getBlockByNum2(NumberMessage request,
+              StreamObserver<BlockExtention> responseObserver) {
+            responseObserver.onNext(block(request.getNum() - 1));
+            responseObserver.onCompleted();
+          }
+        })
+        .build()
+        .start();
+    ManagedChannel channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    ManagedChannel channelSolidity =
+        InProcessChannelBuilder.forName(name).directExecutor().build();
+    ApiWrapper wrapper = new ApiWrapper(TransportContext.of(channel, channelSolidity),
+        KeyPair.generate());
+    try {
+      LazyBlock block = wrapper.getBlockByNumLazy(5);
+      assertEquals(wrapper.getBlockByNum(5), block.toBlockExtention());
+      assertEquals(4, wrapper.getBlockByNumLazy(5, NodeType.SOLIDITY_NODE).getNumber());
+      assertThrows(IllegalException.class, () -> wrapper.getBlockByNumLazy(11));
+
+      List<LazyBlock> blocks = wrapper.getBlockByLimitNextLazy(3, 6);
+      assertEquals(3, blocks.size());
+      assertEquals(5, blocks.get(2).getNumber());
+      assertEquals(TO, blocks.get(0).getTransaction(0).getToAddress());
+      assertThrows(IllegalException.class, () -> wrapper.getBlockByLimitNextLazy(3, 3));
+      assertThrows(IllegalException.class, () -> wrapper.getBlockByLimitNextLazy(0, 101));
+    } finally {
+      channel.shutdownNow();
+      channelSolidity.shutdownNow();
+      server.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,296 @@
+package org.tron.trident.core.block;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.GrpcAPI.NumberMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.api.WalletSolidityGrpc;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.NodeType;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.transport.TransportContext;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionInfoList;
+
+class LogBloomIndexTest {
+
+  private static final ByteString TRANSFER = DepositScanner.TRC20_TRANSFER_TOPIC;
+  private static final ByteString APPROVAL = topic(1);
+  private static final ByteString RARE = address(99_999);
+
+  private static ByteString address(int n) {
+    byte[] address = new byte[20];
+    address[0] = (byte) n;
+    address[1] = (byte) (n >> 8);
+    address[2] = (byte) (n >> 16);
+    return ByteString.copyFrom(address);
+  }
+
+  private static ByteString topic(int n) {
+    byte[] topic = new byte[32];
+    topic[31] = (byte) n;
+    return ByteString.copyFrom(topic);
+  }
+
+  private static TransactionInfo.Log log(ByteString address, ByteString topic0) {
+    return TransactionInfo.Log.newBuilder().setAddress(address).addTopics(topic0).build();
+  }
+
+  /**
+   * Block {@code num} of a chain where 100 contracts of 10,000 emit, and {@link #RARE} emits a
+   * transfer in blocks 10, 50 and 250.
+   */
+  private static TransactionInfoList infos(long num) {
+    Random random = new Random(num);
+    TransactionInfoList.Builder list = TransactionInfoList.newBuilder();
+    for (int i = 0; i < 100; i++) {
+      list.addTransactionInfo(TransactionInfo.newBuilder()
+          .setId(ByteString.copyFrom(new byte[] {(byte) num, (byte) i}))
+          .setBlockNumber(num)
+          .addLog(log(address(random.nextInt(10_000)), i % 2 == 0 ? TRANSFER : APPROVAL)));
+    }
+    if (num == 10 || num == 50 || num == 250) {
+      list.addTransactionInfo(TransactionInfo.newBuilder()
+          .setBlockNumber(num)
+          .addLog(log(RARE, TRANSFER)));
+    }
+    return list.build();
+  }
+
+  @Test
+  void testNoFalseNegativesAndFewFalsePositives(@TempDir Path dir) throws Exception {
+    try (LogBloomIndex index = new LogBloomIndex.Builder(dir.resolve("blooms"))
+        .setFirstBlockNum(0)
+        .build()) {
+      for (long num = 0; num < 1000; num++) {
+        index.add(num, infos(num).getTransactionInfoList());
+      }
+      int falsePositives = 0;
+      for (long num = 0; num < 1000; num++) {
+        for (TransactionInfo info : infos(num).getTransactionInfoList()) {
+          TransactionInfo.Log log = info.getLog(0);
+          assertTrue(index.mightContain(num, log.getAddress(), log.getTopics(0)));
+          assertTrue(index.mightContain(num, log.getAddress(), null));
+        }
+        if (num != 10 && num != 50 && index.mightContain(num, RARE, null)) {
+          falsePositives++;
+        }
+      }
+      assertTrue(falsePositives < 30, "false positives: " + falsePositives);
+      assertFalse(index.mightContain(5, null, topic(2)));
+      assertTrue(index.mightContain(5, null, null));
+    }
+  }
+
+  @Test
+  void testPersistsAndTreatsUnindexedAsCandidates(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("blooms");
+    try (BlockArchive archive = new BlockArchive.Builder(dir.resolve("archive"))
+        .setFirstBlockNum(100)
+        .build();
+        LogBloomIndex index = new LogBloomIndex.Builder(file)
+            .setFirstBlockNum(100)
+            .setBloomBytes(1024)
+            .build()) {
+      for (long num = 100; num < 110; num++) {
+        archive.append(num, ByteString.copyFrom(new byte[] {8, 1}),
+            num == 103 ? TransactionInfoList.getDefaultInstance().toByteString()
+                : TransactionInfoList.newBuilder()
+                    .addTransactionInfo(TransactionInfo.newBuilder()
+                        .addLog(log(address((int) num), TRANSFER)))
+                    .build().toByteString());
+      }
+      assertEquals(10, index.index(archive, 0, 110));
+      assertEquals(0, index.index(archive, 100, 110));
+      assertThrows(IllegalArgumentException.class,
+          () -> index.add(99, Collections.emptyList()));
+    }
+
+    try (LogBloomIndex index = new LogBloomIndex.Builder(file).build()) {
+      assertEquals(100, index.getFirstBlockNum());
+      assertEquals(109, index.getLastBlockNum());
+      assertEquals(1, index.getLogCount(104));
+      assertEquals(0, index.getLogCount(103));
+      assertEquals(-1, index.getLogCount(110));
+
+      ByteString prefixed = ByteString.copyFrom(new byte[] {0x41}).concat(address(104));
+      assertEquals(Arrays.asList(104L, 110L, 111L),
+          index.candidates(100, 112, prefixed, TRANSFER));
+      assertFalse(index.candidates(100, 110, null, null).contains(103L));
+    }
+  }
+
+  @Test
+  void testRequiresFirstBlockNum(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("blooms");
+    assertThrows(IllegalStateException.class, () -> new LogBloomIndex.Builder(file).build());
+
+    long far = 3L * (1 << 14) + 5;
+    try (LogBloomIndex index = new LogBloomIndex.Builder(file).setFirstBlockNum(0).build()) {
+      index.add(far, infos(far).getTransactionInfoList());
+      index.add(10, infos(10).getTransactionInfoList());
+    }
+    try (LogBloomIndex index = new LogBloomIndex.Builder(file).build()) {
+      assertEquals(far, index.getLastBlockNum());
+      assertTrue(index.mightContain(10, RARE, TRANSFER));
+      assertEquals(100, index.getLogCount(far));
+      assertFalse(index.isIndexed(far - 1));
+    }
+  }
+
+  @Test
+  void testReadersSeeWholeGapFills(@TempDir Path dir) throws Exception {
+    try (LogBloomIndex index = new LogBloomIndex.Builder(dir.resolve("blooms"))
+        .setFirstBlockNum(0)
+        .build()) {
+      index.add(20_000, Collections.emptyList());
+      List<TransactionInfo> rare = infos(10).getTransactionInfoList();
+      CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+        try {
+          for (long num = 0; num < 20_000; num++) {
+            index.add(num, rare);
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      while (!writer.isDone()) {
+        // a gap is a candidate until filled, and must then match the filled filter
+        int num = ThreadLocalRandom.current().nextInt(20_000);
+        assertTrue(index.mightContain(num, RARE, TRANSFER));
+      }
+      writer.get();
+    }
+  }
+
+  @Test
+  void testGetLogsFetchesOnlyCandidates(@TempDir Path dir) throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    AtomicLong head = new AtomicLong(1000);
+    AtomicLong solid = new AtomicLong(199);
+    Server server = server("log-bloom-index-test", calls, head, solid);
+    ApiWrapper wrapper = wrapper("log-bloom-index-test");
+    try (LogBloomIndex index = new LogBloomIndex.Builder(dir.resolve("blooms"))
+        .setFirstBlockNum(0)
+        .build()) {
+      assertEquals(200, index.index(wrapper, 0, 300));
+      assertEquals(200, calls.getAndSet(0));
+
+      List<Long> seen = new ArrayList<>();
+      assertEquals(2, index.getLogs(wrapper, 0, 200, RARE, TRANSFER,
+          (txid, blockNumber, logIndex, log) -> seen.add(blockNumber)));
+      assertEquals(Arrays.asList(10L, 50L), seen);
+      assertTrue(calls.get() < 10, "calls: " + calls.get());
+
+      // blocks past the solidified one are fetched by every query but never indexed
+      calls.set(0);
+      assertEquals(0, index.getLogs(wrapper, 200, 205, RARE, TRANSFER,
+          (txid, blockNumber, logIndex, log) -> { }));
+      assertEquals(5, calls.get());
+      assertFalse(index.isIndexed(204));
+    } finally {
+      wrapper.close();
+      server.shutdownNow();
+    }
+  }
+
+  @Test
+  void testQueriesPastTheHeadDoNotHideLaterLogs(@TempDir Path dir) throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    AtomicLong head = new AtomicLong(180);
+    AtomicLong solid = new AtomicLong(150);
+    Server server = server("log-bloom-index-head-test", calls, head, solid);
+    ApiWrapper wrapper = wrapper("log-bloom-index-head-test");
+    try (LogBloomIndex index = new LogBloomIndex.Builder(dir.resolve("blooms"))
+        .setFirstBlockNum(0)
+        .build()) {
+      assertEquals(151, index.index(wrapper, 0, 300));
+      assertEquals(150, index.getLastBlockNum());
+
+      // block 250 is past the head, the node answers no infos for it
+      List<Long> seen = new ArrayList<>();
+      TransactionInfoStream.LogConsumer collect =
+          (txid, blockNumber, logIndex, log) -> seen.add(blockNumber);
+      assertEquals(2, index.getLogs(wrapper, 0, 300, RARE, TRANSFER, collect));
+      assertEquals(150, index.getLastBlockNum());
+      assertTrue(index.mightContain(250, RARE, TRANSFER));
+
+      // once produced and solidified, the query finds it and indexes it
+      head.set(400);
+      solid.set(300);
+      wrapper.getNodeRouter().observe(NodeType.SOLIDITY_NODE, 300);
+      seen.clear();
+      assertEquals(3, index.getLogs(wrapper, 0, 300, RARE, TRANSFER, collect));
+      assertEquals(Arrays.asList(10L, 50L, 250L), seen);
+      assertTrue(index.isIndexed(299));
+      assertTrue(index.mightContain(250, RARE, TRANSFER));
+    } finally {
+      wrapper.close();
+      server.shutdownNow();
+    }
+  }
+
+  /**
+   * A node serving {@link #infos} up to {@code head}, empty lists past it, with its solidity node
+   * at {@code solid}.
+   */
+  private static Server server(String name, AtomicInteger calls, AtomicLong head,
+      AtomicLong solid) throws IOException {
+    return InProcessServerBuilder.forName(name).directExecutor()
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getTransactionInfoByBlockNum(NumberMessage request,
+              StreamObserver<TransactionInfoList> responseObserver) {
+            calls.incrementAndGet();
+            responseObserver.onNext(request.getNum() > head.get()
+                ? TransactionInfoList.getDefaultInstance()
+                : infos(request.getNum()));
+            responseObserver.onCompleted();
+          }
+        })
+        .addService(new WalletSolidityGrpc.WalletSolidityImplBase() {
+          @Override
+          public void getNowBlock2(EmptyMessage request,
+              StreamObserver<BlockExtention> responseObserver) {
+            responseObserver.onNext(BlockExtention.newBuilder()
+                .setBlockHeader(BlockHeader.newBuilder()
+                    .setRawData(BlockHeader.raw.newBuilder().setNumber(solid.get())))
+                .build());
+            responseObserver.onCompleted();
+          }
+        })
+        .build()
+        .start();
+  }
+
+  private static ApiWrapper wrapper(String name) {
+    return new ApiWrapper(TransportContext.of(
+        InProcessChannelBuilder.forName(name).directExecutor().build(),
+        InProcessChannelBuilder.forName(name).directExecutor().build()), KeyPair.generate());
+  }
+}
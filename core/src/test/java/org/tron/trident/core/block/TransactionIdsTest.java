@@ -0,0 +1,103 @@
+package org.tron.trident.core.block;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.proto.Chain.Block;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Chain.Transaction.Contract.ContractType;
+import org.tron.trident.proto.Contract.TransferContract;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.TransactionExtention;
+
+class TransactionIdsTest {
+
+  private static Block block(int transactions) {
+    Block.Builder block = Block.newBuilder().setBlockHeader(BlockHeader.newBuilder()
+        .setRawData(BlockHeader.raw.newBuilder().setNumber(42)));
+    for (int i = 0; i < transactions; i++) {
+      block.addTransactions(Transaction.newBuilder()
+          .setRawData(Transaction.raw.newBuilder()
+              .setRefBlockBytes(ByteString.copyFrom(new byte[] {1, 2}))
+              .setRefBlockHash(ByteString.copyFrom(new byte[8]))
+              .setExpiration(60_000L + i)
+              .setTimestamp(i)
+              .addContract(Transaction.Contract.newBuilder()
+                  .setType(ContractType.TransferContract)
+                  .setParameter(Any.pack(TransferContract.newBuilder()
+                      .setOwnerAddress(ByteString.copyFrom(new byte[21]))
+                      .setToAddress(ByteString.copyFrom(new byte[21]))
+                      .setAmount(i + 1)
+                      .build()))))
+          .addSignature(ByteString.copyFrom(new byte[65]))
+          .addRet(Transaction.Result.newBuilder()
+              .setContractRet(Transaction.Result.contractResult.SUCCESS)));
+    }
+    return block.build();
+  }
+
+  private static List<ByteString> expected(Block block) {
+    List<ByteString> txids = new ArrayList<>();
+    for (Transaction txn : block.getTransactionsList()) {
+      txids.add(ByteString.copyFrom(ApiWrapper.calculateTransactionHash(txn)));
+    }
+    return txids;
+  }
+
+  @Test
+  void testMatchesCalculateTransactionHash() throws Exception {
+    Block block = block(10);
+    List<ByteString> expected = expected(block);
+
+    LazyBlock lazy = LazyBlock.parseBlock(block.toByteString());
+    assertEquals(expected, TransactionIds.of(lazy));
+    assertEquals(expected.get(3), lazy.getTransaction(3).getTxid());
+    assertEquals(expected.get(3),
+        TransactionIds.ofTransaction(block.getTransactions(3).toByteString()));
+    assertEquals(42, lazy.getNumber());
+    assertEquals(ByteString.EMPTY, lazy.getBlockId());
+
+    BlockExtention converted = lazy.toBlockExtention();
+    assertEquals(10, converted.getTransactionsCount());
+    assertEquals(expected.get(9), converted.getTransactions(9).getTxid());
+    assertEquals(block.getTransactions(9), converted.getTransactions(9).getTransaction());
+  }
+
+  @Test
+  void testBlockExtention() throws Exception {
+    Block block = block(3);
+    BlockExtention.Builder ext = BlockExtention.newBuilder()
+        .setBlockHeader(block.getBlockHeader());
+    for (Transaction txn : block.getTransactionsList()) {
+      ext.addTransactions(TransactionExtention.newBuilder()
+          .setTransaction(txn)
+          .setTxid(ByteString.copyFrom(ApiWrapper.calculateTransactionHash(txn))));
+    }
+    LazyBlock lazy = LazyBlock.parseFrom(ext.build().toByteString());
+    assertEquals(expected(block), TransactionIds.of(lazy));
+    assertEquals(ext.getTransactions(1).getTxid(), lazy.getTransaction(1).getTxid());
+  }
+
+  @Test
+  void testParallel() throws Exception {
+    Block block = block(1000);
+    LazyBlock lazy = LazyBlock.parseBlock(block.toByteString());
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      assertEquals(expected(block), TransactionIds.of(lazy, executor, 4));
+      assertEquals(TransactionIds.of(lazy), TransactionIds.of(lazy, executor, 1));
+      assertThrows(IllegalArgumentException.class, () -> TransactionIds.of(lazy, executor, 0));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
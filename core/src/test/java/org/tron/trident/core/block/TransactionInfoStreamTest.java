@@ -0,0 +1,139 @@
+package org.tron.trident.core.block;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.api.GrpcAPI.NumberMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.api.WalletSolidityGrpc;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.NodeType;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.transport.TransportContext;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionInfoList;
+
+class TransactionInfoStreamTest {
+
+  private static TransactionInfoList infos(long blockNumber, int count) {
+    TransactionInfoList.Builder list = TransactionInfoList.newBuilder();
+    for (int i = 0; i < count; i++) {
+      TransactionInfo.Builder info = TransactionInfo.newBuilder()
+          .setId(ByteString.copyFrom(new byte[] {(byte) i}))
+          .setBlockNumber(blockNumber)
+          .setFee(i);
+      for (int j = 0; j < i % 3; j++) {
+        info.addLog(TransactionInfo.Log.newBuilder()
+            .setAddress(ByteString.copyFromUtf8("token" + j))
+            .addTopics(ByteString.copyFrom(new byte[32]))
+            .setData(ByteString.copyFrom(new byte[] {(byte) j})));
+      }
+      list.addTransactionInfo(info);
+    }
+    return list.build();
+  }
+
+  @Test
+  void testForEach() throws Exception {
+    TransactionInfoList list = infos(7, 10);
+    List<TransactionInfo> seen = new ArrayList<>();
+    assertEquals(10, TransactionInfoStream.forEach(list.toByteString().newInput(), seen::add));
+    assertEquals(list.getTransactionInfoList(), seen);
+
+    assertEquals(0, TransactionInfoStream.forEach(ByteString.EMPTY.newInput(), seen::add));
+  }
+
+  @Test
+  void testForEachLog() throws Exception {
+    TransactionInfoList list = infos(7, 10);
+    List<String> seen = new ArrayList<>();
+    int count = TransactionInfoStream.forEachLog(list.toByteString().newInput(),
+        (txid, blockNumber, index, log) -> seen.add(txid.byteAt(0) + "/" + blockNumber + "/"
+            + index + "/" + log.getAddress().toStringUtf8()));
+    assertEquals(9, count);
+    assertEquals(9, seen.size());
+    assertEquals("1/7/0/token0", seen.get(0));
+    assertEquals("2/7/1/token1", seen.get(2));
+  }
+
+  @Test
+  void testForEachLogWithIdAfterLogs() throws Exception {
+    // fields written out of number order still pair logs with their transaction
+    TransactionInfo.Log log = TransactionInfo.Log.newBuilder()
+        .setAddress(ByteString.copyFromUtf8("token")).build();
+    ByteString entry = TransactionInfo.newBuilder().addLog(log).build().toByteString()
+        .concat(TransactionInfo.newBuilder().setId(ByteString.copyFromUtf8("id"))
+            .setBlockNumber(3).build().toByteString());
+    ByteString list = TransactionInfoList.newBuilder()
+        .addTransactionInfo(TransactionInfo.parseFrom(entry)).build().toByteString();
+    ByteString reordered = ByteString.copyFrom(new byte[] {0x0a, (byte) entry.size()})
+        .concat(entry);
+    assertEquals(list.size(), reordered.size());
+
+    List<ByteString> ids = new ArrayList<>();
+    TransactionInfoStream.forEachLog(reordered.newInput(),
+        (txid, blockNumber, index, l) -> ids.add(txid));
+    assertEquals(1, ids.size());
+    assertEquals(ByteString.copyFromUtf8("id"), ids.get(0));
+  }
+
+  @Test
+  void testApiWrapperStreamsOnCallingThread() throws Exception {
+    String name = "transaction-info-stream-test";
+    Server server = InProcessServerBuilder.forName(name).directExecutor()
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getTransactionInfoByBlockNum(NumberMessage request,
+              StreamObserver<TransactionInfoList> responseObserver) {
+            responseObserver.onNext(infos(request.getNum(), 100));
+            responseObserver.onCompleted();
+          }
+        })
+        .addService(new WalletSolidityGrpc.WalletSolidityImplBase() {
+          @Override
+          public void getTransactionInfoByBlockNum(NumberMessage request,
+              StreamObserver<TransactionInfoList> responseObserver) {
+            responseObserver.onNext(infos(request.getNum(), 5));
+            responseObserver.onCompleted();
+          }
+        })
+        .build()
+        .start();
+    ManagedChannel channel = InProcessChannelBuilder.forName(name).build();
+    ManagedChannel channelSolidity = InProcessChannelBuilder.forName(name).build();
+    ApiWrapper wrapper = new ApiWrapper(TransportContext.of(channel, channelSolidity),
+        KeyPair.generate());
+    try {
+      Thread caller = Thread.currentThread();
+      List<TransactionInfo> seen = new ArrayList<>();
+      assertEquals(100, wrapper.getTransactionInfoByBlockNum(9, info -> {
+        assertSame(caller, Thread.currentThread());
+        seen.add(info);
+      }));
+      assertEquals(wrapper.getTransactionInfoByBlockNum(9).getTransactionInfoList(), seen);
+      assertEquals(5, wrapper.getTransactionInfoByBlockNum(9, info -> { },
+          NodeType.SOLIDITY_NODE));
+      assertEquals(99, wrapper.getLogsByBlockNum(9, (txid, blockNumber, index, log) -> { }));
+
+      IllegalStateException stop = new IllegalStateException("stop");
+      assertSame(stop, assertThrows(IllegalStateException.class,
+          () -> wrapper.getTransactionInfoByBlockNum(9, info -> {
+            throw stop;
+          })));
+    } finally {
+      channel.shutdownNow();
+      channelSolidity.shutdownNow();
+      server.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package org.tron.trident.core.inceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.api.GrpcAPI.AccountAddressMessage;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.interceptor.ApiKeyRateLimitInterceptor;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Response.Account;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.TransactionReturn;
+
+class ApiKeyRateLimitInterceptorTest {
+
+  private static final String NAME = "api-key-rate-limit-interceptor-test";
+  private static final Metadata.Key<String> API_KEY =
+      Metadata.Key.of("TRON-PRO-API-KEY", Metadata.ASCII_STRING_MARSHALLER);
+  private static final Metadata.Key<String> PADDING =
+      Metadata.Key.of("padding", Metadata.ASCII_STRING_MARSHALLER);
+
+  private final List<String> receivedKeys = new CopyOnWriteArrayList<>();
+  private Server server;
+  private ManagedChannel channel;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    WalletGrpc.WalletImplBase wallet = new WalletGrpc.WalletImplBase() {
+      @Override
+      public void getNowBlock2(EmptyMessage request,
+          StreamObserver<BlockExtention> responseObserver) {
+        responseObserver.onNext(BlockExtention.getDefaultInstance());
+        responseObserver.onCompleted();
+      }
+
+      @Override
+      public void broadcastTransaction(Transaction request,
+          StreamObserver<TransactionReturn> responseObserver) {
+        responseObserver.onNext(TransactionReturn.getDefaultInstance());
+        responseObserver.onCompleted();
+      }
+
+      @Override
+      public void getAccount(AccountAddressMessage request,
+          StreamObserver<Account> responseObserver) {
+        responseObserver.onError(Status.RESOURCE_EXHAUSTED.asRuntimeException());
+      }
+    };
+    ServerInterceptor captureKey = new ServerInterceptor() {
+      @Override
+      public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+          Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        receivedKeys.add(headers.get(API_KEY));
+        return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT>(
+            call) {
+          @Override
+          public void sendHeaders(Metadata responseHeaders) {
+            responseHeaders.put(PADDING, String.join("", Collections.nCopies(1024, "x")));
+            super.sendHeaders(responseHeaders);
+          }
+        }, headers);
+      }
+    };
+    server = InProcessServerBuilder.forName(NAME).directExecutor()
+        .addService(ServerInterceptors.intercept(wallet, captureKey))
+        .build()
+        .start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (channel != null) {
+      channel.shutdownNow();
+    }
+    server.shutdownNow();
+  }
+
+  private WalletGrpc.WalletBlockingStub connect(ApiKeyRateLimitInterceptor limiter) {
+    return connect(limiter, Integer.MAX_VALUE);
+  }
+
+  private WalletGrpc.WalletBlockingStub connect(ApiKeyRateLimitInterceptor limiter,
+      int maxInboundMetadataSize) {
+    channel = InProcessChannelBuilder.forName(NAME).directExecutor()
+        .maxInboundMetadataSize(maxInboundMetadataSize)
+        .intercept(limiter)
+        .build();
+    return WalletGrpc.newBlockingStub(channel);
+  }
+
+  @Test
+  void testRotatesKeysAndFailsFast() {
+    WalletGrpc.WalletBlockingStub stub = connect(new ApiKeyRateLimitInterceptor.Builder()
+        .addApiKey("key-a")
+        .addApiKey("key-b")
+        .setDefaultRate(0.001, 2)
+        .build());
+    for (int i = 0; i < 4; i++) {
+      stub.getNowBlock2(EmptyMessage.getDefaultInstance());
+    }
+    StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+        () -> stub.getNowBlock2(EmptyMessage.getDefaultInstance()));
+
+    assertEquals(Status.Code.RESOURCE_EXHAUSTED, e.getStatus().getCode());
+    assertTrue(e.getStatus().getDescription().contains("quota exhausted for query calls"));
+    assertEquals(4, receivedKeys.size());
+    assertEquals(2, receivedKeys.stream().filter("key-a"::equals).count());
+    assertEquals(2, receivedKeys.stream().filter("key-b"::equals).count());
+  }
+
+  @Test
+  void testMethodClassesHaveSeparateQuota() {
+    WalletGrpc.WalletBlockingStub stub = connect(new ApiKeyRateLimitInterceptor.Builder()
+        .addApiKey("key-a")
+        .setRate(ApiKeyRateLimitInterceptor.QUERY, 0.001, 1)
+        .setRate(ApiKeyRateLimitInterceptor.BROADCAST, 0.001, 1)
+        .build());
+    stub.getNowBlock2(EmptyMessage.getDefaultInstance());
+    stub.broadcastTransaction(Transaction.getDefaultInstance());
+
+    assertThrows(StatusRuntimeException.class,
+        () -> stub.getNowBlock2(EmptyMessage.getDefaultInstance()));
+    assertThrows(StatusRuntimeException.class,
+        () -> stub.broadcastTransaction(Transaction.getDefaultInstance()));
+    assertEquals(2, receivedKeys.size());
+  }
+
+  @Test
+  void testWaitsForToken() {
+    WalletGrpc.WalletBlockingStub stub = connect(new ApiKeyRateLimitInterceptor.Builder()
+        .addApiKey("key-a")
+        .setDefaultRate(20, 1)
+        .setMaxWait(5, TimeUnit.SECONDS)
+        .build());
+    long start = System.nanoTime();
+    for (int i = 0; i < 3; i++) {
+      stub.getNowBlock2(EmptyMessage.getDefaultInstance());
+    }
+
+    assertEquals(3, receivedKeys.size());
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+  }
+
+  @Test
+  void testBacksOffOnResourceExhausted() {
+    WalletGrpc.WalletBlockingStub stub = connect(new ApiKeyRateLimitInterceptor.Builder()
+        .addApiKey("key-a")
+        .setDefaultRate(1000, 100)
+        .setBackoff(10, 60, TimeUnit.SECONDS)
+        .build());
+    StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+        () -> stub.getAccount(AccountAddressMessage.getDefaultInstance()));
+    assertNull(e.getStatus().getDescription());
+
+    e = assertThrows(StatusRuntimeException.class,
+        () -> stub.getNowBlock2(EmptyMessage.getDefaultInstance()));
+    assertTrue(e.getStatus().getDescription().contains("quota exhausted"));
+    assertEquals(1, receivedKeys.size());
+  }
+
+  @Test
+  void testClientSideResourceExhaustedDoesNotBackOff() {
+    WalletGrpc.WalletBlockingStub stub = connect(new ApiKeyRateLimitInterceptor.Builder()
+        .addApiKey("key-a")
+        .setDefaultRate(1000, 100)
+        .setBackoff(10, 60, TimeUnit.SECONDS)
+        .build(), 512);
+    StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+        () -> stub.broadcastTransaction(Transaction.getDefaultInstance()));
+    assertEquals(Status.Code.RESOURCE_EXHAUSTED, e.getStatus().getCode());
+
+    e = assertThrows(StatusRuntimeException.class,
+        () -> stub.broadcastTransaction(Transaction.getDefaultInstance()));
+    assertTrue(e.getStatus().getDescription().contains("metadata larger than"));
+    assertEquals(2, receivedKeys.size());
+  }
+
+  @Test
+  void testRequiresApiKey() {
+    assertThrows(IllegalStateException.class,
+        () -> new ApiKeyRateLimitInterceptor.Builder().build());
+    assertThrows(IllegalArgumentException.class,
+        () -> new ApiKeyRateLimitInterceptor.Builder().addApiKey(""));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ApiKeyRateLimitInterceptor.Builder().setDefaultRate(0, 1));
+  }
+
+  @Test
+  void testDefaultMethodClass() {
+    assertEquals(ApiKeyRateLimitInterceptor.BROADCAST, ApiKeyRateLimitInterceptor
+        .defaultMethodClass(WalletGrpc.getBroadcastTransactionMethod().getFullMethodName()));
+    assertEquals(ApiKeyRateLimitInterceptor.QUERY, ApiKeyRateLimitInterceptor
+        .defaultMethodClass(WalletGrpc.getGetNowBlock2Method().getFullMethodName()));
+  }
+}
@@ -0,0 +1,213 @@
+package org.tron.trident.core.inceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.api.GrpcAPI.AccountAddressMessage;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.interceptor.ConcurrencyLimitInterceptor;
+import org.tron.trident.proto.Response.Account;
+import org.tron.trident.proto.Response.BlockExtention;
+
+class ConcurrencyLimitInterceptorTest {
+
+  private static final String NAME = "concurrency-limit-interceptor-test";
+
+  private final List<StreamObserver<BlockExtention>> held = new CopyOnWriteArrayList<>();
+  private Server server;
+  private ManagedChannel channel;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = InProcessServerBuilder.forName(NAME).directExecutor()
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getNowBlock2(EmptyMessage request,
+              StreamObserver<BlockExtention> responseObserver) {
+            held.add(responseObserver);
+          }
+
+          @Override
+          public void getAccount(AccountAddressMessage request,
+              StreamObserver<Account> responseObserver) {
+            responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+          }
+        })
+        .build()
+        .start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (channel != null) {
+      channel.shutdownNow();
+    }
+    server.shutdownNow();
+  }
+
+  private ConcurrencyLimitInterceptor connect(ConcurrencyLimitInterceptor limiter) {
+    channel = InProcessChannelBuilder.forName(NAME).directExecutor()
+        .intercept(limiter)
+        .build();
+    return limiter;
+  }
+
+  private void startHeldCalls(int count) {
+    WalletGrpc.WalletStub stub = WalletGrpc.newStub(channel);
+    for (int i = 0; i < count; i++) {
+      stub.getNowBlock2(EmptyMessage.getDefaultInstance(), new StreamObserver<BlockExtention>() {
+        @Override
+        public void onNext(BlockExtention value) {
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+      });
+    }
+  }
+
+  private void completeHeldCalls() {
+    List<StreamObserver<BlockExtention>> calls = new ArrayList<>(held);
+    held.clear();
+    for (StreamObserver<BlockExtention> call : calls) {
+      call.onNext(BlockExtention.getDefaultInstance());
+      call.onCompleted();
+    }
+  }
+
+  @Test
+  void testRejectsCallsOverLimit() {
+    ConcurrencyLimitInterceptor limiter = connect(new ConcurrencyLimitInterceptor.Builder()
+        .setLimits(2, 2, 2)
+        .build());
+    startHeldCalls(2);
+    assertEquals(2, limiter.getInFlight(channel.authority()));
+
+    WalletGrpc.WalletBlockingStub stub = WalletGrpc.newBlockingStub(channel);
+    StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+        () -> stub.getNowBlock2(EmptyMessage.getDefaultInstance()));
+    assertEquals(Status.Code.RESOURCE_EXHAUSTED, e.getStatus().getCode());
+    assertTrue(e.getStatus().getDescription().contains("concurrency limit of 2"));
+    assertEquals(2, held.size());
+
+    completeHeldCalls();
+    assertEquals(0, limiter.getInFlight(channel.authority()));
+    startHeldCalls(1);
+    assertEquals(1, held.size());
+  }
+
+  @Test
+  void testWaitsForSlot() throws Exception {
+    ConcurrencyLimitInterceptor limiter = connect(new ConcurrencyLimitInterceptor.Builder()
+        .setLimits(1, 1, 1)
+        .setMaxWait(10, TimeUnit.SECONDS)
+        .build());
+    startHeldCalls(1);
+
+    CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> startHeldCalls(1));
+    Thread.sleep(100);
+    assertEquals(1, held.size());
+
+    StreamObserver<BlockExtention> first = held.remove(0);
+    first.onNext(BlockExtention.getDefaultInstance());
+    first.onCompleted();
+    waiting.get(10, TimeUnit.SECONDS);
+    assertEquals(1, held.size());
+    assertEquals(1, limiter.getInFlight(channel.authority()));
+  }
+
+  @Test
+  void testCallsCancelledBeforeStartHoldNoSlot() {
+    ConcurrencyLimitInterceptor limiter = connect(new ConcurrencyLimitInterceptor.Builder()
+        .setLimits(2, 2, 2)
+        .build());
+    for (int i = 0; i < 5; i++) {
+      ClientCall<EmptyMessage, BlockExtention> call =
+          channel.newCall(WalletGrpc.getGetNowBlock2Method(), CallOptions.DEFAULT);
+      call.cancel("not needed", null);
+    }
+    assertEquals(0, limiter.getInFlight(channel.authority()));
+
+    startHeldCalls(2);
+    assertEquals(2, held.size());
+    assertEquals(2, limiter.getInFlight(channel.authority()));
+  }
+
+  @Test
+  void testShrinksOnOverload() {
+    List<Integer> published = new CopyOnWriteArrayList<>();
+    ConcurrencyLimitInterceptor limiter = connect(new ConcurrencyLimitInterceptor.Builder()
+        .setLimits(20, 2, 50)
+        .setListener((endpoint, limit) -> published.add(limit))
+        .build());
+
+    WalletGrpc.WalletBlockingStub stub = WalletGrpc.newBlockingStub(channel);
+    for (int i = 0; i < 40; i++) {
+      assertThrows(StatusRuntimeException.class,
+          () -> stub.getAccount(AccountAddressMessage.getDefaultInstance()));
+    }
+
+    assertEquals(2, limiter.getLimit(channel.authority()));
+    assertEquals(2, published.get(published.size() - 1).intValue());
+    assertEquals(2, limiter.getLimits().get(channel.authority()).intValue());
+  }
+
+  @Test
+  void testGrowsUnderLoad() {
+    ConcurrencyLimitInterceptor limiter = connect(new ConcurrencyLimitInterceptor.Builder()
+        .setLimits(4, 1, 50)
+        .build());
+    for (int round = 0; round < 10; round++) {
+      startHeldCalls(limiter.getLimit(channel.authority()));
+      completeHeldCalls();
+    }
+    assertTrue(limiter.getLimit(channel.authority()) > 4);
+    assertEquals(0, limiter.getInFlight(channel.authority()));
+  }
+
+  @Test
+  void testDoesNotGrowWhenIdle() {
+    ConcurrencyLimitInterceptor limiter = connect(new ConcurrencyLimitInterceptor.Builder()
+        .setLimits(10, 1, 50)
+        .build());
+    for (int i = 0; i < 20; i++) {
+      startHeldCalls(1);
+      completeHeldCalls();
+    }
+    assertTrue(limiter.getLimit(channel.authority()) <= 10);
+  }
+
+  @Test
+  void testRejectsInvalidLimits() {
+    ConcurrencyLimitInterceptor.Builder builder = new ConcurrencyLimitInterceptor.Builder();
+    assertThrows(IllegalArgumentException.class, () -> builder.setLimits(5, 0, 10));
+    assertThrows(IllegalArgumentException.class, () -> builder.setLimits(5, 6, 10));
+    assertThrows(IllegalArgumentException.class, () -> builder.setLimits(11, 1, 10));
+    assertThrows(IllegalArgumentException.class, () -> builder.setTolerance(0.5));
+    assertThrows(IllegalArgumentException.class, () -> builder.setMaxWait(-1, TimeUnit.SECONDS));
+  }
+}
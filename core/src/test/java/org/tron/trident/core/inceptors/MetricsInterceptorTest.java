@@ -0,0 +1,106 @@
+package org.tron.trident.core.inceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.api.GrpcAPI.AccountAddressMessage;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.interceptor.MetricsInterceptor;
+import org.tron.trident.core.metrics.InMemoryRpcMetrics;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Response.Account;
+import org.tron.trident.proto.Response.BlockExtention;
+
+class MetricsInterceptorTest {
+
+  private static final String NAME = "metrics-interceptor-test";
+
+  private Server server;
+  private ManagedChannel channel;
+  private InMemoryRpcMetrics metrics;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = InProcessServerBuilder.forName(NAME).directExecutor()
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getNowBlock2(EmptyMessage request,
+              StreamObserver<BlockExtention> responseObserver) {
+            responseObserver.onNext(BlockExtention.newBuilder()
+                .setBlockHeader(BlockHeader.newBuilder().setRawData(
+                    BlockHeader.raw.newBuilder().setNumber(42)))
+                .build());
+            responseObserver.onCompleted();
+          }
+
+          @Override
+          public void getAccount(AccountAddressMessage request,
+              StreamObserver<Account> responseObserver) {
+            responseObserver.onError(Status.NOT_FOUND.asRuntimeException());
+          }
+        })
+        .build()
+        .start();
+    metrics = new InMemoryRpcMetrics();
+    channel = InProcessChannelBuilder.forName(NAME).directExecutor()
+        .intercept(new MetricsInterceptor(metrics))
+        .build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    channel.shutdownNow();
+    server.shutdownNow();
+  }
+
+  @Test
+  void testRecordsSuccessfulCalls() {
+    WalletGrpc.WalletBlockingStub stub = WalletGrpc.newBlockingStub(channel);
+    BlockExtention block = null;
+    for (int i = 0; i < 3; i++) {
+      block = stub.getNowBlock2(EmptyMessage.getDefaultInstance());
+    }
+
+    InMemoryRpcMetrics.MethodStats stats = metrics.get(channel.authority(),
+        WalletGrpc.getGetNowBlock2Method().getFullMethodName());
+    assertEquals(3, stats.getCount(Status.Code.OK));
+    assertEquals(3, stats.getCompleted());
+    assertEquals(0, stats.getFailed());
+    assertEquals(0, stats.getInFlight());
+    assertEquals(0, stats.getRequestBytes());
+    assertEquals(3L * block.getSerializedSize(), stats.getResponseBytes());
+    assertEquals(3, stats.getLatency().getCount());
+    assertTrue(stats.getLatency().getMax() > 0);
+  }
+
+  @Test
+  void testRecordsFailedCalls() {
+    WalletGrpc.WalletBlockingStub stub = WalletGrpc.newBlockingStub(channel);
+    AccountAddressMessage request = AccountAddressMessage.newBuilder()
+        .setAddress(ByteString.copyFrom(new byte[21]))
+        .build();
+    assertThrows(StatusRuntimeException.class, () -> stub.getAccount(request));
+
+    InMemoryRpcMetrics.MethodStats stats = metrics.get(channel.authority(),
+        WalletGrpc.getGetAccountMethod().getFullMethodName());
+    assertEquals(1, stats.getCount(Status.Code.NOT_FOUND));
+    assertEquals(1, stats.getFailed());
+    assertEquals(0, stats.getInFlight());
+    assertEquals(request.getSerializedSize(), stats.getRequestBytes());
+    assertEquals(0, stats.getResponseBytes());
+    assertEquals(1, metrics.getAll().size());
+  }
+}
@@ -0,0 +1,170 @@
+package org.tron.trident.core.inceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.api.GrpcAPI.AccountAddressMessage;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.GrpcAPI.NumberMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.block.TransactionInfoStream;
+import org.tron.trident.core.interceptor.RecordedCall;
+import org.tron.trident.core.interceptor.RecordingInterceptor;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionInfoList;
+
+class RecordingInterceptorTest {
+
+  private static final String NAME = "recording-interceptor-test";
+  private static final TransactionInfoList INFOS = TransactionInfoList.newBuilder()
+      .addTransactionInfo(TransactionInfo.newBuilder()
+          .setBlockNumber(7)
+          .addLog(TransactionInfo.Log.newBuilder().setData(ByteString.copyFromUtf8("log"))))
+      .build();
+
+  private Server server;
+  private ManagedChannel channel;
+  private ByteArrayOutputStream out;
+  private RecordingInterceptor recorder;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = InProcessServerBuilder.forName(NAME).directExecutor()
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getNowBlock2(EmptyMessage request,
+              StreamObserver<BlockExtention> responseObserver) {
+            responseObserver.onNext(BlockExtention.newBuilder()
+                .setBlockHeader(BlockHeader.newBuilder().setRawData(
+                    BlockHeader.raw.newBuilder().setNumber(42)))
+                .build());
+            responseObserver.onCompleted();
+          }
+
+          @Override
+          public void getTransactionInfoByBlockNum(NumberMessage request,
+              StreamObserver<TransactionInfoList> responseObserver) {
+            responseObserver.onNext(INFOS);
+            responseObserver.onCompleted();
+          }
+
+          @Override
+          public void getAccount(AccountAddressMessage request,
+              StreamObserver<org.tron.trident.proto.Response.Account> responseObserver) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription("no such account")
+                .asRuntimeException());
+          }
+        })
+        .build()
+        .start();
+    out = new ByteArrayOutputStream();
+    recorder = new RecordingInterceptor(out);
+    channel = InProcessChannelBuilder.forName(NAME).directExecutor()
+        .intercept(recorder)
+        .build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    channel.shutdownNow();
+    server.shutdownNow();
+  }
+
+  @Test
+  void testRecordsResponsesAndFailures() throws Exception {
+    WalletGrpc.WalletBlockingStub stub = WalletGrpc.newBlockingStub(channel);
+    BlockExtention block = stub.getNowBlock2(EmptyMessage.getDefaultInstance());
+    AccountAddressMessage request = AccountAddressMessage.newBuilder()
+        .setAddress(ByteString.copyFrom(new byte[21]))
+        .build();
+    assertThrows(StatusRuntimeException.class, () -> stub.getAccount(request));
+    recorder.close();
+
+    assertEquals(2, recorder.getRecorded());
+    List<RecordedCall> calls = RecordedCall.readAll(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(2, calls.size());
+
+    RecordedCall first = calls.get(0);
+    assertEquals(WalletGrpc.getGetNowBlock2Method().getFullMethodName(), first.getMethod());
+    assertEquals(0, first.getStartNanos());
+    assertTrue(first.getDurationNanos() > 0);
+    assertEquals(ByteString.EMPTY, first.getRequest());
+    assertEquals(block, BlockExtention.parseFrom(first.getResponse()));
+    assertEquals(Status.Code.OK, first.getStatusCode());
+
+    RecordedCall second = calls.get(1);
+    assertEquals(WalletGrpc.getGetAccountMethod().getFullMethodName(), second.getMethod());
+    assertTrue(second.getStartNanos() >= first.getDurationNanos());
+    assertEquals(request, AccountAddressMessage.parseFrom(second.getRequest()));
+    assertNull(second.getResponse());
+    assertEquals(Status.Code.NOT_FOUND, second.getStatusCode());
+    assertEquals("no such account", second.getStatusDescription());
+  }
+
+  @Test
+  void testRecordsStreamedResponsesAsReceived() throws Exception {
+    NumberMessage request = NumberMessage.newBuilder().setNum(7).build();
+    List<TransactionInfo> seen = new ArrayList<>();
+    assertEquals(1, TransactionInfoStream.forEach(channel, CallOptions.DEFAULT,
+        WalletGrpc.getGetTransactionInfoByBlockNumMethod(), request, seen::add));
+    assertEquals(INFOS.getTransactionInfoList(), seen);
+    recorder.close();
+
+    RecordedCall call =
+        RecordedCall.readAll(new ByteArrayInputStream(out.toByteArray())).get(0);
+    assertEquals(request, NumberMessage.parseFrom(call.getRequest()));
+    assertEquals(INFOS, TransactionInfoList.parseFrom(call.getResponse()));
+  }
+
+  @Test
+  void testCallsAfterCloseAreNotRecorded() throws Exception {
+    recorder.close();
+    WalletGrpc.newBlockingStub(channel).getNowBlock2(EmptyMessage.getDefaultInstance());
+    assertEquals(0, recorder.getRecorded());
+    assertEquals(0, out.size());
+  }
+
+  @Test
+  void testRecordingRoundTrips() throws Exception {
+    List<RecordedCall> calls = Arrays.asList(
+        new RecordedCall("protocol.Wallet/GetNowBlock2", 0, 10, ByteString.EMPTY,
+            ByteString.copyFromUtf8("block"), Status.Code.OK, null),
+        new RecordedCall("protocol.Wallet/GetAccount", 5, 20, ByteString.copyFromUtf8("req"),
+            null, Status.Code.UNAVAILABLE, "down"));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    RecordedCall.writeAll(calls, bytes);
+
+    List<RecordedCall> read = RecordedCall.readAll(new ByteArrayInputStream(bytes.toByteArray()));
+    assertEquals(2, read.size());
+    assertEquals("protocol.Wallet/GetAccount", read.get(1).getMethod());
+    assertEquals(5, read.get(1).getStartNanos());
+    assertEquals(20, read.get(1).getDurationNanos());
+    assertEquals(ByteString.copyFromUtf8("req"), read.get(1).getRequest());
+    assertNull(read.get(1).getResponse());
+    assertEquals(Status.Code.UNAVAILABLE, read.get(1).getStatus().getCode());
+    assertEquals("down", read.get(1).getStatus().getDescription());
+    assertEquals(ByteString.copyFromUtf8("block"), read.get(0).getResponse());
+    assertNull(read.get(0).getStatusDescription());
+  }
+}
@@ -0,0 +1,274 @@
+package org.tron.trident.core.inceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.api.GrpcAPI.AccountAddressMessage;
+import org.tron.trident.api.GrpcAPI.EasyTransferMessage;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.interceptor.RetryInterceptor;
+import org.tron.trident.core.interceptor.RetryInterceptor.MethodKind;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Contract.TriggerSmartContract;
+import org.tron.trident.proto.Response.Account;
+import org.tron.trident.proto.Response.EasyTransferResponse;
+import org.tron.trident.proto.Response.TransactionExtention;
+import org.tron.trident.proto.Response.TransactionReturn;
+
+class RetryInterceptorTest {
+
+  private static final String NAME = "retry-interceptor-test";
+
+  private final AtomicInteger calls = new AtomicInteger();
+  private final AtomicInteger failures = new AtomicInteger();
+  private final Set<Transaction> broadcast = ConcurrentHashMap.newKeySet();
+  private Server server;
+  private ManagedChannel channel;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = InProcessServerBuilder.forName(NAME).directExecutor()
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getAccount(AccountAddressMessage request,
+              StreamObserver<Account> responseObserver) {
+            if (fail(responseObserver)) {
+              return;
+            }
+            responseObserver.onNext(Account.newBuilder().setBalance(42).build());
+            responseObserver.onCompleted();
+          }
+
+          @Override
+          public void triggerContract(TriggerSmartContract request,
+              StreamObserver<TransactionExtention> responseObserver) {
+            if (fail(responseObserver)) {
+              return;
+            }
+            responseObserver.onNext(TransactionExtention.getDefaultInstance());
+            responseObserver.onCompleted();
+          }
+
+          @Override
+          public void broadcastTransaction(Transaction request,
+              StreamObserver<TransactionReturn> responseObserver) {
+            calls.incrementAndGet();
+            if (!broadcast.add(request)) {
+              responseObserver.onNext(TransactionReturn.newBuilder()
+                  .setCode(TransactionReturn.response_code.DUP_TRANSACTION_ERROR)
+                  .build());
+              responseObserver.onCompleted();
+              return;
+            }
+            // accepted, but the response is lost
+            responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+          }
+
+          @Override
+          public void easyTransfer(EasyTransferMessage request,
+              StreamObserver<EasyTransferResponse> responseObserver) {
+            fail(responseObserver);
+          }
+        })
+        .build()
+        .start();
+  }
+
+  private boolean fail(StreamObserver<?> responseObserver) {
+    calls.incrementAndGet();
+    if (failures.getAndDecrement() > 0) {
+      responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+      return true;
+    }
+    return false;
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (channel != null) {
+      channel.shutdownNow();
+    }
+    server.shutdownNow();
+  }
+
+  private WalletGrpc.WalletBlockingStub connect(RetryInterceptor.Builder builder) {
+    channel = InProcessChannelBuilder.forName(NAME).directExecutor()
+        .intercept(builder.setBackoff(1, 5, 2, TimeUnit.MILLISECONDS).build())
+        .build();
+    return WalletGrpc.newBlockingStub(channel);
+  }
+
+  @Test
+  void testRetriesReads() {
+    failures.set(2);
+    WalletGrpc.WalletBlockingStub stub = connect(new RetryInterceptor.Builder());
+
+    assertEquals(42, stub.getAccount(AccountAddressMessage.getDefaultInstance()).getBalance());
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  void testRetriesBuilds() {
+    failures.set(1);
+    WalletGrpc.WalletBlockingStub stub = connect(new RetryInterceptor.Builder());
+
+    stub.triggerContract(TriggerSmartContract.getDefaultInstance());
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  void testGivesUpAfterMaxAttempts() {
+    failures.set(10);
+    WalletGrpc.WalletBlockingStub stub = connect(new RetryInterceptor.Builder()
+        .setMaxAttempts(4));
+
+    StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+        () -> stub.getAccount(AccountAddressMessage.getDefaultInstance()));
+    assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+    assertEquals(4, calls.get());
+  }
+
+  @Test
+  void testBroadcastRetryDedupedByTxid() {
+    WalletGrpc.WalletBlockingStub stub = connect(new RetryInterceptor.Builder());
+    Transaction txn = Transaction.newBuilder()
+        .setRawData(Transaction.raw.newBuilder().setTimestamp(1))
+        .build();
+
+    TransactionReturn ret = stub.broadcastTransaction(txn);
+    assertTrue(ret.getResult());
+    assertEquals(TransactionReturn.response_code.SUCCESS, ret.getCode());
+    assertEquals(2, calls.get());
+
+    // a duplicate sent by the caller, not by a retry, is reported as is
+    ret = stub.broadcastTransaction(txn);
+    assertEquals(TransactionReturn.response_code.DUP_TRANSACTION_ERROR, ret.getCode());
+  }
+
+  @Test
+  void testNeverRetriesUnsafeMethods() {
+    failures.set(1);
+    WalletGrpc.WalletBlockingStub stub = connect(new RetryInterceptor.Builder());
+
+    assertThrows(StatusRuntimeException.class,
+        () -> stub.easyTransfer(EasyTransferMessage.getDefaultInstance()));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void testRetryBudget() {
+    failures.set(100);
+    WalletGrpc.WalletBlockingStub stub = connect(new RetryInterceptor.Builder()
+        .setMaxAttempts(5)
+        .setRetryBudget(4, 0.1));
+
+    assertThrows(StatusRuntimeException.class,
+        () -> stub.getAccount(AccountAddressMessage.getDefaultInstance()));
+    // 4 tokens: the first two failures leave 2, which is not more than half
+    assertEquals(2, calls.get());
+    assertThrows(StatusRuntimeException.class,
+        () -> stub.getAccount(AccountAddressMessage.getDefaultInstance()));
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  void testNoRetryPastDeadline() {
+    failures.set(1);
+    channel = InProcessChannelBuilder.forName(NAME).directExecutor()
+        .intercept(new RetryInterceptor.Builder()
+            .setBackoff(10, 10, 1, TimeUnit.SECONDS)
+            .build())
+        .build();
+    WalletGrpc.WalletBlockingStub stub = WalletGrpc.newBlockingStub(channel)
+        .withDeadlineAfter(100, TimeUnit.MILLISECONDS);
+
+    // full jitter may draw a short delay, so only the bound is checked
+    try {
+      stub.getAccount(AccountAddressMessage.getDefaultInstance());
+    } catch (StatusRuntimeException e) {
+      assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+    }
+    assertTrue(calls.get() <= 2);
+  }
+
+  @Test
+  void testApiWrapperTimeoutBoundsAllAttempts() throws Exception {
+    AtomicInteger attempts = new AtomicInteger();
+    Server slow = NettyServerBuilder.forPort(0).addService(new WalletGrpc.WalletImplBase() {
+      @Override
+      public void getAccount(AccountAddressMessage request,
+          StreamObserver<Account> responseObserver) {
+        attempts.incrementAndGet();
+        try {
+          Thread.sleep(300);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        responseObserver.onError(Status.UNAVAILABLE.asRuntimeException());
+      }
+    }).build().start();
+    String endpoint = "127.0.0.1:" + slow.getPort();
+    ApiWrapper wrapper = new ApiWrapper(endpoint, endpoint, KeyPair.generate().toPrivateKey(),
+        Collections.singletonList(new RetryInterceptor.Builder()
+            .setMaxAttempts(5)
+            .setBackoff(1, 1, 1, TimeUnit.MILLISECONDS)
+            .setRetryBudget(100, 0.1)
+            .build()), 500);
+    try {
+      // connect first, an unimplemented method fails without being retried
+      for (int i = 0; i < 10; i++) {
+        try {
+          wrapper.blockingStub.getNowBlock2(EmptyMessage.getDefaultInstance());
+        } catch (StatusRuntimeException e) {
+          if (e.getStatus().getCode() == Status.Code.UNIMPLEMENTED) {
+            break;
+          }
+        }
+      }
+      long start = System.nanoTime();
+      assertThrows(StatusRuntimeException.class,
+          () -> wrapper.blockingStub.getAccount(AccountAddressMessage.getDefaultInstance()));
+      // five attempts of their own 500 ms deadline would take 1.5 s
+      assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(900));
+      assertTrue(attempts.get() <= 2, "attempts: " + attempts.get());
+    } finally {
+      wrapper.close();
+      slow.shutdownNow();
+    }
+  }
+
+  @Test
+  void testClassify() {
+    assertEquals(MethodKind.READ, RetryInterceptor.classify("protocol.Wallet/GetAccount"));
+    assertEquals(MethodKind.READ,
+        RetryInterceptor.classify("protocol.Wallet/TriggerConstantContract"));
+    assertEquals(MethodKind.READ,
+        RetryInterceptor.classify("protocol.WalletSolidity/ListWitnesses"));
+    assertEquals(MethodKind.BUILD, RetryInterceptor.classify("protocol.Wallet/TriggerContract"));
+    assertEquals(MethodKind.BUILD, RetryInterceptor.classify("protocol.Wallet/FreezeBalanceV2"));
+    assertEquals(MethodKind.BROADCAST,
+        RetryInterceptor.classify("protocol.Wallet/BroadcastTransaction"));
+    assertEquals(MethodKind.UNSAFE, RetryInterceptor.classify("protocol.Wallet/EasyTransfer"));
+    assertEquals(MethodKind.UNSAFE, RetryInterceptor.classify("other.Service/GetAccount"));
+  }
+}
@@ -0,0 +1,67 @@
+package org.tron.trident.core.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.transaction.BlockId;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Response.TransactionExtention;
+
+class TransactionEventsTest {
+
+  private static final String EVENT = "org.tron.trident.TransactionStage";
+
+  @Test
+  void testNoopWhenNotRecording() {
+    TransactionEvents.Span span = TransactionEvents.begin(TransactionEvents.Stage.SIGN);
+    assertFalse(span.isRecording());
+    span.end("TransferContract", 0, true);
+  }
+
+  @Test
+  void testBuildAndSignEvents() throws Exception {
+    assumeTrue(TransactionEvents.isAvailable());
+    KeyPair keyPair = KeyPair.generate();
+    ApiWrapper wrapper = new ApiWrapper("127.0.0.1:50051", "127.0.0.1:50061",
+        keyPair.toPrivateKey());
+    wrapper.enableLocalCreate(new BlockId(new byte[32], 1), System.currentTimeMillis() + 60_000);
+
+    Path file = Files.createTempFile("trident", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(EVENT).withoutThreshold();
+      recording.start();
+      TransactionExtention txnExt = wrapper.transfer(keyPair.toBase58CheckAddress(),
+          KeyPair.generate().toBase58CheckAddress(), 1_000_000L);
+      Transaction signed = wrapper.signTransaction(txnExt);
+      recording.stop();
+      recording.dump(file);
+
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+          .filter(e -> e.getEventType().getName().equals(EVENT))
+          .collect(Collectors.toList());
+      assertEquals(2, events.size());
+      assertEquals("BUILD", events.get(0).getString("stage"));
+      assertEquals("SIGN", events.get(1).getString("stage"));
+      for (RecordedEvent event : events) {
+        assertEquals("TransferContract", event.getString("contractType"));
+        assertEquals(signed.getRawData().getSerializedSize(), event.getLong("payloadSize"));
+        assertTrue(event.getBoolean("success"));
+      }
+    } finally {
+      wrapper.close();
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package org.tron.trident.core.key;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+
+class BatchAddressGeneratorTest {
+
+  @Test
+  void testGeneratedAddressesMatchKeyPair() {
+    Map<String, String> keys = new ConcurrentHashMap<>();
+    try (BatchAddressGenerator generator = new BatchAddressGenerator(3, 100)) {
+      generator.generate(1050, (privateKey, address) ->
+          assertNull(keys.put(Hex.toHexString(address), Hex.toHexString(privateKey))));
+    }
+
+    assertEquals(1050, keys.size());
+    keys.forEach((address, privateKey) ->
+        assertEquals(address, new KeyPair(privateKey).toHexAddress()));
+  }
+
+  @Test
+  void testSinkFailureIsPropagated() {
+    try (BatchAddressGenerator generator = new BatchAddressGenerator(2, 10)) {
+      generator.generate(0, (privateKey, address) -> {
+        throw new AssertionError("no keys expected");
+      });
+      assertThrows(IllegalStateException.class, () -> generator.generate(50,
+          (privateKey, address) -> {
+            throw new IllegalArgumentException("rejected");
+          }));
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package org.tron.trident.core.key;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+
+class HdWalletTest {
+
+  // BIP32 test vector 1
+  private static final byte[] SEED = Hex.decode("000102030405060708090a0b0c0d0e0f");
+
+  @Test
+  void testBip32TestVector() {
+    HdWallet wallet = new HdWallet(SEED);
+
+    assertEquals("xprv9s21ZrQH143K3QTDL4LXw2F7HEK3wJUD2nW2nRk4stbPy6cq3jPPqjiChkVvvNKmPGJxWUtg"
+        + "6LnF5kejMRNNU3TGtRBeJgk33yuGBxrMPHi", wallet.derive("m").toBase58());
+    assertEquals("xpub661MyMwAqRbcFtXgS5sYJABqqG9YLmC4Q1Rdap9gSE8NqtwybGhePY2gZ29ESFjqJoCu1Rup"
+        + "je8YtGqsefD265TMg7usUDFdp6W1EGMcet8", wallet.derive("m").toXpub());
+    assertEquals("xprv9uHRZZhk6KAJC1avXpDAp4MDc3sQKNxDiPvvkX8Br5ngLNv1TxvUxt4cV1rGL5hj6KCesnDY"
+        + "Uhd7oWgT11eZG7XnxHrnYeSvkzY7d2bhkJ7", wallet.derive("m/0'").toBase58());
+    assertEquals("xpub6ASuArnXKPbfEwhqN6e3mwBcDTgzisQN1wXN9BJcM47sSikHjJf3UFHKkNAWbWMiGj7Wf5uM"
+        + "ash7SyYq527Hqck2AxYysAA7xmALppuCkwQ", wallet.derive("m/0'/1").toXpub());
+    assertEquals("xpub6D4BDPcP2GT577Vvch3R8wDkScZWzQzMMUm3PWbmWvVJrZwQY4VUNgqFJPMM3No2dFDFGTsx"
+        + "xpG5uJh7n7epu4trkrX7x7DogT5Uv6fcLW5", wallet.derive("m/0h/1/2h").toXpub());
+    assertEquals("xpub6FHa3pjLCk84BayeJxFW2SP4XRrFd1JYnxeLeU8EqN3vDfZmbqBqaGJAyiLjTAwm6ZLRQUMv"
+        + "1ZACTj37sR62cfN7fe5JnJ7dh8zL4fiyLHV", wallet.derive("m/0h/1/2h/2").toXpub());
+  }
+
+  @Test
+  void testSerializationRoundTrip() {
+    ExtendedKey key = new HdWallet(SEED).derive("m/0'/1");
+    ExtendedKey parsed = ExtendedKey.fromBase58(key.toBase58());
+    assertEquals(key.toBase58(), parsed.toBase58());
+
+    ExtendedKey xpub = ExtendedKey.fromBase58(key.toXpub());
+    assertFalse(xpub.isPrivate());
+    assertEquals(key.toXpub(), xpub.toBase58());
+    assertThrows(IllegalStateException.class, xpub::getKeyPair);
+    assertThrows(IllegalArgumentException.class,
+        () -> xpub.deriveChild(HdWallet.hardened(0)));
+  }
+
+  @Test
+  void testBip44TronAddress() {
+    // BIP39 seed of "abandon abandon ... abandon about" without passphrase
+    HdWallet wallet = new HdWallet(Hex.decode("5eb00bbddcf069084889a8ab9155568165f5c453ccb85e708"
+        + "11aaed6f6da5fc19a5ac40b389cd370d086206dec8aa6c43daea6690f20ad3d8d48b2d2ce9e38e4"));
+
+    assertEquals("TUEZSdKsoDHQMeZwihtdoBiN46zxhGWYdH", wallet.address(0, 0));
+    assertEquals(wallet.address(0, 0), wallet.keyPair(0, 0).toBase58CheckAddress());
+    assertEquals(wallet.derive("m/44'/195'/0'/0/7").toBase58(),
+        wallet.addressKey(0, 0, 7).toBase58());
+  }
+
+  @Test
+  void testDerivationAfterParentsAreEvicted() {
+    HdWallet wallet = new HdWallet(SEED);
+    String first = wallet.address(0, 5);
+    for (int account = 1; account < 300; account++) {
+      wallet.address(account, 0);
+    }
+    assertEquals(first, wallet.address(0, 5));
+    assertEquals(first, new HdWallet(SEED).address(0, 5));
+  }
+
+  @Test
+  void testPublicRangeDerivationMatchesPrivateDerivation() {
+    HdWallet wallet = new HdWallet(SEED);
+    ExtendedKey chain = wallet.account(0).deriveChild(0);
+    ExtendedKey watchOnly = ExtendedKey.fromBase58(chain.toXpub());
+
+    byte[][] addresses = watchOnly.deriveAddresses(10, 600);
+    assertEquals(600, addresses.length);
+    for (int i = 0; i < addresses.length; i += 37) {
+      assertArrayEquals(wallet.addressKey(0, 0, 10 + i).getAddress(), addresses[i]);
+      assertArrayEquals(watchOnly.deriveChild(10 + i).getAddress(), addresses[i]);
+    }
+    assertEquals(Hex.toHexString(addresses[599]),
+        wallet.keyPair(0, 609).toHexAddress());
+  }
+}
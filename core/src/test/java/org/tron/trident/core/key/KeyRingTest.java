@@ -0,0 +1,134 @@
+package org.tron.trident.core.key;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.transaction.SignatureValidator;
+import org.tron.trident.core.transaction.TransactionCapsule;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Contract.TransferAssetContract;
+import org.tron.trident.proto.Contract.TransferContract;
+
+class KeyRingTest {
+
+  private static Transaction transfer(ByteString owner) {
+    TransferContract contract = TransferContract.newBuilder()
+        .setOwnerAddress(owner)
+        .setToAddress(owner)
+        .setAmount(1)
+        .build();
+    return new TransactionCapsule(contract, Transaction.Contract.ContractType.TransferContract)
+        .getTransaction();
+  }
+
+  @Test
+  void testEntryCachesPublicData() {
+    KeyPair keyPair = KeyPair.generate();
+    KeyRing ring = new KeyRing();
+    KeyRing.Entry entry = ring.add(keyPair);
+
+    assertEquals(keyPair.toBase58CheckAddress(), entry.getBase58CheckAddress());
+    assertEquals(keyPair.toHexAddress(), entry.getHexAddress());
+    assertArrayEquals(KeyPair.publicKeyToAddress(keyPair.getRawPair().getPublicKey()),
+        entry.getAddressBytes().toByteArray());
+    assertSame(entry, ring.get(entry.getAddressBytes()));
+    assertSame(entry, ring.get(entry.getAddressBytes().toByteArray()));
+    assertEquals(1, ring.size());
+  }
+
+  @Test
+  void testSignByOwnerAddress() {
+    KeyRing ring = new KeyRing();
+    for (int i = 0; i < 10; i++) {
+      ring.add(KeyPair.generate());
+    }
+
+    for (ByteString address : ring.addresses()) {
+      Transaction txn = transfer(address);
+      Transaction signed = ring.signTransaction(txn);
+      byte[] txId = ApiWrapper.calculateTransactionHash(txn);
+
+      assertArrayEquals(KeyPair.signTransaction(txId, ring.get(address).getKeyPair()),
+          signed.getSignature(0).toByteArray());
+      assertTrue(SignatureValidator.verify(txId, signed.getSignature(0).toByteArray(),
+          address.toByteArray()));
+    }
+  }
+
+  @Test
+  void testConcurrentSigning() throws Exception {
+    KeyRing ring = new KeyRing();
+    for (int i = 0; i < 4; i++) {
+      ring.add(KeyPair.generate());
+    }
+    List<ByteString> owners = new ArrayList<>(ring.addresses());
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        final int seed = t;
+        futures.add(pool.submit(() -> {
+          for (int i = 0; i < 50; i++) {
+            ByteString owner = owners.get((seed + i) % owners.size());
+            // sizes on both sides of the context's initial buffer
+            Transaction txn = transfer(owner).toBuilder()
+                .setRawData(transfer(owner).getRawData().toBuilder()
+                    .setData(ByteString.copyFrom(new byte[(seed * 50 + i) * 7])))
+                .build();
+            byte[] txId = ApiWrapper.calculateTransactionHash(txn);
+            assertArrayEquals(txId, ring.signingContext().hash(txn));
+            assertArrayEquals(KeyPair.signTransaction(txId, ring.get(owner).getKeyPair()),
+                ring.signTransaction(txn).getSignature(0).toByteArray());
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void testSignTransferAssetOwner() {
+    KeyRing ring = new KeyRing();
+    KeyRing.Entry entry = ring.add(KeyPair.generate());
+    TransferAssetContract contract = TransferAssetContract.newBuilder()
+        .setAssetName(ByteString.copyFromUtf8("1000001"))
+        .setOwnerAddress(entry.getAddressBytes())
+        .setToAddress(entry.getAddressBytes())
+        .setAmount(1)
+        .build();
+    Transaction txn = new TransactionCapsule(contract,
+        Transaction.Contract.ContractType.TransferAssetContract).getTransaction();
+
+    assertSame(entry.getKeyPair(), ring.keyPairFor(txn));
+    Transaction signed = ring.signTransaction(txn);
+    assertTrue(SignatureValidator.verify(ApiWrapper.calculateTransactionHash(txn),
+        signed.getSignature(0).toByteArray(), entry.getAddressBytes().toByteArray()));
+  }
+
+  @Test
+  void testUnknownOwner() {
+    KeyRing ring = new KeyRing();
+    KeyPair stranger = KeyPair.generate();
+    Transaction txn = transfer(ApiWrapper.parseAddress(stranger.toHexAddress()));
+
+    assertNull(ring.keyPairFor(txn));
+    assertThrows(IllegalArgumentException.class, () -> ring.signTransaction(txn));
+  }
+}
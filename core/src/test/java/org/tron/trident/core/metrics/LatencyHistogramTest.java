@@ -0,0 +1,58 @@
+package org.tron.trident.core.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void testBucketsCoverEveryValue() {
+    long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 1_000_000, Long.MAX_VALUE};
+    for (long value : values) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      assertTrue(LatencyHistogram.highestValueOf(bucket) >= value);
+      if (bucket > 0) {
+        assertTrue(LatencyHistogram.highestValueOf(bucket - 1) < value);
+      }
+    }
+    assertEquals(LatencyHistogram.bucketOf(Long.MAX_VALUE), (64 - 5) * 32 - 1);
+  }
+
+  @Test
+  void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 10_000; i++) {
+      histogram.record(i * 1000L);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(10_000, snapshot.getCount());
+    assertEquals(10_000_000, snapshot.getMax());
+    assertEquals(5_000_500, snapshot.getMean(), 0.001);
+    assertWithin(5_000_000, snapshot.getValueAtPercentile(50));
+    assertWithin(9_900_000, snapshot.getValueAtPercentile(99));
+    assertEquals(10_000_000, snapshot.getValueAtPercentile(100));
+    assertEquals(0, new LatencyHistogram().snapshot().getValueAtPercentile(99));
+    assertThrows(IllegalArgumentException.class, () -> snapshot.getValueAtPercentile(101));
+  }
+
+  @Test
+  void testConcurrentRecording() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    IntStream.range(0, 100_000).parallel().forEach(i -> histogram.record(i % 100));
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(100_000, snapshot.getCount());
+    assertEquals(99, snapshot.getMax());
+    assertEquals(49.5, snapshot.getMean(), 0.001);
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(Math.abs(actual - expected) <= expected * 0.032,
+        () -> "expected about " + expected + " but was " + actual);
+  }
+}
@@ -0,0 +1,299 @@
+package org.tron.trident.core.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.api.GrpcAPI.AccountAddressMessage;
+import org.tron.trident.api.GrpcAPI.BlockLimit;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.api.WalletSolidityGrpc;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.NodeType;
+import org.tron.trident.core.transaction.BlockId;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.transport.TransportContext;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Response.Account;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.BlockListExtention;
+
+class NodeRouterTest {
+
+  @Test
+  void testRoute() {
+    AtomicLong solidHead = new AtomicLong(100);
+    AtomicInteger solidQueries = new AtomicInteger();
+    NodeRouter router = new NodeRouter(() -> 120, () -> {
+      solidQueries.incrementAndGet();
+      return solidHead.get();
+    }, 60_000);
+
+    assertEquals(NodeType.FULL_NODE, router.route(Consistency.LATEST));
+    assertEquals(NodeType.SOLIDITY_NODE, router.route(Consistency.SOLIDIFIED));
+    assertEquals(NodeType.SOLIDITY_NODE, router.route(Consistency.atLeast(90)));
+    assertEquals(1, solidQueries.get());
+
+    // within the refresh interval the known height decides without a query
+    solidHead.set(110);
+    assertEquals(NodeType.FULL_NODE, router.route(Consistency.atLeast(105)));
+    assertEquals(1, solidQueries.get());
+
+    router.observe(NodeType.SOLIDITY_NODE, 106);
+    assertEquals(NodeType.SOLIDITY_NODE, router.route(Consistency.atLeast(105)));
+    assertEquals(106, router.getSolidBlockNum());
+    assertEquals(120, router.getHeadBlockNum());
+    assertThrows(IllegalArgumentException.class, () -> Consistency.atLeast(-1));
+  }
+
+  @Test
+  void testStaleHeightIsRefreshed() {
+    AtomicLong solidHead = new AtomicLong(100);
+    NodeRouter router = new NodeRouter(() -> 120, solidHead::get, 0);
+
+    assertEquals(NodeType.FULL_NODE, router.route(Consistency.atLeast(105)));
+    solidHead.set(105);
+    assertEquals(NodeType.SOLIDITY_NODE, router.route(Consistency.atLeast(105)));
+  }
+
+  @Test
+  void testUnavailableSolidityNodeFallsBackToFullNode() {
+    NodeRouter router = new NodeRouter(() -> 120, () -> {
+      throw new IllegalStateException("down");
+    }, 0);
+    assertEquals(NodeType.FULL_NODE, router.route(Consistency.atLeast(1)));
+  }
+
+  @Test
+  void testFailedRefreshIsNotRetriedWithinInterval() throws Exception {
+    AtomicInteger queries = new AtomicInteger();
+    NodeRouter router = new NodeRouter(() -> 120, () -> {
+      queries.incrementAndGet();
+      throw new IllegalStateException("down");
+    }, 50);
+
+    assertEquals(NodeType.FULL_NODE, router.route(Consistency.atLeast(1)));
+    assertEquals(NodeType.FULL_NODE, router.route(Consistency.atLeast(1)));
+    assertEquals(1, queries.get());
+
+    Thread.sleep(60);
+    assertEquals(NodeType.FULL_NODE, router.route(Consistency.atLeast(1)));
+    assertEquals(2, queries.get());
+  }
+
+  @Test
+  void testRefreshKeepsSameOrLowerHeadFresh() throws Exception {
+    AtomicLong head = new AtomicLong(120);
+    AtomicInteger queries = new AtomicInteger();
+    NodeRouter router = new NodeRouter(() -> {
+      queries.incrementAndGet();
+      return head.get();
+    }, () -> 100, 50);
+
+    assertEquals(120, router.getHeadBlockNum());
+    Thread.sleep(60);
+    assertEquals(120, router.getHeadBlockNum());
+    assertEquals(120, router.getHeadBlockNum());
+    assertEquals(2, queries.get());
+
+    // a node restarted behind its former head
+    head.set(110);
+    Thread.sleep(60);
+    assertEquals(110, router.getHeadBlockNum());
+    assertEquals(110, router.getHeadBlockNum());
+    assertEquals(3, queries.get());
+  }
+
+  @Test
+  void testUnavailableSolidityNodeKeepsLastSolidBlock() {
+    AtomicInteger queries = new AtomicInteger();
+    NodeRouter router = new NodeRouter(() -> 120, () -> {
+      if (queries.incrementAndGet() > 1) {
+        throw new IllegalStateException("down");
+      }
+      return 100;
+    }, 0);
+    assertEquals(100, router.getSolidBlockNum());
+    assertEquals(100, router.getSolidBlockNum());
+    assertEquals(2, queries.get());
+
+    NodeRouter unknown = new NodeRouter(() -> 120, () -> {
+      throw new IllegalStateException("down");
+    }, 0);
+    assertThrows(IllegalStateException.class, unknown::getSolidBlockNum);
+  }
+
+  @Test
+  void testViewsShareCoalescing() throws Exception {
+    String name = "node-router-test-coalescing";
+    AtomicInteger accountCalls = new AtomicInteger();
+    Server server = InProcessServerBuilder.forName(name)
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getAccount(AccountAddressMessage request, StreamObserver<Account> observer) {
+            accountCalls.incrementAndGet();
+            observer.onNext(Account.newBuilder().setBalance(1).build());
+            observer.onCompleted();
+          }
+        }).build().start();
+    TransportContext transport = TransportContext.of(
+        InProcessChannelBuilder.forName(name).build(),
+        InProcessChannelBuilder.forName(name).build());
+    try {
+      ApiWrapper wrapper = new ApiWrapper(transport, KeyPair.generate());
+      ApiWrapper view = wrapper.withConsistency(Consistency.LATEST);
+      String address = KeyPair.generate().toBase58CheckAddress();
+
+      // enabled after the view was created, on the wrapper
+      wrapper.enableCoalescing(60_000);
+      view.getAccount(address);
+      view.getAccount(address);
+      wrapper.getAccount(address);
+      assertEquals(1, accountCalls.get());
+
+      // disabled on the view
+      view.disableCoalescing();
+      wrapper.getAccount(address);
+      assertEquals(2, accountCalls.get());
+    } finally {
+      transport.close();
+      server.shutdownNow();
+    }
+  }
+
+  @Test
+  void testViewsShareLocalCreate() {
+    TransportContext transport = TransportContext.of(
+        InProcessChannelBuilder.forName("node-router-test-local-create").build(),
+        InProcessChannelBuilder.forName("node-router-test-local-create").build());
+    try {
+      ApiWrapper wrapper = new ApiWrapper(transport, KeyPair.generate());
+      ApiWrapper view = wrapper.withConsistency(Consistency.SOLIDIFIED);
+      BlockId blockId = new BlockId(new byte[32], 1);
+
+      // enabled after the view was created, on the wrapper
+      wrapper.enableLocalCreate(blockId, 1_000);
+      assertTrue(view.isEnableLocalCreateTx());
+      assertEquals(blockId, view.getReferHeadBlockId());
+
+      // updated on the view
+      view.setExpireTimeStamp(2_000);
+      assertEquals(2_000, wrapper.getExpireTimeStamp());
+      view.disableLocalCreate();
+      assertFalse(wrapper.isEnableLocalCreateTx());
+    } finally {
+      transport.close();
+    }
+  }
+
+  @Test
+  void testSolidifiedRangeFailsWithoutSolidityNode() throws Exception {
+    String name = "node-router-test-no-solidity";
+    Server server = InProcessServerBuilder.forName(name)
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getBlockByLimitNext2(BlockLimit request,
+              StreamObserver<BlockListExtention> observer) {
+            observer.onNext(BlockListExtention.newBuilder().addBlock(block(1)).build());
+            observer.onCompleted();
+          }
+        }).build().start();
+    TransportContext transport = TransportContext.of(
+        InProcessChannelBuilder.forName(name).build(),
+        InProcessChannelBuilder.forName(name).build());
+    try {
+      ApiWrapper wrapper = new ApiWrapper(transport, KeyPair.generate());
+      assertEquals(1, wrapper.getBlockByLimitNext(1, 2).getBlockCount());
+
+      // no solidified block number known and none to query: the solidity node's error
+      ApiWrapper solidified = wrapper.withConsistency(Consistency.SOLIDIFIED);
+      StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+          () -> solidified.getBlockByLimitNext(1, 2));
+      assertEquals(Status.Code.UNIMPLEMENTED, e.getStatus().getCode());
+      assertThrows(StatusRuntimeException.class, () -> solidified.getBlockByLatestNum(1));
+      assertThrows(StatusRuntimeException.class,
+          () -> solidified.getBlockByLimitNextLazy(1, 2));
+
+      // once learned, the last solidified block number bounds the range
+      solidified.getNodeRouter().observe(NodeType.SOLIDITY_NODE, 1);
+      assertEquals(1, solidified.getBlockByLimitNext(1, 2).getBlockCount());
+    } finally {
+      transport.close();
+      server.shutdownNow();
+    }
+  }
+
+  @Test
+  void testApiWrapperRoutesByConsistency() throws Exception {
+    Server full = NettyServerBuilder.forPort(0).addService(new WalletGrpc.WalletImplBase() {
+      @Override
+      public void getNowBlock2(EmptyMessage request, StreamObserver<BlockExtention> observer) {
+        observer.onNext(block(120));
+        observer.onCompleted();
+      }
+
+      @Override
+      public void getAccount(AccountAddressMessage request, StreamObserver<Account> observer) {
+        observer.onNext(Account.newBuilder().setBalance(1).build());
+        observer.onCompleted();
+      }
+    }).build().start();
+    Server solidity = NettyServerBuilder.forPort(0)
+        .addService(new WalletSolidityGrpc.WalletSolidityImplBase() {
+          @Override
+          public void getNowBlock2(EmptyMessage request, StreamObserver<BlockExtention> observer) {
+            observer.onNext(block(100));
+            observer.onCompleted();
+          }
+
+          @Override
+          public void getAccount(AccountAddressMessage request, StreamObserver<Account> observer) {
+            observer.onNext(Account.newBuilder().setBalance(2).build());
+            observer.onCompleted();
+          }
+        }).build().start();
+    TransportContext transport = new TransportContext.Builder("127.0.0.1:" + full.getPort(),
+        "127.0.0.1:" + solidity.getPort()).build();
+    try {
+      ApiWrapper wrapper = new ApiWrapper(transport, KeyPair.generate());
+      String address = KeyPair.generate().toBase58CheckAddress();
+
+      assertEquals(1, wrapper.getAccount(address).getBalance());
+      assertEquals(2, wrapper.withConsistency(Consistency.SOLIDIFIED)
+          .getAccount(address).getBalance());
+      assertEquals(2, wrapper.withConsistency(Consistency.atLeast(100))
+          .getAccount(address).getBalance());
+      assertEquals(1, wrapper.withConsistency(Consistency.atLeast(101))
+          .getAccount(address).getBalance());
+
+      wrapper.setConsistency(Consistency.SOLIDIFIED);
+      assertEquals(2, wrapper.getAccount(address).getBalance());
+      assertEquals(1, wrapper.getAccount(address, NodeType.FULL_NODE).getBalance());
+    } finally {
+      transport.close();
+      full.shutdownNow();
+      solidity.shutdownNow();
+    }
+  }
+
+  private static BlockExtention block(long number) {
+    return BlockExtention.newBuilder()
+        .setBlockHeader(BlockHeader.newBuilder().setRawData(
+            BlockHeader.raw.newBuilder().setNumber(number)))
+        .setBlockid(ByteString.copyFrom(new byte[32]))
+        .build();
+  }
+}
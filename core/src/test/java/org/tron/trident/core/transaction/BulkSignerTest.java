@@ -0,0 +1,92 @@
+package org.tron.trident.core.transaction;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Contract.TransferContract;
+
+class BulkSignerTest {
+
+  private static List<Transaction> transactions(KeyPair owner, int count) {
+    List<Transaction> txns = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      TransferContract contract = TransferContract.newBuilder()
+          .setOwnerAddress(ApiWrapper.parseAddress(owner.toHexAddress()))
+          .setToAddress(ApiWrapper.parseAddress(owner.toHexAddress()))
+          .setAmount(i + 1)
+          .build();
+      txns.add(new TransactionCapsule(contract,
+          Transaction.Contract.ContractType.TransferContract).getTransaction());
+    }
+    return txns;
+  }
+
+  @Test
+  void testSignMatchesSerialSigning() {
+    KeyPair keyPair = KeyPair.generate();
+    List<Transaction> txns = transactions(keyPair, 500);
+
+    try (BulkSigner signer = new BulkSigner(keyPair, 4)) {
+      List<BulkSigner.Result> results = signer.sign(txns);
+      assertEquals(txns.size(), results.size());
+      for (int i = 0; i < txns.size(); i++) {
+        BulkSigner.Result result = results.get(i);
+        assertTrue(result.isSuccess());
+        assertEquals(i, result.getIndex());
+
+        byte[] txId = ApiWrapper.calculateTransactionHash(txns.get(i));
+        assertArrayEquals(txId, result.getTxId());
+        assertArrayEquals(KeyPair.signTransaction(txId, keyPair),
+            result.getTransaction().getSignature(0).toByteArray());
+        assertTrue(SignatureValidator.verify(txId,
+            result.getTransaction().getSignature(0).toByteArray(),
+            ApiWrapper.parseAddress(keyPair.toHexAddress()).toByteArray()));
+      }
+    }
+  }
+
+  @Test
+  void testPerItemKeysAndFailures() {
+    KeyPair first = KeyPair.generate();
+    KeyPair second = KeyPair.generate();
+    List<Transaction> txns = transactions(first, 3);
+
+    try (BulkSigner signer = new BulkSigner(null, 2)) {
+      List<BulkSigner.Result> results = signer.sign(txns, Arrays.asList(first, null, second));
+
+      assertTrue(results.get(0).isSuccess());
+      assertFalse(results.get(1).isSuccess());
+      assertTrue(results.get(1).getError() instanceof IllegalArgumentException);
+      assertTrue(results.get(2).isSuccess());
+      byte[] txId = ApiWrapper.calculateTransactionHash(txns.get(2));
+      assertArrayEquals(KeyPair.signTransaction(txId, second),
+          results.get(2).getTransaction().getSignature(0).toByteArray());
+    }
+  }
+
+  @Test
+  void testSignIteratorKeepsOrder() {
+    KeyPair keyPair = KeyPair.generate();
+    List<Transaction> txns = transactions(keyPair, 37);
+    List<BulkSigner.Result> results = new ArrayList<>();
+
+    try (BulkSigner signer = new BulkSigner(keyPair, 3)) {
+      signer.sign(txns.iterator(), 10, results::add);
+    }
+
+    assertEquals(txns.size(), results.size());
+    for (int i = 0; i < txns.size(); i++) {
+      assertEquals(i, results.get(i).getIndex());
+      assertEquals(txns.get(i).getRawData(), results.get(i).getTransaction().getRawData());
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package org.tron.trident.core.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import io.grpc.stub.StreamObserver;
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Response.BlockExtention;
+
+class EndpointsTest {
+
+  private static final WalletGrpc.WalletImplBase WALLET = new WalletGrpc.WalletImplBase() {
+    @Override
+    public void getNowBlock2(EmptyMessage request,
+        StreamObserver<BlockExtention> responseObserver) {
+      responseObserver.onNext(BlockExtention.newBuilder()
+          .setBlockHeader(BlockHeader.newBuilder().setRawData(
+              BlockHeader.raw.newBuilder().setNumber(9)))
+          .build());
+      responseObserver.onCompleted();
+    }
+  };
+
+  @Test
+  void testParse() {
+    assertTrue(Endpoints.isNative("unix:/run/tron.sock"));
+    assertTrue(Endpoints.isNative("epoll://127.0.0.1:50051"));
+    assertFalse(Endpoints.isNative("grpc.trongrid.io:50051"));
+    assertFalse(Endpoints.isNative("dns:///grpc.trongrid.io:50051"));
+    assertEquals("/run/tron.sock", Endpoints.socketPath("unix:/run/tron.sock"));
+    assertEquals("/run/tron.sock", Endpoints.socketPath("unix:///run/tron.sock"));
+    assertThrows(IllegalArgumentException.class, () -> Endpoints.socketPath("unix:"));
+  }
+
+  @Test
+  void testInvalidEpollEndpoint() {
+    assumeTrue(Epoll.isAvailable());
+    assertThrows(IllegalArgumentException.class,
+        () -> Endpoints.channelBuilder("epoll://127.0.0.1"));
+  }
+
+  @Test
+  void testUnixDomainSocket() throws Exception {
+    assumeTrue(Epoll.isAvailable());
+    File dir = Files.createTempDirectory("trident").toFile();
+    File socket = new File(dir, "wallet.sock");
+    EventLoopGroup group = new EpollEventLoopGroup(1);
+    Server server = NettyServerBuilder.forAddress(new DomainSocketAddress(socket))
+        .channelType(EpollServerDomainSocketChannel.class)
+        .bossEventLoopGroup(group)
+        .workerEventLoopGroup(group)
+        .addService(WALLET)
+        .build()
+        .start();
+    String endpoint = "unix://" + socket.getAbsolutePath();
+    ApiWrapper wrapper = new ApiWrapper(endpoint, endpoint, KeyPair.generate().toPrivateKey());
+    try {
+      assertEquals(9, wrapper.getNowBlock2().getBlockHeader().getRawData().getNumber());
+    } finally {
+      wrapper.close();
+      server.shutdownNow().awaitTermination();
+      group.shutdownGracefully().sync();
+      socket.delete();
+      dir.delete();
+    }
+  }
+
+  @Test
+  void testEpollTcp() throws Exception {
+    assumeTrue(Epoll.isAvailable());
+    Server server = NettyServerBuilder.forPort(0).addService(WALLET).build().start();
+    String endpoint = "epoll://127.0.0.1:" + server.getPort();
+    TransportContext transport = new TransportContext.Builder(endpoint, endpoint)
+        .setEventLoopThreads(1)
+        .build();
+    try {
+      ApiWrapper wrapper = new ApiWrapper(transport, KeyPair.generate());
+      assertEquals(9, wrapper.getNowBlock2().getBlockHeader().getRawData().getNumber());
+    } finally {
+      transport.close();
+      server.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package org.tron.trident.core.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Response.BlockExtention;
+
+class TransportContextTest {
+
+  private Server server;
+  private String endpoint;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    server = NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", 0))
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getNowBlock2(EmptyMessage request,
+              StreamObserver<BlockExtention> responseObserver) {
+            responseObserver.onNext(BlockExtention.newBuilder()
+                .setBlockHeader(BlockHeader.newBuilder().setRawData(
+                    BlockHeader.raw.newBuilder().setNumber(7)))
+                .build());
+            responseObserver.onCompleted();
+          }
+        })
+        .build()
+        .start();
+    endpoint = "127.0.0.1:" + server.getPort();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.shutdownNow();
+  }
+
+  @Test
+  void testWrappersShareChannels() throws Exception {
+    TransportContext transport = new TransportContext.Builder(endpoint, endpoint)
+        .setEventLoopThreads(1)
+        .setKeepAliveTime(30, TimeUnit.SECONDS)
+        .setFlowControlWindow(4 * 1024 * 1024)
+        .setTimeout(5_000)
+        .build();
+    ApiWrapper alice = new ApiWrapper(transport, KeyPair.generate());
+    ApiWrapper bob = new ApiWrapper(transport, KeyPair.generate().toPrivateKey());
+
+    assertSame(alice.channel, bob.channel);
+    assertSame(transport.getSolidityChannel(), bob.channelSolidity);
+    assertEquals(7, alice.getNowBlock2().getBlockHeader().getRawData().getNumber());
+
+    alice.close();
+    assertFalse(transport.getChannel().isShutdown());
+    assertEquals(7, bob.getNowBlock2().getBlockHeader().getRawData().getNumber());
+
+    transport.close();
+    assertTrue(transport.getChannel().isShutdown());
+    assertTrue(transport.getSolidityChannel().isShutdown());
+  }
+}
@@ -0,0 +1,77 @@
+package org.tron.trident.core.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class AddressSetTest {
+
+  private static List<byte[]> randomAddresses(Random random, int count) {
+    List<byte[]> addresses = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      byte[] address = new byte[21];
+      random.nextBytes(address);
+      address[0] = AddressSet.ADDRESS_PREFIX;
+      addresses.add(address);
+    }
+    return addresses;
+  }
+
+  @Test
+  void testAddAndContains() {
+    Random random = new Random(42);
+    List<byte[]> members = randomAddresses(random, 20_000);
+    List<byte[]> others = randomAddresses(random, 20_000);
+
+    for (AddressSet set : new AddressSet[] {
+        new AddressSet(100), new AddressSet(20_000, true, 10)}) {
+      for (byte[] address : members) {
+        assertTrue(set.add(address));
+      }
+      assertFalse(set.add(ByteString.copyFrom(members.get(7))));
+      assertEquals(members.size(), set.size());
+
+      for (byte[] address : members) {
+        assertTrue(set.contains(address));
+        assertTrue(set.contains(ByteString.copyFrom(address)));
+      }
+      for (byte[] address : others) {
+        assertFalse(set.contains(address));
+      }
+      assertTrue(set.memoryUsage() < 64L * members.size() + 64 * 1024);
+    }
+  }
+
+  @Test
+  void testZeroAddressAndBody() {
+    AddressSet set = new AddressSet(4);
+    byte[] zero = new byte[21];
+    zero[0] = AddressSet.ADDRESS_PREFIX;
+    assertFalse(set.contains(zero));
+    assertTrue(set.add(zero));
+    assertTrue(set.contains(zero));
+
+    byte[] topic = new byte[32];
+    assertTrue(set.containsBody(ByteString.copyFrom(topic), 12));
+    topic[31] = 1;
+    assertFalse(set.containsBody(ByteString.copyFrom(topic), 12));
+
+    assertFalse(set.contains(new byte[20]));
+    assertThrows(IllegalArgumentException.class, () -> set.add(new byte[21]));
+  }
+
+  @Test
+  void testBase58() {
+    AddressSet set = new AddressSet(1);
+    set.add("TJRabPrwbZy45sbavfcjinPJC18kjpRTv8");
+    assertTrue(set.contains(ByteString.copyFrom(
+        ByteArray.fromHexString("415cbdd86a2fa8dc4bddd8a8f69dba48572eec07fb"))));
+  }
+}
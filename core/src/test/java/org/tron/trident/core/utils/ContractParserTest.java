@@ -0,0 +1,68 @@
+package org.tron.trident.core.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Chain.Transaction.Contract.ContractType;
+import org.tron.trident.proto.Contract.AccountUpdateContract;
+import org.tron.trident.proto.Contract.TransferAssetContract;
+import org.tron.trident.proto.Contract.TriggerSmartContract;
+
+class ContractParserTest {
+
+  private static final ByteString OWNER = ByteString.copyFrom(
+      ByteArray.fromHexString("41a614f803b6fd780986a42c78ec9c7f77e6ded13c"));
+
+  @Test
+  void testOwnerAddress() {
+    TriggerSmartContract trigger = TriggerSmartContract.newBuilder()
+        .setOwnerAddress(OWNER)
+        .setData(ByteString.copyFrom(new byte[68]))
+        .build();
+    Transaction.Contract contract = Transaction.Contract.newBuilder()
+        .setType(ContractType.TriggerSmartContract)
+        .setParameter(Any.pack(trigger))
+        .build();
+    assertEquals(OWNER, ContractParser.getOwnerAddress(contract));
+
+    AccountUpdateContract update = AccountUpdateContract.newBuilder()
+        .setAccountName(ByteString.copyFromUtf8("name"))
+        .setOwnerAddress(OWNER)
+        .build();
+    contract = Transaction.Contract.newBuilder()
+        .setType(ContractType.AccountUpdateContract)
+        .setParameter(Any.pack(update))
+        .build();
+    assertEquals(OWNER, ContractParser.getOwnerAddress(contract));
+  }
+
+  @Test
+  void testToAddressAndAmount() {
+    ByteString to = ByteString.copyFrom(
+        ByteArray.fromHexString("415cbdd86a2fa8dc4bddd8a8f69dba48572eec07fb"));
+    TransferAssetContract transfer = TransferAssetContract.newBuilder()
+        .setAssetName(ByteString.copyFromUtf8("1002000"))
+        .setOwnerAddress(OWNER)
+        .setToAddress(to)
+        .setAmount(123_456_789_000L)
+        .build();
+    Transaction.Contract contract = Transaction.Contract.newBuilder()
+        .setType(ContractType.TransferAssetContract)
+        .setParameter(Any.pack(transfer))
+        .build();
+    assertEquals(OWNER, ContractParser.getOwnerAddress(contract));
+    assertEquals(to, ContractParser.getToAddress(contract));
+    assertEquals(123_456_789_000L,
+        ContractParser.readVarintField(contract.getParameter().getValue(), 4));
+  }
+
+  @Test
+  void testMissingField() {
+    assertEquals(ByteString.EMPTY, ContractParser.readBytesField(ByteString.EMPTY, 1));
+    assertEquals(ByteString.EMPTY,
+        ContractParser.getOwnerAddress(Transaction.getDefaultInstance()));
+  }
+}
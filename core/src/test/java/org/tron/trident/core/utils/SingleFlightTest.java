@@ -0,0 +1,86 @@
+package org.tron.trident.core.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  @Test
+  void testConcurrentCallsShareOneLoad() throws Exception {
+    // the window covers followers that only arrive after the load completed
+    SingleFlight<String, Integer> flight = new SingleFlight<>(60_000);
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      results.add(pool.submit(() -> flight.call("key", () -> {
+        started.countDown();
+        await(release);
+        return loads.incrementAndGet();
+      })));
+      started.await();
+      for (int i = 0; i < 7; i++) {
+        results.add(pool.submit(() -> flight.call("key", loads::incrementAndGet)));
+      }
+      Thread.sleep(50);
+      release.countDown();
+      for (Future<Integer> result : results) {
+        assertEquals(1, result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void testWithoutWindowOnlyOverlappingCallsShare() {
+    SingleFlight<String, Object> flight = new SingleFlight<>(0);
+    Object first = flight.call("key", Object::new);
+    assertEquals(0, flight.size());
+    assertNotSame(first, flight.call("key", Object::new));
+  }
+
+  @Test
+  void testFreshnessWindow() throws Exception {
+    SingleFlight<String, Object> flight = new SingleFlight<>(200);
+    Object first = flight.call("key", Object::new);
+    assertSame(first, flight.call("key", Object::new));
+    assertEquals(1, flight.size());
+    Thread.sleep(250);
+    Object second = flight.call("key", Object::new);
+    assertNotSame(first, second);
+  }
+
+  @Test
+  void testFailuresAreNotKept() {
+    SingleFlight<String, String> flight = new SingleFlight<>(10_000);
+    assertThrows(IllegalStateException.class, () -> flight.call("key", () -> {
+      throw new IllegalStateException("unavailable");
+    }));
+    assertEquals(0, flight.size());
+    assertEquals("ok", flight.call("key", () -> "ok"));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,520 @@
+package org.tron.trident.testing;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.tron.trident.core.transaction.BlockId;
+import org.tron.trident.core.utils.Sha256Hash;
+import org.tron.trident.proto.Chain.BlockHeader;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Contract.TransferContract;
+import org.tron.trident.proto.Contract.TriggerSmartContract;
+import org.tron.trident.proto.Response.Account;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.ChainParameters;
+import org.tron.trident.proto.Response.ResourceReceipt;
+import org.tron.trident.proto.Response.TransactionExtention;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionReturn;
+
+/**
+ * A deterministic synthetic chain served by {@link FakeWalletServer}.
+ *
+ * <p>Blocks are derived from the seed and their number: the same seed always produces the same
+ * headers, ids and filler transactions, so results are comparable across runs. Block ids are the
+ * hash of the header as on a real node, and each header links to the id of its parent. The
+ * transaction trie root is synthetic and the filler transactions are not signed.</p>
+ *
+ * <p>The chain only moves when {@link #advance} is called. Transactions accepted by
+ * {@link #broadcast} are included in the next block. Transfers are checked against and applied
+ * to the balances set with {@link #setBalance}, other contracts are accepted as they are, and
+ * signatures are never verified. Constant calls are answered by scripts registered with
+ * {@link #script}, and by built-in {@code balanceOf} and {@code totalSupply} for the contracts
+ * given TRC20 balances with {@link #setTrc20Balance}.</p>
+ *
+ * <p>All methods are thread-safe.</p>
+ */
+public final class FakeChain {
+
+  public static final long BLOCK_INTERVAL_MILLIS = 3_000L;
+  /** How many blocks the solidified head trails the head, as on mainnet. */
+  public static final int SOLIDIFY_DEPTH = 19;
+
+  public static final String BALANCE_OF = "70a08231";
+  public static final String TOTAL_SUPPLY = "18160ddd";
+
+  private static final int WITNESS_COUNT = 27;
+
+  private final long seed;
+  private final long firstBlockNum;
+  private final long genesisTimestamp;
+  private final int transactionsPerBlock;
+  private final int maxStoredTransactions;
+
+  // guarded by this
+  private final List<byte[]> blockIds = new ArrayList<>();
+  private long headBlockNum;
+  private final Map<ByteString, Long> balances = new HashMap<>();
+  private final Map<ByteString, Map<ByteString, BigInteger>> trc20 = new HashMap<>();
+  private final Map<ByteString, Map<String, Function<byte[], byte[]>>> scripts = new HashMap<>();
+  private final List<StoredTransaction> pending = new ArrayList<>();
+  private final Map<Long, List<Transaction>> included;
+  private final Map<ByteString, StoredTransaction> transactions;
+
+  private FakeChain(Builder builder) {
+    this.seed = builder.seed;
+    this.firstBlockNum = builder.headBlockNum;
+    this.genesisTimestamp = builder.genesisTimestamp;
+    this.transactionsPerBlock = builder.transactionsPerBlock;
+    this.maxStoredTransactions = builder.maxStoredTransactions;
+    this.headBlockNum = builder.headBlockNum;
+    this.included = bounded();
+    this.transactions = bounded();
+  }
+
+  private <K, V> Map<K, V> bounded() {
+    return new LinkedHashMap<K, V>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxStoredTransactions;
+      }
+    };
+  }
+
+  public synchronized long getHeadBlockNum() {
+    return headBlockNum;
+  }
+
+  /**
+   * Head of the solidity node, {@link #SOLIDIFY_DEPTH} blocks behind the head but never before the
+   * first block of the chain.
+   */
+  public synchronized long getSolidBlockNum() {
+    return Math.max(firstBlockNum, headBlockNum - SOLIDIFY_DEPTH);
+  }
+
+  /**
+   * Produce blocks, including the pending transactions in the first of them.
+   *
+   * @param blocks number of blocks to produce
+   */
+  public synchronized void advance(int blocks) {
+    if (blocks < 0) {
+      throw new IllegalArgumentException("blocks must be >= 0");
+    }
+    for (int i = 0; i < blocks; i++) {
+      headBlockNum++;
+      if (!pending.isEmpty()) {
+        List<Transaction> block = new ArrayList<>(pending.size());
+        for (StoredTransaction stored : pending) {
+          stored.blockNum = headBlockNum;
+          block.add(stored.txn);
+        }
+        included.put(headBlockNum, block);
+        pending.clear();
+      }
+    }
+  }
+
+  /**
+   * The block at {@code num}.
+   *
+   * @param num block number
+   * @param detail whether to include the transactions
+   * @return the block, or an empty block if {@code num} is not between the first block and the
+   *     head
+   */
+  public synchronized BlockExtention getBlock(long num, boolean detail) {
+    if (num < firstBlockNum || num > headBlockNum) {
+      return BlockExtention.getDefaultInstance();
+    }
+    BlockHeader.raw raw = header(num);
+    BlockExtention.Builder block = BlockExtention.newBuilder()
+        .setBlockHeader(BlockHeader.newBuilder()
+            .setRawData(raw)
+            .setWitnessSignature(ByteString.copyFrom(hash("sig", num))))
+        .setBlockid(ByteString.copyFrom(blockId(num)));
+    if (detail) {
+      for (int i = 0; i < transactionsPerBlock; i++) {
+        Transaction txn = fillerTransaction(num, i);
+        block.addTransactions(extention(txn));
+      }
+      for (Transaction txn : included.getOrDefault(num, Collections.emptyList())) {
+        block.addTransactions(extention(txn));
+      }
+    }
+    return block.build();
+  }
+
+  /**
+   * The block with id {@code blockId}, or an empty block.
+   */
+  public synchronized BlockExtention getBlockById(ByteString blockId) {
+    if (blockId.size() != 32) {
+      return BlockExtention.getDefaultInstance();
+    }
+    long num = blockId.substring(0, 8).asReadOnlyByteBuffer().getLong();
+    BlockExtention block = getBlock(num, true);
+    return block.getBlockid().equals(blockId) ? block : BlockExtention.getDefaultInstance();
+  }
+
+  private BlockHeader.raw header(long num) {
+    byte[] parentHash = num == firstBlockNum ? hash("genesis", num) : blockId(num - 1);
+    return BlockHeader.raw.newBuilder()
+        .setNumber(num)
+        .setTimestamp(genesisTimestamp + num * BLOCK_INTERVAL_MILLIS)
+        .setParentHash(ByteString.copyFrom(parentHash))
+        .setTxTrieRoot(ByteString.copyFrom(hash("trie", num)))
+        .setWitnessAddress(address("witness", num % WITNESS_COUNT))
+        .setVersion(30)
+        .build();
+  }
+
+  private byte[] blockId(long num) {
+    int index = (int) (num - firstBlockNum);
+    while (blockIds.size() <= index) {
+      long next = firstBlockNum + blockIds.size();
+      blockIds.add(new BlockId(Sha256Hash.of(true, header(next).toByteArray()), next).getBytes());
+    }
+    return blockIds.get(index);
+  }
+
+  private Transaction fillerTransaction(long num, int index) {
+    TransferContract transfer = TransferContract.newBuilder()
+        .setOwnerAddress(address("from", num * transactionsPerBlock + index))
+        .setToAddress(address("to", num * transactionsPerBlock + index))
+        .setAmount(1 + (ByteBuffer.wrap(hash("amount", num * 1_000 + index)).getLong()
+            & 0xffffffL))
+        .build();
+    long timestamp = genesisTimestamp + num * BLOCK_INTERVAL_MILLIS;
+    return Transaction.newBuilder()
+        .setRawData(Transaction.raw.newBuilder()
+            .addContract(Transaction.Contract.newBuilder()
+                .setType(Transaction.Contract.ContractType.TransferContract)
+                .setParameter(Any.pack(transfer)))
+            .setTimestamp(timestamp - BLOCK_INTERVAL_MILLIS)
+            .setExpiration(timestamp + 60_000L))
+        .addRet(Transaction.Result.newBuilder()
+            .setContractRet(Transaction.Result.contractResult.SUCCESS))
+        .build();
+  }
+
+  /**
+   * The account at {@code address}, or an empty account as a node returns for unknown addresses.
+   */
+  public synchronized Account getAccount(ByteString address) {
+    Long balance = balances.get(address);
+    if (balance == null) {
+      return Account.getDefaultInstance();
+    }
+    return Account.newBuilder()
+        .setAddress(address)
+        .setBalance(balance)
+        .setCreateTime(genesisTimestamp)
+        .build();
+  }
+
+  /**
+   * Set the TRX balance of an account, creating it.
+   *
+   * @param address raw 21-byte address
+   * @param balance balance in sun
+   */
+  public synchronized void setBalance(ByteString address, long balance) {
+    balances.put(address, balance);
+  }
+
+  /**
+   * Set the balance of {@code holder} in the TRC20 contract at {@code contract}, answered by
+   * constant calls of {@code balanceOf(address)}.
+   */
+  public synchronized void setTrc20Balance(ByteString contract, ByteString holder,
+      BigInteger balance) {
+    trc20.computeIfAbsent(contract, c -> new HashMap<>()).put(holder, balance);
+  }
+
+  /**
+   * Answer constant calls of a function of a contract.
+   *
+   * @param contract raw 21-byte contract address
+   * @param selector hex function selector, e.g. {@code 313ce567} for {@code decimals()}
+   * @param script maps the call data, selector included, to the ABI encoded result
+   */
+  public synchronized void script(ByteString contract, String selector,
+      Function<byte[], byte[]> script) {
+    scripts.computeIfAbsent(contract, c -> new HashMap<>()).put(selector.toLowerCase(), script);
+  }
+
+  /**
+   * Run a constant call.
+   *
+   * @return the result, or a {@code CONTRACT_EXE_ERROR} result if nothing answers the call
+   */
+  public synchronized TransactionExtention triggerConstantContract(TriggerSmartContract call) {
+    byte[] data = call.getData().toByteArray();
+    String selector = data.length < 4 ? "" : String.format("%08x",
+        ByteBuffer.wrap(data, 0, 4).getInt());
+    byte[] result = null;
+    Function<byte[], byte[]> script = scripts
+        .getOrDefault(call.getContractAddress(), Collections.emptyMap()).get(selector);
+    Map<ByteString, BigInteger> holders = trc20.get(call.getContractAddress());
+    if (script != null) {
+      result = script.apply(data);
+    } else if (holders != null && selector.equals(BALANCE_OF) && data.length >= 36) {
+      ByteString holder = ByteString.copyFrom(new byte[] {0x41})
+          .concat(ByteString.copyFrom(data, 16, 20));
+      result = uint256(holders.getOrDefault(holder, BigInteger.ZERO));
+    } else if (holders != null && selector.equals(TOTAL_SUPPLY)) {
+      result = uint256(holders.values().stream().reduce(BigInteger.ZERO, BigInteger::add));
+    }
+    TransactionExtention.Builder ext = TransactionExtention.newBuilder();
+    if (result == null) {
+      return ext.setResult(TransactionReturn.newBuilder()
+              .setResult(false)
+              .setCode(TransactionReturn.response_code.CONTRACT_EXE_ERROR)
+              .setMessage(ByteString.copyFromUtf8("no script for " + selector)))
+          .build();
+    }
+    return ext.addConstantResult(ByteString.copyFrom(result))
+        .setResult(TransactionReturn.newBuilder().setResult(true))
+        .setEnergyUsed(1_000)
+        .build();
+  }
+
+  /**
+   * Accept a transaction for the next block.
+   *
+   * @return {@code SUCCESS}, {@code DUP_TRANSACTION_ERROR} for a txid already accepted, or
+   *     {@code CONTRACT_VALIDATE_ERROR} for a transfer exceeding the owner's balance
+   */
+  public synchronized TransactionReturn broadcast(Transaction txn) {
+    ByteString txid = txid(txn);
+    if (transactions.containsKey(txid)) {
+      return error(TransactionReturn.response_code.DUP_TRANSACTION_ERROR, "Dup transaction.");
+    }
+    if (txn.getRawData().getContractCount() == 1) {
+      Transaction.Contract contract = txn.getRawData().getContract(0);
+      if (contract.getType() == Transaction.Contract.ContractType.TransferContract) {
+        TransferContract transfer;
+        try {
+          transfer = contract.getParameter().unpack(TransferContract.class);
+        } catch (InvalidProtocolBufferException e) {
+          return error(TransactionReturn.response_code.CONTRACT_VALIDATE_ERROR, e.getMessage());
+        }
+        long balance = balances.getOrDefault(transfer.getOwnerAddress(), 0L);
+        if (transfer.getAmount() <= 0 || balance < transfer.getAmount()) {
+          return error(TransactionReturn.response_code.CONTRACT_VALIDATE_ERROR,
+              "Validate TransferContract error, balance is not sufficient.");
+        }
+        balances.put(transfer.getOwnerAddress(), balance - transfer.getAmount());
+        balances.merge(transfer.getToAddress(), transfer.getAmount(), Long::sum);
+      }
+    }
+    StoredTransaction stored = new StoredTransaction(txn);
+    transactions.put(txid, stored);
+    pending.add(stored);
+    return TransactionReturn.newBuilder()
+        .setResult(true)
+        .setCode(TransactionReturn.response_code.SUCCESS)
+        .build();
+  }
+
+  /**
+   * A broadcast transaction once it is in a block no later than {@code maxBlockNum}, with its
+   * result, otherwise an empty transaction.
+   */
+  public synchronized Transaction getTransaction(ByteString txid, long maxBlockNum) {
+    StoredTransaction stored = transactions.get(txid);
+    if (stored == null || !stored.isIncluded(maxBlockNum)) {
+      return Transaction.getDefaultInstance();
+    }
+    Transaction txn = stored.txn;
+    return txn.getRetCount() > 0 ? txn : txn.toBuilder()
+        .addRet(Transaction.Result.newBuilder()
+            .setContractRet(Transaction.Result.contractResult.SUCCESS))
+        .build();
+  }
+
+  /**
+   * The result of a broadcast transaction once it is in a block no later than {@code maxBlockNum},
+   * otherwise an empty info as a node returns for unknown transactions.
+   */
+  public synchronized TransactionInfo getTransactionInfo(ByteString txid, long maxBlockNum) {
+    StoredTransaction stored = transactions.get(txid);
+    if (stored == null || !stored.isIncluded(maxBlockNum)) {
+      return TransactionInfo.getDefaultInstance();
+    }
+    return TransactionInfo.newBuilder()
+        .setId(txid)
+        .setBlockNumber(stored.blockNum)
+        .setBlockTimeStamp(genesisTimestamp + stored.blockNum * BLOCK_INTERVAL_MILLIS)
+        .setReceipt(ResourceReceipt.newBuilder()
+            .setNetUsage(stored.txn.getSerializedSize())
+            .setResult(Transaction.Result.contractResult.SUCCESS))
+        .build();
+  }
+
+  /**
+   * A fixed set of mainnet chain parameters.
+   */
+  public ChainParameters getChainParameters() {
+    ChainParameters.Builder params = ChainParameters.newBuilder();
+    addParameter(params, "getMaintenanceTimeInterval", 21_600_000L);
+    addParameter(params, "getCreateAccountFee", 100_000L);
+    addParameter(params, "getTransactionFee", 1_000L);
+    addParameter(params, "getEnergyFee", 210L);
+    addParameter(params, "getMemoFee", 1_000_000L);
+    addParameter(params, "getTotalEnergyLimit", 180_000_000_000L);
+    return params.build();
+  }
+
+  private static void addParameter(ChainParameters.Builder params, String key, long value) {
+    params.addChainParameter(
+        ChainParameters.ChainParameter.newBuilder().setKey(key).setValue(value));
+  }
+
+  private static TransactionReturn error(TransactionReturn.response_code code, String message) {
+    return TransactionReturn.newBuilder()
+        .setResult(false)
+        .setCode(code)
+        .setMessage(ByteString.copyFromUtf8(message))
+        .build();
+  }
+
+  private static TransactionExtention extention(Transaction txn) {
+    return TransactionExtention.newBuilder()
+        .setTransaction(txn)
+        .setTxid(txid(txn))
+        .setResult(TransactionReturn.newBuilder().setResult(true))
+        .build();
+  }
+
+  /**
+   * The id of a transaction, the SHA-256 of its raw data.
+   */
+  public static ByteString txid(Transaction txn) {
+    return ByteString.copyFrom(Sha256Hash.hash(true, txn.getRawData().toByteArray()));
+  }
+
+  /**
+   * A deterministic address, e.g. to fund test accounts.
+   *
+   * @param label name of the series of addresses
+   * @param index index in the series
+   * @return raw 21-byte address
+   */
+  public ByteString address(String label, long index) {
+    byte[] address = new byte[21];
+    address[0] = 0x41;
+    System.arraycopy(hash(label, index), 0, address, 1, 20);
+    return ByteString.copyFrom(address);
+  }
+
+  private byte[] hash(String label, long index) {
+    byte[] labelBytes = label.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer input = ByteBuffer.allocate(16 + labelBytes.length);
+    input.putLong(seed).putLong(index).put(labelBytes);
+    return Sha256Hash.hash(true, input.array());
+  }
+
+  private static byte[] uint256(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    byte[] word = new byte[32];
+    int length = Math.min(bytes.length, 32);
+    System.arraycopy(bytes, bytes.length - length, word, 32 - length, length);
+    return word;
+  }
+
+  private static final class StoredTransaction {
+
+    private final Transaction txn;
+    // guarded by the chain, -1 while pending
+    private long blockNum = -1;
+
+    StoredTransaction(Transaction txn) {
+      this.txn = txn;
+    }
+
+    boolean isIncluded(long maxBlockNum) {
+      return blockNum >= 0 && blockNum <= maxBlockNum;
+    }
+  }
+
+  /**
+   * Builder of {@link FakeChain}.
+   */
+  public static class Builder {
+
+    private long seed;
+    private long headBlockNum = 1_000L;
+    private long genesisTimestamp = 1_529_891_469_000L;
+    private int transactionsPerBlock = 10;
+    private int maxStoredTransactions = 1 << 20;
+
+    /**
+     * Seed of every synthetic hash and address. Default 0.
+     */
+    public Builder setSeed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * Number of the first block, which is the head until {@link #advance} is called.
+     * Default 1000.
+     */
+    public Builder setHeadBlockNum(long headBlockNum) {
+      if (headBlockNum < 0) {
+        throw new IllegalArgumentException("headBlockNum must be >= 0");
+      }
+      this.headBlockNum = headBlockNum;
+      return this;
+    }
+
+    /**
+     * Timestamp of block 0 in milliseconds, block {@code n} is {@code n} intervals later.
+     * Default the mainnet genesis.
+     */
+    public Builder setGenesisTimestamp(long genesisTimestamp) {
+      this.genesisTimestamp = genesisTimestamp;
+      return this;
+    }
+
+    /**
+     * Filler transactions in every block. Default 10.
+     */
+    public Builder setTransactionsPerBlock(int transactionsPerBlock) {
+      if (transactionsPerBlock < 0) {
+        throw new IllegalArgumentException("transactionsPerBlock must be >= 0");
+      }
+      this.transactionsPerBlock = transactionsPerBlock;
+      return this;
+    }
+
+    /**
+     * How many broadcast transactions, and blocks holding them, are kept. Older ones are
+     * forgotten: they are no longer found by id and can be broadcast again. Default 1048576.
+     */
+    public Builder setMaxStoredTransactions(int maxStoredTransactions) {
+      if (maxStoredTransactions < 1) {
+        throw new IllegalArgumentException("maxStoredTransactions must be >= 1");
+      }
+      this.maxStoredTransactions = maxStoredTransactions;
+      return this;
+    }
+
+    public FakeChain build() {
+      return new FakeChain(this);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package org.tron.trident.testing;
+
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.transport.TransportContext;
+
+/**
+ * A stand-in for a java-tron node, serving the Wallet and WalletSolidity services of a
+ * {@link FakeChain} in process or on a localhost port, so that {@link ApiWrapper} can be tested,
+ * benchmarked and load tested without a network.
+ *
+ * <pre>{@code
+ * FakeChain chain = new FakeChain.Builder().setSeed(42).build();
+ * chain.setBalance(owner, 1_000_000_000L);
+ * try (FakeWalletServer server = FakeWalletServer.inProcess(chain, FaultInjection.NONE)) {
+ *   ApiWrapper wrapper = server.newApiWrapper(KeyPair.generate());
+ *   ...
+ * }
+ * }</pre>
+ *
+ * <p>In process is the cheapest transport and isolates the cost of the client. Localhost goes
+ * through Netty and HTTP/2 like a real deployment, and its {@link #getTarget} can be given to any
+ * {@code ApiWrapper} constructor as both endpoints.</p>
+ */
+public final class FakeWalletServer implements AutoCloseable {
+
+  private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+  private final FakeChain chain;
+  private final CallCounter calls;
+  private final Server server;
+  private final String inProcessName;
+  private final String target;
+  private TransportContext transport;
+
+  private FakeWalletServer(FakeChain chain, CallCounter calls, Server server,
+      String inProcessName, String target) {
+    this.chain = chain;
+    this.calls = calls;
+    this.server = server;
+    this.inProcessName = inProcessName;
+    this.target = target;
+  }
+
+  /**
+   * Start a server reachable in this JVM only.
+   *
+   * @param chain the chain to serve
+   * @param faults latency and errors to inject
+   */
+  public static FakeWalletServer inProcess(FakeChain chain, FaultInjection faults) {
+    String name = "trident-fake-wallet-" + NEXT_ID.incrementAndGet();
+    CallCounter calls = new CallCounter();
+    Server server = start(InProcessServerBuilder.forName(name)
+        .addService(ServerInterceptors.intercept(new WalletService(chain), faults, calls))
+        .addService(ServerInterceptors.intercept(new WalletSolidityService(chain), faults, calls))
+        .build());
+    return new FakeWalletServer(chain, calls, server, name, null);
+  }
+
+  /**
+   * Start a server on a free port of the loopback interface.
+   *
+   * @param chain the chain to serve
+   * @param faults latency and errors to inject
+   */
+  public static FakeWalletServer localhost(FakeChain chain, FaultInjection faults) {
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    CallCounter calls = new CallCounter();
+    Server server = start(NettyServerBuilder.forAddress(new InetSocketAddress(loopback, 0))
+        .addService(ServerInterceptors.intercept(new WalletService(chain), faults, calls))
+        .addService(ServerInterceptors.intercept(new WalletSolidityService(chain), faults, calls))
+        .build());
+    return new FakeWalletServer(chain, calls, server, null,
+        loopback.getHostAddress() + ":" + server.getPort());
+  }
+
+  private static Server start(Server server) {
+    try {
+      return server.start();
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to start the fake wallet server", e);
+    }
+  }
+
+  public FakeChain getChain() {
+    return chain;
+  }
+
+  /**
+   * Number of calls of a method received so far on either service, injected failures included.
+   *
+   * @param method the method name, e.g. {@code GetAccount}
+   */
+  public long getCallCount(String method) {
+    AtomicLong count = calls.counts.get(method);
+    return count == null ? 0 : count.get();
+  }
+
+  /**
+   * The {@code host:port} of a localhost server, null for an in-process server.
+   */
+  public String getTarget() {
+    return target;
+  }
+
+  /**
+   * A new channel to the server. The caller shuts it down.
+   */
+  public ManagedChannel newChannel() {
+    return inProcessName != null
+        ? InProcessChannelBuilder.forName(inProcessName).build()
+        : ManagedChannelBuilder.forTarget(target).usePlaintext().build();
+  }
+
+  /**
+   * Channels to the server shared by the wrappers of {@link #newApiWrapper}, closed with the
+   * server.
+   */
+  public synchronized TransportContext getTransport() {
+    if (transport == null) {
+      transport = inProcessName != null
+          ? TransportContext.of(newChannel(), newChannel())
+          : new TransportContext.Builder(target, target).build();
+    }
+    return transport;
+  }
+
+  /**
+   * A wrapper on the shared channels of {@link #getTransport}.
+   */
+  public ApiWrapper newApiWrapper(KeyPair keyPair) {
+    return new ApiWrapper(getTransport(), keyPair);
+  }
+
+  /**
+   * Close the shared channels and stop the server.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (transport != null) {
+        transport.close();
+        transport = null;
+      }
+    }
+    server.shutdown();
+    try {
+      if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
+        server.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      server.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class CallCounter implements ServerInterceptor {
+
+    private final ConcurrentMap<String, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+        Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+      String method = MethodDescriptor.extractBareMethodName(
+          call.getMethodDescriptor().getFullMethodName());
+      counts.computeIfAbsent(method, m -> new AtomicLong()).incrementAndGet();
+      return next.startCall(call, headers);
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package org.tron.trident.testing;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and errors injected into the calls of a {@link FakeWalletServer}.
+ *
+ * <p>Each call takes at least a base latency plus a jitter drawn from an exponential distribution,
+ * which gives the long tail of a real node. The response is held until then, so the handler's own
+ * time counts towards the latency rather than adding to it. A share of the calls fails with a
+ * given status after the same latency. Settings apply to all methods unless overridden for a
+ * bare method name such as {@code GetAccount}.</p>
+ *
+ * <p>Random draws come from one generator seeded by {@link Builder#setSeed}, so the same sequence
+ * of calls sees the same latencies and errors.</p>
+ */
+public final class FaultInjection implements ServerInterceptor, AutoCloseable {
+
+  /** No latency and no errors. */
+  public static final FaultInjection NONE = new Builder().build();
+
+  private final Fault defaults;
+  private final Map<String, Fault> methods;
+  private final Random random;
+  private ScheduledExecutorService scheduler;
+
+  private FaultInjection(Builder builder) {
+    this.defaults = builder.defaults;
+    this.methods = new HashMap<>(builder.methods);
+    this.random = new Random(builder.seed);
+  }
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+      Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+    String method = MethodDescriptor.extractBareMethodName(
+        call.getMethodDescriptor().getFullMethodName());
+    Fault fault = methods.getOrDefault(method, defaults);
+    if (fault.isNone()) {
+      return next.startCall(call, headers);
+    }
+    long delayNanos = fault.latencyNanos(random);
+    boolean fail = fault.errorRate > 0 && random.nextDouble() < fault.errorRate;
+    long deadline = System.nanoTime() + delayNanos;
+    DelayedCall<ReqT, RespT> delayed = new DelayedCall<>(call, deadline);
+    if (fail) {
+      delayed.close(fault.errorStatus, new Metadata());
+      return new ServerCall.Listener<ReqT>() {
+      };
+    }
+    return next.startCall(delayed, headers);
+  }
+
+  private synchronized ScheduledExecutorService scheduler() {
+    if (scheduler == null) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "trident-fault-injection");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return scheduler;
+  }
+
+  /**
+   * Stop the thread releasing delayed responses.
+   */
+  @Override
+  public synchronized void close() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  private static final class Fault {
+
+    private final long latencyNanos;
+    private final long jitterMeanNanos;
+    private final double errorRate;
+    private final Status errorStatus;
+
+    Fault(long latencyNanos, long jitterMeanNanos, double errorRate, Status errorStatus) {
+      this.latencyNanos = latencyNanos;
+      this.jitterMeanNanos = jitterMeanNanos;
+      this.errorRate = errorRate;
+      this.errorStatus = errorStatus;
+    }
+
+    boolean isNone() {
+      return latencyNanos == 0 && jitterMeanNanos == 0 && errorRate == 0;
+    }
+
+    long latencyNanos(Random random) {
+      if (jitterMeanNanos == 0) {
+        return latencyNanos;
+      }
+      return latencyNanos + (long) (-Math.log(1 - random.nextDouble()) * jitterMeanNanos);
+    }
+
+    Fault withLatency(long latency, long jitterMean) {
+      return new Fault(latency, jitterMean, errorRate, errorStatus);
+    }
+
+    Fault withErrors(double rate, Status status) {
+      return new Fault(latencyNanos, jitterMeanNanos, rate, status);
+    }
+  }
+
+  /**
+   * Holds the response of a call until its latency has elapsed.
+   */
+  private final class DelayedCall<ReqT, RespT>
+      extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+    private final long deadline;
+    private final List<Runnable> buffered = new ArrayList<>();
+
+    DelayedCall(ServerCall<ReqT, RespT> delegate, long deadline) {
+      super(delegate);
+      this.deadline = deadline;
+    }
+
+    @Override
+    public void sendHeaders(Metadata headers) {
+      buffered.add(() -> delegate().sendHeaders(headers));
+    }
+
+    @Override
+    public void sendMessage(RespT message) {
+      buffered.add(() -> delegate().sendMessage(message));
+    }
+
+    @Override
+    public void close(Status status, Metadata trailers) {
+      buffered.add(() -> delegate().close(status, trailers));
+      List<Runnable> actions = new ArrayList<>(buffered);
+      buffered.clear();
+      Runnable release = () -> actions.forEach(Runnable::run);
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        release.run();
+      } else {
+        scheduler().schedule(release, remaining, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  /**
+   * Builder of {@link FaultInjection}.
+   */
+  public static class Builder {
+
+    private Fault defaults = new Fault(0, 0, 0, Status.OK);
+    private final Map<String, Fault> methods = new HashMap<>();
+    private long seed;
+
+    /**
+     * Latency of every call.
+     *
+     * @param latency minimum latency
+     * @param jitterMean mean of the exponentially distributed time added to it
+     * @param unit unit of both
+     */
+    public Builder setLatency(long latency, long jitterMean, TimeUnit unit) {
+      checkLatency(latency, jitterMean);
+      defaults = defaults.withLatency(unit.toNanos(latency), unit.toNanos(jitterMean));
+      return this;
+    }
+
+    /**
+     * Latency of the calls of one method, e.g. {@code GetAccount}.
+     */
+    public Builder setLatency(String method, long latency, long jitterMean, TimeUnit unit) {
+      checkLatency(latency, jitterMean);
+      methods.put(method, methods.getOrDefault(method, defaults)
+          .withLatency(unit.toNanos(latency), unit.toNanos(jitterMean)));
+      return this;
+    }
+
+    /**
+     * Share of every call failing with {@code status}.
+     *
+     * @param rate between 0 and 1
+     * @param status status of the failed calls, e.g. {@code Status.UNAVAILABLE}
+     */
+    public Builder setErrorRate(double rate, Status status) {
+      checkErrors(rate, status);
+      defaults = defaults.withErrors(rate, status);
+      return this;
+    }
+
+    /**
+     * Share of the calls of one method failing with {@code status}.
+     */
+    public Builder setErrorRate(String method, double rate, Status status) {
+      checkErrors(rate, status);
+      methods.put(method, methods.getOrDefault(method, defaults).withErrors(rate, status));
+      return this;
+    }
+
+    /**
+     * Seed of the latency and error draws. Default 0.
+     */
+    public Builder setSeed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    private static void checkLatency(long latency, long jitterMean) {
+      if (latency < 0 || jitterMean < 0) {
+        throw new IllegalArgumentException("latency and jitter must be >= 0");
+      }
+    }
+
+    private static void checkErrors(double rate, Status status) {
+      if (rate < 0 || rate > 1) {
+        throw new IllegalArgumentException("rate must be between 0 and 1");
+      }
+      if (rate > 0 && status.isOk()) {
+        throw new IllegalArgumentException("status must not be OK");
+      }
+    }
+
+    public FaultInjection build() {
+      return new FaultInjection(this);
+    }
+  }
+}
@@ -0,0 +1,313 @@
+package org.tron.trident.testing;
+
+import com.google.protobuf.ByteString;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.HandlerRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServiceDescriptor;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.api.WalletSolidityGrpc;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.interceptor.RecordedCall;
+import org.tron.trident.core.interceptor.RecordingInterceptor;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.transport.TransportContext;
+
+/**
+ * Serves a recording of {@link RecordingInterceptor} in process, answering each request with the
+ * response or status recorded for it, so that the client side of real traffic, large blocks and
+ * big constant results included, can be measured deterministically without the node.
+ *
+ * <p>A request is answered with the recorded call of the same method and identical request
+ * bytes, in recorded order when the same request was made several times, the last one repeating
+ * once they are used up. Requests never recorded, such as broadcasts of freshly signed
+ * transactions, get the recorded calls of their method in turn. Methods never recorded are
+ * {@code UNIMPLEMENTED}.</p>
+ *
+ * <pre>{@code
+ * List<RecordedCall> calls = RecordedCall.readAll(Paths.get("session.rec"));
+ * try (ReplayServer server = ReplayServer.start(calls, ReplayServer.Speed.MAXIMUM)) {
+ *   server.play(server.getTransport().getChannel());
+ * }
+ * }</pre>
+ */
+public final class ReplayServer implements AutoCloseable {
+
+  /**
+   * How fast recorded calls are answered and played.
+   */
+  public enum Speed {
+    /**
+     * Responses are delayed by the recorded call duration and {@link #play} starts calls at
+     * their recorded times.
+     */
+    RECORDED,
+    /**
+     * Responses are immediate and {@link #play} starts calls back to back.
+     */
+    MAXIMUM
+  }
+
+  private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+  private static final MethodDescriptor.Marshaller<byte[]> BYTES =
+      new MethodDescriptor.Marshaller<byte[]>() {
+        @Override
+        public InputStream stream(byte[] value) {
+          return new ByteArrayInputStream(value);
+        }
+
+        @Override
+        public byte[] parse(InputStream stream) {
+          try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n = stream.read(buffer); n >= 0; n = stream.read(buffer)) {
+              out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      };
+
+  private final List<RecordedCall> calls;
+  private final Speed speed;
+  private final Map<String, Map<ByteString, Deque<RecordedCall>>> byRequest = new HashMap<>();
+  private final Map<String, List<RecordedCall>> byMethod = new HashMap<>();
+  private final Map<String, AtomicInteger> cursors = new HashMap<>();
+  private final Map<String, ServerMethodDefinition<?, ?>> definitions = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService scheduler;
+  private final String name;
+  private final Server server;
+  private TransportContext transport;
+
+  private ReplayServer(List<RecordedCall> calls, Speed speed) {
+    this.calls = new ArrayList<>(calls);
+    this.speed = speed;
+    for (RecordedCall call : calls) {
+      byRequest.computeIfAbsent(call.getMethod(), k -> new HashMap<>())
+          .computeIfAbsent(call.getRequest(), k -> new ArrayDeque<>())
+          .add(call);
+      byMethod.computeIfAbsent(call.getMethod(), k -> new ArrayList<>()).add(call);
+      cursors.put(call.getMethod(), new AtomicInteger());
+    }
+    scheduler = speed == Speed.RECORDED
+        ? Executors.newSingleThreadScheduledExecutor(r -> {
+          Thread thread = new Thread(r, "trident-replay-server");
+          thread.setDaemon(true);
+          return thread;
+        })
+        : null;
+    name = "trident-replay-" + NEXT_ID.incrementAndGet();
+    try {
+      server = InProcessServerBuilder.forName(name)
+          .fallbackHandlerRegistry(new HandlerRegistry() {
+            @Override
+            public ServerMethodDefinition<?, ?> lookupMethod(String methodName,
+                String authority) {
+              return byMethod.containsKey(methodName)
+                  ? definitions.computeIfAbsent(methodName, ReplayServer.this::definition)
+                  : null;
+            }
+          })
+          .build()
+          .start();
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to start the replay server", e);
+    }
+  }
+
+  /**
+   * Start serving a recording.
+   *
+   * @param calls the recorded calls, see {@link RecordedCall#readAll}
+   * @param speed whether responses are delayed by the recorded durations
+   */
+  public static ReplayServer start(List<RecordedCall> calls, Speed speed) {
+    if (calls == null || speed == null) {
+      throw new IllegalArgumentException("calls and speed should not be null");
+    }
+    return new ReplayServer(calls, speed);
+  }
+
+  public List<RecordedCall> getCalls() {
+    return calls;
+  }
+
+  /**
+   * A new channel to the server. The caller shuts it down.
+   */
+  public ManagedChannel newChannel() {
+    return InProcessChannelBuilder.forName(name).build();
+  }
+
+  /**
+   * Channels to the server shared by the wrappers of {@link #newApiWrapper}, closed with the
+   * server.
+   */
+  public synchronized TransportContext getTransport() {
+    if (transport == null) {
+      transport = TransportContext.of(newChannel(), newChannel());
+    }
+    return transport;
+  }
+
+  /**
+   * A wrapper on the shared channels of {@link #getTransport}.
+   */
+  public ApiWrapper newApiWrapper(KeyPair keyPair) {
+    return new ApiWrapper(getTransport(), keyPair);
+  }
+
+  /**
+   * Send the recorded requests of the Wallet and WalletSolidity services again, parsing them and
+   * their responses with the generated message classes as an {@code ApiWrapper} would, and wait
+   * for all of them to close. At {@link Speed#RECORDED} each call starts at its recorded time
+   * from now, otherwise all are started back to back. Failures are expected where the recording
+   * has them and are not reported.
+   *
+   * @param channel channel to send the calls on, usually to this server
+   * @return number of calls sent, calls of other services are skipped
+   */
+  public int play(Channel channel) throws InterruptedException {
+    Map<String, MethodDescriptor<?, ?>> methods = new HashMap<>();
+    addMethods(methods, WalletGrpc.getServiceDescriptor());
+    addMethods(methods, WalletSolidityGrpc.getServiceDescriptor());
+    CountDownLatch done = new CountDownLatch(calls.size());
+    long originNanos = System.nanoTime();
+    int sent = 0;
+    for (RecordedCall call : calls) {
+      MethodDescriptor<?, ?> method = methods.get(call.getMethod());
+      if (method == null) {
+        done.countDown();
+        continue;
+      }
+      if (speed == Speed.RECORDED) {
+        long wait = originNanos + call.getStartNanos() - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+      }
+      send(channel, method, call.getRequest(), done);
+      sent++;
+    }
+    done.await();
+    return sent;
+  }
+
+  /**
+   * Close the shared channels and stop the server.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (transport != null) {
+        transport.close();
+        transport = null;
+      }
+    }
+    server.shutdownNow();
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private static void addMethods(Map<String, MethodDescriptor<?, ?>> methods,
+      ServiceDescriptor service) {
+    for (MethodDescriptor<?, ?> method : service.getMethods()) {
+      if (method.getType() == MethodDescriptor.MethodType.UNARY) {
+        methods.put(method.getFullMethodName(), method);
+      }
+    }
+  }
+
+  private static <ReqT, RespT> void send(Channel channel, MethodDescriptor<ReqT, RespT> method,
+      ByteString request, CountDownLatch done) {
+    ReqT message = method.parseRequest(request.newInput());
+    ClientCalls.asyncUnaryCall(channel.newCall(method, CallOptions.DEFAULT), message,
+        new StreamObserver<RespT>() {
+          @Override
+          public void onNext(RespT value) {
+          }
+
+          @Override
+          public void onError(Throwable t) {
+            done.countDown();
+          }
+
+          @Override
+          public void onCompleted() {
+            done.countDown();
+          }
+        });
+  }
+
+  private ServerMethodDefinition<byte[], byte[]> definition(String methodName) {
+    MethodDescriptor<byte[], byte[]> method = MethodDescriptor.newBuilder(BYTES, BYTES)
+        .setType(MethodDescriptor.MethodType.UNARY)
+        .setFullMethodName(methodName)
+        .build();
+    return ServerMethodDefinition.create(method,
+        ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+          RecordedCall call = lookup(methodName, ByteString.copyFrom(request));
+          if (scheduler != null && call.getDurationNanos() > 0) {
+            scheduler.schedule(() -> respond(call, responseObserver), call.getDurationNanos(),
+                TimeUnit.NANOSECONDS);
+          } else {
+            respond(call, responseObserver);
+          }
+        }));
+  }
+
+  private RecordedCall lookup(String method, ByteString request) {
+    Deque<RecordedCall> same = byRequest.get(method).get(request);
+    if (same != null) {
+      synchronized (same) {
+        return same.size() > 1 ? same.poll() : same.peek();
+      }
+    }
+    List<RecordedCall> all = byMethod.get(method);
+    return all.get(Math.floorMod(cursors.get(method).getAndIncrement(), all.size()));
+  }
+
+  private static void respond(RecordedCall call, StreamObserver<byte[]> responseObserver) {
+    if (call.getStatusCode() == Status.Code.OK) {
+      responseObserver.onNext(call.getResponse() != null
+          ? call.getResponse().toByteArray()
+          : new byte[0]);
+      responseObserver.onCompleted();
+    } else {
+      responseObserver.onError(call.getStatus().asRuntimeException());
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package org.tron.trident.testing;
+
+import com.google.protobuf.ByteString;
+import io.grpc.stub.StreamObserver;
+import org.tron.trident.api.GrpcAPI.AccountAddressMessage;
+import org.tron.trident.api.GrpcAPI.BlockLimit;
+import org.tron.trident.api.GrpcAPI.BlockReq;
+import org.tron.trident.api.GrpcAPI.BytesMessage;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.GrpcAPI.NumberMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.proto.Chain.Block;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Contract.TriggerSmartContract;
+import org.tron.trident.proto.Response.Account;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.BlockListExtention;
+import org.tron.trident.proto.Response.ChainParameters;
+import org.tron.trident.proto.Response.TransactionExtention;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionReturn;
+import org.tron.trident.utils.Numeric;
+
+/**
+ * The full node view of a {@link FakeChain}. Methods not overridden answer
+ * {@code UNIMPLEMENTED}.
+ */
+class WalletService extends WalletGrpc.WalletImplBase {
+
+  private final FakeChain chain;
+
+  WalletService(FakeChain chain) {
+    this.chain = chain;
+  }
+
+  static <T> void reply(StreamObserver<T> responseObserver, T response) {
+    responseObserver.onNext(response);
+    responseObserver.onCompleted();
+  }
+
+  static Block toBlock(BlockExtention block) {
+    Block.Builder builder = Block.newBuilder();
+    if (block.hasBlockHeader()) {
+      builder.setBlockHeader(block.getBlockHeader());
+    }
+    block.getTransactionsList().forEach(t -> builder.addTransactions(t.getTransaction()));
+    return builder.build();
+  }
+
+  /**
+   * Resolve a {@code GetBlock} request against the chain up to {@code headBlockNum}.
+   */
+  static BlockExtention resolveBlock(FakeChain chain, BlockReq request, long headBlockNum) {
+    String idOrNum = request.getIdOrNum();
+    BlockExtention block;
+    if (idOrNum.isEmpty()) {
+      block = chain.getBlock(headBlockNum, request.getDetail());
+    } else if (idOrNum.length() == 64) {
+      block = chain.getBlockById(ByteString.copyFrom(Numeric.hexStringToByteArray(idOrNum)));
+      if (!request.getDetail()) {
+        block = block.toBuilder().clearTransactions().build();
+      }
+    } else {
+      block = chain.getBlock(Long.parseLong(idOrNum), request.getDetail());
+    }
+    long num = block.getBlockHeader().getRawData().getNumber();
+    return num > headBlockNum ? BlockExtention.getDefaultInstance() : block;
+  }
+
+  @Override
+  public void getNowBlock(EmptyMessage request, StreamObserver<Block> responseObserver) {
+    reply(responseObserver, toBlock(chain.getBlock(chain.getHeadBlockNum(), true)));
+  }
+
+  @Override
+  public void getNowBlock2(EmptyMessage request,
+      StreamObserver<BlockExtention> responseObserver) {
+    reply(responseObserver, chain.getBlock(chain.getHeadBlockNum(), true));
+  }
+
+  @Override
+  public void getBlockByNum(NumberMessage request, StreamObserver<Block> responseObserver) {
+    reply(responseObserver, toBlock(chain.getBlock(request.getNum(), true)));
+  }
+
+  @Override
+  public void getBlockByNum2(NumberMessage request,
+      StreamObserver<BlockExtention> responseObserver) {
+    reply(responseObserver, chain.getBlock(request.getNum(), true));
+  }
+
+  @Override
+  public void getBlockByLimitNext2(BlockLimit request,
+      StreamObserver<BlockListExtention> responseObserver) {
+    BlockListExtention.Builder blocks = BlockListExtention.newBuilder();
+    long end = Math.min(request.getEndNum(), chain.getHeadBlockNum() + 1);
+    for (long num = request.getStartNum(); num < end; num++) {
+      BlockExtention block = chain.getBlock(num, true);
+      if (block.hasBlockHeader()) {
+        blocks.addBlock(block);
+      }
+    }
+    reply(responseObserver, blocks.build());
+  }
+
+  @Override
+  public void getBlockById(BytesMessage request, StreamObserver<Block> responseObserver) {
+    reply(responseObserver, toBlock(chain.getBlockById(request.getValue())));
+  }
+
+  @Override
+  public void getBlock(BlockReq request, StreamObserver<BlockExtention> responseObserver) {
+    reply(responseObserver, resolveBlock(chain, request, chain.getHeadBlockNum()));
+  }
+
+  @Override
+  public void getAccount(AccountAddressMessage request,
+      StreamObserver<Account> responseObserver) {
+    reply(responseObserver, chain.getAccount(request.getAddress()));
+  }
+
+  @Override
+  public void getChainParameters(EmptyMessage request,
+      StreamObserver<ChainParameters> responseObserver) {
+    reply(responseObserver, chain.getChainParameters());
+  }
+
+  @Override
+  public void triggerConstantContract(TriggerSmartContract request,
+      StreamObserver<TransactionExtention> responseObserver) {
+    reply(responseObserver, chain.triggerConstantContract(request));
+  }
+
+  @Override
+  public void broadcastTransaction(Transaction request,
+      StreamObserver<TransactionReturn> responseObserver) {
+    reply(responseObserver, chain.broadcast(request));
+  }
+
+  @Override
+  public void getTransactionById(BytesMessage request,
+      StreamObserver<Transaction> responseObserver) {
+    reply(responseObserver, chain.getTransaction(request.getValue(), chain.getHeadBlockNum()));
+  }
+
+  @Override
+  public void getTransactionInfoById(BytesMessage request,
+      StreamObserver<TransactionInfo> responseObserver) {
+    reply(responseObserver,
+        chain.getTransactionInfo(request.getValue(), chain.getHeadBlockNum()));
+  }
+}
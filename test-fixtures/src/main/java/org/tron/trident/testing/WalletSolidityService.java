@@ -0,0 +1,90 @@
+package org.tron.trident.testing;
+
+import static org.tron.trident.testing.WalletService.reply;
+import static org.tron.trident.testing.WalletService.toBlock;
+
+import io.grpc.stub.StreamObserver;
+import org.tron.trident.api.GrpcAPI.AccountAddressMessage;
+import org.tron.trident.api.GrpcAPI.BlockReq;
+import org.tron.trident.api.GrpcAPI.BytesMessage;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.GrpcAPI.NumberMessage;
+import org.tron.trident.api.WalletSolidityGrpc;
+import org.tron.trident.proto.Chain.Block;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Contract.TriggerSmartContract;
+import org.tron.trident.proto.Response.Account;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.TransactionExtention;
+import org.tron.trident.proto.Response.TransactionInfo;
+
+/**
+ * The solidity node view of a {@link FakeChain}, which stops at the solidified head. Accounts
+ * and constant calls see the latest state, as the fake keeps no history.
+ */
+class WalletSolidityService extends WalletSolidityGrpc.WalletSolidityImplBase {
+
+  private final FakeChain chain;
+
+  WalletSolidityService(FakeChain chain) {
+    this.chain = chain;
+  }
+
+  private BlockExtention solidBlock(long num) {
+    return num > chain.getSolidBlockNum()
+        ? BlockExtention.getDefaultInstance()
+        : chain.getBlock(num, true);
+  }
+
+  @Override
+  public void getNowBlock(EmptyMessage request, StreamObserver<Block> responseObserver) {
+    reply(responseObserver, toBlock(chain.getBlock(chain.getSolidBlockNum(), true)));
+  }
+
+  @Override
+  public void getNowBlock2(EmptyMessage request,
+      StreamObserver<BlockExtention> responseObserver) {
+    reply(responseObserver, chain.getBlock(chain.getSolidBlockNum(), true));
+  }
+
+  @Override
+  public void getBlockByNum(NumberMessage request, StreamObserver<Block> responseObserver) {
+    reply(responseObserver, toBlock(solidBlock(request.getNum())));
+  }
+
+  @Override
+  public void getBlockByNum2(NumberMessage request,
+      StreamObserver<BlockExtention> responseObserver) {
+    reply(responseObserver, solidBlock(request.getNum()));
+  }
+
+  @Override
+  public void getBlock(BlockReq request, StreamObserver<BlockExtention> responseObserver) {
+    reply(responseObserver, WalletService.resolveBlock(chain, request, chain.getSolidBlockNum()));
+  }
+
+  @Override
+  public void getAccount(AccountAddressMessage request,
+      StreamObserver<Account> responseObserver) {
+    reply(responseObserver, chain.getAccount(request.getAddress()));
+  }
+
+  @Override
+  public void triggerConstantContract(TriggerSmartContract request,
+      StreamObserver<TransactionExtention> responseObserver) {
+    reply(responseObserver, chain.triggerConstantContract(request));
+  }
+
+  @Override
+  public void getTransactionById(BytesMessage request,
+      StreamObserver<Transaction> responseObserver) {
+    reply(responseObserver, chain.getTransaction(request.getValue(), chain.getSolidBlockNum()));
+  }
+
+  @Override
+  public void getTransactionInfoById(BytesMessage request,
+      StreamObserver<TransactionInfo> responseObserver) {
+    reply(responseObserver,
+        chain.getTransactionInfo(request.getValue(), chain.getSolidBlockNum()));
+  }
+}
@@ -0,0 +1,254 @@
+package org.tron.trident.testing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.abi.TypeReference;
+import org.tron.trident.abi.datatypes.Address;
+import org.tron.trident.abi.datatypes.Function;
+import org.tron.trident.abi.datatypes.generated.Uint256;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.NodeType;
+import org.tron.trident.core.exceptions.IllegalException;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.core.transaction.BlockId;
+import org.tron.trident.core.utils.Utils;
+import org.tron.trident.proto.Chain.Transaction;
+import org.tron.trident.proto.Response.Account;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.TransactionExtention;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.utils.Base58Check;
+
+class FakeWalletServerTest {
+
+  @Test
+  void testChainIsDeterministic() {
+    FakeChain a = new FakeChain.Builder().setSeed(7).build();
+    FakeChain b = new FakeChain.Builder().setSeed(7).build();
+    FakeChain c = new FakeChain.Builder().setSeed(8).build();
+    a.advance(5);
+    b.advance(5);
+    c.advance(5);
+
+    assertEquals(a.getBlock(1003, true), b.getBlock(1003, true));
+    assertFalse(a.getBlock(1003, true).equals(c.getBlock(1003, true)));
+    assertEquals(10, a.getBlock(1003, true).getTransactionsCount());
+    assertEquals(0, a.getBlock(1003, false).getTransactionsCount());
+    assertEquals(BlockExtention.getDefaultInstance(), a.getBlock(1006, true));
+    assertEquals(BlockExtention.getDefaultInstance(), a.getBlock(999, true));
+  }
+
+  @Test
+  void testBlocksLinkToParents() {
+    FakeChain chain = new FakeChain.Builder().build();
+    chain.advance(3);
+    for (long num = 1001; num <= 1003; num++) {
+      BlockExtention block = chain.getBlock(num, false);
+      BlockExtention parent = chain.getBlock(num - 1, false);
+      BlockId id = Utils.getBlockId(parent);
+      assertArrayEquals(id.getBytes(), parent.getBlockid().toByteArray());
+      assertEquals(parent.getBlockid(), block.getBlockHeader().getRawData().getParentHash());
+      assertEquals(parent, chain.getBlockById(parent.getBlockid()).toBuilder()
+          .clearTransactions().build());
+    }
+  }
+
+  @Test
+  void testApiWrapperInProcess() throws Exception {
+    FakeChain chain = new FakeChain.Builder().setHeadBlockNum(100).build();
+    KeyPair owner = KeyPair.generate();
+    ByteString ownerAddress = ByteString.copyFrom(
+        Base58Check.base58ToBytes(owner.toBase58CheckAddress()));
+    chain.setBalance(ownerAddress, 1_000_000L);
+    chain.advance(30);
+
+    try (FakeWalletServer server = FakeWalletServer.inProcess(chain, FaultInjection.NONE)) {
+      ApiWrapper wrapper = server.newApiWrapper(owner);
+      assertEquals(130, wrapper.getNowBlock2().getBlockHeader().getRawData().getNumber());
+      assertEquals(111, wrapper.getNowBlock2(NodeType.SOLIDITY_NODE)
+          .getBlockHeader().getRawData().getNumber());
+      assertEquals(1_000_000L, wrapper.getAccount(owner.toBase58CheckAddress()).getBalance());
+
+      String to = KeyPair.generate().toBase58CheckAddress();
+      TransactionExtention ext = wrapper.transfer(owner.toBase58CheckAddress(), to, 400_000L);
+      Transaction signed = wrapper.signTransaction(ext);
+      String txid = wrapper.broadcastTransaction(signed);
+      assertEquals(600_000L, wrapper.getAccount(owner.toBase58CheckAddress()).getBalance());
+      assertThrows(IllegalException.class, () -> wrapper.getTransactionInfoById(txid));
+
+      chain.advance(1);
+      TransactionInfo info = wrapper.getTransactionInfoById(txid);
+      assertEquals(131, info.getBlockNumber());
+      assertEquals(signed.getRawData(), wrapper.getTransactionById(txid).getRawData());
+      assertThrows(IllegalException.class,
+          () -> wrapper.getTransactionInfoById(txid, NodeType.SOLIDITY_NODE));
+      assertTrue(wrapper.getBlockByNum(131).getTransactionsList().stream()
+          .anyMatch(t -> t.getTransaction().equals(signed)));
+
+      RuntimeException e = assertThrows(RuntimeException.class,
+          () -> wrapper.broadcastTransaction(signed));
+      assertTrue(e.getMessage().contains("DUP_TRANSACTION_ERROR"));
+    }
+  }
+
+  @Test
+  void testForgetsOldestTransactions() {
+    FakeChain chain = new FakeChain.Builder().setMaxStoredTransactions(2).build();
+    ByteString[] txids = new ByteString[3];
+    for (int i = 0; i < txids.length; i++) {
+      Transaction txn = Transaction.newBuilder()
+          .setRawData(Transaction.raw.newBuilder().setTimestamp(i))
+          .build();
+      txids[i] = FakeChain.txid(txn);
+      assertTrue(chain.broadcast(txn).getResult());
+      chain.advance(1);
+    }
+
+    assertEquals(Transaction.getDefaultInstance(), chain.getTransaction(txids[0], 1_003));
+    assertEquals(TransactionInfo.getDefaultInstance(),
+        chain.getTransactionInfo(txids[0], 1_003));
+    assertEquals(1_003, chain.getTransactionInfo(txids[2], 1_003).getBlockNumber());
+    assertEquals(txids[1], FakeChain.txid(chain.getTransaction(txids[1], 1_003)));
+  }
+
+  @Test
+  void testTrc20Balances() {
+    FakeChain chain = new FakeChain.Builder().build();
+    KeyPair holder = KeyPair.generate();
+    ByteString token = chain.address("token", 0);
+    chain.setTrc20Balance(token, ByteString.copyFrom(
+        Base58Check.base58ToBytes(holder.toBase58CheckAddress())), BigInteger.valueOf(123));
+    chain.setTrc20Balance(token, chain.address("holder", 1), BigInteger.valueOf(7));
+    chain.script(token, "313ce567", data -> padded(6));
+
+    try (FakeWalletServer server = FakeWalletServer.localhost(chain, FaultInjection.NONE)) {
+      ApiWrapper wrapper = server.newApiWrapper(holder);
+      String tokenAddress = Base58Check.bytesToBase58(token.toByteArray());
+      Function balanceOf = new Function("balanceOf",
+          Collections.singletonList(new Address(holder.toBase58CheckAddress())),
+          Collections.singletonList(new TypeReference<Uint256>() {}));
+      TransactionExtention result = wrapper.triggerConstantContract(
+          holder.toBase58CheckAddress(), tokenAddress, balanceOf);
+      assertEquals(BigInteger.valueOf(123), new BigInteger(result.getConstantResult(0)
+          .toByteArray()));
+
+      Function totalSupply = new Function("totalSupply", Collections.emptyList(),
+          Collections.singletonList(new TypeReference<Uint256>() {}));
+      result = wrapper.triggerConstantContract(holder.toBase58CheckAddress(), tokenAddress,
+          totalSupply);
+      assertEquals(BigInteger.valueOf(130), new BigInteger(result.getConstantResult(0)
+          .toByteArray()));
+
+      Function decimals = new Function("decimals", Collections.emptyList(),
+          Collections.singletonList(new TypeReference<Uint256>() {}));
+      result = wrapper.triggerConstantContract(holder.toBase58CheckAddress(), tokenAddress,
+          decimals);
+      assertEquals(6, result.getConstantResult(0).byteAt(31));
+
+      Function name = new Function("name", Collections.emptyList(), Collections.emptyList());
+      result = wrapper.triggerConstantContract(holder.toBase58CheckAddress(), tokenAddress,
+          name);
+      assertFalse(result.getResult().getResult());
+    }
+  }
+
+  private static byte[] padded(int value) {
+    byte[] word = new byte[32];
+    word[31] = (byte) value;
+    return word;
+  }
+
+  @Test
+  void testFaultInjection() throws Exception {
+    FakeChain chain = new FakeChain.Builder().build();
+    FaultInjection faults = new FaultInjection.Builder()
+        .setLatency(30, 0, TimeUnit.MILLISECONDS)
+        .setErrorRate("GetAccount", 1, Status.UNAVAILABLE)
+        .build();
+    try (FakeWalletServer server = FakeWalletServer.inProcess(chain, faults)) {
+      ApiWrapper wrapper = server.newApiWrapper(KeyPair.generate());
+      long start = System.nanoTime();
+      wrapper.getNowBlock2();
+      assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+
+      StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+          () -> wrapper.getAccount(KeyPair.generate().toBase58CheckAddress()));
+      assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+    } finally {
+      faults.close();
+    }
+  }
+
+  @Test
+  void testApiWrapperCoalescesConcurrentReads() throws Exception {
+    FakeChain chain = new FakeChain.Builder().build();
+    KeyPair owner = KeyPair.generate();
+    chain.setBalance(ByteString.copyFrom(
+        Base58Check.base58ToBytes(owner.toBase58CheckAddress())), 42);
+    FaultInjection faults = new FaultInjection.Builder()
+        .setLatency("GetAccount", 200, 0, TimeUnit.MILLISECONDS)
+        .build();
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try (FakeWalletServer server = FakeWalletServer.inProcess(chain, faults)) {
+      ApiWrapper wrapper = server.newApiWrapper(owner);
+      wrapper.enableCoalescing(0);
+      List<Future<Account>> accounts = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        accounts.add(pool.submit(() -> wrapper.getAccount(owner.toBase58CheckAddress())));
+      }
+      for (Future<Account> account : accounts) {
+        assertEquals(42, account.get().getBalance());
+      }
+      assertEquals(1, server.getCallCount("GetAccount"));
+
+      // a call after the shared one completed is sent again
+      wrapper.getAccount(owner.toBase58CheckAddress());
+      assertEquals(2, server.getCallCount("GetAccount"));
+    } finally {
+      pool.shutdownNow();
+      faults.close();
+    }
+  }
+
+  @Test
+  void testFaultInjectionIsSeeded() {
+    FaultInjection.Builder builder = new FaultInjection.Builder()
+        .setErrorRate(0.5, Status.UNAVAILABLE)
+        .setSeed(3);
+    assertEquals(outcomes(builder.build()), outcomes(builder.build()));
+  }
+
+  private static String outcomes(FaultInjection faults) {
+    StringBuilder outcomes = new StringBuilder();
+    try (FakeWalletServer server = FakeWalletServer.inProcess(
+        new FakeChain.Builder().build(), faults)) {
+      ApiWrapper wrapper = server.newApiWrapper(KeyPair.generate());
+      for (int i = 0; i < 20; i++) {
+        try {
+          wrapper.getChainParameters();
+          outcomes.append('+');
+        } catch (StatusRuntimeException | IllegalException e) {
+          outcomes.append('-');
+        }
+      }
+    }
+    assertTrue(outcomes.indexOf("+") >= 0 && outcomes.indexOf("-") >= 0, outcomes.toString());
+    return outcomes.toString();
+  }
+}
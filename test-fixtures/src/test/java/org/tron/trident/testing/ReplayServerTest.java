@@ -0,0 +1,185 @@
+package org.tron.trident.testing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.protobuf.ByteString;
+import io.grpc.CallOptions;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.api.GrpcAPI.AccountAddressMessage;
+import org.tron.trident.api.GrpcAPI.EmptyMessage;
+import org.tron.trident.api.GrpcAPI.NumberMessage;
+import org.tron.trident.api.WalletGrpc;
+import org.tron.trident.core.ApiWrapper;
+import org.tron.trident.core.block.TransactionInfoStream;
+import org.tron.trident.core.interceptor.RecordedCall;
+import org.tron.trident.core.interceptor.RecordingInterceptor;
+import org.tron.trident.core.key.KeyPair;
+import org.tron.trident.proto.Response.BlockExtention;
+import org.tron.trident.proto.Response.TransactionInfo;
+import org.tron.trident.proto.Response.TransactionInfoList;
+import org.tron.trident.utils.Base58Check;
+
+class ReplayServerTest {
+
+  private static final class Session {
+    final ByteString owner;
+    final List<RecordedCall> calls;
+    final BlockExtention head;
+    final BlockExtention block;
+
+    Session(ByteString owner, List<RecordedCall> calls, BlockExtention head,
+        BlockExtention block) {
+      this.owner = owner;
+      this.calls = calls;
+      this.head = head;
+      this.block = block;
+    }
+  }
+
+  private static Session record() throws Exception {
+    FakeChain chain = new FakeChain.Builder().setSeed(3).build();
+    ByteString owner = chain.address("owner", 0);
+    chain.setBalance(owner, 1_000L);
+    chain.advance(5);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BlockExtention head;
+    BlockExtention block;
+    try (FakeWalletServer server = FakeWalletServer.inProcess(chain, FaultInjection.NONE);
+        RecordingInterceptor recorder = new RecordingInterceptor(out)) {
+      ManagedChannel channel = server.newChannel();
+      WalletGrpc.WalletBlockingStub stub =
+          WalletGrpc.newBlockingStub(ClientInterceptors.intercept(channel, recorder));
+      head = stub.getNowBlock2(EmptyMessage.getDefaultInstance());
+      block = stub.getBlockByNum2(NumberMessage.newBuilder().setNum(1003).build());
+      stub.getAccount(AccountAddressMessage.newBuilder().setAddress(owner).build());
+      chain.advance(1);
+      stub.getNowBlock2(EmptyMessage.getDefaultInstance());
+      channel.shutdownNow();
+    }
+    return new Session(owner, RecordedCall.readAll(new ByteArrayInputStream(out.toByteArray())),
+        head, block);
+  }
+
+  @Test
+  void testServesRecordedResponses() throws Exception {
+    Session session = record();
+    assertEquals(4, session.calls.size());
+
+    try (ReplayServer server = ReplayServer.start(session.calls, ReplayServer.Speed.MAXIMUM)) {
+      ApiWrapper wrapper = server.newApiWrapper(KeyPair.generate());
+      // the same request twice gets the recorded responses in order, then the last one again
+      assertEquals(session.head, wrapper.getNowBlock2());
+      assertEquals(1006, wrapper.getNowBlock2().getBlockHeader().getRawData().getNumber());
+      assertEquals(1006, wrapper.getNowBlock2().getBlockHeader().getRawData().getNumber());
+      assertEquals(session.block, wrapper.getBlockByNum(1003));
+      // a request never recorded gets a recorded call of the same method
+      assertEquals(session.block, wrapper.getBlockByNum(1001));
+      assertEquals(1_000L, wrapper.getAccount(
+          Base58Check.bytesToBase58(session.owner.toByteArray())).getBalance());
+
+      StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+          () -> wrapper.blockingStub.getChainParameters(EmptyMessage.getDefaultInstance()));
+      assertEquals(Status.Code.UNIMPLEMENTED, e.getStatus().getCode());
+    }
+  }
+
+  @Test
+  void testReplaysRecordedFailures() throws Exception {
+    List<RecordedCall> calls = Arrays.asList(new RecordedCall(
+        WalletGrpc.getGetNowBlock2Method().getFullMethodName(), 0, 0, ByteString.EMPTY, null,
+        Status.Code.RESOURCE_EXHAUSTED, "quota"));
+    try (ReplayServer server = ReplayServer.start(calls, ReplayServer.Speed.MAXIMUM)) {
+      StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+          () -> server.newApiWrapper(KeyPair.generate()).blockingStub
+              .getNowBlock2(EmptyMessage.getDefaultInstance()));
+      assertEquals(Status.Code.RESOURCE_EXHAUSTED, e.getStatus().getCode());
+      assertEquals("quota", e.getStatus().getDescription());
+    }
+  }
+
+  @Test
+  void testPlayAtRecordedSpeed() throws Exception {
+    String method = WalletGrpc.getGetNowBlock2Method().getFullMethodName();
+    ByteString response = BlockExtention.getDefaultInstance().toByteString();
+    long millis = TimeUnit.MILLISECONDS.toNanos(1);
+    List<RecordedCall> calls = Arrays.asList(
+        new RecordedCall(method, 0, 20 * millis, ByteString.EMPTY, response, Status.Code.OK, null),
+        new RecordedCall(method, 30 * millis, 20 * millis, ByteString.EMPTY, response,
+            Status.Code.OK, null),
+        new RecordedCall("other.Service/Call", 0, 0, ByteString.EMPTY, response, Status.Code.OK,
+            null));
+
+    try (ReplayServer server = ReplayServer.start(calls, ReplayServer.Speed.RECORDED)) {
+      long start = System.nanoTime();
+      assertEquals(2, server.play(server.getTransport().getChannel()));
+      assertTrue(System.nanoTime() - start >= 50 * millis);
+    }
+    try (ReplayServer server = ReplayServer.start(calls, ReplayServer.Speed.MAXIMUM)) {
+      assertEquals(2, server.play(server.getTransport().getChannel()));
+    }
+  }
+
+  @Test
+  void testReplaysStreamedTransactionInfos() throws Exception {
+    TransactionInfoList infos = TransactionInfoList.newBuilder()
+        .addTransactionInfo(TransactionInfo.newBuilder()
+            .setId(ByteString.copyFrom(new byte[32]))
+            .setBlockNumber(7)
+            .addLog(TransactionInfo.Log.newBuilder().setData(ByteString.copyFromUtf8("a")))
+            .addLog(TransactionInfo.Log.newBuilder().setData(ByteString.copyFromUtf8("b"))))
+        .build();
+    String name = InProcessServerBuilder.generateName();
+    Server node = InProcessServerBuilder.forName(name).directExecutor()
+        .addService(new WalletGrpc.WalletImplBase() {
+          @Override
+          public void getTransactionInfoByBlockNum(NumberMessage request,
+              StreamObserver<TransactionInfoList> responseObserver) {
+            responseObserver.onNext(infos);
+            responseObserver.onCompleted();
+          }
+        })
+        .build()
+        .start();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (RecordingInterceptor recorder = new RecordingInterceptor(out)) {
+      ManagedChannel channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+      assertEquals(2, TransactionInfoStream.forEachLog(
+          ClientInterceptors.intercept(channel, recorder), CallOptions.DEFAULT,
+          WalletGrpc.getGetTransactionInfoByBlockNumMethod(),
+          NumberMessage.newBuilder().setNum(7).build(), (txid, blockNumber, logIndex, log) -> { }));
+      channel.shutdownNow();
+    } finally {
+      node.shutdownNow();
+    }
+
+    List<RecordedCall> calls = RecordedCall.readAll(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(infos.toByteString(), calls.get(0).getResponse());
+    try (ReplayServer server = ReplayServer.start(calls, ReplayServer.Speed.MAXIMUM)) {
+      ApiWrapper wrapper = server.newApiWrapper(KeyPair.generate());
+      List<TransactionInfo> replayed = new ArrayList<>();
+      assertEquals(1, wrapper.getTransactionInfoByBlockNum(7, replayed::add));
+      assertEquals(infos.getTransactionInfoList(), replayed);
+      List<ByteString> logs = new ArrayList<>();
+      assertEquals(2, wrapper.getLogsByBlockNum(7,
+          (txid, blockNumber, logIndex, log) -> logs.add(log.getData())));
+      assertEquals(Arrays.asList(ByteString.copyFromUtf8("a"), ByteString.copyFromUtf8("b")),
+          logs);
+    }
+  }
+}
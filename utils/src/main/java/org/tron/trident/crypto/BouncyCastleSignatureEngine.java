@@ -0,0 +1,32 @@
+package org.tron.trident.crypto;
+
+import org.tron.trident.crypto.tuwenitypes.Bytes;
+import org.tron.trident.crypto.tuwenitypes.Bytes32;
+
+/**
+ * The default {@link SignatureEngine}, signing with Bouncy Castle's {@code ECDSASigner} and
+ * finding the recovery id by trial key recovery.
+ */
+public class BouncyCastleSignatureEngine implements SignatureEngine {
+
+  public static final String NAME = "bouncycastle";
+
+  private static final ThreadLocal<SECP256K1.Signer> SIGNERS =
+      ThreadLocal.withInitial(SECP256K1.Signer::new);
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public SECP256K1.Signature sign(final Bytes32 dataHash, final SECP256K1.KeyPair keyPair) {
+    return SIGNERS.get().sign(dataHash, keyPair);
+  }
+
+  @Override
+  public boolean verify(final Bytes data, final SECP256K1.Signature signature,
+      final SECP256K1.PublicKey pub) {
+    return SECP256K1.verifyDefault(data, signature, pub);
+  }
+}
@@ -0,0 +1,275 @@
+package org.tron.trident.crypto;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.bouncycastle.crypto.digests.KeccakDigest;
+
+/**
+ * Keccak-256 and SHA-256 on digest instances reused per thread.
+ *
+ * <p>Creating a digest costs more than hashing the few hundred bytes of a transaction or public
+ * key, so every method here runs on an engine owned by the calling thread instead of allocating
+ * one. The {@code out} overloads write into a caller supplied array and allocate nothing.</p>
+ */
+public final class Digests {
+
+  public static final int KECCAK256_LENGTH = 32;
+  public static final int SHA256_LENGTH = 32;
+
+  private static final int SCRATCH_LENGTH = 4096;
+
+  private static final ThreadLocal<KeccakDigest> KECCAK256 =
+      ThreadLocal.withInitial(() -> new KeccakDigest(256));
+  private static final ThreadLocal<MessageDigest> SHA256 =
+      ThreadLocal.withInitial(Digests::newSha256);
+  private static final ThreadLocal<byte[]> SCRATCH =
+      ThreadLocal.withInitial(() -> new byte[SCRATCH_LENGTH]);
+
+  private Digests() {
+  }
+
+  private static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException("Couldn't find a SHA-256 provider", e);
+    }
+  }
+
+  /**
+   * Keccak-256 of {@code input}.
+   *
+   * @param input the data to hash
+   * @return the 32-byte hash
+   */
+  public static byte[] keccak256(byte[] input) {
+    return keccak256(input, 0, input.length);
+  }
+
+  /**
+   * Keccak-256 of a range of {@code input}.
+   *
+   * @param input the array containing the data to hash
+   * @param offset offset of the data
+   * @param length length of the data
+   * @return the 32-byte hash
+   */
+  public static byte[] keccak256(byte[] input, int offset, int length) {
+    byte[] out = new byte[KECCAK256_LENGTH];
+    keccak256(input, offset, length, out, 0);
+    return out;
+  }
+
+  /**
+   * Keccak-256 of a range of {@code input}, written to {@code out}.
+   *
+   * @param input the array containing the data to hash
+   * @param offset offset of the data
+   * @param length length of the data
+   * @param out receives the 32-byte hash
+   * @param outOffset offset in {@code out}
+   */
+  public static void keccak256(byte[] input, int offset, int length, byte[] out, int outOffset) {
+    KeccakDigest digest = KECCAK256.get();
+    try {
+      digest.update(input, offset, length);
+      digest.doFinal(out, outOffset);
+    } catch (RuntimeException e) {
+      digest.reset();
+      throw e;
+    }
+  }
+
+  /**
+   * Keccak-256 of the remaining bytes of {@code input}. The buffer position is advanced to its
+   * limit.
+   *
+   * @param input the data to hash
+   * @return the 32-byte hash
+   */
+  public static byte[] keccak256(ByteBuffer input) {
+    byte[] out = new byte[KECCAK256_LENGTH];
+    keccak256(input, out, 0);
+    return out;
+  }
+
+  /**
+   * Keccak-256 of the remaining bytes of {@code input}, written to {@code out}. The buffer
+   * position is advanced to its limit.
+   *
+   * @param input the data to hash
+   * @param out receives the 32-byte hash
+   * @param outOffset offset in {@code out}
+   */
+  public static void keccak256(ByteBuffer input, byte[] out, int outOffset) {
+    KeccakDigest digest = KECCAK256.get();
+    try {
+      if (input.hasArray()) {
+        digest.update(input.array(), input.arrayOffset() + input.position(), input.remaining());
+        input.position(input.limit());
+      } else {
+        byte[] scratch = SCRATCH.get();
+        while (input.hasRemaining()) {
+          int length = Math.min(scratch.length, input.remaining());
+          input.get(scratch, 0, length);
+          digest.update(scratch, 0, length);
+        }
+      }
+      digest.doFinal(out, outOffset);
+    } catch (RuntimeException e) {
+      digest.reset();
+      throw e;
+    }
+  }
+
+  /**
+   * SHA-256 of {@code input}.
+   *
+   * @param input the data to hash
+   * @return the 32-byte hash
+   */
+  public static byte[] sha256(byte[] input) {
+    return sha256(input, 0, input.length);
+  }
+
+  /**
+   * SHA-256 of a range of {@code input}.
+   *
+   * @param input the array containing the data to hash
+   * @param offset offset of the data
+   * @param length length of the data
+   * @return the 32-byte hash
+   */
+  public static byte[] sha256(byte[] input, int offset, int length) {
+    byte[] out = new byte[SHA256_LENGTH];
+    sha256(input, offset, length, out, 0);
+    return out;
+  }
+
+  /**
+   * SHA-256 of a range of {@code input}, written to {@code out}.
+   *
+   * @param input the array containing the data to hash
+   * @param offset offset of the data
+   * @param length length of the data
+   * @param out receives the 32-byte hash
+   * @param outOffset offset in {@code out}
+   */
+  public static void sha256(byte[] input, int offset, int length, byte[] out, int outOffset) {
+    MessageDigest digest = SHA256.get();
+    try {
+      digest.update(input, offset, length);
+      finish(digest, out, outOffset);
+    } catch (RuntimeException e) {
+      digest.reset();
+      throw e;
+    }
+  }
+
+  /**
+   * SHA-256 of the remaining bytes of {@code input}. The buffer position is advanced to its
+   * limit.
+   *
+   * @param input the data to hash
+   * @return the 32-byte hash
+   */
+  public static byte[] sha256(ByteBuffer input) {
+    byte[] out = new byte[SHA256_LENGTH];
+    sha256(input, out, 0);
+    return out;
+  }
+
+  /**
+   * SHA-256 of the remaining bytes of {@code input}, written to {@code out}. The buffer position
+   * is advanced to its limit.
+   *
+   * @param input the data to hash
+   * @param out receives the 32-byte hash
+   * @param outOffset offset in {@code out}
+   */
+  public static void sha256(ByteBuffer input, byte[] out, int outOffset) {
+    MessageDigest digest = SHA256.get();
+    try {
+      digest.update(input);
+      finish(digest, out, outOffset);
+    } catch (RuntimeException e) {
+      digest.reset();
+      throw e;
+    }
+  }
+
+  /**
+   * SHA-256 of the SHA-256 of a range of {@code input}, as used by Base58Check checksums.
+   *
+   * @param input the array containing the data to hash
+   * @param offset offset of the data
+   * @param length length of the data
+   * @param out receives the 32-byte hash
+   * @param outOffset offset in {@code out}
+   */
+  public static void sha256Twice(byte[] input, int offset, int length, byte[] out,
+      int outOffset) {
+    MessageDigest digest = SHA256.get();
+    try {
+      digest.update(input, offset, length);
+      finish(digest, out, outOffset);
+      digest.update(out, outOffset, SHA256_LENGTH);
+      finish(digest, out, outOffset);
+    } catch (RuntimeException e) {
+      digest.reset();
+      throw e;
+    }
+  }
+
+  /**
+   * SHA-256 of the SHA-256 of a range of {@code input}.
+   *
+   * @param input the array containing the data to hash
+   * @param offset offset of the data
+   * @param length length of the data
+   * @return the 32-byte hash
+   */
+  public static byte[] sha256Twice(byte[] input, int offset, int length) {
+    byte[] out = new byte[SHA256_LENGTH];
+    sha256Twice(input, offset, length, out, 0);
+    return out;
+  }
+
+  /**
+   * SHA-256 of the SHA-256 of two ranges, as if they were concatenated.
+   *
+   * @param input1 the array containing the first range
+   * @param offset1 offset of the first range
+   * @param length1 length of the first range
+   * @param input2 the array containing the second range
+   * @param offset2 offset of the second range
+   * @param length2 length of the second range
+   * @return the 32-byte hash
+   */
+  public static byte[] sha256Twice(byte[] input1, int offset1, int length1, byte[] input2,
+      int offset2, int length2) {
+    byte[] out = new byte[SHA256_LENGTH];
+    MessageDigest digest = SHA256.get();
+    try {
+      digest.update(input1, offset1, length1);
+      digest.update(input2, offset2, length2);
+      finish(digest, out, 0);
+      digest.update(out, 0, SHA256_LENGTH);
+      finish(digest, out, 0);
+    } catch (RuntimeException e) {
+      digest.reset();
+      throw e;
+    }
+    return out;
+  }
+
+  private static void finish(MessageDigest digest, byte[] out, int outOffset) {
+    try {
+      digest.digest(out, outOffset, SHA256_LENGTH);
+    } catch (DigestException e) {
+      throw new IllegalArgumentException("output buffer too small", e);
+    }
+  }
+}
@@ -21,7 +21,6 @@ import org.bouncycastle.crypto.digests.SHA512Digest;
 import org.bouncycastle.crypto.macs.HMac;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.jcajce.provider.digest.Blake2b;
-import org.bouncycastle.jcajce.provider.digest.Keccak;
 import org.tron.trident.utils.Numeric;
 
 /**
@@ -70,9 +69,7 @@ public class Hash {
    * @return hash value
    */
   public static byte[] sha3(byte[] input, int offset, int length) {
-    Keccak.DigestKeccak kecc = new Keccak.Digest256();
-    kecc.update(input, offset, length);
-    return kecc.digest();
+    return Digests.keccak256(input, offset, length);
   }
 
   /**
@@ -103,12 +100,7 @@ public class Hash {
    * @throws RuntimeException If we couldn't find any SHA-256 provider
    */
   public static byte[] sha256(byte[] input) {
-    try {
-      MessageDigest digest = MessageDigest.getInstance("SHA-256");
-      return digest.digest(input);
-    } catch (NoSuchAlgorithmException e) {
-      throw new RuntimeException("Couldn't find a SHA-256 provider", e);
-    }
+    return Digests.sha256(input);
   }
 
   public static byte[] hmacSha512(byte[] key, byte[] input) {
@@ -0,0 +1,100 @@
+package org.tron.trident.crypto;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Locale;
+import org.tron.trident.crypto.tuwenitypes.Bytes;
+import org.tron.trident.crypto.tuwenitypes.Bytes32;
+
+/**
+ * A {@link SignatureEngine} backed by libsecp256k1 through JNI.
+ *
+ * <p>The engine is only usable on Linux, when a JNI binding of libsecp256k1 (see
+ * {@code utils/src/main/native/secp256k1_jni.c}) can be loaded, either from the path given in the
+ * {@value #LIBRARY_PATH_PROPERTY} system property or as {@code libsecp256k1_jni.so} from
+ * {@code java.library.path}. {@link NativeSignatureEngineProvider} registers it for discovery, so
+ * it is picked up automatically whenever the library is present.</p>
+ */
+public class NativeSignatureEngine implements SignatureEngine {
+
+  public static final String NAME = "native";
+  public static final String LIBRARY_PATH_PROPERTY = "trident.secp256k1.library";
+
+  private static final String LIBRARY_NAME = "secp256k1_jni";
+  private static final boolean AVAILABLE = loadLibrary();
+
+  private static boolean loadLibrary() {
+    if (!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux")) {
+      return false;
+    }
+    try {
+      final String path = System.getProperty(LIBRARY_PATH_PROPERTY);
+      if (path != null && !path.isEmpty()) {
+        System.load(path);
+      } else {
+        System.loadLibrary(LIBRARY_NAME);
+      }
+      return true;
+    } catch (final UnsatisfiedLinkError | SecurityException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Whether the native library was loaded.
+   *
+   * @return true if this engine can be used
+   */
+  public static boolean isAvailable() {
+    return AVAILABLE;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public SECP256K1.Signature sign(final Bytes32 dataHash, final SECP256K1.KeyPair keyPair) {
+    checkAvailable();
+    final byte[] signature = signRecoverable(dataHash.toArrayUnsafe(),
+        keyPair.getPrivateKey().getEncoded());
+    if (signature == null) {
+      throw new IllegalArgumentException("libsecp256k1 rejected the private key");
+    }
+    return new SECP256K1.Signature(
+        new BigInteger(1, Arrays.copyOfRange(signature, 0, 32)),
+        new BigInteger(1, Arrays.copyOfRange(signature, 32, 64)),
+        signature[64]);
+  }
+
+  @Override
+  public boolean verify(final Bytes data, final SECP256K1.Signature signature,
+      final SECP256K1.PublicKey pub) {
+    checkAvailable();
+    if (data.size() != 32) {
+      return SECP256K1.verifyDefault(data, signature, pub);
+    }
+    final byte[] compact = signature.encodedBytes().slice(0, 64).toArray();
+    return verifyCompact(data.toArrayUnsafe(), compact, pub.getEncoded());
+  }
+
+  private static void checkAvailable() {
+    if (!AVAILABLE) {
+      throw new IllegalStateException("native secp256k1 library is not loaded");
+    }
+  }
+
+  /**
+   * Signs a 32-byte hash with a 32-byte private key.
+   *
+   * @return {@code r || s || recId}, 65 bytes, or null if the key is invalid
+   */
+  private static native byte[] signRecoverable(byte[] hash, byte[] privateKey);
+
+  /**
+   * Verifies a compact 64-byte {@code r || s} signature against an uncompressed 64-byte public
+   * key without the 0x04 prefix.
+   */
+  private static native boolean verifyCompact(byte[] hash, byte[] signature, byte[] publicKey);
+}
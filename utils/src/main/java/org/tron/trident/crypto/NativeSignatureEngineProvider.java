@@ -0,0 +1,14 @@
+package org.tron.trident.crypto;
+
+import org.tron.trident.crypto.spi.SignatureEngineProvider;
+
+/**
+ * Supplies a {@link NativeSignatureEngine} when the native library is available.
+ */
+public class NativeSignatureEngineProvider implements SignatureEngineProvider {
+
+  @Override
+  public SignatureEngine get() {
+    return NativeSignatureEngine.isAvailable() ? new NativeSignatureEngine() : null;
+  }
+}
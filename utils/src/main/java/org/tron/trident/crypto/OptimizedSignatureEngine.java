@@ -0,0 +1,108 @@
+package org.tron.trident.crypto;
+
+import static org.tron.trident.crypto.SECP256K1.CURVE;
+import static org.tron.trident.crypto.SECP256K1.HALF_CURVE_ORDER;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECMultiplier;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.util.BigIntegers;
+import org.tron.trident.crypto.tuwenitypes.Bytes;
+import org.tron.trident.crypto.tuwenitypes.Bytes32;
+
+/**
+ * A pure Java {@link SignatureEngine} that derives the recovery id directly from the nonce point.
+ *
+ * <p>{@link BouncyCastleSignatureEngine} only gets {@code (r, s)} back from Bouncy Castle and has
+ * to recover up to four candidate public keys to find the recovery id, which costs several times
+ * the signature itself. This engine computes the RFC 6979 nonce point {@code R = kG} itself, takes
+ * the recovery id from the parity of {@code R.y} and the overflow of {@code R.x}, and flips it
+ * when {@code s} is normalised to the lower half of the curve order. The resulting signatures are
+ * identical to those of {@link BouncyCastleSignatureEngine}.</p>
+ */
+public class OptimizedSignatureEngine implements SignatureEngine {
+
+  public static final String NAME = "java";
+
+  private static final ECMultiplier BASE_POINT_MULTIPLIER = new FixedPointCombMultiplier();
+
+  private static final ThreadLocal<HMacDSAKCalculator> K_CALCULATORS =
+      ThreadLocal.withInitial(() -> new HMacDSAKCalculator(new SHA256Digest()));
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public SECP256K1.Signature sign(final Bytes32 dataHash, final SECP256K1.KeyPair keyPair) {
+    final BigInteger n = CURVE.getN();
+    final BigInteger d = keyPair.getPrivateKey().getD();
+    final byte[] message = dataHash.toArrayUnsafe();
+    final BigInteger e = new BigInteger(1, message);
+
+    final HMacDSAKCalculator kCalculator = K_CALCULATORS.get();
+    kCalculator.init(n, d, message);
+
+    BigInteger r;
+    BigInteger s;
+    ECPoint p;
+    do {
+      BigInteger k;
+      do {
+        k = kCalculator.nextK();
+        p = BASE_POINT_MULTIPLIER.multiply(CURVE.getG(), k).normalize();
+        r = p.getAffineXCoord().toBigInteger().mod(n);
+      } while (r.signum() == 0);
+      s = BigIntegers.modOddInverse(n, k).multiply(e.add(d.multiply(r))).mod(n);
+    } while (s.signum() == 0);
+
+    int recId = p.getAffineYCoord().testBitZero() ? 1 : 0;
+    if (p.getAffineXCoord().toBigInteger().compareTo(n) >= 0) {
+      recId |= 2;
+    }
+    if (s.compareTo(HALF_CURVE_ORDER) > 0) {
+      // (r, n - s) is the signature of the point -R, whose y coordinate has the other parity
+      s = n.subtract(s);
+      recId ^= 1;
+    }
+    return new SECP256K1.Signature(r, s, (byte) recId);
+  }
+
+  @Override
+  public boolean verify(final Bytes data, final SECP256K1.Signature signature,
+      final SECP256K1.PublicKey pub) {
+    final BigInteger n = CURVE.getN();
+    final BigInteger r = signature.getR();
+    final BigInteger s = signature.getS();
+    if (r.signum() <= 0 || r.compareTo(n) >= 0 || s.signum() <= 0 || s.compareTo(n) >= 0) {
+      return false;
+    }
+    try {
+      final byte[] encoded = pub.getEncoded();
+      final ECPoint q = CURVE.getCurve().validatePoint(
+          new BigInteger(1, Arrays.copyOfRange(encoded, 0, 32)),
+          new BigInteger(1, Arrays.copyOfRange(encoded, 32, 64)));
+
+      BigInteger e = new BigInteger(1, data.toArrayUnsafe());
+      final int messageBitLength = data.size() * 8;
+      if (messageBitLength > n.bitLength()) {
+        e = e.shiftRight(messageBitLength - n.bitLength());
+      }
+      final BigInteger c = BigIntegers.modOddInverseVar(n, s);
+      final BigInteger u1 = e.multiply(c).mod(n);
+      final BigInteger u2 = r.multiply(c).mod(n);
+
+      final ECPoint point = ECAlgorithms.sumOfTwoMultiplies(CURVE.getG(), u1, q, u2).normalize();
+      return !point.isInfinity() && point.getAffineXCoord().toBigInteger().mod(n).equals(r);
+    } catch (final IllegalArgumentException e) {
+      // not a point on the curve
+      return false;
+    }
+  }
+}
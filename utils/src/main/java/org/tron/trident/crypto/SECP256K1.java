@@ -21,8 +21,10 @@ import java.security.KeyPairGenerator;
 import java.security.Security;
 import java.security.spec.ECGenParameterSpec;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.ServiceLoader;
 import java.util.function.UnaryOperator;
 import org.bouncycastle.asn1.sec.SECNamedCurves;
 import org.bouncycastle.asn1.x9.X9ECParameters;
@@ -41,6 +43,7 @@ import org.bouncycastle.math.ec.ECAlgorithms;
 import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.math.ec.FixedPointCombMultiplier;
 import org.bouncycastle.math.ec.custom.sec.SecP256K1Curve;
+import org.tron.trident.crypto.spi.SignatureEngineProvider;
 import org.tron.trident.crypto.tuwenitypes.Bytes;
 import org.tron.trident.crypto.tuwenitypes.Bytes32;
 import org.tron.trident.crypto.tuwenitypes.MutableBytes;
@@ -60,12 +63,19 @@ public class SECP256K1 {
   public static final String CURVE_NAME = "secp256k1";
   public static final String PROVIDER = "BC";
 
+  /**
+   * System property naming the {@link SignatureEngine} to use, see {@link #getSignatureEngine()}.
+   */
+  public static final String SIGNATURE_ENGINE_PROPERTY = "trident.signature.engine";
+
   public static final ECDomainParameters CURVE;
   public static final BigInteger HALF_CURVE_ORDER;
 
   private static final KeyPairGenerator KEY_PAIR_GENERATOR;
   private static final BigInteger CURVE_ORDER;
 
+  private static volatile SignatureEngine signatureEngine;
+
   static {
     //support android platform
     Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
@@ -89,7 +99,7 @@ public class SECP256K1 {
   }
 
   public static Signature sign(final Bytes32 dataHash, final KeyPair keyPair) {
-    return signDefault(dataHash, keyPair);
+    return getSignatureEngine().sign(dataHash, keyPair);
   }
 
   /**
@@ -104,7 +114,7 @@ public class SECP256K1 {
    * @return True if the verification is successful.
    */
   public static boolean verify(final Bytes data, final Signature signature, final PublicKey pub) {
-    return verifyDefault(data, signature, pub);
+    return getSignatureEngine().verify(data, signature, pub);
   }
 
   /**
@@ -125,6 +135,60 @@ public class SECP256K1 {
     return verify(preprocessor.apply(data), signature, pub);
   }
 
+  /**
+   * Returns the engine used by {@link #sign} and {@link #verify}.
+   *
+   * <p>Unless one was set with {@link #setSignatureEngine}, the engine named by the
+   * {@value #SIGNATURE_ENGINE_PROPERTY} system property ({@code bouncycastle}, {@code java} or
+   * {@code native}) is used. Otherwise the first {@link SignatureEngineProvider} found through
+   * {@link ServiceLoader} that supplies an engine wins, falling back to
+   * {@link BouncyCastleSignatureEngine}.</p>
+   *
+   * @return the active signature engine
+   */
+  public static SignatureEngine getSignatureEngine() {
+    SignatureEngine engine = signatureEngine;
+    if (engine == null) {
+      engine = discoverSignatureEngine();
+      signatureEngine = engine;
+    }
+    return engine;
+  }
+
+  /**
+   * Sets the engine used by {@link #sign} and {@link #verify}.
+   *
+   * @param engine the engine to use, or null to discover it again
+   */
+  public static void setSignatureEngine(final SignatureEngine engine) {
+    signatureEngine = engine;
+  }
+
+  private static SignatureEngine discoverSignatureEngine() {
+    final String name = System.getProperty(SIGNATURE_ENGINE_PROPERTY);
+    if (name != null && !name.isEmpty()) {
+      switch (name) {
+        case BouncyCastleSignatureEngine.NAME:
+          return new BouncyCastleSignatureEngine();
+        case OptimizedSignatureEngine.NAME:
+          return new OptimizedSignatureEngine();
+        case NativeSignatureEngine.NAME:
+          return new NativeSignatureEngine();
+        default:
+          throw new IllegalArgumentException("Unknown signature engine: " + name);
+      }
+    }
+    final Iterator<SignatureEngineProvider> providers =
+        ServiceLoader.load(SignatureEngineProvider.class).iterator();
+    while (providers.hasNext()) {
+      final SignatureEngine engine = providers.next().get();
+      if (engine != null) {
+        return engine;
+      }
+    }
+    return new BouncyCastleSignatureEngine();
+  }
+
   /**
    * Decompress a compressed public key (x co-ord and low-bit of y-coord).
    */
@@ -216,19 +280,6 @@ public class SECP256K1 {
     return new BigInteger(1, Arrays.copyOfRange(qBytes, 1, qBytes.length));
   }
 
-  private static Signature signDefault(final Bytes32 dataHash, final KeyPair keyPair) {
-    final ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
-
-    final ECPrivateKeyParameters privKey =
-        new ECPrivateKeyParameters(keyPair.getPrivateKey().getEncodedBytes().toUnsignedBigInteger(),
-            CURVE);
-    signer.init(true, privKey);
-
-    final BigInteger[] components = signer.generateSignature(dataHash.toArrayUnsafe());
-
-    return normaliseSignature(components[0], components[1], keyPair.getPublicKey(), dataHash);
-  }
-
   public static Signature normaliseSignature(
       final BigInteger nativeR, final BigInteger nativeS, final PublicKey publicKey,
       final Bytes32 dataHash) {
@@ -267,7 +318,7 @@ public class SECP256K1 {
     return new Signature(nativeR, s, (byte) recId);
   }
 
-  private static boolean verifyDefault(final Bytes data, final Signature signature,
+  static boolean verifyDefault(final Bytes data, final Signature signature,
       final PublicKey pub) {
     final ECDSASigner signer = new ECDSASigner();
     final Bytes toDecode = Bytes.wrap(Bytes.of((byte) 4), pub.getEncodedBytes());
@@ -538,6 +589,38 @@ public class SECP256K1 {
     }
   }
 
+  /**
+   * Reusable deterministic (RFC 6979) Bouncy Castle signing state.
+   *
+   * <p>Creating the Bouncy Castle signer, k-calculator and digest for every signature is wasted
+   * work when many hashes are signed in a row. A {@code Signer} keeps them and re-initialises them
+   * per call. Instances are not thread-safe, keep one per thread.</p>
+   *
+   * @see BouncyCastleSignatureEngine
+   */
+  static class Signer {
+
+    private final ECDSASigner signer =
+        new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+
+    /**
+     * Signs the given hash with Bouncy Castle's {@link ECDSASigner}.
+     *
+     * @param dataHash the 32-byte hash to sign
+     * @param keyPair the key pair to sign with
+     * @return the normalised, recoverable signature
+     */
+    Signature sign(final Bytes32 dataHash, final KeyPair keyPair) {
+      final ECPrivateKeyParameters privKey =
+          new ECPrivateKeyParameters(keyPair.getPrivateKey().getD(), CURVE);
+      signer.init(true, privKey);
+
+      final BigInteger[] components = signer.generateSignature(dataHash.toArrayUnsafe());
+
+      return normaliseSignature(components[0], components[1], keyPair.getPublicKey(), dataHash);
+    }
+  }
+
   public static class Signature {
 
     public static final int BYTES_REQUIRED = 65;
@@ -0,0 +1,44 @@
+package org.tron.trident.crypto;
+
+import org.tron.trident.crypto.tuwenitypes.Bytes;
+import org.tron.trident.crypto.tuwenitypes.Bytes32;
+
+/**
+ * A secp256k1 ECDSA implementation behind {@link SECP256K1#sign} and {@link SECP256K1#verify}.
+ *
+ * <p>Every engine must produce the same deterministic (RFC 6979), low-S, recoverable signature
+ * for the same hash and key, so engines can be swapped without changing any transaction id or
+ * signature. Implementations must be thread-safe.</p>
+ *
+ * @see SECP256K1#getSignatureEngine()
+ * @see org.tron.trident.crypto.spi.SignatureEngineProvider
+ */
+public interface SignatureEngine {
+
+  /**
+   * Short name of the engine, as accepted by the {@value SECP256K1#SIGNATURE_ENGINE_PROPERTY}
+   * system property.
+   *
+   * @return the engine name
+   */
+  String getName();
+
+  /**
+   * Signs a 32-byte hash.
+   *
+   * @param dataHash the hash to sign
+   * @param keyPair the key pair to sign with
+   * @return the normalised, recoverable signature
+   */
+  SECP256K1.Signature sign(Bytes32 dataHash, SECP256K1.KeyPair keyPair);
+
+  /**
+   * Verifies a signature of a hash against a public key.
+   *
+   * @param data the signed hash
+   * @param signature the signature
+   * @param pub the public key
+   * @return true if the signature is valid
+   */
+  boolean verify(Bytes data, SECP256K1.Signature signature, SECP256K1.PublicKey pub);
+}
@@ -0,0 +1,14 @@
+package org.tron.trident.crypto.spi;
+
+import java.util.function.Supplier;
+import org.tron.trident.crypto.SignatureEngine;
+
+/**
+ * Signature engine Service Provider Interface.
+ *
+ * <p>A provider may return null from {@link #get()} when its engine cannot run on the current
+ * platform, in which case the next provider is tried.</p>
+ */
+public interface SignatureEngineProvider extends Supplier<SignatureEngine> {
+
+}
@@ -12,7 +12,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.Arrays;
-import org.bouncycastle.jcajce.provider.digest.SHA256;
+import org.tron.trident.crypto.Digests;
 
 /**
  * Converts between an array of bytes and a Base58Check string. Not instantiable.
@@ -46,37 +46,24 @@ public final class Base58Check {
 
   // Returns a new byte array by concatenating the given array with its checksum.
   static byte[] addCheckHash(byte[] data) {
-    try {
-      SHA256.Digest digest = new SHA256.Digest();
-      digest.update(data);
-      byte[] hash0 = digest.digest();
-      digest.reset();
-      digest.update(hash0);
-      byte[] hash = Arrays.copyOf(digest.digest(), 4);
-      ByteArrayOutputStream buf = new ByteArrayOutputStream();
-      buf.write(data);
-      buf.write(hash);
-      return buf.toByteArray();
-    } catch (IOException e) {
-      throw new AssertionError(e);
-    }
+    byte[] hash = new byte[Digests.SHA256_LENGTH];
+    Digests.sha256Twice(data, 0, data.length, hash, 0);
+    byte[] result = Arrays.copyOf(data, data.length + 4);
+    System.arraycopy(hash, 0, result, data.length, 4);
+    return result;
   }
 
   // Converts the given Base58Check string to a byte array, verifies the checksum, and removes the
   // checksum to return the payload. The caller is responsible for handling the version byte(s).
   public static byte[] base58ToBytes(String s) {
     byte[] concat = base58ToRawBytes(s);
+    if (concat.length < 4) {
+      throw new IllegalArgumentException("Input too short");
+    }
     byte[] data = Arrays.copyOf(concat, concat.length - 4);
-    byte[] hash = Arrays.copyOfRange(concat, concat.length - 4, concat.length);
-
-    SHA256.Digest digest = new SHA256.Digest();
-    digest.update(data);
-    byte[] hash0 = digest.digest();
-    digest.reset();
-    digest.update(hash0);
-
-    byte[] rehash = Arrays.copyOf(digest.digest(), 4);
-    if (!Arrays.equals(rehash, hash)) {
+    byte[] rehash = Digests.sha256Twice(data, 0, data.length);
+    if (rehash[0] != concat[data.length] || rehash[1] != concat[data.length + 1]
+        || rehash[2] != concat[data.length + 2] || rehash[3] != concat[data.length + 3]) {
       throw new IllegalArgumentException("Checksum mismatch");
     }
     return data;
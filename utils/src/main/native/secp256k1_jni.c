@@ -0,0 +1,84 @@
+/*
+ * JNI binding of libsecp256k1 for org.tron.trident.crypto.NativeSignatureEngine.
+ *
+ * libsecp256k1 must be built with the recovery module (--enable-module-recovery). Build with:
+ *
+ *   gcc -O2 -shared -fPIC -I"$JAVA_HOME/include" -I"$JAVA_HOME/include/linux" \
+ *       secp256k1_jni.c -lsecp256k1 -o libsecp256k1_jni.so
+ *
+ * and put the library on java.library.path, or point -Dtrident.secp256k1.library at it.
+ */
+
+#include <jni.h>
+#include <string.h>
+#include <secp256k1.h>
+#include <secp256k1_recovery.h>
+
+static secp256k1_context *ctx;
+
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
+  ctx = secp256k1_context_create(SECP256K1_CONTEXT_SIGN | SECP256K1_CONTEXT_VERIFY);
+  return ctx == NULL ? JNI_ERR : JNI_VERSION_1_8;
+}
+
+JNIEXPORT jbyteArray JNICALL
+Java_org_tron_trident_crypto_NativeSignatureEngine_signRecoverable(
+    JNIEnv *env, jclass clazz, jbyteArray hash, jbyteArray privateKey) {
+  unsigned char msg[32];
+  unsigned char seckey[32];
+  unsigned char out[65];
+  secp256k1_ecdsa_recoverable_signature sig;
+  int recid;
+  int ok;
+  jbyteArray result;
+
+  if ((*env)->GetArrayLength(env, hash) != 32
+      || (*env)->GetArrayLength(env, privateKey) != 32) {
+    return NULL;
+  }
+  (*env)->GetByteArrayRegion(env, hash, 0, 32, (jbyte *) msg);
+  (*env)->GetByteArrayRegion(env, privateKey, 0, 32, (jbyte *) seckey);
+
+  /* The default nonce function is RFC 6979 and the result already has a low s. */
+  ok = secp256k1_ecdsa_sign_recoverable(ctx, &sig, msg, seckey, NULL, NULL);
+  memset(seckey, 0, sizeof(seckey));
+  if (!ok) {
+    return NULL;
+  }
+  secp256k1_ecdsa_recoverable_signature_serialize_compact(ctx, out, &recid, &sig);
+  out[64] = (unsigned char) recid;
+
+  result = (*env)->NewByteArray(env, 65);
+  if (result != NULL) {
+    (*env)->SetByteArrayRegion(env, result, 0, 65, (const jbyte *) out);
+  }
+  return result;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_tron_trident_crypto_NativeSignatureEngine_verifyCompact(
+    JNIEnv *env, jclass clazz, jbyteArray hash, jbyteArray signature, jbyteArray publicKey) {
+  unsigned char msg[32];
+  unsigned char compact[64];
+  unsigned char pub[65];
+  secp256k1_pubkey pubkey;
+  secp256k1_ecdsa_signature sig;
+
+  if ((*env)->GetArrayLength(env, hash) != 32
+      || (*env)->GetArrayLength(env, signature) != 64
+      || (*env)->GetArrayLength(env, publicKey) != 64) {
+    return JNI_FALSE;
+  }
+  (*env)->GetByteArrayRegion(env, hash, 0, 32, (jbyte *) msg);
+  (*env)->GetByteArrayRegion(env, signature, 0, 64, (jbyte *) compact);
+  pub[0] = 0x04;
+  (*env)->GetByteArrayRegion(env, publicKey, 0, 64, (jbyte *) (pub + 1));
+
+  if (!secp256k1_ec_pubkey_parse(ctx, &pubkey, pub, sizeof(pub))
+      || !secp256k1_ecdsa_signature_parse_compact(ctx, &sig, compact)) {
+    return JNI_FALSE;
+  }
+  /* Trident accepts high-s signatures, libsecp256k1 only verifies normalized ones. */
+  secp256k1_ecdsa_signature_normalize(ctx, &sig, &sig);
+  return secp256k1_ecdsa_verify(ctx, &sig, msg, &pubkey) ? JNI_TRUE : JNI_FALSE;
+}
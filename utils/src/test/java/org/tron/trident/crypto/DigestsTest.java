@@ -0,0 +1,60 @@
+package org.tron.trident.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import org.bouncycastle.jcajce.provider.digest.Keccak;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+
+class DigestsTest {
+
+  @Test
+  void testKnownValues() {
+    byte[] abc = "abc".getBytes(StandardCharsets.US_ASCII);
+    assertEquals("4e03657aea45a94fc7d47ba826c8d667c0d1e6e33a64a036ec44f58fa12d6c45",
+        Hex.toHexString(Digests.keccak256(abc)));
+    assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+        Hex.toHexString(Digests.sha256(abc)));
+  }
+
+  @Test
+  void testOverloadsMatchFreshDigests() throws Exception {
+    Random random = new Random(7);
+    for (int length : new int[] {0, 1, 135, 136, 137, 5000, 10000}) {
+      byte[] data = new byte[length + 10];
+      random.nextBytes(data);
+
+      Keccak.Digest256 keccak = new Keccak.Digest256();
+      keccak.update(data, 5, length);
+      byte[] expectedKeccak = keccak.digest();
+      MessageDigest sha = MessageDigest.getInstance("SHA-256");
+      sha.update(data, 5, length);
+      byte[] expectedSha = sha.digest();
+
+      assertArrayEquals(expectedKeccak, Digests.keccak256(data, 5, length));
+      assertArrayEquals(expectedSha, Digests.sha256(data, 5, length));
+      assertArrayEquals(sha.digest(expectedSha), Digests.sha256Twice(data, 5, length));
+      assertArrayEquals(sha.digest(expectedSha),
+          Digests.sha256Twice(data, 5, length / 2, data, 5 + length / 2, length - length / 2));
+
+      byte[] out = new byte[40];
+      Digests.keccak256(data, 5, length, out, 8);
+      assertArrayEquals(expectedKeccak, Arrays.copyOfRange(out, 8, 40));
+
+      ByteBuffer direct = ByteBuffer.allocateDirect(length);
+      direct.put(data, 5, length).flip();
+      assertArrayEquals(expectedKeccak, Digests.keccak256(direct));
+      assertEquals(direct.limit(), direct.position());
+      direct.rewind();
+      assertArrayEquals(expectedSha, Digests.sha256(direct));
+      assertArrayEquals(expectedKeccak,
+          Digests.keccak256(ByteBuffer.wrap(data, 5, length).slice()));
+    }
+  }
+}
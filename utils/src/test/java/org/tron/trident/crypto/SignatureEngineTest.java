@@ -0,0 +1,86 @@
+package org.tron.trident.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.tron.trident.crypto.tuwenitypes.Bytes;
+import org.tron.trident.crypto.tuwenitypes.Bytes32;
+
+class SignatureEngineTest {
+
+  private static List<SignatureEngine> engines() {
+    List<SignatureEngine> engines = new ArrayList<>();
+    engines.add(new BouncyCastleSignatureEngine());
+    engines.add(new OptimizedSignatureEngine());
+    if (NativeSignatureEngine.isAvailable()) {
+      engines.add(new NativeSignatureEngine());
+    }
+    return engines;
+  }
+
+  @AfterEach
+  void resetEngine() {
+    SECP256K1.setSignatureEngine(null);
+  }
+
+  @Test
+  void testEnginesProduceIdenticalSignatures() {
+    SecureRandom random = new SecureRandom();
+    SignatureEngine reference = new BouncyCastleSignatureEngine();
+    List<SignatureEngine> engines = engines();
+    for (int i = 0; i < 200; i++) {
+      SECP256K1.KeyPair keyPair = SECP256K1.KeyPair.generate();
+      byte[] hash = new byte[32];
+      random.nextBytes(hash);
+      Bytes32 dataHash = Bytes32.wrap(hash);
+
+      SECP256K1.Signature expected = reference.sign(dataHash, keyPair);
+      for (SignatureEngine engine : engines) {
+        SECP256K1.Signature actual = engine.sign(dataHash, keyPair);
+        assertEquals(expected.encodedBytes(), actual.encodedBytes(), engine.getName());
+        assertEquals(keyPair.getPublicKey(),
+            SECP256K1.PublicKey.recoverFromSignature(dataHash, actual).get(), engine.getName());
+      }
+    }
+  }
+
+  @Test
+  void testEnginesCrossVerify() {
+    SECP256K1.KeyPair keyPair = SECP256K1.KeyPair.generate();
+    SECP256K1.KeyPair other = SECP256K1.KeyPair.generate();
+    Bytes32 dataHash = Bytes32.wrap(Hash.sha3(Bytes.of(1, 2, 3).toArrayUnsafe()));
+    List<SignatureEngine> engines = engines();
+    for (SignatureEngine signer : engines) {
+      SECP256K1.Signature signature = signer.sign(dataHash, keyPair);
+      for (SignatureEngine verifier : engines) {
+        String names = signer.getName() + "/" + verifier.getName();
+        assertTrue(verifier.verify(dataHash, signature, keyPair.getPublicKey()), names);
+        assertFalse(verifier.verify(dataHash, signature, other.getPublicKey()), names);
+      }
+    }
+  }
+
+  @Test
+  void testSetSignatureEngine() {
+    SignatureEngine engine = new OptimizedSignatureEngine();
+    SECP256K1.setSignatureEngine(engine);
+    assertSame(engine, SECP256K1.getSignatureEngine());
+
+    SECP256K1.KeyPair keyPair = SECP256K1.KeyPair.generate();
+    Bytes32 dataHash = Bytes32.wrap(new byte[32]);
+    assertTrue(SECP256K1.verify(dataHash, SECP256K1.sign(dataHash, keyPair),
+        keyPair.getPublicKey()));
+
+    SECP256K1.setSignatureEngine(null);
+    String expected = NativeSignatureEngine.isAvailable()
+        ? NativeSignatureEngine.NAME : BouncyCastleSignatureEngine.NAME;
+    assertEquals(expected, SECP256K1.getSignatureEngine().getName());
+  }
+}